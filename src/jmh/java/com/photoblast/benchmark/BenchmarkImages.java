@@ -0,0 +1,71 @@
+package com.photoblast.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Generates deterministic, photo-like test images for benchmarks.
+ * <p>
+ * Images combine smooth gradients, periodic detail and low-amplitude noise so
+ * that codecs see roughly the entropy of a real photograph rather than a flat fill.
+ * </p>
+ */
+final class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * Writes a 4:3 image of approximately the given resolution.
+     *
+     * @param directory  directory to write into
+     * @param megapixels target resolution in megapixels
+     * @param format     ImageIO format name, e.g. {@code jpg} or {@code png}
+     * @return path of the written file
+     * @throws IOException if the image cannot be written
+     */
+    static Path write(Path directory, int megapixels, String format) throws IOException {
+        BufferedImage image = generate(megapixels);
+        Path path = directory.resolve("source-" + megapixels + "mp." + format);
+        if (!ImageIO.write(image, format, path.toFile())) {
+            throw new IOException("No image writer available for format: " + format);
+        }
+        return path;
+    }
+
+    /**
+     * Generates a 4:3 RGB image of approximately the given resolution.
+     *
+     * @param megapixels target resolution in megapixels
+     * @return the generated image
+     */
+    static BufferedImage generate(int megapixels) {
+        int width = (int) Math.sqrt(megapixels * 1_000_000.0 * 4 / 3);
+        int height = width * 3 / 4;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int y = 0; y < height; y++) {
+            double fy = (double) y / height;
+            for (int x = 0; x < width; x++) {
+                double fx = (double) x / width;
+                double detail = Math.sin(x * 0.05) * Math.cos(y * 0.03) * 24;
+                int noise = random.nextInt(9) - 4;
+                int r = clamp((int) (fx * 200 + detail) + noise + 30);
+                int g = clamp((int) (fy * 180 - detail) + noise + 40);
+                int b = clamp((int) ((1 - fx) * fy * 220 + detail / 2) + noise + 20);
+                pixels[y * width + x] = (r << 16) | (g << 8) | b;
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,116 @@
+package com.photoblast.benchmark;
+
+import com.photoblast.image.ImageScaler;
+import com.photoblast.image.PixelBufferPool;
+import com.photoblast.image.ResampleFilter;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.coobird.thumbnailator.Thumbnails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded downscaling with Thumbnailator and with the {@link ImageScaler} kernels.
+ * <p>
+ * The scaler runs on one thread so that the scores compare the resampling kernels rather
+ * than the band parallelism; {@link ImageServiceBenchmark} covers the full pipeline. Before
+ * measuring, the output of the scaler is compared with Thumbnailator's and the trial fails
+ * if the mean absolute difference per channel exceeds {@link #MAX_MEAN_DIFFERENCE} levels.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class ImageScalerBenchmark {
+
+    static final double MAX_MEAN_DIFFERENCE = 3.0;
+
+    /** {@code thumbnailator}, or the {@link ImageScaler} with the {@code scalar} or {@code vector} kernel */
+    @Param({"thumbnailator", "scalar", "vector"})
+    public String scaler;
+
+    @Param({"AREA_AVERAGE", "BICUBIC"})
+    public ResampleFilter filter;
+
+    @Param({"12", "48"})
+    public int megapixels;
+
+    @Param({"1920"})
+    public int targetWidth;
+
+    private BufferedImage source;
+    private Dimension size;
+    private PixelBufferPool bufferPool;
+    private ImageScaler imageScaler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = BenchmarkImages.generate(megapixels);
+        size = ImageScaler.fit(source.getWidth(), source.getHeight(), targetWidth, targetWidth);
+        bufferPool = new PixelBufferPool(1L << 30, true, false, new PhotoMetrics(new SimpleMeterRegistry()));
+        imageScaler = new ImageScaler(1, 0, "vector".equals(scaler), bufferPool);
+        if (!"thumbnailator".equals(scaler)) {
+            if (!imageScaler.getKernelName().startsWith(scaler)) {
+                throw new IllegalStateException("Requested " + scaler + " kernel, got " + imageScaler.getKernelName());
+            }
+            double difference = meanDifference(scale(), thumbnailator());
+            System.out.printf("%n%s %s vs thumbnailator: mean difference %.3f levels%n", scaler, filter, difference);
+            if (difference > MAX_MEAN_DIFFERENCE) {
+                throw new IllegalStateException("Output differs from Thumbnailator by " + difference + " levels");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        imageScaler.close();
+    }
+
+    @Benchmark
+    public BufferedImage downscale() throws IOException {
+        return "thumbnailator".equals(scaler) ? thumbnailator() : scale();
+    }
+
+    private BufferedImage scale() {
+        try (PixelBufferPool.Scope scope = bufferPool.open()) {
+            return imageScaler.scale(source, size.width, size.height, filter, scope);
+        }
+    }
+
+    private BufferedImage thumbnailator() throws IOException {
+        return Thumbnails.of(source).size(size.width, size.height).asBufferedImage();
+    }
+
+    private static double meanDifference(BufferedImage a, BufferedImage b) {
+        long total = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    total += Math.abs(((p >> shift) & 0xFF) - ((q >> shift) & 0xFF));
+                }
+            }
+        }
+        return (double) total / ((long) a.getWidth() * a.getHeight() * 3);
+    }
+}
@@ -0,0 +1,168 @@
+package com.photoblast.benchmark;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.enums.ProcessingTask;
+import com.photoblast.image.ImageScaler;
+import com.photoblast.image.PixelBufferPool;
+import com.photoblast.image.ResampleFilter;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.service.ImageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link ImageServiceImpl} tasks across source formats and resolutions.
+ * <p>
+ * Each of {@code resize}, {@code watermark} and {@code thumbnail} runs one preset output
+ * per job; {@code allTasks} produces all three from a single job, which reads and decodes
+ * the source once. Comparing its score with the three single-output scores shows what the
+ * shared decode saves.
+ * </p>
+ * <p>
+ * Run with the GC profiler (the default in the {@code benchmark} Maven profile) to get
+ * allocation rate per operation. The {@code outputBytes} secondary result is the encoded
+ * output size produced per second; dividing by the primary score gives bytes per operation.
+ * Comparing {@code gc.alloc.rate.norm} across {@code poolMaxBytes} shows what the buffer
+ * pool saves per task.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ImageServiceBenchmark {
+
+    private static final String PHOTO_ID = "benchmark";
+
+    @Param({"jpg", "png"})
+    public String format;
+
+    @Param({"1", "12", "48"})
+    public int megapixels;
+
+    /** Whether resize and thumbnail downscales run on the parallel {@link ImageScaler} instead of Thumbnailator */
+    @Param({"false", "true"})
+    public boolean parallelScale;
+
+    /** Idle buffers the {@link PixelBufferPool} keeps for reuse; 0 allocates every buffer afresh */
+    @Param({"0", "268435456"})
+    public long poolMaxBytes;
+
+    private Path workDir;
+    private Path sourcePath;
+    private Path processedDir;
+    private Path thumbnailDir;
+    private ImageScaler imageScaler;
+    private ImageServiceImpl imageService;
+    private ProcessingPipeline resizePipeline;
+    private ProcessingPipeline watermarkPipeline;
+    private ProcessingPipeline thumbnailPipeline;
+    private ProcessingPipeline allTasksPipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("photoblast-jmh");
+        processedDir = workDir.resolve("processed");
+        thumbnailDir = workDir.resolve("thumbnails");
+        sourcePath = BenchmarkImages.write(workDir, megapixels, format);
+
+        Path watermarkPath = workDir.resolve("watermark.png");
+        ImageIO.write(BenchmarkImages.generate(1).getSubimage(0, 0, 400, 120), "png",
+                watermarkPath.toFile());
+
+        ImageProperties properties = new ImageProperties();
+        ReflectionTestUtils.setField(properties, "processedDir", processedDir.toString());
+        ReflectionTestUtils.setField(properties, "thumbnailDir", thumbnailDir.toString());
+        ReflectionTestUtils.setField(properties, "resizeWidth", 1920);
+        ReflectionTestUtils.setField(properties, "resizeHeight", 1080);
+        ReflectionTestUtils.setField(properties, "thumbnailWidth", 200);
+        ReflectionTestUtils.setField(properties, "thumbnailHeight", 200);
+        ReflectionTestUtils.setField(properties, "watermarkPath", watermarkPath.toString());
+        ReflectionTestUtils.setField(properties, "watermarkOpacity", 0.3f);
+        ReflectionTestUtils.setField(properties, "resizeFilter", ResampleFilter.BICUBIC);
+        ReflectionTestUtils.setField(properties, "thumbnailFilter", ResampleFilter.AREA_AVERAGE);
+
+        PhotoMetrics photoMetrics = new PhotoMetrics(new SimpleMeterRegistry());
+        PixelBufferPool bufferPool = new PixelBufferPool(poolMaxBytes, true, false, photoMetrics);
+        imageScaler = new ImageScaler(0, parallelScale ? 0 : Long.MAX_VALUE, true, bufferPool);
+        PipelinePresets presets = new PipelinePresets(properties);
+        imageService = new ImageServiceImpl(properties, photoMetrics, imageScaler, bufferPool, presets);
+        resizePipeline = presets.of(List.of(ProcessingTask.RESIZE));
+        watermarkPipeline = presets.of(List.of(ProcessingTask.WATERMARK));
+        thumbnailPipeline = presets.of(List.of(ProcessingTask.THUMBNAIL));
+        allTasksPipeline = presets.of(List.of(ProcessingTask.values()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        imageScaler.close();
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public void resize(OutputCounters counters) throws IOException {
+        imageService.process(sourcePath.toString(), PHOTO_ID, resizePipeline);
+        counters.outputBytes += Files.size(processedDir.resolve(PHOTO_ID + "_resized." + format));
+    }
+
+    @Benchmark
+    public void watermark(OutputCounters counters) throws IOException {
+        imageService.process(sourcePath.toString(), PHOTO_ID, watermarkPipeline);
+        counters.outputBytes += Files.size(processedDir.resolve(PHOTO_ID + "_watermarked." + format));
+    }
+
+    @Benchmark
+    public void thumbnail(OutputCounters counters) throws IOException {
+        imageService.process(sourcePath.toString(), PHOTO_ID, thumbnailPipeline);
+        counters.outputBytes += Files.size(thumbnailDir.resolve(PHOTO_ID + "_thumb." + format));
+    }
+
+    @Benchmark
+    public void allTasks(OutputCounters counters) throws IOException {
+        imageService.process(sourcePath.toString(), PHOTO_ID, allTasksPipeline);
+        counters.outputBytes += Files.size(processedDir.resolve(PHOTO_ID + "_resized." + format))
+                + Files.size(processedDir.resolve(PHOTO_ID + "_watermarked." + format))
+                + Files.size(thumbnailDir.resolve(PHOTO_ID + "_thumb." + format));
+    }
+
+    /**
+     * Secondary result tracking the encoded output size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class OutputCounters {
+
+        public long outputBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputBytes = 0;
+        }
+    }
+}
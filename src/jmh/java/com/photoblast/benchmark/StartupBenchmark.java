@@ -0,0 +1,197 @@
+package com.photoblast.benchmark;
+
+import com.photoblast.config.TransportProperties;
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.transport.EmbeddedJobTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching a backend JVM until it has processed the first job of a backlog.
+ * <p>
+ * This is how long a worker added by autoscaling takes to contribute. Before each launch a
+ * 12 MP photo is stored and a thumbnail job for it is left pending in a fresh embedded-transport
+ * journal, which the new process replays once its context is started. The score ends when
+ * the thumbnail is written, so it covers JVM startup, context refresh, the first decode and
+ * the JIT-cold first encode.
+ * </p>
+ * <p>
+ * {@code launch} compares the ways of starting the packaged application: {@code jar} runs the
+ * executable jar as the image did before, {@code aot} runs the extracted jar with the
+ * generated Spring AOT initializers, and {@code aot-cds} additionally maps the class-data
+ * sharing archive written by a training run, as the image does now. The jar must be packaged
+ * with the {@code aot} profile for the embedded transport; see the {@code startup-benchmark}
+ * Maven profile. Redis and RabbitMQ are not needed.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String AOT_INITIALIZER =
+            "BOOT-INF/classes/com/photoblast/PhotoBlastApplication__ApplicationContextInitializer.class";
+    private static final String PHOTO_ID = "startup";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({"jar", "aot", "aot-cds"})
+    public String launch;
+
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private Path workDir;
+    private Path executableJar;
+    private Path extractedJar;
+    private Path archive;
+    private Path runDir;
+    private Path thumbnail;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        executableJar = packagedJar();
+        try (JarFile jar = new JarFile(executableJar.toFile())) {
+            if (jar.getEntry(AOT_INITIALIZER) == null) {
+                throw new IllegalStateException(executableJar + " was not packaged with the aot profile");
+            }
+        }
+        workDir = Files.createTempDirectory("photoblast-startup");
+        Path extractDir = workDir.resolve("app");
+        run(List.of(java, "-Djarmode=tools", "-jar", executableJar.toString(),
+                "extract", "--destination", extractDir.toString()));
+        try (Stream<Path> files = Files.list(extractDir)) {
+            extractedJar = files.filter(file -> file.toString().endsWith(".jar")).findFirst().orElseThrow();
+        }
+
+        if ("aot-cds".equals(launch)) {
+            archive = workDir.resolve("app.jsa");
+            Path trainingDir = Files.createDirectories(workDir.resolve("training"));
+            List<String> training = new ArrayList<>(List.of(java, "--add-modules", "jdk.incubator.vector",
+                    "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.aot.enabled=true",
+                    "-Dspring.context.exit=onRefresh", "-jar", extractedJar.toString()));
+            training.addAll(applicationArguments(trainingDir));
+            run(training);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void seedBacklog() throws IOException {
+        runDir = Files.createTempDirectory(workDir, "run");
+        Path photo = BenchmarkImages.write(Files.createDirectories(runDir.resolve("uploads")), 12, "jpg");
+        thumbnail = runDir.resolve("thumbnails").resolve(PHOTO_ID + "_thumb.jpg");
+
+        TransportProperties properties = new TransportProperties();
+        ReflectionTestUtils.setField(properties, "embeddedDir", runDir.resolve("journal").toString());
+        ReflectionTestUtils.setField(properties, "embeddedCapacity", 1);
+        ReflectionTestUtils.setField(properties, "embeddedConsumers", 0);
+        ReflectionTestUtils.setField(properties, "embeddedSegmentSizeMb", 1);
+        ReflectionTestUtils.setField(properties, "embeddedFsync", true);
+        EmbeddedJobTransport transport = new EmbeddedJobTransport(properties, null, JsonMapper.builder().build());
+        transport.start();
+        transport.publish(PhotoProcessingJob.create(PHOTO_ID, photo.toString(), new ProcessingPipeline(List.of(
+                new OutputSpec("thumb", OutputLocation.THUMBNAILS,
+                        List.of(new ImageOperation.Resize(200, 200, null)), null, null)))));
+        transport.stop();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopProcess() throws IOException, InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        FileSystemUtils.deleteRecursively(runDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public long firstProcessedJob() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(java, "--add-modules", "jdk.incubator.vector"));
+        switch (launch) {
+            case "jar" -> command.addAll(List.of("-jar", executableJar.toString()));
+            case "aot" -> command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", extractedJar.toString()));
+            case "aot-cds" -> command.addAll(List.of("-XX:SharedArchiveFile=" + archive,
+                    "-Dspring.aot.enabled=true", "-jar", extractedJar.toString()));
+            default -> throw new IllegalArgumentException("Unknown launch: " + launch);
+        }
+        command.addAll(applicationArguments(runDir));
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(runDir.resolve("application.log").toFile())
+                .start();
+
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!Files.exists(thumbnail) || Files.size(thumbnail) == 0) {
+            if (!process.isAlive() || System.nanoTime() > deadline) {
+                throw new IllegalStateException("No job processed, see " + runDir.resolve("application.log"));
+            }
+            Thread.sleep(5);
+        }
+        return Files.size(thumbnail);
+    }
+
+    /**
+     * Runs the application with all roles on the embedded transport, storing under the given directory.
+     */
+    private static List<String> applicationArguments(Path dir) {
+        return List.of(
+                "--server.port=0",
+                "--photoblast.transport.type=embedded",
+                "--photoblast.transport.embedded.dir=" + dir.resolve("journal"),
+                "--photoblast.storage.upload-dir=" + dir.resolve("uploads"),
+                "--photoblast.storage.processed-dir=" + dir.resolve("processed"),
+                "--photoblast.storage.thumbnail-dir=" + dir.resolve("thumbnails"),
+                "--photoblast.checkpoint.enabled=false",
+                "--photoblast.dedup.enabled=false");
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("target"))) {
+            return files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No packaged jar in target, run the package phase"));
+        }
+    }
+
+    private void run(List<String> command) throws IOException, InterruptedException {
+        Process step = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        if (!step.waitFor(TIMEOUT.toSeconds(), TimeUnit.SECONDS) || step.exitValue() != 0) {
+            step.destroyForcibly();
+            throw new IllegalStateException("Command failed: " + String.join(" ", command));
+        }
+    }
+}
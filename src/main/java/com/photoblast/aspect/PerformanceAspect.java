@@ -1,37 +1,59 @@
 package com.photoblast.aspect;
 
+import com.photoblast.config.RoleProperties;
+import com.photoblast.metrics.PhotoMetrics;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
- * Aspect for measuring and logging the execution time of controller methods.
+ * Aspect for measuring the execution time of controller methods.
+ * <p>
+ * Timings are recorded as a Micrometer timer tagged by controller, method and
+ * outcome, and exposed through the Actuator metrics and Prometheus endpoints.
+ * The same advice logs each call at DEBUG, so controller calls pass through a
+ * single interceptor.
+ * </p>
  */
 @Aspect
 @Component
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
 public class PerformanceAspect {
 
     private static final Logger log = LoggerFactory.getLogger(PerformanceAspect.class);
 
+    private final PhotoMetrics photoMetrics;
+
+    public PerformanceAspect(PhotoMetrics photoMetrics) {
+        this.photoMetrics = photoMetrics;
+    }
+
     @Pointcut("within(@org.springframework.web.bind.annotation.RestController *)")
     public void controllerMethods() {}
 
     @Around("controllerMethods()")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+    public Object recordExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
         String className = joinPoint.getTarget().getClass().getSimpleName();
         String methodName = joinPoint.getSignature().getName();
+        String outcome = PhotoMetrics.OUTCOME_FAILURE;
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
-            return joinPoint.proceed();
+            Object result = joinPoint.proceed();
+            outcome = PhotoMetrics.OUTCOME_SUCCESS;
+            return result;
         } finally {
-            long executionTime = System.currentTimeMillis() - startTime;
-            log.info("PERFORMANCE: {}.{} executed in {} ms", className, methodName, executionTime);
+            long elapsed = System.nanoTime() - startTime;
+            photoMetrics.recordController(className, methodName, outcome, elapsed);
+            if (log.isDebugEnabled()) {
+                log.debug("{}.{} finished: outcome={}, durationMs={}", className, methodName, outcome, elapsed / 1_000_000);
+            }
         }
     }
 }
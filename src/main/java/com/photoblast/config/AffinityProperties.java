@@ -0,0 +1,103 @@
+package com.photoblast.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Configuration properties for routing jobs to the node that stored their original.
+ * <p>
+ * Maps properties from application.yml under the {@code photoblast.affinity} prefix. With
+ * affinity enabled, every node declares a processing queue of its own, named after the
+ * shared processing queue and its node id. Jobs are tagged with the node that stored the
+ * upload and published to that node's queue, from which only workers on the same node
+ * consume, so originals are read from local disk. Jobs waiting longer than
+ * {@code fallback-after-ms}, or pushed out once more than {@code max-node-backlog} are
+ * waiting, are dead-lettered by the broker into the shared queue, which all workers consume.
+ * Both limits are arguments of the durable node queue, which the broker fixes when the queue is
+ * first declared: to change them, delete the node queues so that they are declared anew.
+ * Only applies to the RabbitMQ transport.
+ * </p>
+ */
+@Getter
+@Configuration
+public class AffinityProperties {
+
+    /** Whether jobs are routed to the node that stored their original */
+    public static final String ENABLED = "photoblast.affinity.enabled";
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final String nodeQueue;
+    private final String sharedQueue;
+    private final String sharedRoutingKey;
+    private final int fallbackAfterMs;
+    private final int maxNodeBacklog;
+
+    /**
+     * Constructs the affinity properties and derives the name of this node's queue.
+     * <p>
+     * The fallback and backlog limits are bound as ints because the broker takes them as
+     * 32-bit queue arguments, so a value out of range fails at startup instead of wrapping.
+     * </p>
+     *
+     * @param enabled          whether affinity routing is enabled
+     * @param nodeId           id of the storage this node writes uploads to; the host name if blank
+     *                         and affinity is enabled
+     * @param sharedQueue      name of the shared processing queue
+     * @param sharedRoutingKey routing key of the shared processing queue
+     * @param fallbackAfterMs  time a job waits in a node queue before it moves to the shared queue
+     * @param maxNodeBacklog   jobs waiting in a node queue beyond which the oldest move to the shared queue
+     * @throws IllegalStateException if affinity is enabled and a limit is not positive
+     */
+    public AffinityProperties(@Value("${" + ENABLED + ":false}") boolean enabled,
+                              @Value("${photoblast.affinity.node-id:}") String nodeId,
+                              @Value("${photoblast.rabbitmq.queue.photo-process}") String sharedQueue,
+                              @Value("${photoblast.rabbitmq.routing-key.photo-process}") String sharedRoutingKey,
+                              @Value("${photoblast.affinity.fallback-after-ms:30000}") int fallbackAfterMs,
+                              @Value("${photoblast.affinity.max-node-backlog:1000}") int maxNodeBacklog) {
+        if (enabled && fallbackAfterMs <= 0) {
+            throw new IllegalStateException("photoblast.affinity.fallback-after-ms must be positive: " + fallbackAfterMs);
+        }
+        if (enabled && maxNodeBacklog <= 0) {
+            throw new IllegalStateException("photoblast.affinity.max-node-backlog must be positive: " + maxNodeBacklog);
+        }
+        this.enabled = enabled;
+        this.fallbackAfterMs = fallbackAfterMs;
+        this.maxNodeBacklog = maxNodeBacklog;
+        this.nodeId = enabled && nodeId.isBlank() ? hostName() : nodeId;
+        this.sharedQueue = sharedQueue;
+        this.sharedRoutingKey = sharedRoutingKey;
+        this.nodeQueue = sharedQueue + "." + this.nodeId;
+    }
+
+    /**
+     * Returns the routing key of a node's processing queue.
+     *
+     * @param node the node id
+     * @return the routing key binding the node's queue to the photo exchange
+     */
+    public String routingKey(String node) {
+        return sharedRoutingKey + "." + node;
+    }
+
+    /**
+     * Returns the queues local workers consume, this node's queue first if affinity is enabled.
+     *
+     * @return the queue names
+     */
+    public String[] getListenerQueues() {
+        return enabled ? new String[]{nodeQueue, sharedQueue} : new String[]{sharedQueue};
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve host name, set photoblast.affinity.node-id", e);
+        }
+    }
+}
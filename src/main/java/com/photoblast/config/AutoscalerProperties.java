@@ -0,0 +1,53 @@
+package com.photoblast.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the RabbitMQ listener autoscaler.
+ * <p>
+ * Maps properties from application.yml under the {@code photoblast.autoscaler} prefix.
+ * See {@link com.photoblast.transport.ListenerAutoscaler}.
+ * </p>
+ */
+@Getter
+@Configuration
+public class AutoscalerProperties {
+
+    @Value("${photoblast.autoscaler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${photoblast.autoscaler.min-consumers:1}")
+    private int minConsumers;
+
+    @Value("${photoblast.autoscaler.max-consumers:16}")
+    private int maxConsumers;
+
+    /** Consumers added at most per adjustment; removal is always one at a time */
+    @Value("${photoblast.autoscaler.max-step:2}")
+    private int maxStep;
+
+    /** Time within which the current backlog should be drained */
+    @Value("${photoblast.autoscaler.target-drain-seconds:60}")
+    private int targetDrainSeconds;
+
+    /** Consumer utilization below which an empty queue lets the autoscaler remove a consumer */
+    @Value("${photoblast.autoscaler.idle-utilization:0.3}")
+    private double idleUtilization;
+
+    /** System CPU load from which no consumers are added */
+    @Value("${photoblast.autoscaler.max-cpu:0.85}")
+    private double maxCpu;
+
+    /** Fraction of free heap below which a consumer is removed */
+    @Value("${photoblast.autoscaler.min-free-heap:0.15}")
+    private double minFreeHeap;
+
+    /** Work each consumer should hold prefetched, in milliseconds of service time */
+    @Value("${photoblast.autoscaler.prefetch-target-ms:1000}")
+    private long prefetchTargetMs;
+
+    @Value("${photoblast.autoscaler.max-prefetch:50}")
+    private int maxPrefetch;
+}
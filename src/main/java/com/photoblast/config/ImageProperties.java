@@ -1,5 +1,6 @@
 package com.photoblast.config;
 
+import com.photoblast.image.ResampleFilter;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
@@ -26,15 +27,79 @@ public class ImageProperties {
     @Value("${photoblast.image.resize.height}")
     private int resizeHeight;
 
+    /** Filter of the parallel scaler for resizes */
+    @Value("${photoblast.image.resize.filter:BICUBIC}")
+    private ResampleFilter resizeFilter;
+
     @Value("${photoblast.image.thumbnail.width}")
     private int thumbnailWidth;
 
     @Value("${photoblast.image.thumbnail.height}")
     private int thumbnailHeight;
 
+    /** Filter of the parallel scaler for thumbnails */
+    @Value("${photoblast.image.thumbnail.filter:AREA_AVERAGE}")
+    private ResampleFilter thumbnailFilter;
+
     @Value("${photoblast.image.watermark.path}")
     private String watermarkPath;
 
     @Value("${photoblast.image.watermark.opacity}")
     private float watermarkOpacity;
+
+    /** Source size in pixels from which downscales run on the parallel scaler */
+    @Value("${photoblast.image.parallel.min-pixels:2000000}")
+    private long parallelMinPixels;
+
+    /** Threads of the parallel scaler, 0 for one per available processor */
+    @Value("${photoblast.image.parallel.threads:0}")
+    private int parallelThreads;
+
+    /** Whether the parallel scaler uses the Vector API when the JVM provides it */
+    @Value("${photoblast.image.parallel.simd:true}")
+    private boolean parallelSimd;
+
+    /** Total size of idle pixel buffers kept for reuse */
+    @Value("${photoblast.image.pool.max-bytes:268435456}")
+    private long poolMaxBytes;
+
+    /** Whether pooled byte buffers are allocated off-heap */
+    @Value("${photoblast.image.pool.direct:true}")
+    private boolean poolDirect;
+
+    /** Whether leases record a stack trace so that leaks can be traced to their origin */
+    @Value("${photoblast.image.pool.leak-tracking:false}")
+    private boolean poolLeakTracking;
+
+    /** Outputs a single upload may request */
+    @Value("${photoblast.image.pipeline.max-outputs:8}")
+    private int pipelineMaxOutputs;
+
+    /** Operations a single output may list */
+    @Value("${photoblast.image.pipeline.max-operations:16}")
+    private int pipelineMaxOperations;
+
+    /** Largest width or height a resize may request */
+    @Value("${photoblast.image.pipeline.max-dimension:16384}")
+    private int pipelineMaxDimension;
+
+    /** Whether uploads generate a BlurHash placeholder before they are queued */
+    @Value("${photoblast.image.placeholder.enabled:true}")
+    private boolean placeholderEnabled;
+
+    /** Longest time an upload waits for its placeholder before it is returned without one */
+    @Value("${photoblast.image.placeholder.budget-ms:50}")
+    private long placeholderBudgetMs;
+
+    /** Smallest width or height the source is subsampled down to for the placeholder */
+    @Value("${photoblast.image.placeholder.sample-size:32}")
+    private int placeholderSampleSize;
+
+    /** Horizontal BlurHash components */
+    @Value("${photoblast.image.placeholder.x-components:4}")
+    private int placeholderXComponents;
+
+    /** Vertical BlurHash components */
+    @Value("${photoblast.image.placeholder.y-components:3}")
+    private int placeholderYComponents;
 }
@@ -2,12 +2,13 @@ package com.photoblast.config;
 
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -20,6 +21,12 @@ import org.springframework.context.annotation.Configuration;
  * asynchronous photo processing jobs. Includes dead-letter queue setup
  * for failed message handling.
  * </p>
+ * <p>
+ * With {@code photoblast.affinity.enabled}, also declares this node's processing queue,
+ * which dead-letters jobs back into the shared processing queue once they waited too long
+ * or too many are waiting. API nodes declare it as well, so jobs stay routable to a node
+ * whose workers have not started yet.
+ * </p>
  */
 @Configuration
 public class RabbitMQConfig {
@@ -83,14 +90,56 @@ public class RabbitMQConfig {
                 .with(photoProcessRoutingKey);
     }
 
+    /**
+     * Declares this node's processing queue and binding if affinity routing is enabled.
+     * <p>
+     * Jobs expire into the shared queue after {@code fallback-after-ms}, so a stopped or
+     * overloaded node does not hold on to them. Once {@code max-node-backlog} jobs are waiting,
+     * the oldest are moved there as well. Unlike rejecting the publish, dropping from the head
+     * never fails an upload. Jobs rejected by a local worker are retried from the shared queue
+     * once before they reach the dead-letter queue. Decided at runtime rather than by a bean
+     * condition, so that AOT-processed builds still follow {@code photoblast.affinity.enabled}.
+     * </p>
+     * <p>
+     * The broker fixes the arguments of a queue when it is first declared and refuses a later
+     * declaration with different ones ({@code PRECONDITION_FAILED}). After changing
+     * {@code fallback-after-ms} or {@code max-node-backlog}, delete the node queues, for example
+     * with {@code rabbitmqctl delete_queue}, once their jobs are drained; they are declared with
+     * the new limits when the nodes restart.
+     * </p>
+     *
+     * @param affinityProperties the affinity configuration naming the queue and routing key
+     * @return the node's queue and its binding to the photo exchange, or nothing if affinity is disabled
+     */
+    @Bean
+    public Declarables nodeProcessDeclarables(AffinityProperties affinityProperties) {
+        if (!affinityProperties.isEnabled()) {
+            return new Declarables();
+        }
+        Queue queue = QueueBuilder.durable(affinityProperties.getNodeQueue())
+                .ttl(affinityProperties.getFallbackAfterMs())
+                .maxLength(affinityProperties.getMaxNodeBacklog())
+                .overflow(QueueBuilder.Overflow.dropHead)
+                .deadLetterExchange(photoExchange)
+                .deadLetterRoutingKey(photoProcessRoutingKey)
+                .build();
+        Binding binding = new Binding(queue.getName(), Binding.DestinationType.QUEUE, photoExchange,
+                affinityProperties.routingKey(affinityProperties.getNodeId()), null);
+        return new Declarables(queue, binding);
+    }
+
     /**
      * Creates a JSON message converter for serializing job messages.
+     * <p>
+     * Uses Jackson 3, which handles {@code java.time} types such as
+     * {@link com.photoblast.model.PhotoProcessingJob#getCreatedAt()} without extra modules.
+     * </p>
      *
      * @return Jackson-based JSON message converter
      */
     @Bean
     public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+        return new JacksonJsonMessageConverter();
     }
 
     /**
@@ -0,0 +1,37 @@
+package com.photoblast.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Redis configuration for the PhotoBlast idempotency store.
+ * <p>
+ * Idempotency records are binary, so they are written through a template with
+ * string keys and raw byte array values instead of {@code StringRedisTemplate}.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class RedisConfig {
+
+    /**
+     * Creates the template used to read and write idempotency records.
+     *
+     * @param connectionFactory the Redis connection factory
+     * @return template with UTF-8 string keys and unconverted byte array values
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> idempotencyRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        return template;
+    }
+}
@@ -0,0 +1,63 @@
+package com.photoblast.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties selecting the roles an instance runs.
+ * <p>
+ * Maps properties from application.yml under the {@code photoblast.role} prefix. The
+ * {@code api} role accepts uploads and publishes jobs; the {@code worker} role consumes and
+ * processes them. Beans needed by only one role are conditional on its property, so that
+ * ingestion and processing scale as separate deployments. Both roles run by default; the
+ * {@code api} and {@code worker} profiles each switch off the other one.
+ * </p>
+ */
+@Getter
+@Configuration
+public class RoleProperties {
+
+    /** Whether the instance serves the upload API */
+    public static final String API = "photoblast.role.api";
+
+    /** Whether the instance processes jobs */
+    public static final String WORKER = "photoblast.role.worker";
+
+    private final boolean api;
+    private final boolean worker;
+
+    /**
+     * Constructs the role properties and checks that they describe a usable instance.
+     *
+     * @param api           whether the upload API runs
+     * @param worker        whether jobs are processed
+     * @param transportType the job transport
+     * @throws IllegalStateException if neither role runs, or the embedded transport runs without both
+     */
+    public RoleProperties(@Value("${" + API + ":true}") boolean api,
+                          @Value("${" + WORKER + ":true}") boolean worker,
+                          @Value("${" + TransportProperties.TYPE + ":rabbitmq}") String transportType) {
+        if (!api && !worker) {
+            throw new IllegalStateException("At least one of " + API + " and " + WORKER + " must be enabled");
+        }
+        if ("embedded".equals(transportType) && !(api && worker)) {
+            throw new IllegalStateException("The embedded transport processes jobs in the instance that accepts"
+                    + " them, so it needs both " + API + " and " + WORKER);
+        }
+        this.api = api;
+        this.worker = worker;
+    }
+
+    /**
+     * Returns the name of the roles this instance runs, used to tag its startup report.
+     *
+     * @return {@code api}, {@code worker} or {@code all}
+     */
+    public String getName() {
+        if (api && worker) {
+            return "all";
+        }
+        return api ? "api" : "worker";
+    }
+}
@@ -0,0 +1,38 @@
+package com.photoblast.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the job transport between producer and consumer.
+ * <p>
+ * Maps properties from application.yml under the {@code photoblast.transport} prefix.
+ * The embedded settings only apply when {@code photoblast.transport.type} is {@code embedded}.
+ * </p>
+ */
+@Getter
+@Configuration
+public class TransportProperties {
+
+    /** Transport type selecting the {@link com.photoblast.transport.JobTransport} implementation */
+    public static final String TYPE = "photoblast.transport.type";
+
+    @Value("${photoblast.transport.embedded.dir:data/journal}")
+    private String embeddedDir;
+
+    @Value("${photoblast.transport.embedded.capacity:1024}")
+    private int embeddedCapacity;
+
+    @Value("${photoblast.transport.embedded.consumers:2}")
+    private int embeddedConsumers;
+
+    @Value("${photoblast.transport.embedded.max-attempts:3}")
+    private int embeddedMaxAttempts;
+
+    @Value("${photoblast.transport.embedded.segment-size-mb:64}")
+    private int embeddedSegmentSizeMb;
+
+    @Value("${photoblast.transport.embedded.fsync:true}")
+    private boolean embeddedFsync;
+}
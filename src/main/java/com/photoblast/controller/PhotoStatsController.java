@@ -0,0 +1,50 @@
+package com.photoblast.controller;
+
+import com.photoblast.dto.JobStatsResponse;
+import com.photoblast.metrics.JobLatencyTracker;
+import com.photoblast.metrics.QueueMetricsSampler;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing job latency and queue statistics.
+ * <p>
+ * Summarizes queue wait, service time and end-to-end latency percentiles over
+ * sliding windows, together with the last sampled queue depths, to support
+ * capacity decisions without a metrics backend.
+ * </p>
+ */
+@RestController
+@RequestMapping("/photos")
+public class PhotoStatsController {
+
+    private final JobLatencyTracker jobLatencyTracker;
+    private final QueueMetricsSampler queueMetricsSampler;
+
+    /**
+     * Constructs a new PhotoStatsController.
+     *
+     * @param jobLatencyTracker   the tracker holding sliding-window latencies
+     * @param queueMetricsSampler the sampler holding queue depths and utilization
+     */
+    public PhotoStatsController(JobLatencyTracker jobLatencyTracker, QueueMetricsSampler queueMetricsSampler) {
+        this.jobLatencyTracker = jobLatencyTracker;
+        this.queueMetricsSampler = queueMetricsSampler;
+    }
+
+    /**
+     * Returns p50/p95/p99 job latencies over 1, 5 and 15 minute windows.
+     *
+     * @return latency percentiles, queue depths and consumer utilization
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<JobStatsResponse> stats() {
+        return ResponseEntity.ok(new JobStatsResponse(
+                jobLatencyTracker.summarize(),
+                queueMetricsSampler.getQueueStats(),
+                queueMetricsSampler.getConsumerUtilization()
+        ));
+    }
+}
@@ -1,8 +1,19 @@
 package com.photoblast.controller;
 
+import com.photoblast.config.RoleProperties;
+import com.photoblast.dto.ArchiveUploadResponse;
+import com.photoblast.dto.BatchUploadResponse;
 import com.photoblast.dto.PhotoUploadResponse;
 import com.photoblast.enums.ProcessingTask;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.PipelineValidator;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.service.ArchiveUploadService;
 import com.photoblast.service.PhotoUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,43 +22,77 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 /**
  * REST controller for photo upload operations.
  * <p>
  * Provides endpoints for uploading photos and health checks.
  * Idempotency is handled at the filter level via {@link com.photoblast.filter.IdempotencyFilter}.
  * </p>
+ * <p>
+ * The outputs of an upload are given either as a {@code pipeline} JSON parameter, see
+ * {@link ProcessingPipeline}, or as a comma-separated list of preset {@code tasks}. A
+ * pipeline takes precedence over tasks and is validated before anything is stored.
+ * </p>
  */
 @RestController
 @RequestMapping("/photos")
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
 public class PhotoUploadController {
 
+    private static final List<ProcessingTask> DEFAULT_TASKS = List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL);
+
     private final PhotoUploadService photoUploadService;
+    private final ArchiveUploadService archiveUploadService;
+    private final PipelinePresets pipelinePresets;
+    private final PipelineValidator pipelineValidator;
 
     /**
-     * Constructs a new PhotoUploadController with the given service.
+     * Constructs a new PhotoUploadController with the given services.
      *
-     * @param photoUploadService the photo upload service
+     * @param photoUploadService   the photo upload service
+     * @param archiveUploadService the service ingesting ZIP archives
+     * @param pipelinePresets      the presets the {@code tasks} parameter expands to
+     * @param pipelineValidator    the validator of the {@code pipeline} parameter
      */
-    public PhotoUploadController(PhotoUploadService photoUploadService) {
+    public PhotoUploadController(PhotoUploadService photoUploadService, ArchiveUploadService archiveUploadService,
+                                 PipelinePresets pipelinePresets, PipelineValidator pipelineValidator) {
         this.photoUploadService = photoUploadService;
+        this.archiveUploadService = archiveUploadService;
+        this.pipelinePresets = pipelinePresets;
+        this.pipelineValidator = pipelineValidator;
     }
 
     /**
      * Uploads a photo and queues it for processing.
      *
-     * @param file  the image file to upload
-     * @param tasks the processing tasks to perform
+     * @param file     the image file to upload
+     * @param tasks    the processing tasks to perform when no pipeline is given
+     * @param pipeline the outputs to produce, as JSON
      * @return response containing job details or error message
      */
     @PostMapping("/upload")
     public ResponseEntity<PhotoUploadResponse> uploadPhoto(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "tasks", defaultValue = "RESIZE,THUMBNAIL") List<ProcessingTask> tasks) {
+            @RequestParam(value = "tasks", defaultValue = "RESIZE,THUMBNAIL") List<ProcessingTask> tasks,
+            @RequestParam(value = "pipeline", required = false) String pipeline) {
+
+        ProcessingPipeline resolved;
+        try {
+            resolved = nonNull(pipeline) ? pipelineValidator.parse(pipeline) : pipelinePresets.of(tasks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(PhotoUploadResponse.error(e.getMessage()));
+        }
 
-        PhotoUploadResponse response = photoUploadService.uploadPhoto(file, tasks);
+        PhotoUploadResponse response = photoUploadService.uploadPhoto(file, resolved);
 
         if (response.isSuccess()) {
             return ResponseEntity.ok(response);
@@ -56,6 +101,85 @@ public class PhotoUploadController {
         return ResponseEntity.badRequest().body(response);
     }
 
+    /**
+     * Uploads several photos and queues them for processing in a single batch.
+     * <p>
+     * {@code pipeline} and {@code tasks} are each either omitted, given once (the same
+     * outputs for every file) or given once per file, in file order. Each {@code tasks}
+     * value is a comma-separated task list; without either parameter every file gets the
+     * default tasks. Responds with 200 if every photo was queued, 207 if only some were,
+     * and 400 if none were.
+     * </p>
+     *
+     * @param files   the image files to upload
+     * @param request the request, read directly so that a single {@code tasks} value is not split on commas
+     * @return per-file results in the order of the uploaded files
+     */
+    @PostMapping("/upload/batch")
+    public ResponseEntity<BatchUploadResponse> uploadPhotos(
+            @RequestParam("files") List<MultipartFile> files,
+            HttpServletRequest request) {
+
+        List<ProcessingPipeline> pipelinesPerFile;
+        try {
+            String[] pipelines = request.getParameterValues("pipeline");
+            pipelinesPerFile = nonNull(pipelines) && pipelines.length > 0
+                    ? perFile(pipelines, files.size(), "pipeline").stream().map(pipelineValidator::parse).toList()
+                    : tasksPerFile(request.getParameterValues("tasks"), files.size()).stream()
+                    .map(pipelinePresets::of)
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(BatchUploadResponse.error(e.getMessage()));
+        }
+
+        BatchUploadResponse response = photoUploadService.uploadPhotos(files, pipelinesPerFile);
+
+        if (response.isComplete()) {
+            return ResponseEntity.ok(response);
+        }
+        if (response.getSucceeded() > 0) {
+            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(response);
+        }
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    /**
+     * Ingests a ZIP archive of photos, sent as the raw request body, and queues every image in it.
+     * <p>
+     * The archive is read as a stream while it is uploaded. Responds with 200 if every entry was
+     * queued, 207 if only some were, and 400 if none were.
+     * </p>
+     *
+     * @param tasks    the processing tasks to perform on every image when no pipeline is given
+     * @param pipeline the outputs to produce from every image, as JSON
+     * @param request  the request whose body is the archive
+     * @return summary of the ingested entries
+     * @throws IOException if the request body cannot be opened
+     */
+    @PostMapping(value = "/upload/archive", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ArchiveUploadResponse> uploadArchive(
+            @RequestParam(value = "tasks", defaultValue = "RESIZE,THUMBNAIL") List<ProcessingTask> tasks,
+            @RequestParam(value = "pipeline", required = false) String pipeline,
+            HttpServletRequest request) throws IOException {
+
+        ProcessingPipeline resolved;
+        try {
+            resolved = nonNull(pipeline) ? pipelineValidator.parse(pipeline) : pipelinePresets.of(tasks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ArchiveUploadResponse.error(e.getMessage()));
+        }
+
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(request.getInputStream(), resolved);
+
+        if (response.getQueued() > 0 && response.getQueued() == response.getEntries() && !response.isTruncated()) {
+            return ResponseEntity.ok(response);
+        }
+        if (response.getQueued() > 0) {
+            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(response);
+        }
+        return ResponseEntity.badRequest().body(response);
+    }
+
     /**
      * Health check endpoint.
      *
@@ -65,4 +189,41 @@ public class PhotoUploadController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
     }
+
+    private static List<List<ProcessingTask>> tasksPerFile(String[] tasks, int fileCount) {
+        if (isNull(tasks) || tasks.length == 0) {
+            return Collections.nCopies(fileCount, DEFAULT_TASKS);
+        }
+        List<List<ProcessingTask>> result = new ArrayList<>(fileCount);
+        for (String value : perFile(tasks, fileCount, "tasks")) {
+            result.add(parseTasks(value));
+        }
+        return result;
+    }
+
+    private static List<String> perFile(String[] values, int fileCount, String parameter) {
+        if (values.length == 1) {
+            return Collections.nCopies(fileCount, values[0]);
+        }
+        if (values.length != fileCount) {
+            throw new IllegalArgumentException("Expected " + parameter + " once or once per file, got "
+                    + values.length + " values for " + fileCount + " files");
+        }
+        return Arrays.asList(values);
+    }
+
+    private static List<ProcessingTask> parseTasks(String value) {
+        List<ProcessingTask> parsed = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> {
+                    try {
+                        return ProcessingTask.valueOf(name);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown processing task: " + name);
+                    }
+                })
+                .toList();
+        return parsed.isEmpty() ? DEFAULT_TASKS : parsed;
+    }
 }
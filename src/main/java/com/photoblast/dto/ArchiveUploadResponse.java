@@ -0,0 +1,48 @@
+package com.photoblast.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Summary of a ZIP archive ingested by {@code POST /photos/upload/archive}.
+ */
+@Value
+public class ArchiveUploadResponse {
+
+    /** File entries read from the archive, excluding directories and archiver metadata */
+    int entries;
+
+    /** Entries stored and queued for processing */
+    int queued;
+
+    /** Entries rejected as unsupported, empty or too large */
+    int rejected;
+
+    /** Entries stored but not queued because publishing failed */
+    int failed;
+
+    /** Whether ingestion stopped before the end of the archive */
+    boolean truncated;
+
+    String message;
+
+    /** The first entries that were rejected or not queued, in archive order */
+    List<EntryError> errors;
+
+    /** Entries that were rejected or not queued beyond those listed in {@code errors} */
+    int omittedErrors;
+
+    public static ArchiveUploadResponse error(String message) {
+        return new ArchiveUploadResponse(0, 0, 0, 0, false, message, List.of(), 0);
+    }
+
+    /**
+     * An archive entry that was not queued.
+     */
+    @Value
+    public static class EntryError {
+        String name;
+        String reason;
+    }
+}
@@ -0,0 +1,28 @@
+package com.photoblast.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BatchUploadResponse {
+
+    int total;
+    int succeeded;
+    String message;
+    List<PhotoUploadResponse> results;
+
+    public static BatchUploadResponse of(List<PhotoUploadResponse> results) {
+        int succeeded = (int) results.stream().filter(PhotoUploadResponse::isSuccess).count();
+        String message = String.format("%d of %d photos uploaded successfully", succeeded, results.size());
+        return new BatchUploadResponse(results.size(), succeeded, message, results);
+    }
+
+    public static BatchUploadResponse error(String message) {
+        return new BatchUploadResponse(0, 0, message, List.of());
+    }
+
+    public boolean isComplete() {
+        return total > 0 && succeeded == total;
+    }
+}
@@ -0,0 +1,56 @@
+package com.photoblast.dto;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of job latency percentiles and queue state returned by {@code GET /photos/stats}.
+ */
+@Value
+public class JobStatsResponse {
+
+    /** Latency summaries keyed by window label, e.g. {@code 1m}, {@code 5m}, {@code 15m} */
+    Map<String, WindowStats> windows;
+
+    /** Last sampled state of every processing queue */
+    List<QueueStats> queues;
+
+    /** Fraction of consumer time spent processing jobs over the last sampling interval */
+    double consumerUtilization;
+
+    /**
+     * Latency summaries for a single sliding window.
+     */
+    @Value
+    public static class WindowStats {
+        /** Time from job creation to the start of processing */
+        LatencySummary wait;
+        /** Time spent executing all tasks of a job */
+        LatencySummary service;
+        /** Time from job creation to completion */
+        LatencySummary endToEnd;
+    }
+
+    /**
+     * Count and percentiles of a latency distribution, in milliseconds.
+     */
+    @Value
+    public static class LatencySummary {
+        long count;
+        long p50;
+        long p95;
+        long p99;
+    }
+
+    /**
+     * Sampled depth and consumer count of a broker queue.
+     */
+    @Value
+    public static class QueueStats {
+        String name;
+        long depth;
+        long consumers;
+    }
+}
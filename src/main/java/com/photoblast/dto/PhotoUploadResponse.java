@@ -1,6 +1,5 @@
 package com.photoblast.dto;
 
-import com.photoblast.enums.ProcessingTask;
 import lombok.Value;
 
 import java.util.List;
@@ -12,13 +11,16 @@ public class PhotoUploadResponse {
     String message;
     String jobId;
     String photoId;
-    List<ProcessingTask> tasks;
+    /** Names of the outputs the photo will be processed into */
+    List<String> outputs;
+    /** BlurHash to show until the outputs are ready; null if none was generated in time */
+    String placeholder;
 
-    public static PhotoUploadResponse success(String jobId, String photoId, List<ProcessingTask> tasks) {
-        return new PhotoUploadResponse(true, "Photo uploaded successfully", jobId, photoId, tasks);
+    public static PhotoUploadResponse success(String jobId, String photoId, List<String> outputs, String placeholder) {
+        return new PhotoUploadResponse(true, "Photo uploaded successfully", jobId, photoId, outputs, placeholder);
     }
 
     public static PhotoUploadResponse error(String message) {
-        return new PhotoUploadResponse(false, message, null, null, null);
+        return new PhotoUploadResponse(false, message, null, null, null, null);
     }
 }
@@ -0,0 +1,54 @@
+package com.photoblast.enums;
+
+/**
+ * Coarse buckets of source image resolution used to tag processing metrics.
+ */
+public enum ImageSizeClass {
+    /** Below 1 megapixel */
+    TINY,
+    /** 1 to 4 megapixels */
+    SMALL,
+    /** 4 to 12 megapixels */
+    MEDIUM,
+    /** 12 to 48 megapixels */
+    LARGE,
+    /** 48 megapixels and above */
+    HUGE,
+    /** Dimensions are not known yet, e.g. the task failed before decoding */
+    UNKNOWN;
+
+    private static final long MEGAPIXEL = 1_000_000L;
+
+    /**
+     * Classifies an image by its pixel count.
+     *
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @return the matching size class
+     */
+    public static ImageSizeClass of(int width, int height) {
+        long pixels = (long) width * height;
+        if (pixels < MEGAPIXEL) {
+            return TINY;
+        }
+        if (pixels < 4 * MEGAPIXEL) {
+            return SMALL;
+        }
+        if (pixels < 12 * MEGAPIXEL) {
+            return MEDIUM;
+        }
+        if (pixels < 48 * MEGAPIXEL) {
+            return LARGE;
+        }
+        return HUGE;
+    }
+
+    /**
+     * Returns the lowercase tag value used in metrics.
+     *
+     * @return tag value for this size class
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,11 @@
+package com.photoblast.enums;
+
+/**
+ * Storage directories a processed image can be written to.
+ */
+public enum OutputLocation {
+    /** {@code photoblast.storage.processed-dir} */
+    PROCESSED,
+    /** {@code photoblast.storage.thumbnail-dir} */
+    THUMBNAILS
+}
@@ -0,0 +1,21 @@
+package com.photoblast.enums;
+
+/**
+ * Internal stages an image passes through while a processing job runs.
+ */
+public enum ProcessingStage {
+    /** Read the original file from storage */
+    READ,
+    /** Decode the compressed bytes into a raster */
+    DECODE,
+    /** Resample the raster to the target dimensions */
+    SCALE,
+    /** Rotate or mirror the raster */
+    ORIENT,
+    /** Composite the watermark onto the raster */
+    COMPOSITE,
+    /** Encode the raster into the output format */
+    ENCODE,
+    /** Write the encoded bytes to storage */
+    WRITE
+}
@@ -0,0 +1,29 @@
+package com.photoblast.exception;
+
+/**
+ * Exception thrown when a job cannot be handed to the configured job transport.
+ * <p>
+ * Wraps broker or journal errors so that callers do not depend on a specific transport.
+ * </p>
+ */
+public class JobTransportException extends RuntimeException {
+
+    /**
+     * Constructs a new JobTransportException with the specified message.
+     *
+     * @param message the detail message
+     */
+    public JobTransportException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new JobTransportException with the specified message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the underlying cause of the exception
+     */
+    public JobTransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
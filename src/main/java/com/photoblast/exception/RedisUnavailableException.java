@@ -0,0 +1,29 @@
+package com.photoblast.exception;
+
+/**
+ * Exception thrown when a Redis command fails, times out or is rejected by an open circuit breaker.
+ * <p>
+ * Lets callers apply a single degradation policy regardless of why Redis could not be used.
+ * </p>
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new RedisUnavailableException with the specified message.
+     *
+     * @param message the detail message
+     */
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new RedisUnavailableException with the specified message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the underlying cause of the exception
+     */
+    public RedisUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
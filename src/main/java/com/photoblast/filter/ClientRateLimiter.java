@@ -0,0 +1,94 @@
+package com.photoblast.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.photoblast.config.RoleProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token bucket limiting the upload rate of each client on this node.
+ * <p>
+ * Each client may burst up to {@code client-capacity} uploads and is then limited to
+ * {@code client-refill-per-second}. Buckets are kept in memory and expire once they would
+ * have refilled completely, so idle clients cost nothing; the number of tracked clients is
+ * bounded by {@code max-clients}. Limits apply per node, not across the cluster.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class ClientRateLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * Constructs a new ClientRateLimiter.
+     *
+     * @param capacity        uploads a client may send in a burst
+     * @param refillPerSecond sustained uploads per second per client, 0 to disable limiting
+     * @param maxClients      maximum number of clients tracked at once
+     */
+    @Autowired
+    public ClientRateLimiter(@Value("${photoblast.upload.throttle.client-capacity:20}") int capacity,
+                             @Value("${photoblast.upload.throttle.client-refill-per-second:2}") double refillPerSecond,
+                             @Value("${photoblast.upload.throttle.max-clients:100000}") long maxClients) {
+        this(capacity, refillPerSecond, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(int capacity, double refillPerSecond, long maxClients, LongSupplier nanoClock) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = refillPerSecond / Duration.ofSeconds(1).toNanos();
+        this.nanoClock = nanoClock;
+        Duration idle = refillPerSecond > 0
+                ? Duration.ofNanos((long) Math.ceil(this.capacity / tokensPerNano))
+                : Duration.ofMinutes(1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idle)
+                .ticker(nanoClock::getAsLong)
+                .build();
+    }
+
+    /**
+     * Takes one token from the client's bucket if one is available.
+     *
+     * @param clientId the client identifier
+     * @return 0 if the upload is allowed, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String clientId) {
+        if (tokensPerNano <= 0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        return buckets.get(clientId, id -> new TokenBucket(capacity, now)).tryAcquire(now);
+    }
+
+    private final class TokenBucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        private synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
@@ -4,21 +4,40 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.exception.RedisUnavailableException;
+import com.photoblast.logging.LogContext;
+import com.photoblast.metrics.PhotoMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Base64;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -30,28 +49,117 @@ import static java.util.Objects.nonNull;
  * application instances. When a request includes an X-Idempotency-Key header,
  * the filter caches the response in Redis with a configurable TTL.
  * </p>
+ * <p>
+ * Before processing, the key is reserved atomically with {@code SET NX} and an
+ * in-progress marker that expires after a lease, so that concurrent duplicates never
+ * reach the controller. While the request is processed, the lease is renewed every third
+ * of its length, so a long batch or archive upload keeps its reservation. A duplicate that
+ * finds the marker waits briefly for the first response and replays it, or receives
+ * {@code 409 Conflict} with {@code Retry-After}.
+ * If processing fails with an exception or a 5xx status, the reservation is released
+ * so that a retry can be processed.
+ * </p>
+ * <p>
+ * Completed responses are also kept in the {@link IdempotencyNearCache}, so retries
+ * that reach the same node are replayed without a Redis round trip.
+ * </p>
+ * <p>
+ * Responses are stored as binary {@link IdempotencyRecord}s, deflated above a size
+ * threshold. Bodies larger than the configured maximum are not cached: the reservation
+ * is released instead, so a retry of such a request is processed again.
+ * </p>
+ * <p>
+ * Redis calls go through a {@link RedisCircuitBreaker} and are bounded by the client
+ * command timeout. Writing the record and releasing a reservation happen on a background
+ * writer, off the response path. If Redis cannot be reached to reserve or look up a key,
+ * the {@link FailurePolicy} decides whether the request is processed without idempotency
+ * protection or rejected with {@code 503 Service Unavailable}.
+ * </p>
  */
 @Component
-@Order(Ordered.HIGHEST_PRECEDENCE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
 public class IdempotencyFilter extends OncePerRequestFilter {
 
+    /**
+     * What to do with a request whose key cannot be checked because Redis is unavailable.
+     */
+    public enum FailurePolicy {
+        /** Process the request without idempotency protection */
+        OPEN,
+        /** Reject the request with 503 and {@code Retry-After} */
+        CLOSED
+    }
+
     private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
     private static final String IDEMPOTENCY_KEY_HEADER = "X-Idempotency-Key";
-    private static final String REDIS_KEY_PREFIX = "idempotency:";
-    private static final String FIELD_SEPARATOR = "|||";
+    static final String REDIS_KEY_PREFIX = "idempotency:";
+    private static final String IN_PROGRESS_PREFIX = "IN_PROGRESS:";
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
     private static final Set<String> NON_IDEMPOTENT_METHODS = Set.of(
             HttpMethod.POST.name(),
             HttpMethod.PUT.name(),
             HttpMethod.PATCH.name()
     );
 
-    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final IdempotencyNearCache nearCache;
+    private final PhotoMetrics photoMetrics;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Executor writeExecutor;
+    private final ScheduledExecutorService leaseRenewer;
 
     @Value("${photoblast.idempotency.ttl-minutes:60}")
     private long ttlMinutes;
 
-    public IdempotencyFilter(StringRedisTemplate redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    @Value("${photoblast.idempotency.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${photoblast.idempotency.wait-ms:2000}")
+    private long waitMillis;
+
+    @Value("${photoblast.idempotency.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Value("${photoblast.idempotency.compression-threshold-bytes:1024}")
+    private int compressionThresholdBytes;
+
+    @Value("${photoblast.idempotency.max-body-bytes:262144}")
+    private int maxBodyBytes;
+
+    @Value("${photoblast.idempotency.redis.failure-policy:OPEN}")
+    private FailurePolicy failurePolicy;
+
+    @Autowired
+    public IdempotencyFilter(RedisTemplate<String, byte[]> idempotencyRedisTemplate, IdempotencyNearCache nearCache,
+                             PhotoMetrics photoMetrics, RedisCircuitBreaker circuitBreaker,
+                             @Value("${photoblast.idempotency.redis.write-queue-capacity:10000}") int writeQueueCapacity) {
+        this(idempotencyRedisTemplate, nearCache, photoMetrics, circuitBreaker,
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(writeQueueCapacity),
+                        Thread.ofPlatform().name("idempotency-writer").daemon().factory(),
+                        (task, executor) -> {
+                            photoMetrics.recordIdempotencyDegraded("write_dropped");
+                            log.warn("Idempotency write queue full, dropping write");
+                        }),
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("idempotency-lease").daemon().factory()));
+    }
+
+    IdempotencyFilter(RedisTemplate<String, byte[]> idempotencyRedisTemplate, IdempotencyNearCache nearCache,
+                      PhotoMetrics photoMetrics, RedisCircuitBreaker circuitBreaker, Executor writeExecutor,
+                      ScheduledExecutorService leaseRenewer) {
+        this.redisTemplate = idempotencyRedisTemplate;
+        this.nearCache = nearCache;
+        this.photoMetrics = photoMetrics;
+        this.circuitBreaker = circuitBreaker;
+        this.writeExecutor = writeExecutor;
+        this.leaseRenewer = leaseRenewer;
     }
 
     @Override
@@ -75,56 +183,260 @@ public class IdempotencyFilter extends OncePerRequestFilter {
             return;
         }
 
-        String redisKey = REDIS_KEY_PREFIX + idempotencyKey;
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(LogContext.IDEMPOTENCY_KEY, idempotencyKey)) {
+            handle(REDIS_KEY_PREFIX + idempotencyKey, request, response, filterChain);
+        }
+    }
+
+    /**
+     * Replays the response for a completed key, or reserves the key and processes the request.
+     */
+    private void handle(String redisKey, HttpServletRequest request, HttpServletResponse response,
+                        FilterChain filterChain) throws ServletException, IOException {
+        IdempotencyRecord local = nearCache.get(redisKey);
+        if (nonNull(local)) {
+            log.info("Returning near-cached response");
+            writeCachedResponse(response, local);
+            return;
+        }
+
+        byte[] reservation = (IN_PROGRESS_PREFIX + UUID.randomUUID()).getBytes(StandardCharsets.US_ASCII);
 
-        String cached = redisTemplate.opsForValue().get(redisKey);
-        if (nonNull(cached)) {
-            log.info("Returning cached response for idempotency key: {}", idempotencyKey);
-            writeCachedResponse(response, cached);
+        boolean reserved;
+        try {
+            reserved = reserve(redisKey, reservation);
+        } catch (RedisUnavailableException e) {
+            degrade(e, request, response, filterChain);
             return;
         }
+        if (!reserved) {
+            replayOrReject(redisKey, reservation, request, response, filterChain);
+            return;
+        }
+
+        process(redisKey, reservation, request, response, filterChain);
+    }
 
+    /**
+     * Runs the filter chain as owner of the reservation, renewing its lease meanwhile, and
+     * caches the response, or releases the reservation if processing failed.
+     */
+    private void process(String redisKey, byte[] reservation, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
 
-        filterChain.doFilter(request, responseWrapper);
+        long renewMillis = Math.max(1, TimeUnit.SECONDS.toMillis(leaseSeconds) / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleWithFixedDelay(
+                () -> renew(redisKey, reservation), renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            release(redisKey, reservation);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
 
-        cacheResponse(redisKey, responseWrapper);
+        if (responseWrapper.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            release(redisKey, reservation);
+        } else if (responseWrapper.getContentSize() > maxBodyBytes) {
+            log.warn("Response too large to cache for idempotency: key={}, bytes={}, max={}",
+                    redisKey, responseWrapper.getContentSize(), maxBodyBytes);
+            photoMetrics.recordIdempotencyRecord("skipped", responseWrapper.getContentSize());
+            release(redisKey, reservation);
+        } else {
+            cacheResponse(redisKey, responseWrapper);
+        }
 
         responseWrapper.copyBodyToResponse();
     }
 
-    private boolean isIdempotent(HttpServletRequest request) {
-        return !NON_IDEMPOTENT_METHODS.contains(request.getMethod());
+    /**
+     * Handles a request whose key is already reserved or completed.
+     * <p>
+     * Replays the cached response as soon as it is available. If the first request is still
+     * in progress after the wait period, responds with 409 and {@code Retry-After}. If the
+     * reservation disappears while waiting, because the first request failed or its lease
+     * expired, this request takes over the reservation and is processed.
+     * </p>
+     */
+    private void replayOrReject(String redisKey, byte[] reservation,
+                                HttpServletRequest request, HttpServletResponse response,
+                                FilterChain filterChain) throws ServletException, IOException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            IdempotencyRecord record;
+            boolean takenOver;
+            try {
+                byte[] cached = circuitBreaker.call("get", () -> redisTemplate.opsForValue().get(redisKey));
+                record = nonNull(cached) && IdempotencyRecord.isRecord(cached) ? decodeOrDiscard(redisKey, cached) : null;
+                takenOver = isNull(cached) && reserve(redisKey, reservation);
+            } catch (RedisUnavailableException e) {
+                degrade(e, request, response, filterChain);
+                return;
+            }
+            if (nonNull(record)) {
+                log.info("Returning cached response");
+                nearCache.put(redisKey, record);
+                writeCachedResponse(response, record);
+                return;
+            }
+            if (takenOver) {
+                process(redisKey, reservation, request, response, filterChain);
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.info("Request with this idempotency key is still in progress");
+                writeConflict(response);
+                return;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeConflict(response);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decodes a stored response, or deletes it if it cannot be decoded so that the next
+     * poll can take over the key.
+     *
+     * @return the record, or null if it was deleted
+     */
+    private IdempotencyRecord decodeOrDiscard(String redisKey, byte[] cached) {
+        try {
+            return IdempotencyRecord.decode(cached);
+        } catch (IllegalArgumentException e) {
+            log.warn("Deleting unreadable idempotency record: key={}, cause={}", redisKey, e.getMessage());
+            circuitBreaker.call("del", () -> redisTemplate.delete(redisKey));
+            return null;
+        }
     }
 
-    private void writeCachedResponse(HttpServletResponse response, String cached) throws IOException {
-        String[] parts = cached.split("\\|\\|\\|", 3);
-        if (parts.length < 3) {
-            log.warn("Invalid cached response format");
+    /**
+     * Applies the failure policy to a request whose key could not be checked in Redis.
+     */
+    private void degrade(RedisUnavailableException e, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (failurePolicy == FailurePolicy.OPEN) {
+            log.warn("Redis unavailable, processing without idempotency protection: cause={}", e.getMessage());
+            photoMetrics.recordIdempotencyDegraded("bypassed");
+            filterChain.doFilter(request, response);
             return;
         }
+        log.warn("Redis unavailable, rejecting request: cause={}", e.getMessage());
+        photoMetrics.recordIdempotencyDegraded("rejected");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Idempotency store unavailable, please retry\"}");
+    }
 
-        int status = Integer.parseInt(parts[0]);
-        String contentType = parts[1];
-        byte[] body = Base64.getDecoder().decode(parts[2]);
+    private boolean reserve(String redisKey, byte[] reservation) {
+        return Boolean.TRUE.equals(circuitBreaker.call("set_nx", () -> redisTemplate.opsForValue()
+                .setIfAbsent(redisKey, reservation, Duration.ofSeconds(leaseSeconds))));
+    }
 
-        response.setStatus(status);
-        if (!contentType.isEmpty()) {
-            response.setContentType(contentType);
+    /**
+     * Extends the lease of a reservation this request still owns. Failures are only counted:
+     * the request keeps running, and the reservation expires if no renewal succeeds.
+     */
+    private void renew(String redisKey, byte[] reservation) {
+        byte[] leaseMillis = Long.toString(TimeUnit.SECONDS.toMillis(leaseSeconds)).getBytes(StandardCharsets.US_ASCII);
+        try {
+            Long renewed = circuitBreaker.call("renew",
+                    () -> redisTemplate.execute(RENEW_SCRIPT, List.of(redisKey), reservation, leaseMillis));
+            if (isNull(renewed) || renewed == 0) {
+                photoMetrics.recordIdempotencyDegraded("lease_lost");
+                log.warn("Idempotency reservation lost while processing: key={}", redisKey);
+            }
+        } catch (RuntimeException e) {
+            photoMetrics.recordIdempotencyDegraded("renew_failed");
+            log.warn("Failed to renew idempotency reservation: key={}, cause={}", redisKey, e.getMessage());
         }
-        if (body.length > 0) {
-            response.getOutputStream().write(body);
+    }
+
+    private void release(String redisKey, byte[] reservation) {
+        writeAsync(redisKey, () -> {
+            circuitBreaker.call("release", () -> redisTemplate.execute(RELEASE_SCRIPT, List.of(redisKey), reservation));
+            log.info("Released idempotency reservation: key={}", redisKey);
+        });
+    }
+
+    /**
+     * Runs a Redis write on the background writer. A failed write leaves the reservation
+     * to expire with its lease.
+     */
+    private void writeAsync(String redisKey, Runnable write) {
+        writeExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch (RedisUnavailableException e) {
+                photoMetrics.recordIdempotencyDegraded("write_dropped");
+                log.warn("Failed to write idempotency record, reservation will expire: key={}, cause={}",
+                        redisKey, e.getMessage());
+            }
+        });
+    }
+
+    private void writeConflict(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_CONFLICT);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"A request with this " + IDEMPOTENCY_KEY_HEADER + " is already in progress\"}");
+    }
+
+    private boolean isIdempotent(HttpServletRequest request) {
+        return !NON_IDEMPOTENT_METHODS.contains(request.getMethod());
+    }
+
+    private void writeCachedResponse(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        response.setStatus(record.status());
+        if (!record.contentType().isEmpty()) {
+            response.setContentType(record.contentType());
+        }
+        if (record.body().length > 0) {
+            response.setContentLength(record.body().length);
+            response.getOutputStream().write(record.body());
         }
     }
 
     private void cacheResponse(String redisKey, ContentCachingResponseWrapper responseWrapper) {
-        int status = responseWrapper.getStatus();
-        String contentType = nonNull(responseWrapper.getContentType()) ? responseWrapper.getContentType() : "";
-        String bodyBase64 = Base64.getEncoder().encodeToString(responseWrapper.getContentAsByteArray());
+        IdempotencyRecord record = IdempotencyRecord.of(responseWrapper.getStatus(),
+                responseWrapper.getContentType(), responseWrapper.getContentAsByteArray());
+        nearCache.put(redisKey, record);
 
-        String value = status + FIELD_SEPARATOR + contentType + FIELD_SEPARATOR + bodyBase64;
+        writeAsync(redisKey, () -> {
+            byte[] value = record.encode(compressionThresholdBytes);
+            circuitBreaker.call("set", () -> {
+                redisTemplate.opsForValue().set(redisKey, value, Duration.ofMinutes(ttlMinutes));
+                return null;
+            });
+            photoMetrics.recordIdempotencyRecord(
+                    IdempotencyRecord.isDeflated(value) ? "deflated" : "raw", value.length);
+            log.info("Cached response in Redis: key={}, status={}, bytes={}, ttl={}min",
+                    redisKey, record.status(), value.length, ttlMinutes);
+        });
+    }
 
-        redisTemplate.opsForValue().set(redisKey, value, Duration.ofMinutes(ttlMinutes));
-        log.info("Cached response in Redis: key={}, status={}, ttl={}min", redisKey, status, ttlMinutes);
+    /**
+     * Stops the lease renewer, and the background writer after flushing queued writes.
+     */
+    @Override
+    public void destroy() {
+        leaseRenewer.shutdownNow();
+        if (writeExecutor instanceof ExecutorService executor) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Idempotency writes still pending at shutdown");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 }
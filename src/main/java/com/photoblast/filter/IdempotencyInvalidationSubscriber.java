@@ -0,0 +1,69 @@
+package com.photoblast.filter;
+
+import com.photoblast.config.RoleProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Subscribes the {@link IdempotencyNearCache} to Redis keyspace notifications for idempotency keys.
+ * <p>
+ * Redis only publishes them when {@code notify-keyspace-events} includes generic and expired
+ * events on keyspace channels, e.g. {@code Kgx}. The subscription is (re)established on a
+ * fixed delay rather than at startup, so the application still starts while Redis is down;
+ * until then, near-cached entries are only evicted by size and TTL. Disable with
+ * {@code photoblast.idempotency.near-cache.invalidation-enabled=false}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "photoblast.idempotency.near-cache.invalidation-enabled", matchIfMissing = true)
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class IdempotencyInvalidationSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyInvalidationSubscriber.class);
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    /**
+     * Constructs a new IdempotencyInvalidationSubscriber.
+     *
+     * @param connectionFactory the Redis connection factory
+     * @param nearCache         the near-cache to invalidate
+     */
+    public IdempotencyInvalidationSubscriber(RedisConnectionFactory connectionFactory, IdempotencyNearCache nearCache) {
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCache, new PatternTopic(IdempotencyNearCache.KEYSPACE_PATTERN));
+        container.afterPropertiesSet();
+    }
+
+    /**
+     * Starts the subscription if it is not running.
+     */
+    @Scheduled(fixedDelayString = "${photoblast.idempotency.near-cache.resubscribe-interval-ms:30000}")
+    public void subscribe() {
+        if (container.isRunning()) {
+            return;
+        }
+        try {
+            container.start();
+            log.info("Subscribed to idempotency keyspace notifications");
+        } catch (RuntimeException e) {
+            container.stop();
+            log.warn("Could not subscribe to idempotency keyspace notifications: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the subscription and releases its resources.
+     */
+    @PreDestroy
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+}
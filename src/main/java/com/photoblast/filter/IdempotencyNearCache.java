@@ -0,0 +1,114 @@
+package com.photoblast.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Bounded in-process cache of completed idempotent responses, checked before Redis.
+ * <p>
+ * Retries of the same key usually reach the same node within seconds, so replaying them
+ * from memory takes the Redis round trip off the request path. Only completed responses
+ * are cached, never in-progress reservations. Entries are evicted by total body size (W-TinyLFU),
+ * after a TTL no longer than the Redis TTL, and when Redis reports the key deleted or
+ * expired through keyspace notifications, so that nodes stay consistent with Redis.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class IdempotencyNearCache implements MessageListener {
+
+    /** Keyspace notification pattern for idempotency keys in any database */
+    public static final String KEYSPACE_PATTERN = "__keyspace@*__:" + IdempotencyFilter.REDIS_KEY_PREFIX + "*";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyNearCache.class);
+    private static final Set<String> REMOVAL_EVENTS = Set.of("del", "unlink", "expired", "evicted", "rename_from");
+
+    private final Cache<String, IdempotencyRecord> cache;
+
+    /**
+     * Constructs a new IdempotencyNearCache and registers its metrics.
+     *
+     * @param photoMetrics    metrics wrapper providing the registry
+     * @param maximumBytes    maximum total size of cached responses
+     * @param ttlSeconds      how long a response is served locally
+     * @param redisTtlMinutes TTL of idempotency records in Redis, capping the local TTL
+     */
+    public IdempotencyNearCache(PhotoMetrics photoMetrics,
+                                @Value("${photoblast.idempotency.near-cache.maximum-bytes:67108864}") long maximumBytes,
+                                @Value("${photoblast.idempotency.near-cache.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${photoblast.idempotency.ttl-minutes:60}") long redisTtlMinutes) {
+        Duration ttl = Duration.ofSeconds(Math.min(ttlSeconds, Duration.ofMinutes(redisTtlMinutes).toSeconds()));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, IdempotencyRecord record) -> record.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(photoMetrics.getRegistry(), cache, "idempotency");
+    }
+
+    /**
+     * Returns the locally cached response for the given Redis key.
+     *
+     * @param redisKey the idempotency key including its Redis prefix
+     * @return the cached response, or null if not cached locally
+     */
+    public IdempotencyRecord get(String redisKey) {
+        return cache.getIfPresent(redisKey);
+    }
+
+    /**
+     * Caches a completed response locally.
+     *
+     * @param redisKey the idempotency key including its Redis prefix
+     * @param record   the completed response
+     */
+    public void put(String redisKey, IdempotencyRecord record) {
+        cache.put(redisKey, record);
+    }
+
+    /**
+     * Evicts the locally cached response for the given Redis key.
+     *
+     * @param redisKey the idempotency key including its Redis prefix
+     */
+    public void invalidate(String redisKey) {
+        cache.invalidate(redisKey);
+    }
+
+    /**
+     * Evicts entries whose Redis key was deleted, expired or evicted.
+     * <p>
+     * The channel is {@code __keyspace@<db>__:<key>} and the body is the event name.
+     * Writes are ignored: completed responses are never overwritten in place.
+     * </p>
+     *
+     * @param message the keyspace notification
+     * @param pattern the subscribed pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String event = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!REMOVAL_EVENTS.contains(event)) {
+            return;
+        }
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String redisKey = channel.substring(channel.indexOf("__:") + 3);
+        cache.invalidate(redisKey);
+        log.debug("Invalidated near-cached idempotency response: key={}, event={}", redisKey, event);
+    }
+}
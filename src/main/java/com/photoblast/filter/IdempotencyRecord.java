@@ -0,0 +1,195 @@
+package com.photoblast.filter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A completed response stored under an idempotency key.
+ * <p>
+ * Serialized as a length-prefixed binary value, so the body is stored as raw bytes
+ * and read back without parsing or Base64 decoding:
+ * {@code [byte version][byte flags][short status][short contentTypeLength][contentType]
+ * [int bodyLength][body]}. If the body is at least the compression threshold and
+ * deflating it saves space, it is stored deflated and the deflated flag is set;
+ * {@code bodyLength} is always the uncompressed length.
+ * </p>
+ * <p>
+ * Values written before the binary format, {@code status|||contentType|||base64(body)},
+ * are still recognised and decoded, so that keys stored before an upgrade keep replaying
+ * until they expire.
+ * </p>
+ *
+ * @param status      the HTTP status
+ * @param contentType the content type, empty if none was set
+ * @param body        the uncompressed response body
+ */
+public record IdempotencyRecord(int status, String contentType, byte[] body) {
+
+    /** Leading byte of every record; reservation markers start with an ASCII letter instead */
+    static final byte VERSION = 1;
+    private static final byte FLAG_DEFLATED = 1;
+
+    private static final int HEADER_BYTES = 2 + Short.BYTES + Short.BYTES + Integer.BYTES;
+    private static final Pattern LEGACY_FORMAT = Pattern.compile("(\\d{3})\\|\\|\\|(.*?)\\|\\|\\|(.*)", Pattern.DOTALL);
+
+    /**
+     * Returns whether the given Redis value is a completed record rather than a reservation.
+     *
+     * @param value the raw Redis value
+     * @return true if the value is a record, in the binary or the legacy string format
+     */
+    static boolean isRecord(byte[] value) {
+        return (value.length >= HEADER_BYTES && value[0] == VERSION) || isLegacy(value);
+    }
+
+    private static boolean isLegacy(byte[] value) {
+        return value.length > 0 && value[0] >= '1' && value[0] <= '5'
+                && LEGACY_FORMAT.matcher(new String(value, StandardCharsets.UTF_8)).matches();
+    }
+
+    /**
+     * Returns whether the body of the given record value is stored deflated.
+     *
+     * @param value a value written by {@link #encode(int)}
+     * @return true if the body is deflated
+     */
+    static boolean isDeflated(byte[] value) {
+        return (value[1] & FLAG_DEFLATED) != 0;
+    }
+
+    /**
+     * Returns the approximate heap footprint of this record, used to bound the near-cache.
+     *
+     * @return size in bytes
+     */
+    int weight() {
+        return body.length + contentType.length() + HEADER_BYTES;
+    }
+
+    /**
+     * Serializes this record.
+     *
+     * @param compressionThreshold body size from which deflating is attempted
+     * @return the binary value to store
+     */
+    byte[] encode(int compressionThreshold) {
+        byte[] type = contentType.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = body;
+        byte flags = 0;
+        if (body.length >= compressionThreshold) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                stored = deflated;
+                flags = FLAG_DEFLATED;
+            }
+        }
+
+        return ByteBuffer.allocate(HEADER_BYTES + type.length + stored.length)
+                .put(VERSION)
+                .put(flags)
+                .putShort((short) status)
+                .putShort((short) type.length)
+                .put(type)
+                .putInt(body.length)
+                .put(stored)
+                .array();
+    }
+
+    /**
+     * Deserializes a record written by {@link #encode(int)}, or in the legacy string format.
+     *
+     * @param value the raw Redis value
+     * @return the record
+     * @throws IllegalArgumentException if the value is not a valid record
+     */
+    static IdempotencyRecord decode(byte[] value) {
+        if (!isRecord(value)) {
+            throw new IllegalArgumentException("Not an idempotency record");
+        }
+        if (value[0] != VERSION) {
+            return decodeLegacy(value);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        buffer.get();
+        byte flags = buffer.get();
+        int status = Short.toUnsignedInt(buffer.getShort());
+        byte[] type = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(type);
+        int bodyLength = buffer.getInt();
+
+        byte[] body;
+        if ((flags & FLAG_DEFLATED) != 0) {
+            body = inflate(value, buffer.position(), bodyLength);
+        } else {
+            body = Arrays.copyOfRange(value, buffer.position(), buffer.position() + bodyLength);
+        }
+        return new IdempotencyRecord(status, new String(type, StandardCharsets.UTF_8), body);
+    }
+
+    /**
+     * Creates a record, mapping a missing content type to an empty string.
+     *
+     * @param status      the HTTP status
+     * @param contentType the content type, or null
+     * @param body        the response body
+     * @return the record
+     */
+    static IdempotencyRecord of(int status, String contentType, byte[] body) {
+        return new IdempotencyRecord(status, isNull(contentType) ? "" : contentType, body);
+    }
+
+    private static IdempotencyRecord decodeLegacy(byte[] value) {
+        Matcher matcher = LEGACY_FORMAT.matcher(new String(value, StandardCharsets.UTF_8));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not an idempotency record");
+        }
+        return new IdempotencyRecord(Integer.parseInt(matcher.group(1)), matcher.group(2),
+                Base64.getDecoder().decode(matcher.group(3)));
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] output = new byte[input.length];
+            int length = deflater.deflate(output);
+            return deflater.finished() ? Arrays.copyOf(output, length) : input;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] value, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(value, offset, value.length - offset);
+            byte[] output = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(output, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalArgumentException("Truncated idempotency record body");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt idempotency record body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.photoblast.filter;
+
+import com.photoblast.exception.RedisUnavailableException;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and latency meter around the Redis commands issued by the idempotency filter
+ * and the job checkpoint store.
+ * <p>
+ * After {@code failure-threshold} consecutive failures, including command timeouts, the
+ * breaker opens and rejects calls immediately for {@code open-duration-ms}, so that
+ * request threads stop waiting on an unhealthy Redis. It then lets a single trial call
+ * through; success closes the breaker, failure opens it again.
+ * </p>
+ * <p>
+ * The state is exported as {@link PhotoMetrics#REDIS_BREAKER_STATE} (0 closed, 1 half-open,
+ * 2 open) and every call is timed as {@link PhotoMetrics#REDIS_TIMER}.
+ * </p>
+ */
+@Component
+public class RedisCircuitBreaker {
+
+    /**
+     * Breaker state, ordered by the value exported as a gauge.
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    private final PhotoMetrics photoMetrics;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    /**
+     * Constructs a new RedisCircuitBreaker and registers its state gauge.
+     *
+     * @param photoMetrics     metrics used to time calls and export the state
+     * @param failureThreshold consecutive failures that open the breaker
+     * @param openDurationMs   how long the breaker stays open before a trial call
+     */
+    @Autowired
+    public RedisCircuitBreaker(PhotoMetrics photoMetrics,
+                               @Value("${photoblast.idempotency.redis.failure-threshold:5}") int failureThreshold,
+                               @Value("${photoblast.idempotency.redis.open-duration-ms:10000}") long openDurationMs) {
+        this(photoMetrics, failureThreshold, Duration.ofMillis(openDurationMs), System::nanoTime);
+    }
+
+    RedisCircuitBreaker(PhotoMetrics photoMetrics, int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.photoMetrics = photoMetrics;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+        Gauge.builder(PhotoMetrics.REDIS_BREAKER_STATE, state, s -> s.get().ordinal())
+                .description("Redis circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(photoMetrics.getRegistry());
+    }
+
+    /**
+     * Runs a Redis command through the breaker.
+     *
+     * @param command the command name used to tag the latency metric
+     * @param call    the command
+     * @param <T>     the command result type
+     * @return the command result
+     * @throws RedisUnavailableException if the breaker is open or the command fails with a
+     *                                   {@link DataAccessException}; any other exception is
+     *                                   rethrown, but counts as a failure as well
+     */
+    public <T> T call(String command, Supplier<T> call) {
+        if (!tryAcquire()) {
+            throw new RedisUnavailableException("Redis circuit breaker is open");
+        }
+        long start = nanoClock.getAsLong();
+        try {
+            T result = call.get();
+            photoMetrics.recordRedis(command, PhotoMetrics.OUTCOME_SUCCESS, nanoClock.getAsLong() - start);
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            photoMetrics.recordRedis(command, PhotoMetrics.OUTCOME_FAILURE, nanoClock.getAsLong() - start);
+            onFailure();
+            if (e instanceof DataAccessException) {
+                throw new RedisUnavailableException("Redis " + command + " failed", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return the breaker state
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    private boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Redis circuit breaker closed");
+        }
+    }
+
+    private void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = nanoClock.getAsLong();
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Redis circuit breaker opened for {}ms", Duration.ofNanos(openNanos).toMillis());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.photoblast.filter;
+
+import com.photoblast.logging.LogContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+
+/**
+ * HTTP filter that puts a request id into the MDC for every log event of the request.
+ * <p>
+ * Uses the {@code X-Request-Id} header when the client or a proxy provides one and
+ * generates an id otherwise. The id is echoed in the response so that clients can
+ * quote it. Runs first, so that every other filter logs with the id.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final int MAX_REQUEST_ID_LENGTH = 128;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (isNull(requestId) || requestId.isBlank() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(LogContext.REQUEST_ID, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.clear();
+        }
+    }
+}
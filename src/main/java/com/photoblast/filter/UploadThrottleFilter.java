@@ -0,0 +1,135 @@
+package com.photoblast.filter;
+
+import com.photoblast.config.RoleProperties;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.metrics.QueueMetricsSampler;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * HTTP filter that sheds uploads before they are read, stored or queued.
+ * <p>
+ * Uploads are rejected with {@code 503 Service Unavailable} while the last sampled depth of
+ * the processing queue is at or above {@code max-queue-depth}, so that clients back off
+ * instead of adding to a backlog they would wait hours for. The depth comes from
+ * {@link QueueMetricsSampler}, so the request path never queries the broker. Uploads that
+ * pass are then charged to the client's {@link ClientRateLimiter} bucket and rejected with
+ * {@code 429 Too Many Requests} when it is empty. Both responses carry {@code Retry-After}.
+ * </p>
+ * <p>
+ * The client is identified by its remote address, or by the {@code client-header} header
+ * if one is configured; that header must be set by a trusted gateway, since clients could
+ * otherwise evade the limit by varying it. Runs before the
+ * {@link IdempotencyFilter}, so shed requests cost no Redis round trip and are not cached.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class UploadThrottleFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadThrottleFilter.class);
+    private static final String UPLOAD_PATH = "/photos/upload";
+    private static final int MAX_CLIENT_ID_LENGTH = 128;
+
+    private final QueueMetricsSampler queueMetricsSampler;
+    private final ClientRateLimiter clientRateLimiter;
+    private final PhotoMetrics photoMetrics;
+
+    @Value("${photoblast.upload.throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${photoblast.upload.throttle.max-queue-depth:50000}")
+    private long maxQueueDepth;
+
+    @Value("${photoblast.upload.throttle.queue-retry-after-seconds:30}")
+    private long queueRetryAfterSeconds;
+
+    @Value("${photoblast.upload.throttle.client-header:}")
+    private String clientHeader;
+
+    /**
+     * Constructs a new UploadThrottleFilter.
+     *
+     * @param queueMetricsSampler source of the sampled processing queue depth
+     * @param clientRateLimiter   per-client token buckets
+     * @param photoMetrics        metrics used to count rejected uploads
+     */
+    public UploadThrottleFilter(QueueMetricsSampler queueMetricsSampler, ClientRateLimiter clientRateLimiter,
+                                PhotoMetrics photoMetrics) {
+        this.queueMetricsSampler = queueMetricsSampler;
+        this.clientRateLimiter = clientRateLimiter;
+        this.photoMetrics = photoMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !HttpMethod.POST.matches(request.getMethod()) || !path.startsWith(UPLOAD_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long depth = queueMetricsSampler.getProcessingQueueDepth();
+        if (maxQueueDepth > 0 && depth >= maxQueueDepth) {
+            log.warn("Processing backlog full, shedding upload: depth={}, max={}", depth, maxQueueDepth);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, queueRetryAfterSeconds, "queue_full",
+                    "Processing backlog is full, please retry later");
+            return;
+        }
+
+        String clientId = clientId(request);
+        long waitNanos = clientRateLimiter.tryAcquire(clientId);
+        if (waitNanos > 0) {
+            log.debug("Upload rate limit exceeded: client={}", clientId);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, ceilSeconds(waitNanos)), "rate_limited",
+                    "Too many uploads, please slow down");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            String clientId = request.getHeader(clientHeader);
+            if (nonNull(clientId) && !clientId.isBlank() && clientId.length() <= MAX_CLIENT_ID_LENGTH) {
+                return clientId;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds,
+                        String reason, String message) throws IOException {
+        photoMetrics.recordUploadThrottled(reason);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.photoblast.image;
+
+import lombok.experimental.UtilityClass;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Encodes images as BlurHash strings, a compact placeholder that clients decode into a blurred
+ * preview of the image.
+ * <p>
+ * The image is described by the lowest frequency components of its discrete cosine transform
+ * in linear RGB: the average color and {@code xComponents * yComponents - 1} AC components,
+ * quantized and written in base 83. The result is {@code 4 + 2 * xComponents * yComponents}
+ * characters long. The transform gains nothing from a large source, so it should be given a
+ * small, subsampled image.
+ * </p>
+ */
+@UtilityClass
+public class BlurHash {
+
+    /** Largest number of components on either axis */
+    public static final int MAX_COMPONENTS = 9;
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            double v = i / 255.0;
+            SRGB_TO_LINEAR[i] = v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    /**
+     * Encodes the image as it appears after the given orientation.
+     *
+     * @param image       the image, whose alpha is ignored
+     * @param orientation the orientation that displays the image upright
+     * @param xComponents the number of horizontal components, between 1 and {@link #MAX_COMPONENTS}
+     * @param yComponents the number of vertical components, between 1 and {@link #MAX_COMPONENTS}
+     * @return the BlurHash
+     * @throws IllegalArgumentException if a component count is out of range
+     */
+    public String encode(BufferedImage image, Orientation orientation, int xComponents, int yComponents) {
+        if (xComponents < 1 || xComponents > MAX_COMPONENTS || yComponents < 1 || yComponents > MAX_COMPONENTS) {
+            throw new IllegalArgumentException("Components must be between 1 and " + MAX_COMPONENTS + ": "
+                    + xComponents + "x" + yComponents);
+        }
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int[] source = image.getRGB(0, 0, sourceWidth, sourceHeight, null, 0, sourceWidth);
+        int width = orientation.swapsAxes() ? sourceHeight : sourceWidth;
+        int height = orientation.swapsAxes() ? sourceWidth : sourceHeight;
+
+        double[][] cosX = cosines(xComponents, width);
+        double[][] cosY = cosines(yComponents, height);
+        double[] factors = new double[xComponents * yComponents * 3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Rectangle pixel = orientation.toSource(new Rectangle(x, y, 1, 1), width, height);
+                int rgb = source[pixel.y * sourceWidth + pixel.x];
+                double r = SRGB_TO_LINEAR[(rgb >> 16) & 0xFF];
+                double g = SRGB_TO_LINEAR[(rgb >> 8) & 0xFF];
+                double b = SRGB_TO_LINEAR[rgb & 0xFF];
+                for (int j = 0; j < yComponents; j++) {
+                    for (int i = 0; i < xComponents; i++) {
+                        double basis = cosX[i][x] * cosY[j][y];
+                        int f = (j * xComponents + i) * 3;
+                        factors[f] += basis * r;
+                        factors[f + 1] += basis * g;
+                        factors[f + 2] += basis * b;
+                    }
+                }
+            }
+        }
+        double scale = 1.0 / ((double) width * height);
+        for (int f = 0; f < factors.length; f++) {
+            factors[f] *= f < 3 ? scale : 2 * scale;
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * xComponents * yComponents);
+        base83(hash, (xComponents - 1) + (yComponents - 1) * 9, 1);
+        double maximum = 1;
+        if (factors.length > 3) {
+            double actual = 0;
+            for (int f = 3; f < factors.length; f++) {
+                actual = Math.max(actual, Math.abs(factors[f]));
+            }
+            int quantized = (int) Math.max(0, Math.min(82, Math.floor(actual * 166 - 0.5)));
+            maximum = (quantized + 1) / 166.0;
+            base83(hash, quantized, 1);
+        } else {
+            base83(hash, 0, 1);
+        }
+        base83(hash, (linearToSrgb(factors[0]) << 16) + (linearToSrgb(factors[1]) << 8) + linearToSrgb(factors[2]), 4);
+        for (int f = 3; f < factors.length; f += 3) {
+            base83(hash, quantizeAc(factors[f], maximum) * 19 * 19
+                    + quantizeAc(factors[f + 1], maximum) * 19
+                    + quantizeAc(factors[f + 2], maximum), 2);
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Returns {@code cos(pi * component * position / size)} for every component and position.
+     */
+    private double[][] cosines(int components, int size) {
+        double[][] cosines = new double[components][size];
+        for (int component = 0; component < components; component++) {
+            for (int position = 0; position < size; position++) {
+                cosines[component][position] = Math.cos(Math.PI * component * position / size);
+            }
+        }
+        return cosines;
+    }
+
+    private int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private int quantizeAc(double value, double maximum) {
+        double v = value / maximum;
+        return (int) Math.max(0, Math.min(18, Math.floor(Math.copySign(Math.sqrt(Math.abs(v)), v) * 9 + 9.5)));
+    }
+
+    private void base83(StringBuilder hash, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / pow83(length - i)) % 83;
+            hash.append(BASE83.charAt(digit));
+        }
+    }
+
+    private int pow83(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 83;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.photoblast.image;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link javax.imageio.stream.ImageInputStream} reading an encoded image straight from a
+ * buffer.
+ * <p>
+ * {@code ImageIO.read(InputStream)} wraps its input in a cache that copies every byte read,
+ * to a temporary file or to memory; a buffer that already holds the whole file can be
+ * seeked directly instead. The buffer's content between position and limit is read; the
+ * buffer itself is not modified.
+ * </p>
+ */
+public class ByteBufferImageInputStream extends ImageInputStreamImpl {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a new ByteBufferImageInputStream.
+     *
+     * @param buffer the encoded image between position and limit
+     */
+    public ByteBufferImageInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        return buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + b.length);
+        }
+        bitOffset = 0;
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= buffer.limit()) {
+            return -1;
+        }
+        int count = (int) Math.min(len, buffer.limit() - streamPos);
+        buffer.get((int) streamPos, b, off, count);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+}
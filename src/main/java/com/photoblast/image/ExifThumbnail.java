@@ -0,0 +1,84 @@
+package com.photoblast.image;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Locates the thumbnail that cameras embed in the EXIF segment of a JPEG file.
+ * <p>
+ * The thumbnail is a small JPEG, typically 160x120, stored in the second image file
+ * directory of the EXIF data. Like the orientation it precedes the first scan, so it is found
+ * without decoding the image. It is stored in the orientation of the full image.
+ * </p>
+ */
+@UtilityClass
+public class ExifThumbnail {
+
+    private static final int JPEG_SOI = 0xFFD8;
+    private static final int JPEG_APP1 = 0xFFE1;
+    private static final int JPEG_SOS = 0xFFDA;
+    private static final int EXIF_HEADER = 0x45786966;
+    private static final int TAG_THUMBNAIL_OFFSET = 0x0201;
+    private static final int TAG_THUMBNAIL_LENGTH = 0x0202;
+
+    /**
+     * Returns the embedded thumbnail of a JPEG file.
+     *
+     * @param file the leading bytes of the file between position and limit, which are not modified
+     * @return a view of the thumbnail JPEG within the file, or null if the file has none
+     */
+    public ByteBuffer find(ByteBuffer file) {
+        ByteBuffer in = file.slice().order(ByteOrder.BIG_ENDIAN);
+        if (in.remaining() < 4 || (in.getShort(0) & 0xFFFF) != JPEG_SOI) {
+            return null;
+        }
+        int p = 2;
+        while (p + 4 <= in.limit()) {
+            int marker = in.getShort(p) & 0xFFFF;
+            int length = in.getShort(p + 2) & 0xFFFF;
+            if ((marker & 0xFF00) != 0xFF00 || marker == JPEG_SOS || length < 2) {
+                return null;
+            }
+            if (marker == JPEG_APP1 && length >= 16 && p + 2 + length <= in.limit()
+                    && in.getInt(p + 4) == EXIF_HEADER && in.getShort(p + 8) == 0) {
+                return readTiff(in.slice(p + 10, length - 8));
+            }
+            p += 2 + length;
+        }
+        return null;
+    }
+
+    private ByteBuffer readTiff(ByteBuffer tiff) {
+        tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd0 = tiff.getInt(4);
+        if (ifd0 < 8 || ifd0 + 2 > tiff.limit()) {
+            return null;
+        }
+        int next = ifd0 + 2 + (tiff.getShort(ifd0) & 0xFFFF) * 12;
+        if (next + 4 > tiff.limit()) {
+            return null;
+        }
+        int ifd1 = tiff.getInt(next);
+        if (ifd1 < 8 || ifd1 + 2 > tiff.limit()) {
+            return null;
+        }
+        int offset = -1;
+        int length = -1;
+        int entries = tiff.getShort(ifd1) & 0xFFFF;
+        for (int i = 0, p = ifd1 + 2; i < entries && p + 12 <= tiff.limit(); i++, p += 12) {
+            int tag = tiff.getShort(p) & 0xFFFF;
+            if (tag == TAG_THUMBNAIL_OFFSET) {
+                offset = tiff.getInt(p + 8);
+            } else if (tag == TAG_THUMBNAIL_LENGTH) {
+                length = tiff.getInt(p + 8);
+            }
+        }
+        if (offset < 8 || length < 4 || length > tiff.limit() - offset
+                || (tiff.order(ByteOrder.BIG_ENDIAN).getShort(offset) & 0xFFFF) != JPEG_SOI) {
+            return null;
+        }
+        return tiff.slice(offset, length);
+    }
+}
@@ -0,0 +1,382 @@
+package com.photoblast.image;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.config.RoleProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Downscales large images with a separable {@link ResampleFilter}, in parallel row bands.
+ * <p>
+ * Thumbnailator scales on the calling thread, so a single very large image keeps one core
+ * busy for seconds. This scaler splits the output rows into bands that are resampled
+ * concurrently on a dedicated {@link ForkJoinPool}. Each band reads the source rows its
+ * filter window covers, including a margin that overlaps the neighbouring bands, into a
+ * band-local buffer and resamples them vertically and then horizontally into its own rows
+ * of the result. Every output pixel is computed from the same inputs and weights whatever the band
+ * layout, so the stitched result has no seams.
+ * </p>
+ * <p>
+ * The inner loops run on a {@link ResampleKernel}: the Vector API kernel when
+ * {@code photoblast.image.parallel.simd} is enabled and the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, the scalar kernel otherwise. Both produce
+ * identical pixels. Images with alpha are resampled premultiplied to avoid dark fringes
+ * around transparent areas.
+ * </p>
+ * <p>
+ * Band buffers are leased from the {@link PixelBufferPool} and returned as soon as the band
+ * is done, so a scale holds only about one band buffer per worker thread at a time. The
+ * result is leased from the caller's {@link PixelBufferPool.Scope}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+public class ImageScaler {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageScaler.class);
+
+    /** Bands are never smaller than this, so that the overlap margins stay a small share of the work */
+    private static final int MIN_BAND_ROWS = 32;
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final long minPixels;
+    private final ResampleKernel kernel;
+    private final PixelBufferPool bufferPool;
+
+    /**
+     * Constructs a new ImageScaler with a pool sized by {@code photoblast.image.parallel.threads}.
+     *
+     * @param imageProperties the image processing configuration properties
+     * @param bufferPool      the pool band buffers are leased from
+     */
+    @Autowired
+    public ImageScaler(ImageProperties imageProperties, PixelBufferPool bufferPool) {
+        this(imageProperties.getParallelThreads(), imageProperties.getParallelMinPixels(),
+                imageProperties.isParallelSimd(), bufferPool);
+        log.info("Image scaler started: threads={}, kernel={}", pool.getParallelism(), kernel.name());
+    }
+
+    /**
+     * Constructs a new ImageScaler.
+     *
+     * @param threads    worker threads, or 0 for one per available processor
+     * @param minPixels  source size from which {@link #shouldScale} selects this scaler
+     * @param simd       whether to use the Vector API kernel if available
+     * @param bufferPool the pool band buffers are leased from
+     */
+    public ImageScaler(int threads, long minPixels, boolean simd, PixelBufferPool bufferPool) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, ImageScaler::newWorker, null, false);
+        this.minPixels = minPixels;
+        this.kernel = ResampleKernel.select(simd);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Returns whether scaling the image to the given size is worth splitting into bands.
+     *
+     * @param source the source image
+     * @param width  the target width
+     * @param height the target height
+     * @return true for downscales of images of at least {@code min-pixels}
+     */
+    public boolean shouldScale(BufferedImage source, int width, int height) {
+        return (long) source.getWidth() * source.getHeight() >= minPixels
+                && width <= source.getWidth() && height <= source.getHeight();
+    }
+
+    /**
+     * Scales the image to exactly the given size.
+     *
+     * @param source the source image, which is only read
+     * @param width  the target width
+     * @param height the target height
+     * @param filter the reconstruction filter
+     * @param scope  the scope the result and any intermediate copy of the source are leased from
+     * @return a {@code TYPE_INT_ARGB} image if the source has alpha, {@code TYPE_INT_RGB}
+     * otherwise, valid until the scope is closed
+     */
+    public BufferedImage scale(BufferedImage source, int width, int height, ResampleFilter filter,
+                               PixelBufferPool.Scope scope) {
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage target = scope.image(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] output = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+
+        ScaleJob job = new ScaleJob(kernel, bufferPool, rowReader(source, scope), source.getWidth(), width,
+                alpha, output,
+                ResampleWeights.of(filter, source.getWidth(), width),
+                ResampleWeights.of(filter, source.getHeight(), height));
+        int bandRows = Math.max(MIN_BAND_ROWS,
+                (int) Math.ceil((double) height / (pool.getParallelism() * BANDS_PER_THREAD)));
+        pool.invoke(new Band(job, 0, height, bandRows));
+        return target;
+    }
+
+    /**
+     * Returns the name of the kernel running the inner loops.
+     *
+     * @return {@code scalar}, or {@code vector-} followed by the vector size in bits
+     */
+    public String getKernelName() {
+        return kernel.name();
+    }
+
+    /**
+     * Returns the largest size within the given bounds that keeps the source aspect ratio.
+     *
+     * @param width     the source width
+     * @param height    the source height
+     * @param maxWidth  the bounding width
+     * @param maxHeight the bounding height
+     * @return the fitted size, at least 1x1
+     */
+    public static Dimension fit(int width, int height, int maxWidth, int maxHeight) {
+        double ratio = (double) width / height;
+        if ((double) maxWidth / maxHeight > ratio) {
+            return new Dimension(Math.max(1, (int) Math.round(maxHeight * ratio)), maxHeight);
+        }
+        return new Dimension(maxWidth, Math.max(1, (int) Math.round(maxWidth / ratio)));
+    }
+
+    /**
+     * Shuts the worker pool down.
+     */
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("image-scale-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    /**
+     * Returns a reader of premultiplied ARGB rows, reading the raster directly where its
+     * layout is known and from an sRGB copy otherwise. Subimages are read in place from
+     * their parent's data.
+     */
+    private static RowReader rowReader(BufferedImage source, PixelBufferPool.Scope scope) {
+        Raster raster = source.getRaster();
+        int originX = -raster.getSampleModelTranslateX();
+        int originY = -raster.getSampleModelTranslateY();
+
+        if (raster.getDataBuffer() instanceof DataBufferInt buffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel model) {
+            int[] data = buffer.getData();
+            int stride = model.getScanlineStride();
+            int offset = buffer.getOffset() + originY * stride + originX;
+            int width = source.getWidth();
+            switch (source.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                    return (y, target, targetOffset) -> {
+                        int base = offset + y * stride;
+                        for (int x = 0; x < width; x++) {
+                            target[targetOffset + x] = data[base + x] | 0xFF000000;
+                        }
+                    };
+                case BufferedImage.TYPE_INT_ARGB:
+                    return (y, target, targetOffset) -> {
+                        int base = offset + y * stride;
+                        for (int x = 0; x < width; x++) {
+                            target[targetOffset + x] = premultiply(data[base + x]);
+                        }
+                    };
+                case BufferedImage.TYPE_INT_ARGB_PRE:
+                    return (y, target, targetOffset) ->
+                            System.arraycopy(data, offset + y * stride, target, targetOffset, width);
+                default:
+                    break;
+            }
+        }
+
+        if (raster.getDataBuffer() instanceof DataBufferByte buffer
+                && raster.getSampleModel() instanceof ComponentSampleModel model
+                && source.getColorModel() instanceof ComponentColorModel colorModel
+                && colorModel.getColorSpace().isCS_sRGB()
+                && !colorModel.isAlphaPremultiplied()
+                && (model.getNumBands() == 3 || model.getNumBands() == 4)
+                && model.getNumBands() == colorModel.getNumComponents()) {
+            byte[] data = buffer.getData();
+            int stride = model.getScanlineStride();
+            int pixelStride = model.getPixelStride();
+            int offset = buffer.getOffset() + originY * stride + originX * pixelStride;
+            int[] bands = model.getBandOffsets();
+            int r = bands[0];
+            int g = bands[1];
+            int b = bands[2];
+            int a = model.getNumBands() == 4 ? bands[3] : -1;
+            int width = source.getWidth();
+            return (y, target, targetOffset) -> {
+                int p = offset + y * stride;
+                for (int x = 0; x < width; x++, p += pixelStride) {
+                    int argb = (a < 0 ? 0xFF000000 : (data[p + a] & 0xFF) << 24)
+                            | (data[p + r] & 0xFF) << 16
+                            | (data[p + g] & 0xFF) << 8
+                            | (data[p + b] & 0xFF);
+                    target[targetOffset + x] = a < 0 ? argb : premultiply(argb);
+                }
+            };
+        }
+
+        BufferedImage copy = scope.image(source.getWidth(), source.getHeight(),
+                source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = copy.createGraphics();
+        try {
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rowReader(copy, scope);
+    }
+
+    private static int premultiply(int argb) {
+        int a = argb >>> 24;
+        if (a == 0xFF) {
+            return argb;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        int r = ((argb >> 16) & 0xFF) * a + 127;
+        int g = ((argb >> 8) & 0xFF) * a + 127;
+        int b = (argb & 0xFF) * a + 127;
+        return a << 24 | (r + (r >> 8)) >> 8 << 16 | (g + (g >> 8)) >> 8 << 8 | (b + (b >> 8)) >> 8;
+    }
+
+    private static int unpremultiply(int value, int alpha) {
+        return (value * 0xFF + (alpha >> 1)) / alpha;
+    }
+
+    /**
+     * Reads one source row as premultiplied ARGB.
+     */
+    @FunctionalInterface
+    private interface RowReader {
+        void read(int y, int[] target, int targetOffset);
+    }
+
+    /**
+     * Shared, read-only state of one scale operation; bands write disjoint rows of the output.
+     */
+    private static final class ScaleJob {
+
+        private final ResampleKernel kernel;
+        private final PixelBufferPool bufferPool;
+        private final RowReader reader;
+        private final int sourceWidth;
+        private final int width;
+        private final boolean alpha;
+        private final int[] output;
+        private final ResampleWeights horizontal;
+        private final ResampleWeights vertical;
+
+        ScaleJob(ResampleKernel kernel, PixelBufferPool bufferPool, RowReader reader, int sourceWidth, int width,
+                 boolean alpha, int[] output, ResampleWeights horizontal, ResampleWeights vertical) {
+            this.kernel = kernel;
+            this.bufferPool = bufferPool;
+            this.reader = reader;
+            this.sourceWidth = sourceWidth;
+            this.width = width;
+            this.alpha = alpha;
+            this.output = output;
+            this.horizontal = horizontal;
+            this.vertical = vertical;
+        }
+
+        /**
+         * Resamples output rows {@code [y0, y1)}.
+         * <p>
+         * The vertical pass runs first, over full source rows, so that most of the work of a
+         * downscale is a contiguous row-by-row sum that vectorizes well; the horizontal pass
+         * then only touches the already reduced rows.
+         * </p>
+         */
+        void scaleRows(int y0, int y1) {
+            int first = vertical.start()[y0];
+            int last = first;
+            for (int y = y0; y < y1; y++) {
+                last = Math.max(last, vertical.start()[y] + vertical.count()[y]);
+            }
+
+            try (PixelBufferPool.Lease<int[]> lease = bufferPool.ints((last - first) * sourceWidth)) {
+                int[] band = lease.get();
+                for (int sy = first; sy < last; sy++) {
+                    reader.read(sy, band, (sy - first) * sourceWidth);
+                }
+
+                int[] row = new int[sourceWidth];
+                for (int y = y0; y < y1; y++) {
+                    kernel.resampleColumns(band, (vertical.start()[y] - first) * sourceWidth, sourceWidth,
+                            vertical.coefficients(), y * vertical.stride(), vertical.count()[y],
+                            row, 0, alpha);
+                    kernel.resampleRow(row, horizontal, output, y * width, alpha);
+                    if (alpha) {
+                        unpremultiplyRow(y * width);
+                    }
+                }
+            }
+        }
+
+        private void unpremultiplyRow(int base) {
+            for (int x = base; x < base + width; x++) {
+                int p = output[x];
+                int a = p >>> 24;
+                if (a != 0 && a != 0xFF) {
+                    output[x] = a << 24
+                            | unpremultiply((p >> 16) & 0xFF, a) << 16
+                            | unpremultiply((p >> 8) & 0xFF, a) << 8
+                            | unpremultiply(p & 0xFF, a);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits output rows in halves until a band is at most {@code bandRows} rows.
+     */
+    private static final class Band extends RecursiveAction {
+
+        private final ScaleJob job;
+        private final int y0;
+        private final int y1;
+        private final int bandRows;
+
+        Band(ScaleJob job, int y0, int y1, int bandRows) {
+            this.job = job;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (y1 - y0 <= bandRows) {
+                job.scaleRows(y0, y1);
+                return;
+            }
+            int middle = (y0 + y1) >>> 1;
+            invokeAll(new Band(job, y0, middle, bandRows), new Band(job, middle, y1, bandRows));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.photoblast.image;
+
+import javax.imageio.ImageTypeSpecifier;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The eight rotations and mirrorings of an image, numbered as in the EXIF orientation tag.
+ * <p>
+ * Each orientation is a 2x2 matrix mapping source pixel coordinates, taken relative to the
+ * image center, onto destination coordinates, so that consecutive orientations compose into
+ * one by matrix multiplication and an image is only ever rotated once. The EXIF value of an
+ * orientation is the transform that displays an image stored with that tag upright.
+ * </p>
+ */
+public enum Orientation {
+
+    NORMAL(1, 1, 0, 0, 1),
+    FLIP_HORIZONTAL(2, -1, 0, 0, 1),
+    ROTATE_180(3, -1, 0, 0, -1),
+    FLIP_VERTICAL(4, 1, 0, 0, -1),
+    TRANSPOSE(5, 0, 1, 1, 0),
+    /** Rotate 90 degrees clockwise */
+    ROTATE_90(6, 0, -1, 1, 0),
+    TRANSVERSE(7, 0, -1, -1, 0),
+    /** Rotate 270 degrees clockwise */
+    ROTATE_270(8, 0, 1, -1, 0);
+
+    private static final int JPEG_SOI = 0xFFD8;
+    private static final int JPEG_APP1 = 0xFFE1;
+    private static final int JPEG_SOS = 0xFFDA;
+    private static final int EXIF_HEADER = 0x45786966;
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private final int exif;
+    private final int a;
+    private final int b;
+    private final int c;
+    private final int d;
+
+    Orientation(int exif, int a, int b, int c, int d) {
+        this.exif = exif;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+    }
+
+    /**
+     * Returns the orientation for an EXIF orientation tag value.
+     *
+     * @param value the tag value
+     * @return the orientation, or {@link #NORMAL} for values outside 1 to 8
+     */
+    public static Orientation fromExif(int value) {
+        for (Orientation orientation : values()) {
+            if (orientation.exif == value) {
+                return orientation;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Returns the clockwise rotation by the given angle.
+     *
+     * @param degrees a multiple of 90, negative for counterclockwise
+     * @return the rotation
+     * @throws IllegalArgumentException if the angle is not a multiple of 90
+     */
+    public static Orientation rotation(int degrees) {
+        if (degrees % 90 != 0) {
+            throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees: " + degrees);
+        }
+        return switch (Math.floorMod(degrees / 90, 4)) {
+            case 1 -> ROTATE_90;
+            case 2 -> ROTATE_180;
+            case 3 -> ROTATE_270;
+            default -> NORMAL;
+        };
+    }
+
+    /**
+     * Reads the orientation tag from the EXIF segment of a JPEG file.
+     * <p>
+     * Only the markers before the first scan are walked; the buffer is not modified.
+     * </p>
+     *
+     * @param file the encoded file between position and limit
+     * @return the orientation, or {@link #NORMAL} if the file is not a JPEG or has no tag
+     */
+    public static Orientation read(ByteBuffer file) {
+        ByteBuffer in = file.slice().order(ByteOrder.BIG_ENDIAN);
+        if (in.remaining() < 4 || (in.getShort(0) & 0xFFFF) != JPEG_SOI) {
+            return NORMAL;
+        }
+        int p = 2;
+        while (p + 4 <= in.limit()) {
+            int marker = in.getShort(p) & 0xFFFF;
+            int length = in.getShort(p + 2) & 0xFFFF;
+            if ((marker & 0xFF00) != 0xFF00 || marker == JPEG_SOS || length < 2) {
+                return NORMAL;
+            }
+            if (marker == JPEG_APP1 && length >= 16 && p + 2 + length <= in.limit()
+                    && in.getInt(p + 4) == EXIF_HEADER && in.getShort(p + 8) == 0) {
+                return readTiff(in.slice(p + 10, length - 8));
+            }
+            p += 2 + length;
+        }
+        return NORMAL;
+    }
+
+    private static Orientation readTiff(ByteBuffer tiff) {
+        tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return NORMAL;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0, p = ifd + 2; i < entries && p + 12 <= tiff.limit(); i++, p += 12) {
+            if ((tiff.getShort(p) & 0xFFFF) == TAG_ORIENTATION) {
+                return fromExif(tiff.getShort(p + 8) & 0xFFFF);
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Returns the orientation equivalent to applying this one and then the given one.
+     *
+     * @param next the orientation applied second
+     * @return the composed orientation
+     */
+    public Orientation then(Orientation next) {
+        int ra = next.a * a + next.b * c;
+        int rb = next.a * b + next.b * d;
+        int rc = next.c * a + next.d * c;
+        int rd = next.c * b + next.d * d;
+        for (Orientation orientation : values()) {
+            if (orientation.a == ra && orientation.b == rb && orientation.c == rc && orientation.d == rd) {
+                return orientation;
+            }
+        }
+        throw new IllegalStateException("Not an orientation: " + ra + ", " + rb + ", " + rc + ", " + rd);
+    }
+
+    /**
+     * Returns whether this orientation exchanges width and height.
+     *
+     * @return true for the quarter turns, the transpose and the transverse
+     */
+    public boolean swapsAxes() {
+        return a == 0;
+    }
+
+    /**
+     * Maps a rectangle of the oriented image back onto the image before orientation.
+     *
+     * @param rectangle a rectangle within the oriented image
+     * @param width     the width of the oriented image
+     * @param height    the height of the oriented image
+     * @return the rectangle covering the same pixels before orientation
+     */
+    public Rectangle toSource(Rectangle rectangle, int width, int height) {
+        int x0 = sourceX(rectangle.x, rectangle.y, width, height);
+        int y0 = sourceY(rectangle.x, rectangle.y, width, height);
+        int x1 = sourceX(rectangle.x + rectangle.width - 1, rectangle.y + rectangle.height - 1, width, height);
+        int y1 = sourceY(rectangle.x + rectangle.width - 1, rectangle.y + rectangle.height - 1, width, height);
+        return new Rectangle(Math.min(x0, x1), Math.min(y0, y1), Math.abs(x1 - x0) + 1, Math.abs(y1 - y0) + 1);
+    }
+
+    /**
+     * Writes the oriented image into an image of the same layout leased from the scope.
+     * <p>
+     * Every destination row is one row or one column of the source, read and written with
+     * the raster's data elements so that no color conversion takes place.
+     * </p>
+     *
+     * @param source the image to orient, which is only read
+     * @param scope  the scope the result is leased from
+     * @return the oriented image, or the source itself for {@link #NORMAL}
+     */
+    public BufferedImage apply(BufferedImage source, PixelBufferPool.Scope scope) {
+        if (this == NORMAL) {
+            return source;
+        }
+        int width = swapsAxes() ? source.getHeight() : source.getWidth();
+        int height = swapsAxes() ? source.getWidth() : source.getHeight();
+        BufferedImage target = scope.image(
+                new ImageTypeSpecifier(source.getColorModel(), source.getSampleModel()), width, height);
+
+        Raster in = source.getRaster();
+        WritableRaster out = target.getRaster();
+        int elements = in.getNumDataElements();
+        boolean reverse = swapsAxes() ? b < 0 : a < 0;
+        boolean flipLines = swapsAxes() ? c < 0 : d < 0;
+        Object line = null;
+        Object reversed = null;
+        for (int y = 0; y < height; y++) {
+            int index = flipLines ? height - 1 - y : y;
+            line = swapsAxes()
+                    ? in.getDataElements(index, 0, 1, width, line)
+                    : in.getDataElements(0, index, width, 1, line);
+            if (reverse) {
+                if (isNull(reversed)) {
+                    reversed = copyOf(line);
+                }
+                reverse(line, reversed, width, elements);
+                out.setDataElements(0, y, width, 1, reversed);
+            } else {
+                out.setDataElements(0, y, width, 1, line);
+            }
+        }
+        return target;
+    }
+
+    private int sourceX(int x, int y, int width, int height) {
+        if (swapsAxes()) {
+            return c < 0 ? height - 1 - y : y;
+        }
+        return a < 0 ? width - 1 - x : x;
+    }
+
+    private int sourceY(int x, int y, int width, int height) {
+        if (swapsAxes()) {
+            return b < 0 ? width - 1 - x : x;
+        }
+        return d < 0 ? height - 1 - y : y;
+    }
+
+    private static Object copyOf(Object line) {
+        return switch (line) {
+            case byte[] bytes -> bytes.clone();
+            case short[] shorts -> shorts.clone();
+            case int[] ints -> ints.clone();
+            case float[] floats -> floats.clone();
+            case double[] doubles -> doubles.clone();
+            default -> throw new IllegalArgumentException("Unsupported transfer type: " + line.getClass());
+        };
+    }
+
+    private static void reverse(Object line, Object target, int pixels, int elements) {
+        if (line instanceof int[] in && elements == 1) {
+            int[] out = (int[]) target;
+            for (int x = 0; x < pixels; x++) {
+                out[pixels - 1 - x] = in[x];
+            }
+            return;
+        }
+        if (line instanceof byte[] in) {
+            byte[] out = (byte[]) target;
+            for (int x = 0, p = 0; x < pixels; x++) {
+                int q = (pixels - 1 - x) * elements;
+                for (int e = 0; e < elements; e++) {
+                    out[q + e] = in[p++];
+                }
+            }
+            return;
+        }
+        for (int x = 0; x < pixels; x++) {
+            System.arraycopy(line, x * elements, target, (pixels - 1 - x) * elements, elements);
+        }
+    }
+}
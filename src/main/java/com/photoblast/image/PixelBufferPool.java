@@ -0,0 +1,425 @@
+package com.photoblast.image;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageTypeSpecifier;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-classed pool of reusable pixel and byte buffers.
+ * <p>
+ * A single task on a large photo allocates the encoded file, the decoded raster and the
+ * scaler's band buffers, each tens of megabytes. Allocated fresh, every one of them is a
+ * humongous allocation that is zeroed and then collected again. The image pipeline instead
+ * borrows these buffers as {@link Lease leases} and returns them when the task completes.
+ * </p>
+ * <p>
+ * Buffers are rounded up to size classes at every power of two and three quarters of it,
+ * so a lease wastes at most a third of its buffer. Buffers smaller than
+ * {@link #MIN_POOLED_BYTES} are allocated directly. Returned buffers are retained up to
+ * {@code photoblast.image.pool.max-bytes}; beyond that they are left to the garbage
+ * collector. Byte buffers are off-heap when {@code photoblast.image.pool.direct} is set,
+ * which lets file reads skip the JDK's temporary direct buffer.
+ * </p>
+ * <p>
+ * A lease that becomes unreachable without being closed is reported as a leak and its
+ * buffer is not reused, since it may still be referenced by an escaped image. With
+ * {@code photoblast.image.pool.leak-tracking} the warning includes where the lease was taken.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+public class PixelBufferPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PixelBufferPool.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /** Smaller buffers are cheap to allocate and not worth the bookkeeping */
+    static final int MIN_POOLED_BYTES = 64 * 1024;
+
+    private final long maxBytes;
+    private final boolean direct;
+    private final boolean trackLeaks;
+    private final PhotoMetrics photoMetrics;
+    private final Map<Integer, Deque<int[]>> ints = new ConcurrentHashMap<>();
+    private final Map<Integer, Deque<byte[]>> bytes = new ConcurrentHashMap<>();
+    private final Map<Integer, Deque<ByteBuffer>> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong leasedBytes = new AtomicLong();
+
+    /**
+     * Constructs a new PixelBufferPool from {@code photoblast.image.pool.*}.
+     *
+     * @param imageProperties the image processing configuration properties
+     * @param photoMetrics    the metrics wrapper the pool gauges and counters are published to
+     */
+    @Autowired
+    public PixelBufferPool(ImageProperties imageProperties, PhotoMetrics photoMetrics) {
+        this(imageProperties.getPoolMaxBytes(), imageProperties.isPoolDirect(),
+                imageProperties.isPoolLeakTracking(), photoMetrics);
+        log.info("Pixel buffer pool started: maxBytes={}, direct={}, leakTracking={}",
+                maxBytes, direct, trackLeaks);
+    }
+
+    /**
+     * Constructs a new PixelBufferPool.
+     *
+     * @param maxBytes     total size of idle buffers retained for reuse
+     * @param direct       whether byte buffers are allocated off-heap
+     * @param trackLeaks   whether leases record where they were taken, for leak reports
+     * @param photoMetrics the metrics wrapper the pool gauges and counters are published to
+     */
+    public PixelBufferPool(long maxBytes, boolean direct, boolean trackLeaks, PhotoMetrics photoMetrics) {
+        this.maxBytes = maxBytes;
+        this.direct = direct;
+        this.trackLeaks = trackLeaks;
+        this.photoMetrics = photoMetrics;
+
+        Gauge.builder(PhotoMetrics.BUFFER_POOL_RETAINED, retainedBytes, AtomicLong::get)
+                .description("Bytes of idle buffers held for reuse")
+                .baseUnit("bytes")
+                .register(photoMetrics.getRegistry());
+        Gauge.builder(PhotoMetrics.BUFFER_POOL_LEASED, leasedBytes, AtomicLong::get)
+                .description("Bytes of buffers currently leased")
+                .baseUnit("bytes")
+                .register(photoMetrics.getRegistry());
+    }
+
+    /**
+     * Leases an int array of at least the given length. Its contents are undefined.
+     *
+     * @param length the minimum length
+     * @return the lease
+     */
+    public Lease<int[]> ints(int length) {
+        int capacity = sizeClass(length, Integer.BYTES);
+        int[] array = poll(ints, capacity, Integer.BYTES, "int");
+        return lease(array != null ? array : new int[capacity], ints, capacity, Integer.BYTES);
+    }
+
+    /**
+     * Leases a byte array of at least the given length. Its contents are undefined.
+     *
+     * @param length the minimum length
+     * @return the lease
+     */
+    public Lease<byte[]> bytes(int length) {
+        int capacity = sizeClass(length, 1);
+        byte[] array = poll(bytes, capacity, 1, "byte");
+        return lease(array != null ? array : new byte[capacity], bytes, capacity, 1);
+    }
+
+    /**
+     * Leases a byte buffer, off-heap if configured, with its position at zero and its limit
+     * at the given capacity. Its contents are undefined.
+     *
+     * @param capacity the number of bytes to be written or read
+     * @return the lease
+     */
+    public Lease<ByteBuffer> buffer(int capacity) {
+        int sizeClass = sizeClass(capacity, 1);
+        ByteBuffer buffer = poll(buffers, sizeClass, 1, "buffer");
+        if (buffer == null) {
+            buffer = direct ? ByteBuffer.allocateDirect(sizeClass) : ByteBuffer.allocate(sizeClass);
+        }
+        buffer.clear().limit(capacity);
+        return lease(buffer, buffers, sizeClass, 1);
+    }
+
+    /**
+     * Opens a scope that releases every buffer taken through it when closed.
+     *
+     * @return the scope
+     */
+    public Scope open() {
+        return new Scope();
+    }
+
+    /**
+     * Returns the total size of idle buffers held for reuse.
+     *
+     * @return retained bytes
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Returns the total size of buffers currently leased.
+     *
+     * @return leased bytes
+     */
+    public long getLeasedBytes() {
+        return leasedBytes.get();
+    }
+
+    /**
+     * Returns the length a buffer for {@code length} elements is allocated with: the
+     * smallest power of two or three quarters of a power of two that holds it. Buffers below
+     * {@link #MIN_POOLED_BYTES} keep their exact length.
+     */
+    static int sizeClass(int length, int elementBytes) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative buffer length: " + length);
+        }
+        if ((long) length * elementBytes < MIN_POOLED_BYTES) {
+            return length;
+        }
+        int power = Integer.highestOneBit(length - 1) << 1;
+        if (power <= 0) {
+            return length;
+        }
+        int threeQuarters = power - (power >> 2);
+        return length <= threeQuarters ? threeQuarters : power;
+    }
+
+    private <T> T poll(Map<Integer, Deque<T>> free, int capacity, int elementBytes, String kind) {
+        long size = (long) capacity * elementBytes;
+        if (size < MIN_POOLED_BYTES) {
+            return null;
+        }
+        Deque<T> deque = free.get(capacity);
+        T buffer = deque != null ? deque.pollFirst() : null;
+        if (buffer != null) {
+            retainedBytes.addAndGet(-size);
+        }
+        photoMetrics.recordBufferPoolRequest(kind, buffer != null);
+        return buffer;
+    }
+
+    private <T> Lease<T> lease(T buffer, Map<Integer, Deque<T>> free, int capacity, int elementBytes) {
+        long size = (long) capacity * elementBytes;
+        leasedBytes.addAndGet(size);
+        Throwable site = trackLeaks ? new Throwable("Lease taken here") : null;
+        return new Lease<>(buffer, new LeakGuard(this, size, site), free, capacity);
+    }
+
+    private <T> void recycle(Map<Integer, Deque<T>> free, int capacity, long size, T buffer) {
+        leasedBytes.addAndGet(-size);
+        if (size < MIN_POOLED_BYTES) {
+            return;
+        }
+        if (retainedBytes.addAndGet(size) > maxBytes) {
+            retainedBytes.addAndGet(-size);
+            return;
+        }
+        free.computeIfAbsent(capacity, key -> new ConcurrentLinkedDeque<>()).offerFirst(buffer);
+    }
+
+    private void leaked(long size, Throwable site) {
+        leasedBytes.addAndGet(-size);
+        photoMetrics.recordBufferPoolLeak();
+        if (site != null) {
+            log.warn("Pixel buffer of {} bytes was not returned to the pool", size, site);
+        } else {
+            log.warn("Pixel buffer of {} bytes was not returned to the pool; "
+                    + "enable photoblast.image.pool.leak-tracking to find where it was taken", size);
+        }
+    }
+
+    /**
+     * A buffer borrowed from the pool, returned by {@link #close()}.
+     * <p>
+     * The buffer must not be used after the lease is closed. Closing is idempotent.
+     * </p>
+     *
+     * @param <T> the buffer type
+     */
+    public final class Lease<T> implements AutoCloseable {
+
+        private final T buffer;
+        private final LeakGuard guard;
+        private final Cleaner.Cleanable cleanable;
+        private final Map<Integer, Deque<T>> free;
+        private final int capacity;
+
+        private Lease(T buffer, LeakGuard guard, Map<Integer, Deque<T>> free, int capacity) {
+            this.buffer = buffer;
+            this.guard = guard;
+            this.cleanable = CLEANER.register(this, guard);
+            this.free = free;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the leased buffer.
+         *
+         * @return the buffer
+         * @throws IllegalStateException if the lease was closed
+         */
+        public T get() {
+            if (guard.released.get()) {
+                throw new IllegalStateException("Buffer lease already closed");
+            }
+            return buffer;
+        }
+
+        /**
+         * Returns the buffer to the pool.
+         */
+        @Override
+        public void close() {
+            if (guard.released.compareAndSet(false, true)) {
+                cleanable.clean();
+                recycle(free, capacity, guard.size, buffer);
+            }
+        }
+    }
+
+    /**
+     * Cleaner action of a lease; reports the lease as leaked unless it was closed first.
+     * Must not reference the lease or its buffer.
+     */
+    private static final class LeakGuard implements Runnable {
+
+        private final PixelBufferPool pool;
+        private final long size;
+        private final Throwable site;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        LeakGuard(PixelBufferPool pool, long size, Throwable site) {
+            this.pool = pool;
+            this.size = size;
+            this.site = site;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                pool.leaked(size, site);
+            }
+        }
+    }
+
+    /**
+     * Leases taken for one task, released together when the scope is closed.
+     * <p>
+     * Images created by a scope are backed by pooled arrays and cleared before use, so no
+     * pixels of an earlier task can show through. They must not outlive the scope. A scope
+     * is confined to the thread running the task.
+     * </p>
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final Deque<Lease<?>> leases = new ArrayDeque<>();
+
+        private Scope() {
+        }
+
+        /**
+         * Leases a byte buffer for the lifetime of this scope.
+         *
+         * @param capacity the number of bytes to be written or read
+         * @return the buffer, see {@link PixelBufferPool#buffer}
+         */
+        public ByteBuffer buffer(int capacity) {
+            return keep(PixelBufferPool.this.buffer(capacity)).get();
+        }
+
+        /**
+         * Creates a cleared image of a standard type on a pooled array.
+         *
+         * @param width  the image width
+         * @param height the image height
+         * @param type   a {@link BufferedImage} type such as {@code TYPE_INT_RGB} or {@code TYPE_3BYTE_BGR}
+         * @return the image
+         */
+        public BufferedImage image(int width, int height, int type) {
+            return image(ImageTypeSpecifier.createFromBufferedImageType(type), width, height);
+        }
+
+        /**
+         * Creates a cleared image of the given type on a pooled array, or a regular image if
+         * the type's layout is not a single interleaved or packed byte or int bank.
+         *
+         * @param type   the image type, e.g. the first type reported by an image reader
+         * @param width  the image width
+         * @param height the image height
+         * @return the image
+         */
+        public BufferedImage image(ImageTypeSpecifier type, int width, int height) {
+            SampleModel sampleModel = type.getSampleModel(width, height);
+            long length = (long) scanlineStride(sampleModel) * height;
+            if (length <= 0 || length > Integer.MAX_VALUE) {
+                return type.createBufferedImage(width, height);
+            }
+
+            DataBuffer dataBuffer;
+            switch (sampleModel.getDataType()) {
+                case DataBuffer.TYPE_INT -> {
+                    int[] data = keep(ints((int) length)).get();
+                    Arrays.fill(data, 0, (int) length, 0);
+                    dataBuffer = new DataBufferInt(data, (int) length);
+                }
+                case DataBuffer.TYPE_BYTE -> {
+                    byte[] data = keep(bytes((int) length)).get();
+                    Arrays.fill(data, 0, (int) length, (byte) 0);
+                    dataBuffer = new DataBufferByte(data, (int) length);
+                }
+                default -> {
+                    return type.createBufferedImage(width, height);
+                }
+            }
+            ColorModel colorModel = type.getColorModel();
+            WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
+            return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+        }
+
+        /**
+         * Returns every buffer taken through this scope to the pool, most recent first.
+         */
+        @Override
+        public void close() {
+            while (!leases.isEmpty()) {
+                leases.pop().close();
+            }
+        }
+
+        private <T> Lease<T> keep(Lease<T> lease) {
+            leases.push(lease);
+            return lease;
+        }
+
+        /**
+         * Returns the row stride of a single-bank packed or interleaved layout, or 0.
+         */
+        private static int scanlineStride(SampleModel sampleModel) {
+            if (sampleModel instanceof SinglePixelPackedSampleModel packed) {
+                return packed.getScanlineStride();
+            }
+            if (sampleModel instanceof ComponentSampleModel component
+                    && component.getNumBands() > 0
+                    && Arrays.stream(component.getBankIndices()).allMatch(bank -> bank == 0)) {
+                return component.getScanlineStride();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.photoblast.image;
+
+/**
+ * Reconstruction filter used by {@link ImageScaler}.
+ * <p>
+ * Both filters are widened by the reduction factor, so every source pixel contributes to
+ * the result instead of being skipped.
+ * </p>
+ */
+public enum ResampleFilter {
+
+    /**
+     * Averages the source pixels an output pixel covers, weighted by coverage.
+     * Cheap and alias-free; suited to large reductions such as thumbnails.
+     */
+    AREA_AVERAGE(0.5),
+
+    /**
+     * Bicubic convolution ({@code a = -0.5}). Sharper than area averaging at about
+     * four times the taps; suited to moderate reductions.
+     */
+    BICUBIC(2.0);
+
+    private static final double BICUBIC_A = -0.5;
+
+    private final double support;
+
+    ResampleFilter(double support) {
+        this.support = support;
+    }
+
+    /**
+     * Returns the support radius of the filter, in output pixels.
+     *
+     * @return the radius beyond which the filter is zero
+     */
+    double support() {
+        return support;
+    }
+
+    /**
+     * Returns the weight of a source pixel whose center is {@code x} output pixels away.
+     * Only used for {@link #BICUBIC}; area averaging weights by exact coverage.
+     *
+     * @param x the distance in output pixels
+     * @return the filter weight
+     */
+    double weight(double x) {
+        x = Math.abs(x);
+        if (x < 1.0) {
+            return ((BICUBIC_A + 2.0) * x - (BICUBIC_A + 3.0)) * x * x + 1;
+        }
+        if (x < 2.0) {
+            return (((x - 5) * x + 8) * x - 4) * BICUBIC_A;
+        }
+        return 0;
+    }
+}
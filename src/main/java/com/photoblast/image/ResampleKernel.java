@@ -0,0 +1,94 @@
+package com.photoblast.image;
+
+/**
+ * Inner loops of {@link ImageScaler}: fixed-point convolution of packed, premultiplied
+ * ARGB pixels along one axis.
+ * <p>
+ * Implementations must produce identical pixels. Every weighted channel sum is rounded,
+ * shifted right by {@link ResampleWeights#PRECISION_BITS} and clamped to {@code [0, 255]};
+ * color channels of images with alpha are further clamped to the alpha channel so that
+ * they stay valid premultiplied values.
+ * </p>
+ */
+interface ResampleKernel {
+
+    /**
+     * Resamples one source row horizontally.
+     *
+     * @param source       the source row
+     * @param weights      the horizontal weights
+     * @param target       the array receiving {@code weights.start().length} pixels
+     * @param targetOffset the index of the first target pixel
+     * @param alpha        whether the pixels carry alpha
+     */
+    void resampleRow(int[] source, ResampleWeights weights, int[] target, int targetOffset, boolean alpha);
+
+    /**
+     * Computes one output row as the weighted sum of consecutive rows of a buffer.
+     *
+     * @param rows              the buffer of horizontally resampled rows
+     * @param rowOffset         the index of the first pixel of the first contributing row
+     * @param rowStride         the distance between rows, which is also the row width
+     * @param coefficients      the weights of the contributing rows
+     * @param coefficientOffset the index of the first weight
+     * @param taps              the number of contributing rows
+     * @param target            the array receiving {@code rowStride} pixels
+     * @param targetOffset      the index of the first target pixel
+     * @param alpha             whether the pixels carry alpha
+     */
+    void resampleColumns(int[] rows, int rowOffset, int rowStride, int[] coefficients, int coefficientOffset,
+                         int taps, int[] target, int targetOffset, boolean alpha);
+
+    /**
+     * Returns a short name of the kernel for logs and benchmarks.
+     *
+     * @return the kernel name
+     */
+    String name();
+
+    /**
+     * Returns the Vector API kernel if requested and the {@code jdk.incubator.vector} module
+     * is available, the scalar kernel otherwise.
+     *
+     * @param simd whether to use the Vector API if available
+     * @return the kernel
+     */
+    static ResampleKernel select(boolean simd) {
+        if (simd && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorResampleKernel();
+            } catch (LinkageError e) {
+                return new ScalarResampleKernel();
+            }
+        }
+        return new ScalarResampleKernel();
+    }
+
+    /**
+     * Rounds a fixed-point sum to a sample within {@code [0, max]}.
+     *
+     * @param sum the weighted sum
+     * @param max the largest allowed sample
+     * @return the sample
+     */
+    static int clamp(int sum, int max) {
+        int v = (sum + ResampleWeights.HALF) >> ResampleWeights.PRECISION_BITS;
+        return v < 0 ? 0 : Math.min(v, max);
+    }
+
+    /**
+     * Packs rounded channel sums into a premultiplied ARGB pixel.
+     *
+     * @param a     the alpha sum
+     * @param r     the red sum
+     * @param g     the green sum
+     * @param b     the blue sum
+     * @param alpha whether color is limited by alpha
+     * @return the packed pixel
+     */
+    static int pack(int a, int r, int g, int b, boolean alpha) {
+        int alphaValue = clamp(a, 0xFF);
+        int max = alpha ? alphaValue : 0xFF;
+        return alphaValue << 24 | clamp(r, max) << 16 | clamp(g, max) << 8 | clamp(b, max);
+    }
+}
@@ -0,0 +1,76 @@
+package com.photoblast.image;
+
+/**
+ * Normalized fixed-point filter weights of every output pixel along one axis.
+ * <p>
+ * Output pixel {@code i} is the weighted sum of the {@code count[i]} input pixels starting
+ * at {@code start[i]}, with weights at {@code coefficients[i * stride]} scaled by
+ * {@code 2^PRECISION_BITS}. Integer weights make the scalar and vector kernels produce
+ * identical results, since integer sums do not depend on evaluation order.
+ * </p>
+ *
+ * @param start        first input pixel of every output pixel
+ * @param count        number of input pixels of every output pixel
+ * @param coefficients fixed-point weights, {@code stride} per output pixel
+ * @param stride       maximum number of input pixels of any output pixel
+ */
+record ResampleWeights(int[] start, int[] count, int[] coefficients, int stride) {
+
+    /** Fractional bits of the weights; leaves headroom for 8-bit samples and negative lobes */
+    static final int PRECISION_BITS = 22;
+
+    /** Added before shifting a weighted sum right by {@link #PRECISION_BITS} to round it */
+    static final int HALF = 1 << (PRECISION_BITS - 1);
+
+    /**
+     * Computes the weights for resampling {@code inSize} pixels to {@code outSize}.
+     *
+     * @param filter  the reconstruction filter
+     * @param inSize  the source size along the axis
+     * @param outSize the target size along the axis
+     * @return the weights
+     */
+    static ResampleWeights of(ResampleFilter filter, int inSize, int outSize) {
+        double scale = (double) inSize / outSize;
+        double filterScale = Math.max(scale, 1.0);
+        double support = filter.support() * filterScale;
+        int stride = (int) Math.ceil(support) * 2 + 1;
+
+        int[] start = new int[outSize];
+        int[] count = new int[outSize];
+        int[] coefficients = new int[outSize * stride];
+        double[] weights = new double[stride];
+        for (int i = 0; i < outSize; i++) {
+            double center = (i + 0.5) * scale;
+            int min;
+            int max;
+            if (filter == ResampleFilter.AREA_AVERAGE) {
+                min = Math.max(0, (int) Math.floor(center - support));
+                max = Math.min(inSize, (int) Math.ceil(center + support));
+            } else {
+                min = Math.max(0, (int) (center - support + 0.5));
+                max = Math.min(inSize, (int) (center + support + 0.5));
+            }
+            double total = 0;
+            for (int x = min; x < max; x++) {
+                weights[x - min] = filter == ResampleFilter.AREA_AVERAGE
+                        ? coverage(x, center - support, center + support)
+                        : filter.weight((x - center + 0.5) / filterScale);
+                total += weights[x - min];
+            }
+            for (int k = 0; k < max - min; k++) {
+                coefficients[i * stride + k] = (int) Math.round(weights[k] / total * (1 << PRECISION_BITS));
+            }
+            start[i] = min;
+            count[i] = max - min;
+        }
+        return new ResampleWeights(start, count, coefficients, stride);
+    }
+
+    /**
+     * Returns how much of input pixel {@code [x, x + 1)} lies within {@code [from, to)}.
+     */
+    private static double coverage(int x, double from, double to) {
+        return Math.max(0, Math.min(x + 1, to) - Math.max(x, from));
+    }
+}
@@ -0,0 +1,55 @@
+package com.photoblast.image;
+
+/**
+ * Portable {@link ResampleKernel} in plain Java, used when the Vector API is unavailable.
+ */
+final class ScalarResampleKernel implements ResampleKernel {
+
+    @Override
+    public void resampleRow(int[] source, ResampleWeights weights, int[] target, int targetOffset, boolean alpha) {
+        int[] coefficients = weights.coefficients();
+        int width = weights.start().length;
+        for (int x = 0; x < width; x++) {
+            int start = weights.start()[x];
+            int offset = x * weights.stride();
+            int a = 0;
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            for (int k = 0; k < weights.count()[x]; k++) {
+                int w = coefficients[offset + k];
+                int p = source[start + k];
+                a += (p >>> 24) * w;
+                r += ((p >> 16) & 0xFF) * w;
+                g += ((p >> 8) & 0xFF) * w;
+                b += (p & 0xFF) * w;
+            }
+            target[targetOffset + x] = ResampleKernel.pack(a, r, g, b, alpha);
+        }
+    }
+
+    @Override
+    public void resampleColumns(int[] rows, int rowOffset, int rowStride, int[] coefficients, int coefficientOffset,
+                                int taps, int[] target, int targetOffset, boolean alpha) {
+        for (int x = 0; x < rowStride; x++) {
+            int a = 0;
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            for (int k = 0, p = rowOffset + x; k < taps; k++, p += rowStride) {
+                int w = coefficients[coefficientOffset + k];
+                int pixel = rows[p];
+                a += (pixel >>> 24) * w;
+                r += ((pixel >> 16) & 0xFF) * w;
+                g += ((pixel >> 8) & 0xFF) * w;
+                b += (pixel & 0xFF) * w;
+            }
+            target[targetOffset + x] = ResampleKernel.pack(a, r, g, b, alpha);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
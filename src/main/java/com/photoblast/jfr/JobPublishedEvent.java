@@ -0,0 +1,34 @@
+package com.photoblast.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when a processing job has been handed to the broker.
+ * <p>
+ * The event duration covers serialization and the publish round trip.
+ * </p>
+ */
+@Name("com.photoblast.JobPublished")
+@Label("Job Published")
+@Category({"PhotoBlast", "Messaging"})
+@Description("A photo processing job was published to the broker")
+@StackTrace(false)
+public class JobPublishedEvent extends Event {
+
+    @Label("Job Id")
+    public String jobId;
+
+    @Label("Photo Id")
+    public String photoId;
+
+    @Label("Task Count")
+    public int taskCount;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,49 @@
+package com.photoblast.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when a worker finishes a processing task.
+ * <p>
+ * The event duration covers the whole task, from reading the original to writing
+ * the output, so GC pauses and CPU samples in the same window can be attributed
+ * to a specific photo and task.
+ * </p>
+ */
+@Name("com.photoblast.TaskFinished")
+@Label("Task Finished")
+@Category({"PhotoBlast", "Processing"})
+@Description("A worker finished a photo processing task")
+@StackTrace(false)
+public class TaskFinishedEvent extends Event {
+
+    @Label("Photo Id")
+    public String photoId;
+
+    /** Comma-separated names of the pipeline outputs the task produces */
+    @Label("Task")
+    public String task;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Bytes In")
+    @DataAmount
+    public long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    public long bytesOut;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,30 @@
+package com.photoblast.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Instant JFR event emitted when a worker starts a processing task.
+ * <p>
+ * Paired with {@link TaskFinishedEvent}; a start without a matching finish in a
+ * recording identifies tasks that were in flight when the recording was dumped.
+ * </p>
+ */
+@Name("com.photoblast.TaskStarted")
+@Label("Task Started")
+@Category({"PhotoBlast", "Processing"})
+@Description("A worker started a photo processing task")
+@StackTrace(false)
+public class TaskStartedEvent extends Event {
+
+    @Label("Photo Id")
+    public String photoId;
+
+    /** Comma-separated names of the pipeline outputs the task produces */
+    @Label("Task")
+    public String task;
+}
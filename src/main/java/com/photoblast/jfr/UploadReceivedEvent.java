@@ -0,0 +1,36 @@
+package com.photoblast.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when an uploaded photo has been validated and stored.
+ * <p>
+ * The event duration covers validation and storage of the file.
+ * </p>
+ */
+@Name("com.photoblast.UploadReceived")
+@Label("Upload Received")
+@Category({"PhotoBlast", "Upload"})
+@Description("A photo upload was validated and stored")
+@StackTrace(false)
+public class UploadReceivedEvent extends Event {
+
+    @Label("Photo Id")
+    public String photoId;
+
+    @Label("Content Type")
+    public String contentType;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,26 @@
+package com.photoblast.logging;
+
+/**
+ * MDC keys used to correlate log events.
+ * <p>
+ * Identifiers are carried in the MDC instead of being formatted into each message,
+ * so they appear as separate fields in structured output and can be searched directly.
+ * </p>
+ */
+public final class LogContext {
+
+    /** Id of the HTTP request, taken from {@code X-Request-Id} or generated */
+    public static final String REQUEST_ID = "requestId";
+
+    /** Idempotency key of the HTTP request */
+    public static final String IDEMPOTENCY_KEY = "idempotencyKey";
+
+    /** Id of the processing job */
+    public static final String JOB_ID = "jobId";
+
+    /** Id of the uploaded photo */
+    public static final String PHOTO_ID = "photoId";
+
+    private LogContext() {
+    }
+}
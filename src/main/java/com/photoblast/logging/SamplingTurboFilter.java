@@ -0,0 +1,104 @@
+package com.photoblast.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Logback turbo filter that keeps one in N events below WARN per logger category.
+ * <p>
+ * Categories are logger name prefixes configured as {@code prefix=N} pairs separated by
+ * commas, for example {@code com.photoblast.service.ImageServiceImpl=10}; the longest
+ * matching prefix applies. Sampling is decided before the message is formatted, so dropped
+ * events cost a counter increment. WARN and ERROR events, and loggers outside every
+ * category, are never sampled. Turbo filters run before the level check, so events below
+ * the logger's effective level are left to it without counting; otherwise disabled DEBUG
+ * calls would decide which INFO events are kept.
+ * </p>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final Category UNSAMPLED = new Category("", 1);
+
+    private final List<Category> categories = new ArrayList<>();
+    private final Map<String, Category> byLogger = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the sampled categories.
+     *
+     * @param rates comma-separated {@code prefix=N} pairs; blank disables sampling, and
+     *              malformed pairs are skipped with a status warning
+     */
+    public void setRates(String rates) {
+        categories.clear();
+        byLogger.clear();
+        if (isNull(rates) || rates.isBlank()) {
+            return;
+        }
+        for (String entry : rates.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                addWarn("Ignoring malformed sample rate: " + entry);
+                continue;
+            }
+            int rate;
+            try {
+                rate = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                addWarn("Ignoring malformed sample rate: " + entry);
+                continue;
+            }
+            if (rate < 1) {
+                addWarn("Ignoring sample rate below 1: " + entry);
+            } else if (rate > 1) {
+                categories.add(new Category(parts[0].trim(), rate));
+            }
+        }
+        categories.sort(Comparator.comparingInt((Category c) -> c.prefix.length()).reversed());
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks pass a null format and must not consume a sample
+        if (isNull(format) || level.isGreaterOrEqual(Level.WARN) || categories.isEmpty()
+                || !logger.isEnabledFor(level)) {
+            return FilterReply.NEUTRAL;
+        }
+        Category category = byLogger.computeIfAbsent(logger.getName(), this::categoryOf);
+        if (category == UNSAMPLED) {
+            return FilterReply.NEUTRAL;
+        }
+        return category.counter.getAndIncrement() % category.rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Category categoryOf(String loggerName) {
+        for (Category category : categories) {
+            if (loggerName.startsWith(category.prefix)) {
+                return category;
+            }
+        }
+        return UNSAMPLED;
+    }
+
+    private static final class Category {
+        private final String prefix;
+        private final int rate;
+        private final AtomicLong counter = new AtomicLong();
+
+        private Category(String prefix, int rate) {
+            this.prefix = prefix;
+            this.rate = rate;
+        }
+    }
+}
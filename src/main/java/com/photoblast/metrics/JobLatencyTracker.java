@@ -0,0 +1,141 @@
+package com.photoblast.metrics;
+
+import com.photoblast.dto.JobStatsResponse.LatencySummary;
+import com.photoblast.dto.JobStatsResponse.WindowStats;
+import com.photoblast.model.PhotoProcessingJob;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Tracks queue wait, service time and end-to-end latency of processing jobs.
+ * <p>
+ * Every measurement is published as a Micrometer histogram through {@link PhotoMetrics}
+ * and additionally kept in {@link SlidingWindowHistogram}s so that recent percentiles
+ * can be served directly by {@code GET /photos/stats}. Also accumulates the time
+ * consumers spend busy, from which {@link QueueMetricsSampler} derives utilization.
+ * </p>
+ */
+@Component
+public class JobLatencyTracker {
+
+    private static final Duration SLOT = Duration.ofSeconds(30);
+    private static final Map<String, Duration> WINDOWS = windows();
+
+    private final PhotoMetrics photoMetrics;
+    private final SlidingWindowHistogram wait;
+    private final SlidingWindowHistogram service;
+    private final SlidingWindowHistogram endToEnd;
+    private final LongAdder busyNanos = new LongAdder();
+
+    /**
+     * Constructs a new JobLatencyTracker publishing to the given metrics.
+     *
+     * @param photoMetrics the metrics registry wrapper
+     */
+    public JobLatencyTracker(PhotoMetrics photoMetrics) {
+        this.photoMetrics = photoMetrics;
+        int slotCount = (int) (Duration.ofMinutes(15).toMillis() / SLOT.toMillis());
+        this.wait = new SlidingWindowHistogram(SLOT, slotCount, System::currentTimeMillis);
+        this.service = new SlidingWindowHistogram(SLOT, slotCount, System::currentTimeMillis);
+        this.endToEnd = new SlidingWindowHistogram(SLOT, slotCount, System::currentTimeMillis);
+    }
+
+    /**
+     * Records the time the job spent queued before this consumer picked it up.
+     *
+     * @param job the job that is about to be processed
+     */
+    public void jobStarted(PhotoProcessingJob job) {
+        if (isNull(job.getCreatedAt())) {
+            return;
+        }
+        long waitMillis = sinceCreated(job);
+        wait.record(waitMillis);
+        photoMetrics.recordJobWait(waitMillis);
+    }
+
+    /**
+     * Records the service time of a single task.
+     *
+     * @param task    task tag value, such as {@code resize+thumbnail}
+     * @param success whether the task completed without error
+     * @param nanos   elapsed time in nanoseconds
+     */
+    public void taskFinished(String task, boolean success, long nanos) {
+        photoMetrics.recordJobTask(task, outcome(success), nanos);
+    }
+
+    /**
+     * Records the service time and end-to-end latency of a job.
+     *
+     * @param job          the job that finished
+     * @param success      whether all tasks completed without error
+     * @param serviceNanos time spent executing the job's tasks
+     */
+    public void jobFinished(PhotoProcessingJob job, boolean success, long serviceNanos) {
+        busyNanos.add(serviceNanos);
+        service.record(Duration.ofNanos(serviceNanos).toMillis());
+        if (isNull(job.getCreatedAt())) {
+            return;
+        }
+        long latencyMillis = sinceCreated(job);
+        endToEnd.record(latencyMillis);
+        photoMetrics.recordJobLatency(outcome(success), latencyMillis);
+    }
+
+    /**
+     * Returns the total time consumers on this node have spent processing jobs.
+     *
+     * @return cumulative busy time in nanoseconds
+     */
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Summarizes job service times over the given window.
+     *
+     * @param window how far back to look, at most 15 minutes
+     * @return count and percentiles in milliseconds
+     */
+    public LatencySummary summarizeService(Duration window) {
+        return service.summarize(window);
+    }
+
+    /**
+     * Summarizes latencies over each sliding window.
+     *
+     * @return window stats keyed by window label, shortest window first
+     */
+    public Map<String, WindowStats> summarize() {
+        Map<String, WindowStats> result = new LinkedHashMap<>();
+        WINDOWS.forEach((label, window) -> result.put(label, new WindowStats(
+                wait.summarize(window),
+                service.summarize(window),
+                endToEnd.summarize(window)
+        )));
+        return result;
+    }
+
+    private static long sinceCreated(PhotoProcessingJob job) {
+        return Math.max(0, System.currentTimeMillis() - job.getCreatedAt().toEpochMilli());
+    }
+
+    private static String outcome(boolean success) {
+        return success ? PhotoMetrics.OUTCOME_SUCCESS : PhotoMetrics.OUTCOME_FAILURE;
+    }
+
+    private static Map<String, Duration> windows() {
+        Map<String, Duration> windows = new LinkedHashMap<>();
+        windows.put("1m", Duration.ofMinutes(1));
+        windows.put("5m", Duration.ofMinutes(5));
+        windows.put("15m", Duration.ofMinutes(15));
+        return windows;
+    }
+}
@@ -0,0 +1,389 @@
+package com.photoblast.metrics;
+
+import com.photoblast.enums.ImageSizeClass;
+import com.photoblast.enums.ProcessingStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central registry of PhotoBlast domain metrics.
+ * <p>
+ * Wraps the Micrometer {@link MeterRegistry} so that meter names and tags are
+ * defined in one place. All timers publish percentile histograms, which makes
+ * them aggregatable across instances when scraped by Prometheus.
+ * </p>
+ */
+@Component
+public class PhotoMetrics {
+
+    public static final String CONTROLLER_TIMER = "photoblast.controller";
+    public static final String UPLOAD_TIMER = "photoblast.upload";
+    public static final String UPLOAD_THROTTLED = "photoblast.upload.throttled";
+    public static final String UPLOAD_PLACEHOLDER = "photoblast.upload.placeholder";
+    public static final String PUBLISH_TIMER = "photoblast.publish";
+    public static final String PUBLISH_BATCH_SIZE = "photoblast.publish.batch.size";
+    public static final String STAGE_TIMER = "photoblast.image.stage";
+    public static final String BYTES_IN = "photoblast.bytes.in";
+    public static final String BYTES_OUT = "photoblast.bytes.out";
+    public static final String FAILURES = "photoblast.failures";
+    public static final String JOB_WAIT = "photoblast.job.wait";
+    public static final String JOB_TASK = "photoblast.job.task";
+    public static final String JOB_LATENCY = "photoblast.job.latency";
+    public static final String QUEUE_DEPTH = "photoblast.queue.depth";
+    public static final String QUEUE_CONSUMERS = "photoblast.queue.consumers";
+    public static final String CONSUMER_UTILIZATION = "photoblast.consumer.utilization";
+    public static final String AUTOSCALER_CONSUMERS = "photoblast.autoscaler.consumers";
+    public static final String AUTOSCALER_PREFETCH = "photoblast.autoscaler.prefetch";
+    public static final String AUTOSCALER_DECISIONS = "photoblast.autoscaler.decisions";
+    public static final String IDEMPOTENCY_RECORD_BYTES = "photoblast.idempotency.record.bytes";
+    public static final String IDEMPOTENCY_DEGRADED = "photoblast.idempotency.degraded";
+    public static final String REDIS_TIMER = "photoblast.redis";
+    public static final String REDIS_BREAKER_STATE = "photoblast.redis.breaker.state";
+    public static final String BUFFER_POOL_RETAINED = "photoblast.image.pool.retained";
+    public static final String BUFFER_POOL_LEASED = "photoblast.image.pool.leased";
+    public static final String BUFFER_POOL_REQUESTS = "photoblast.image.pool.requests";
+    public static final String BUFFER_POOL_LEAKS = "photoblast.image.pool.leaks";
+    public static final String CHECKPOINT_OUTPUTS = "photoblast.checkpoint.outputs";
+    public static final String JOB_DELIVERIES = "photoblast.job.deliveries";
+    public static final String JOB_AFFINITY = "photoblast.job.affinity";
+    public static final String STARTUP_TIME = "photoblast.startup.time";
+    public static final String STARTUP_MEMORY = "photoblast.startup.memory";
+    public static final String STARTUP_BEANS = "photoblast.startup.beans";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String SOURCE_UPLOAD = "upload";
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MIN_EXPECTED_REDIS = Duration.ofNanos(100_000);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(2);
+    private static final Duration MAX_EXPECTED_QUEUED = Duration.ofHours(6);
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new PhotoMetrics backed by the given registry.
+     *
+     * @param meterRegistry the Micrometer registry to publish to
+     */
+    public PhotoMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the underlying registry for components that register their own meters.
+     *
+     * @return the Micrometer registry
+     */
+    public MeterRegistry getRegistry() {
+        return meterRegistry;
+    }
+
+    /**
+     * Starts timing the stages of a single processing task.
+     *
+     * @param task task tag value, such as {@code resize+thumbnail}
+     * @return a timer that records each stage once the task finishes
+     */
+    public TaskTimer startTask(String task) {
+        return new TaskTimer(this, task);
+    }
+
+    /**
+     * Records the execution time of a controller method.
+     *
+     * @param controller simple class name of the controller
+     * @param method     handler method name
+     * @param outcome    {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param nanos      elapsed time in nanoseconds
+     */
+    public void recordController(String controller, String method, String outcome, long nanos) {
+        timer(CONTROLLER_TIMER, "controller", controller, "method", method, "outcome", outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time taken to validate, store and enqueue an uploaded photo.
+     *
+     * @param outcome {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param nanos   elapsed time in nanoseconds
+     */
+    public void recordUpload(String outcome, long nanos) {
+        timer(UPLOAD_TIMER, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an upload rejected before reaching the controller.
+     *
+     * @param reason {@code queue_full} or {@code rate_limited}
+     */
+    public void recordUploadThrottled(String reason) {
+        Counter.builder(UPLOAD_THROTTLED)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Records the time an upload spent generating its placeholder.
+     *
+     * @param outcome {@code success}, {@code timeout} if the budget ran out, or {@code failure}
+     * @param nanos   time waited in nanoseconds
+     */
+    public void recordPlaceholder(String outcome, long nanos) {
+        timer(UPLOAD_PLACEHOLDER, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time taken to publish a job to the broker.
+     *
+     * @param outcome {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param nanos   elapsed time in nanoseconds
+     */
+    public void recordPublish(String outcome, long nanos) {
+        timer(PUBLISH_TIMER, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the number of jobs published together in one batch.
+     *
+     * @param size jobs in the batch
+     */
+    public void recordPublishBatch(int size) {
+        DistributionSummary.builder(PUBLISH_BATCH_SIZE)
+                .baseUnit("jobs")
+                .register(meterRegistry)
+                .record(size);
+    }
+
+    /**
+     * Records the duration of one image processing stage.
+     *
+     * @param task      task tag value
+     * @param stage     the stage that was executed
+     * @param sizeClass size class of the source image
+     * @param nanos     elapsed time in nanoseconds
+     */
+    public void recordStage(String task, ProcessingStage stage, ImageSizeClass sizeClass, long nanos) {
+        timer(STAGE_TIMER, "task", task, "stage", stage.name().toLowerCase(), "size", sizeClass.tag())
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records how long a job waited in the queue before a consumer started it.
+     *
+     * @param millis time from job creation to start of processing
+     */
+    public void recordJobWait(long millis) {
+        queuedTimer(JOB_WAIT).record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the service time of a single task within a job.
+     *
+     * @param task    task tag value, such as {@code resize+thumbnail}
+     * @param outcome {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param nanos   elapsed time in nanoseconds
+     */
+    public void recordJobTask(String task, String outcome, long nanos) {
+        timer(JOB_TASK, "task", task, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the end-to-end latency of a job, from creation to completion.
+     *
+     * @param outcome {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param millis  time from job creation to completion
+     */
+    public void recordJobLatency(String outcome, long millis) {
+        queuedTimer(JOB_LATENCY, "outcome", outcome).record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts bytes read from clients or storage.
+     *
+     * @param source {@link #SOURCE_UPLOAD} or the task that read the bytes
+     * @param bytes  number of bytes
+     */
+    public void recordBytesIn(String source, long bytes) {
+        Counter.builder(BYTES_IN)
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    /**
+     * Counts bytes written to storage as processing output.
+     *
+     * @param task  the task that produced the bytes
+     * @param bytes number of bytes
+     */
+    public void recordBytesOut(String task, long bytes) {
+        Counter.builder(BYTES_OUT)
+                .baseUnit("bytes")
+                .tag("task", task)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    /**
+     * Counts a failed operation.
+     *
+     * @param operation the operation that failed, e.g. {@code upload} or a task name
+     * @param stage     the stage in which it failed, or {@code none}
+     * @param error     the cause of the failure
+     */
+    public void recordFailure(String operation, String stage, Throwable error) {
+        Counter.builder(FAILURES)
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a decision of the listener autoscaler.
+     *
+     * @param action {@code up}, {@code down} or {@code hold}
+     * @param reason the input that drove the decision, e.g. {@code backlog} or {@code cpu}
+     */
+    public void recordAutoscale(String action, String reason) {
+        Counter.builder(AUTOSCALER_DECISIONS)
+                .tag("action", action)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Records the size of an idempotency record written to Redis.
+     *
+     * @param encoding {@code raw}, {@code deflated}, or {@code skipped} if the body was too large to cache
+     * @param bytes    stored size, or the body size if skipped
+     */
+    public void recordIdempotencyRecord(String encoding, long bytes) {
+        DistributionSummary.builder(IDEMPOTENCY_RECORD_BYTES)
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Records the duration of a Redis command.
+     *
+     * @param command the command, e.g. {@code get}
+     * @param outcome {@link #OUTCOME_SUCCESS} or {@link #OUTCOME_FAILURE}
+     * @param nanos   time spent waiting for Redis
+     */
+    public void recordRedis(String command, String outcome, long nanos) {
+        Timer.builder(REDIS_TIMER)
+                .tags("command", command, "outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED_REDIS)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an idempotency check or write that was skipped because Redis was unavailable.
+     *
+     * @param reason {@code bypassed}, {@code rejected}, {@code write_dropped}, {@code renew_failed} or
+     *               {@code lease_lost}
+     */
+    public void recordIdempotencyDegraded(String reason) {
+        Counter.builder(IDEMPOTENCY_DEGRADED)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a request for a pooled buffer.
+     *
+     * @param kind {@code int}, {@code byte} or {@code buffer}
+     * @param hit  whether an idle buffer was reused rather than allocated
+     */
+    public void recordBufferPoolRequest(String kind, boolean hit) {
+        Counter.builder(BUFFER_POOL_REQUESTS)
+                .tag("kind", kind)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a pooled buffer that was dropped without being returned to the pool.
+     */
+    public void recordBufferPoolLeak() {
+        Counter.builder(BUFFER_POOL_LEAKS)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a checkpointed output found when a job is delivered.
+     *
+     * @param result {@code reused} if its file verified and it was skipped, {@code invalid} if it was produced again
+     */
+    public void recordCheckpoint(String result) {
+        Counter.builder(CHECKPOINT_OUTPUTS)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a delivered job checked for duplicates.
+     *
+     * @param duplicate whether the job had already been processed and is dropped
+     * @param filterHit whether the local filter reported the job as possibly processed
+     */
+    public void recordJobDelivery(boolean duplicate, boolean filterHit) {
+        Counter.builder(JOB_DELIVERIES)
+                .tag("result", duplicate ? "duplicate" : "new")
+                .tag("filter", filterHit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a job received by a local worker by where its original is stored.
+     *
+     * @param placement {@code local} if stored on this node, {@code remote} if on another node,
+     *                  {@code untagged} if the job names no node
+     */
+    public void recordJobAffinity(String placement) {
+        Counter.builder(JOB_AFFINITY)
+                .tag("placement", placement)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer queuedTimer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED_QUEUED)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,186 @@
+package com.photoblast.metrics;
+
+import com.photoblast.dto.JobStatsResponse.QueueStats;
+import com.photoblast.transport.JobTransport;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Periodically samples the depth of every processing queue and the utilization of local consumers.
+ * <p>
+ * Queue depth and consumer count come from the configured {@link JobTransport}; utilization is
+ * the share of the sampling interval local consumer threads spent processing jobs, as
+ * reported by {@link JobLatencyTracker}. Values are exported as Micrometer gauges and kept
+ * for {@code GET /photos/stats}. Sampling runs on a fixed delay so that request paths never
+ * query the broker themselves.
+ * </p>
+ */
+@Component
+public class QueueMetricsSampler {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueMetricsSampler.class);
+
+    private final JobTransport jobTransport;
+    private final JobLatencyTracker jobLatencyTracker;
+    private final Map<String, QueueGauges> queues = new LinkedHashMap<>();
+    private final List<String> processingQueues;
+
+    private volatile double consumerUtilization;
+    private long lastBusyNanos;
+    private long lastSampleNanos;
+
+    /**
+     * Constructs a new QueueMetricsSampler and registers its gauges.
+     *
+     * @param jobTransport      transport providing queue state and local consumer count
+     * @param jobLatencyTracker source of cumulative consumer busy time
+     * @param photoMetrics      metrics wrapper providing the registry
+     */
+    public QueueMetricsSampler(JobTransport jobTransport,
+                               JobLatencyTracker jobLatencyTracker,
+                               PhotoMetrics photoMetrics) {
+        this.jobTransport = jobTransport;
+        this.jobLatencyTracker = jobLatencyTracker;
+        this.processingQueues = jobTransport.getProcessingQueueNames();
+
+        for (String queue : jobTransport.getQueueNames()) {
+            QueueGauges gauges = new QueueGauges();
+            Gauge.builder(PhotoMetrics.QUEUE_DEPTH, gauges.depth, AtomicLong::get)
+                    .tag("queue", queue)
+                    .register(photoMetrics.getRegistry());
+            Gauge.builder(PhotoMetrics.QUEUE_CONSUMERS, gauges.consumers, AtomicLong::get)
+                    .tag("queue", queue)
+                    .register(photoMetrics.getRegistry());
+            queues.put(queue, gauges);
+        }
+        Gauge.builder(PhotoMetrics.CONSUMER_UTILIZATION, this, QueueMetricsSampler::getConsumerUtilization)
+                .register(photoMetrics.getRegistry());
+
+        this.lastBusyNanos = jobLatencyTracker.getBusyNanos();
+        this.lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * Samples queue depths and consumer utilization.
+     */
+    @Scheduled(fixedDelayString = "${photoblast.metrics.queue-sample-interval-ms:10000}")
+    public synchronized void sample() {
+        queues.forEach(this::sampleQueue);
+        sampleUtilization();
+    }
+
+    /**
+     * Returns the last sampled state of every processing queue.
+     *
+     * @return queue stats in declaration order
+     */
+    public List<QueueStats> getQueueStats() {
+        List<QueueStats> stats = new ArrayList<>(queues.size());
+        queues.forEach((name, gauges) -> stats.add(new QueueStats(name, gauges.depth.get(), gauges.consumers.get())));
+        return stats;
+    }
+
+    /**
+     * Returns the last sampled depth of the given queue.
+     *
+     * @param queue the queue name
+     * @return number of ready messages, or 0 if the queue is not sampled
+     */
+    public long getQueueDepth(String queue) {
+        QueueGauges gauges = queues.get(queue);
+        return nonNull(gauges) ? gauges.depth.get() : 0;
+    }
+
+    /**
+     * Returns the last sampled depth of the queues local consumers take new jobs from.
+     *
+     * @return number of ready messages awaiting a consumer, summed over the queues
+     */
+    public long getProcessingQueueDepth() {
+        long depth = 0;
+        for (String queue : processingQueues) {
+            depth += getQueueDepth(queue);
+        }
+        return depth;
+    }
+
+    /**
+     * Returns this node's share of the last sampled depth of the processing queues.
+     * <p>
+     * The depth of each queue is split across the consumers the broker reports on it, in
+     * proportion to the local consumers, so that the nodes sharing a queue together size for
+     * its backlog once. A queue that only local consumers read, or that has no consumers yet,
+     * counts in full.
+     * </p>
+     *
+     * @return number of ready messages this node is expected to take
+     */
+    public long getLocalProcessingQueueDepth() {
+        int local = jobTransport.getLocalConsumerCount();
+        double depth = 0;
+        for (String queue : processingQueues) {
+            QueueGauges gauges = queues.get(queue);
+            if (isNull(gauges)) {
+                continue;
+            }
+            long consumers = gauges.consumers.get();
+            depth += consumers > local ? (double) gauges.depth.get() * local / consumers : gauges.depth.get();
+        }
+        return (long) Math.ceil(depth);
+    }
+
+    /**
+     * Returns the fraction of the last sampling interval local consumers spent busy.
+     *
+     * @return utilization between 0 and 1
+     */
+    public double getConsumerUtilization() {
+        return consumerUtilization;
+    }
+
+    private void sampleQueue(String queue, QueueGauges gauges) {
+        try {
+            Optional<QueueStats> stats = jobTransport.sampleQueue(queue);
+            stats.ifPresent(sample -> {
+                gauges.depth.set(sample.getDepth());
+                gauges.consumers.set(sample.getConsumers());
+            });
+        } catch (RuntimeException e) {
+            log.debug("Could not sample queue {}: {}", queue, e.getMessage());
+        }
+    }
+
+    private void sampleUtilization() {
+        long now = System.nanoTime();
+        long busy = jobLatencyTracker.getBusyNanos();
+        long elapsed = now - lastSampleNanos;
+        int consumers = jobTransport.getLocalConsumerCount();
+
+        if (elapsed > 0 && consumers > 0) {
+            consumerUtilization = Math.min(1.0, (double) (busy - lastBusyNanos) / ((double) elapsed * consumers));
+        } else {
+            consumerUtilization = 0.0;
+        }
+
+        lastBusyNanos = busy;
+        lastSampleNanos = now;
+    }
+
+    private static final class QueueGauges {
+        private final AtomicLong depth = new AtomicLong();
+        private final AtomicLong consumers = new AtomicLong();
+    }
+}
@@ -0,0 +1,95 @@
+package com.photoblast.metrics;
+
+import com.photoblast.dto.JobStatsResponse.LatencySummary;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histogram over a sliding time window.
+ * <p>
+ * Values are recorded into a ring of fixed-length time slots, each backed by its
+ * own HdrHistogram. A slot is reset lazily the first time it is written after its
+ * period has passed, so recording never allocates. Summaries for any window up to
+ * the ring length are produced by merging the slots that fall within it.
+ * </p>
+ */
+public class SlidingWindowHistogram {
+
+    private static final long HIGHEST_TRACKABLE_MILLIS = Duration.ofHours(6).toMillis();
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final long slotMillis;
+    private final Slot[] slots;
+    private final LongSupplier clock;
+
+    /**
+     * Creates a histogram covering {@code slotCount * slotDuration}.
+     *
+     * @param slotDuration length of one slot, the resolution at which the window slides
+     * @param slotCount    number of slots kept in the ring
+     * @param clock        source of the current time in epoch milliseconds
+     */
+    public SlidingWindowHistogram(Duration slotDuration, int slotCount, LongSupplier clock) {
+        this.slotMillis = slotDuration.toMillis();
+        this.slots = new Slot[slotCount];
+        this.clock = clock;
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Records a latency value.
+     *
+     * @param millis the latency in milliseconds; negative values are clamped to zero
+     */
+    public void record(long millis) {
+        long period = clock.getAsLong() / slotMillis;
+        Slot slot = slots[(int) (period % slots.length)];
+        synchronized (slot) {
+            if (slot.period != period) {
+                slot.histogram.reset();
+                slot.period = period;
+            }
+            slot.histogram.recordValue(Math.min(Math.max(millis, 0), HIGHEST_TRACKABLE_MILLIS));
+        }
+    }
+
+    /**
+     * Summarizes the values recorded within the given window.
+     *
+     * @param window the window to summarize, capped at the ring length
+     * @return count and p50/p95/p99 in milliseconds
+     */
+    public LatencySummary summarize(Duration window) {
+        long currentPeriod = clock.getAsLong() / slotMillis;
+        long periods = Math.min(Math.max(window.toMillis() / slotMillis, 1), slots.length);
+        Histogram merged = newHistogram();
+
+        for (Slot slot : slots) {
+            synchronized (slot) {
+                if (slot.period > currentPeriod - periods && slot.period <= currentPeriod) {
+                    merged.add(slot.histogram);
+                }
+            }
+        }
+
+        return new LatencySummary(
+                merged.getTotalCount(),
+                merged.getValueAtPercentile(50.0),
+                merged.getValueAtPercentile(95.0),
+                merged.getValueAtPercentile(99.0)
+        );
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MILLIS, SIGNIFICANT_DIGITS);
+    }
+
+    private static final class Slot {
+        private final Histogram histogram = newHistogram();
+        private long period = -1;
+    }
+}
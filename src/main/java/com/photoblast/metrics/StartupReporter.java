@@ -0,0 +1,101 @@
+package com.photoblast.metrics;
+
+import com.photoblast.config.RoleProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the startup time and memory footprint of the instance once it is ready, tagged
+ * with the roles it runs.
+ * <p>
+ * The values are logged and exported as gauges, so that the footprint of {@code api} and
+ * {@code worker} deployments can be compared. Memory is sampled when the application is
+ * ready, before any traffic; the number of created singletons shows how many beans lazy
+ * initialization deferred.
+ * </p>
+ */
+@Component
+public class StartupReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReporter.class);
+
+    private final RoleProperties roleProperties;
+    private final PhotoMetrics photoMetrics;
+
+    /**
+     * Constructs a new StartupReporter.
+     *
+     * @param roleProperties the roles of the instance
+     * @param photoMetrics   the metrics wrapper providing the registry
+     */
+    public StartupReporter(RoleProperties roleProperties, PhotoMetrics photoMetrics) {
+        this.roleProperties = roleProperties;
+        this.photoMetrics = photoMetrics;
+    }
+
+    /**
+     * Samples and reports the startup footprint.
+     *
+     * @param event the event published once the application is ready
+     */
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        StartupReport report = new StartupReport(
+                roleProperties.getName(),
+                event.getTimeTaken(),
+                Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime()),
+                memory.getHeapMemoryUsage().getUsed(),
+                memory.getNonHeapMemoryUsage().getUsed(),
+                event.getApplicationContext().getBeanDefinitionCount(),
+                event.getApplicationContext().getBeanFactory().getSingletonCount());
+        register(report);
+        log.info("Started: role={}, startupMs={}, uptimeMs={}, heapMb={}, nonHeapMb={}, beans={}, created={}",
+                report.role(), report.timeTaken().toMillis(), report.uptime().toMillis(),
+                report.heapBytes() >> 20, report.nonHeapBytes() >> 20, report.beanDefinitions(),
+                report.singletons());
+    }
+
+    /**
+     * Registers the report's gauges. They hold the report strongly, as nothing else refers to it.
+     */
+    private void register(StartupReport report) {
+        TimeGauge.builder(PhotoMetrics.STARTUP_TIME, report, TimeUnit.MILLISECONDS, r -> r.timeTaken().toMillis())
+                .tag("role", report.role())
+                .strongReference(true)
+                .register(photoMetrics.getRegistry());
+        Gauge.builder(PhotoMetrics.STARTUP_MEMORY, report, StartupReport::heapBytes)
+                .tag("role", report.role())
+                .tag("area", "heap")
+                .baseUnit("bytes")
+                .strongReference(true)
+                .register(photoMetrics.getRegistry());
+        Gauge.builder(PhotoMetrics.STARTUP_MEMORY, report, StartupReport::nonHeapBytes)
+                .tag("role", report.role())
+                .tag("area", "nonheap")
+                .baseUnit("bytes")
+                .strongReference(true)
+                .register(photoMetrics.getRegistry());
+        Gauge.builder(PhotoMetrics.STARTUP_BEANS, report, StartupReport::singletons)
+                .tag("role", report.role())
+                .strongReference(true)
+                .register(photoMetrics.getRegistry());
+    }
+
+    /**
+     * Footprint of the instance when it became ready.
+     */
+    private record StartupReport(String role, Duration timeTaken, Duration uptime, long heapBytes,
+                                 long nonHeapBytes, int beanDefinitions, int singletons) {
+    }
+}
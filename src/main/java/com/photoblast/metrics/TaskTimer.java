@@ -0,0 +1,107 @@
+package com.photoblast.metrics;
+
+import com.photoblast.enums.ImageSizeClass;
+import com.photoblast.enums.ProcessingStage;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Collects per-stage timings for a single processing task.
+ * <p>
+ * Stages are delimited by calls to {@link #begin(ProcessingStage)}. Durations are
+ * buffered until {@link #success()} or {@link #failure(Throwable)} so that every
+ * stage can be tagged with the image size class, which is only known after decoding.
+ * Instances are not thread-safe and must not be shared between tasks.
+ * </p>
+ */
+public class TaskTimer {
+
+    private final PhotoMetrics metrics;
+    private final String task;
+    private final Map<ProcessingStage, Long> durations = new EnumMap<>(ProcessingStage.class);
+
+    private ProcessingStage currentStage;
+    private long stageStartNanos;
+    private ImageSizeClass sizeClass = ImageSizeClass.UNKNOWN;
+
+    TaskTimer(PhotoMetrics metrics, String task) {
+        this.metrics = metrics;
+        this.task = task;
+    }
+
+    /**
+     * Ends the current stage, if any, and starts timing the given one.
+     *
+     * @param stage the stage that is about to run
+     */
+    public void begin(ProcessingStage stage) {
+        long now = System.nanoTime();
+        endCurrentStage(now);
+        currentStage = stage;
+        stageStartNanos = now;
+    }
+
+    /**
+     * Sets the size class from the decoded image dimensions.
+     *
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     */
+    public void imageSize(int width, int height) {
+        this.sizeClass = ImageSizeClass.of(width, height);
+    }
+
+    /**
+     * Counts bytes read by this task.
+     *
+     * @param bytes number of bytes read
+     */
+    public void bytesIn(long bytes) {
+        metrics.recordBytesIn(task, bytes);
+    }
+
+    /**
+     * Counts bytes written by this task.
+     *
+     * @param bytes number of bytes written
+     */
+    public void bytesOut(long bytes) {
+        metrics.recordBytesOut(task, bytes);
+    }
+
+    /**
+     * Completes the task and records all stage durations.
+     */
+    public void success() {
+        endCurrentStage(System.nanoTime());
+        flush();
+    }
+
+    /**
+     * Completes the task as failed, recording the stages that ran and a failure
+     * tagged with the stage that was executing.
+     *
+     * @param error the cause of the failure
+     */
+    public void failure(Throwable error) {
+        String failedStage = nonNull(currentStage) ? currentStage.name().toLowerCase() : "none";
+        endCurrentStage(System.nanoTime());
+        flush();
+        metrics.recordFailure(task, failedStage, error);
+    }
+
+    private void endCurrentStage(long now) {
+        if (nonNull(currentStage)) {
+            durations.merge(currentStage, now - stageStartNanos, Long::sum);
+            currentStage = null;
+        }
+    }
+
+    private void flush() {
+        durations.forEach((stage, nanos) -> metrics.recordStage(task, stage, sizeClass, nanos));
+        durations.clear();
+    }
+}
@@ -1,7 +1,9 @@
 package com.photoblast.model;
 
 import com.photoblast.enums.ProcessingTask;
+import com.photoblast.pipeline.ProcessingPipeline;
 import lombok.Value;
+import lombok.With;
 
 import java.io.Serializable;
 import java.time.Instant;
@@ -12,7 +14,7 @@ import java.util.UUID;
  * Represents a photo processing job message sent through RabbitMQ.
  * <p>
  * Contains all information needed to process an uploaded photo,
- * including the photo location and the list of processing tasks to perform.
+ * including the photo location and the pipeline of outputs to produce.
  * </p>
  */
 @Value
@@ -27,27 +29,54 @@ public class PhotoProcessingJob implements Serializable {
     /** File path to the original uploaded photo */
     String originalPath;
 
-    /** List of processing tasks to perform on the photo */
+    /** Outputs to produce from the photo */
+    ProcessingPipeline pipeline;
+
+    /** Tasks of jobs published before pipelines existed; null in new jobs */
     List<ProcessingTask> tasks;
 
     /** Timestamp when the job was created */
     Instant createdAt;
 
+    /** BlurHash of the photo generated at upload; null if none was generated in time */
+    String placeholder;
+
+    /** Node that stored the original, whose workers the job is routed to; null if any worker takes it */
+    @With
+    String node;
+
     /**
      * Factory method to create a new photo processing job.
      *
      * @param photoId      unique identifier for the photo
      * @param originalPath file path to the original photo
-     * @param tasks        list of processing tasks to perform
+     * @param pipeline     outputs to produce
      * @return new PhotoProcessingJob with generated jobId and current timestamp
      */
-    public static PhotoProcessingJob create(String photoId, String originalPath, List<ProcessingTask> tasks) {
+    public static PhotoProcessingJob create(String photoId, String originalPath, ProcessingPipeline pipeline) {
+        return create(photoId, originalPath, pipeline, null);
+    }
+
+    /**
+     * Factory method to create a new photo processing job carrying the photo's placeholder.
+     *
+     * @param photoId      unique identifier for the photo
+     * @param originalPath file path to the original photo
+     * @param pipeline     outputs to produce
+     * @param placeholder  BlurHash of the photo, or null
+     * @return new PhotoProcessingJob with generated jobId and current timestamp, not yet tagged with a node
+     */
+    public static PhotoProcessingJob create(String photoId, String originalPath, ProcessingPipeline pipeline,
+                                            String placeholder) {
         return new PhotoProcessingJob(
                 UUID.randomUUID().toString(),
                 photoId,
                 originalPath,
-                tasks,
-                Instant.now()
+                pipeline,
+                null,
+                Instant.now(),
+                placeholder,
+                null
         );
     }
 }
@@ -0,0 +1,61 @@
+package com.photoblast.pipeline;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.photoblast.image.ResampleFilter;
+
+import java.io.Serializable;
+
+/**
+ * A pixel operation of an output branch, in the order the client listed it.
+ * <p>
+ * Operations are serialized as JSON objects whose {@code op} property names the type, e.g.
+ * {@code {"op":"resize","width":1024,"height":1024}}. Coordinates and sizes refer to the
+ * image as it looks after the preceding operations of the same output.
+ * </p>
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "op")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ImageOperation.Crop.class, name = "crop"),
+        @JsonSubTypes.Type(value = ImageOperation.Rotate.class, name = "rotate"),
+        @JsonSubTypes.Type(value = ImageOperation.AutoOrient.class, name = "autoOrient"),
+        @JsonSubTypes.Type(value = ImageOperation.Resize.class, name = "resize"),
+        @JsonSubTypes.Type(value = ImageOperation.Watermark.class, name = "watermark")
+})
+public sealed interface ImageOperation extends Serializable {
+
+    /**
+     * Keeps the given rectangle; parts outside the image are ignored.
+     */
+    record Crop(int x, int y, int width, int height) implements ImageOperation {
+    }
+
+    /**
+     * Rotates clockwise by a multiple of 90 degrees.
+     */
+    record Rotate(int degrees) implements ImageOperation {
+    }
+
+    /**
+     * Rotates and mirrors the image as its EXIF orientation tag says, so that it displays upright
+     * without the tag.
+     */
+    record AutoOrient() implements ImageOperation {
+    }
+
+    /**
+     * Scales the image to fit within the given bounds, keeping its aspect ratio.
+     *
+     * @param filter the reconstruction filter, or null for the configured resize filter
+     */
+    record Resize(int width, int height, ResampleFilter filter) implements ImageOperation {
+    }
+
+    /**
+     * Draws the configured watermark onto the bottom right corner.
+     *
+     * @param opacity the watermark opacity from 0 to 1, or null for the configured opacity
+     */
+    record Watermark(Float opacity) implements ImageOperation {
+    }
+}
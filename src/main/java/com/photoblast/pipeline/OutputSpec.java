@@ -0,0 +1,34 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.enums.OutputLocation;
+import lombok.Value;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One output of a {@link ProcessingPipeline}: the operations applied to the decoded photo and
+ * how the result is encoded.
+ * <p>
+ * The result is written to {@code <photoId>_<name>.<format>} in the directory of its
+ * location.
+ * </p>
+ */
+@Value
+public class OutputSpec implements Serializable {
+
+    /** Name of the output, unique within its pipeline; lowercase letters, digits and dashes */
+    String name;
+
+    /** Directory the output is written to, or null for {@link OutputLocation#PROCESSED} */
+    OutputLocation location;
+
+    /** Operations applied in order; empty to re-encode the photo unchanged */
+    List<ImageOperation> operations;
+
+    /** Output format such as {@code jpg} or {@code png}, or null for the format of the upload */
+    String format;
+
+    /** Compression quality from 0 to 1, or null for the encoder default */
+    Float quality;
+}
@@ -0,0 +1,287 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.image.ImageScaler;
+import com.photoblast.image.Orientation;
+import com.photoblast.image.ResampleFilter;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * The physical steps that produce the outputs of a {@link ProcessingPipeline} from one
+ * decoded image, arranged as a tree.
+ * <p>
+ * The operations of each output are compiled against the source size into at most one crop,
+ * one scale and one orientation between watermarks:
+ * </p>
+ * <ul>
+ *     <li>consecutive crops merge into one, and consecutive resizes into one scale from the
+ *     cropped source straight to the final size;</li>
+ *     <li>rotations and the EXIF orientation compose into a single {@link Orientation}, which
+ *     is deferred past crops and scales by mapping their coordinates back onto the unrotated
+ *     image, so that only the scaled result is rotated;</li>
+ *     <li>a crop is a view of its parent and is read directly by the scale that follows it;</li>
+ *     <li>steps that leave the image unchanged are dropped.</li>
+ * </ul>
+ * <p>
+ * A watermark is drawn in the orientation of the output, so it applies pending steps first.
+ * The compiled step lists of all outputs are merged into a tree on their common prefixes: a
+ * step shared by several outputs runs once and its result is reused by each of them.
+ * </p>
+ */
+public final class PipelinePlan {
+
+    private final Node root;
+
+    private PipelinePlan(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles the pipeline for a decoded image.
+     *
+     * @param pipeline         the outputs to produce
+     * @param width            the width of the decoded image
+     * @param height           the height of the decoded image
+     * @param exif             the EXIF orientation of the source, applied by {@link ImageOperation.AutoOrient}
+     * @param resizeFilter     the filter of resizes that do not name one
+     * @param watermarkOpacity the opacity of watermarks that do not give one
+     * @return the plan
+     * @throws IllegalArgumentException if a crop lies entirely outside the image
+     */
+    public static PipelinePlan compile(ProcessingPipeline pipeline, int width, int height, Orientation exif,
+                                       ResampleFilter resizeFilter, float watermarkOpacity) {
+        Node root = new Node(null);
+        for (OutputSpec output : pipeline.getOutputs()) {
+            Compiler compiler = new Compiler(width, height, exif, resizeFilter, watermarkOpacity);
+            for (ImageOperation operation : output.getOperations()) {
+                compiler.add(operation, output.getName());
+            }
+            Node node = root;
+            for (Step step : compiler.finish()) {
+                node = node.child(step);
+            }
+            node.outputs.add(output);
+        }
+        return new PipelinePlan(root);
+    }
+
+    /**
+     * Returns the root of the tree, which stands for the decoded image and has no step.
+     *
+     * @return the root node
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Counts the steps of the plan; a step shared by several outputs counts once.
+     *
+     * @return the number of steps
+     */
+    public int stepCount() {
+        return root.stepCount() - 1;
+    }
+
+    /**
+     * A physical operation on the image produced by the parent node.
+     */
+    public sealed interface Step {
+    }
+
+    /**
+     * A view of the given rectangle of the parent image.
+     */
+    public record Crop(int x, int y, int width, int height) implements Step {
+    }
+
+    /**
+     * Resampling to exactly the given size.
+     */
+    public record Scale(int width, int height, ResampleFilter filter) implements Step {
+    }
+
+    /**
+     * Rotation and mirroring into a new image.
+     */
+    public record Orient(Orientation orientation) implements Step {
+    }
+
+    /**
+     * A watermark drawn onto the bottom right corner, in place if nothing else reads the parent image.
+     */
+    public record Watermark(float opacity) implements Step {
+    }
+
+    /**
+     * A step of the plan, the outputs encoded from its result and the steps continuing from it.
+     */
+    public static final class Node {
+
+        private final Step step;
+        private final List<OutputSpec> outputs = new ArrayList<>();
+        private final List<Node> children = new ArrayList<>();
+
+        private Node(Step step) {
+            this.step = step;
+        }
+
+        /**
+         * Returns the step producing this node's image from its parent's.
+         *
+         * @return the step, or null for the root
+         */
+        public Step getStep() {
+            return step;
+        }
+
+        /**
+         * Returns the outputs encoded from this node's image, in pipeline order.
+         *
+         * @return the outputs
+         */
+        public List<OutputSpec> getOutputs() {
+            return Collections.unmodifiableList(outputs);
+        }
+
+        /**
+         * Returns the steps continuing from this node's image, in pipeline order.
+         *
+         * @return the children
+         */
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        private Node child(Step step) {
+            for (Node child : children) {
+                if (child.step.equals(step)) {
+                    return child;
+                }
+            }
+            Node child = new Node(step);
+            children.add(child);
+            return child;
+        }
+
+        private int stepCount() {
+            int count = 1;
+            for (Node child : children) {
+                count += child.stepCount();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Compiles the operations of one output, holding the pending crop, scale and orientation
+     * until an operation requires them to be applied.
+     */
+    private static final class Compiler {
+
+        private final Orientation exif;
+        private final ResampleFilter resizeFilter;
+        private final float watermarkOpacity;
+        private final List<Step> steps = new ArrayList<>();
+
+        /** Size of the image produced by the steps emitted so far */
+        private int width;
+        private int height;
+
+        /** Pending crop of that image, pending scaled size of the crop and pending orientation */
+        private Rectangle crop;
+        private int scaledWidth;
+        private int scaledHeight;
+        private ResampleFilter filter;
+        private Orientation orientation = Orientation.NORMAL;
+
+        private Compiler(int width, int height, Orientation exif, ResampleFilter resizeFilter,
+                         float watermarkOpacity) {
+            this.exif = exif;
+            this.resizeFilter = resizeFilter;
+            this.watermarkOpacity = watermarkOpacity;
+            reset(width, height);
+        }
+
+        private void add(ImageOperation operation, String output) {
+            switch (operation) {
+                case ImageOperation.Crop c -> crop(c, output);
+                case ImageOperation.Rotate r -> orientation = orientation.then(Orientation.rotation(r.degrees()));
+                case ImageOperation.AutoOrient a -> orientation = orientation.then(exif);
+                case ImageOperation.Resize r -> resize(r);
+                case ImageOperation.Watermark w -> {
+                    applyAll();
+                    steps.add(new Watermark(nonNull(w.opacity()) ? w.opacity() : watermarkOpacity));
+                }
+            }
+        }
+
+        private List<Step> finish() {
+            applyAll();
+            return steps;
+        }
+
+        private void crop(ImageOperation.Crop operation, String output) {
+            if (scaledWidth != crop.width || scaledHeight != crop.height) {
+                applyScale();
+            }
+            int logicalWidth = orientation.swapsAxes() ? scaledHeight : scaledWidth;
+            int logicalHeight = orientation.swapsAxes() ? scaledWidth : scaledHeight;
+            Rectangle logical = new Rectangle(operation.x(), operation.y(), operation.width(), operation.height())
+                    .intersection(new Rectangle(logicalWidth, logicalHeight));
+            if (logical.isEmpty()) {
+                throw new IllegalArgumentException("Crop of output " + output + " lies outside the "
+                        + logicalWidth + "x" + logicalHeight + " image");
+            }
+            Rectangle physical = orientation.toSource(logical, logicalWidth, logicalHeight);
+            crop = new Rectangle(crop.x + physical.x, crop.y + physical.y, physical.width, physical.height);
+            scaledWidth = crop.width;
+            scaledHeight = crop.height;
+        }
+
+        private void resize(ImageOperation.Resize operation) {
+            boolean swap = orientation.swapsAxes();
+            Dimension size = ImageScaler.fit(swap ? scaledHeight : scaledWidth, swap ? scaledWidth : scaledHeight,
+                    operation.width(), operation.height());
+            scaledWidth = swap ? size.height : size.width;
+            scaledHeight = swap ? size.width : size.height;
+            filter = nonNull(operation.filter()) ? operation.filter() : resizeFilter;
+        }
+
+        private void applyScale() {
+            if (crop.x != 0 || crop.y != 0 || crop.width != width || crop.height != height) {
+                steps.add(new Crop(crop.x, crop.y, crop.width, crop.height));
+            }
+            if (scaledWidth != crop.width || scaledHeight != crop.height) {
+                steps.add(new Scale(scaledWidth, scaledHeight, filter));
+            }
+            reset(scaledWidth, scaledHeight);
+        }
+
+        private void applyAll() {
+            applyScale();
+            if (orientation != Orientation.NORMAL) {
+                steps.add(new Orient(orientation));
+                if (orientation.swapsAxes()) {
+                    reset(height, width);
+                }
+                orientation = Orientation.NORMAL;
+            }
+        }
+
+        private void reset(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.crop = new Rectangle(width, height);
+            this.scaledWidth = width;
+            this.scaledHeight = height;
+            this.filter = resizeFilter;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.enums.ProcessingTask;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Expands the legacy {@link ProcessingTask} list into a {@link ProcessingPipeline}.
+ * <p>
+ * Each task becomes one output named after the file suffix it has always written, so that
+ * clients using {@code tasks=} get the same files as before: {@code resized} and
+ * {@code watermarked} in the processed directory and {@code thumb} in the thumbnail
+ * directory, in the format of the upload.
+ * </p>
+ * <p>
+ * Pipelines are also named by the presets they consist of, which gives metrics a task tag
+ * with a bounded set of values whatever outputs clients request.
+ * </p>
+ */
+@Component
+public class PipelinePresets {
+
+    /** Task tag of a pipeline with any output that is not a preset */
+    public static final String CUSTOM = "custom";
+
+    private final ImageProperties imageProperties;
+
+    /**
+     * Constructs new PipelinePresets with the given configuration properties.
+     *
+     * @param imageProperties the image processing configuration properties
+     */
+    public PipelinePresets(ImageProperties imageProperties) {
+        this.imageProperties = imageProperties;
+    }
+
+    /**
+     * Returns the pipeline performing the given tasks.
+     *
+     * @param tasks the tasks, in order
+     * @return a pipeline with one output per distinct task
+     */
+    public ProcessingPipeline of(List<ProcessingTask> tasks) {
+        return new ProcessingPipeline(tasks.stream().distinct().map(this::output).toList());
+    }
+
+    /**
+     * Returns the task tag of a pipeline: the names of the presets it consists of in task
+     * order, such as {@code resize+thumbnail}, or {@link #CUSTOM} if any output is not a preset.
+     *
+     * @param pipeline the pipeline
+     * @return the task tag
+     */
+    public String taskTag(ProcessingPipeline pipeline) {
+        Set<ProcessingTask> tasks = EnumSet.noneOf(ProcessingTask.class);
+        for (OutputSpec output : pipeline.getOutputs()) {
+            ProcessingTask task = taskOf(output);
+            if (isNull(task)) {
+                return CUSTOM;
+            }
+            tasks.add(task);
+        }
+        if (tasks.isEmpty()) {
+            return CUSTOM;
+        }
+        return tasks.stream().map(task -> task.name().toLowerCase()).collect(Collectors.joining("+"));
+    }
+
+    private ProcessingTask taskOf(OutputSpec output) {
+        for (ProcessingTask task : ProcessingTask.values()) {
+            if (output(task).equals(output)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private OutputSpec output(ProcessingTask task) {
+        return switch (task) {
+            case RESIZE -> new OutputSpec("resized", OutputLocation.PROCESSED,
+                    List.of(new ImageOperation.Resize(imageProperties.getResizeWidth(),
+                            imageProperties.getResizeHeight(), imageProperties.getResizeFilter())),
+                    null, null);
+            case WATERMARK -> new OutputSpec("watermarked", OutputLocation.PROCESSED,
+                    List.of(new ImageOperation.Watermark(null)), null, null);
+            case THUMBNAIL -> new OutputSpec("thumb", OutputLocation.THUMBNAILS,
+                    List.of(new ImageOperation.Resize(imageProperties.getThumbnailWidth(),
+                            imageProperties.getThumbnailHeight(), imageProperties.getThumbnailFilter())),
+                    null, null);
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.config.RoleProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Parses and validates pipelines sent by clients, so that a malformed pipeline is rejected
+ * at upload instead of failing on a worker.
+ * <p>
+ * Checks that only depend on the source image, such as whether a crop lies within it, are
+ * left to {@link PipelinePlan}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class PipelineValidator {
+
+    private static final Pattern OUTPUT_NAME = Pattern.compile("[a-z0-9][a-z0-9-]{0,31}");
+
+    private final ImageProperties imageProperties;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Constructs a new PipelineValidator.
+     *
+     * @param imageProperties the image processing configuration properties holding the limits
+     * @param jsonMapper      the mapper used to parse pipelines
+     */
+    public PipelineValidator(ImageProperties imageProperties, JsonMapper jsonMapper) {
+        this.imageProperties = imageProperties;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Parses and validates a pipeline given as JSON.
+     *
+     * @param json the pipeline
+     * @return the validated pipeline
+     * @throws IllegalArgumentException if the JSON is malformed or the pipeline is invalid
+     */
+    public ProcessingPipeline parse(String json) {
+        ProcessingPipeline pipeline;
+        try {
+            pipeline = jsonMapper.readValue(json, ProcessingPipeline.class);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed pipeline: " + e.getOriginalMessage());
+        }
+        validate(pipeline);
+        return pipeline;
+    }
+
+    /**
+     * Validates a pipeline.
+     *
+     * @param pipeline the pipeline
+     * @throws IllegalArgumentException if the pipeline is invalid
+     */
+    public void validate(ProcessingPipeline pipeline) {
+        if (isNull(pipeline) || isNull(pipeline.getOutputs()) || pipeline.getOutputs().isEmpty()) {
+            throw new IllegalArgumentException("Pipeline must have at least one output");
+        }
+        if (pipeline.getOutputs().size() > imageProperties.getPipelineMaxOutputs()) {
+            throw new IllegalArgumentException("Pipeline has more than "
+                    + imageProperties.getPipelineMaxOutputs() + " outputs");
+        }
+        Set<String> names = new HashSet<>();
+        for (OutputSpec output : pipeline.getOutputs()) {
+            if (isNull(output)) {
+                throw new IllegalArgumentException("Pipeline output must not be null");
+            }
+            if (isNull(output.getName()) || !OUTPUT_NAME.matcher(output.getName()).matches()) {
+                throw new IllegalArgumentException("Invalid output name: " + output.getName()
+                        + "; use up to 32 lowercase letters, digits and dashes");
+            }
+            if (!names.add(output.getName())) {
+                throw new IllegalArgumentException("Duplicate output name: " + output.getName());
+            }
+            validateOperations(output);
+            validateEncoding(output);
+        }
+    }
+
+    private void validateOperations(OutputSpec output) {
+        if (isNull(output.getOperations())) {
+            throw new IllegalArgumentException("Output " + output.getName() + " has no operations list");
+        }
+        if (output.getOperations().size() > imageProperties.getPipelineMaxOperations()) {
+            throw new IllegalArgumentException("Output " + output.getName() + " has more than "
+                    + imageProperties.getPipelineMaxOperations() + " operations");
+        }
+        int maxDimension = imageProperties.getPipelineMaxDimension();
+        for (ImageOperation operation : output.getOperations()) {
+            String problem = switch (operation) {
+                case null -> "null operation";
+                case ImageOperation.Crop crop -> crop.x() < 0 || crop.y() < 0 || crop.width() < 1 || crop.height() < 1
+                        ? "crop needs a non-negative origin and a positive size" : null;
+                case ImageOperation.Rotate rotate -> rotate.degrees() % 90 != 0
+                        ? "rotation must be a multiple of 90 degrees" : null;
+                case ImageOperation.AutoOrient autoOrient -> null;
+                case ImageOperation.Resize resize -> resize.width() < 1 || resize.height() < 1
+                        || resize.width() > maxDimension || resize.height() > maxDimension
+                        ? "resize bounds must be between 1 and " + maxDimension : null;
+                case ImageOperation.Watermark watermark -> nonNull(watermark.opacity())
+                        && !(watermark.opacity() >= 0 && watermark.opacity() <= 1)
+                        ? "watermark opacity must be between 0 and 1" : null;
+            };
+            if (nonNull(problem)) {
+                throw new IllegalArgumentException("Output " + output.getName() + ": " + problem);
+            }
+        }
+    }
+
+    private void validateEncoding(OutputSpec output) {
+        if (nonNull(output.getQuality()) && !(output.getQuality() >= 0 && output.getQuality() <= 1)) {
+            throw new IllegalArgumentException("Output " + output.getName() + ": quality must be between 0 and 1");
+        }
+        if (isNull(output.getFormat())) {
+            return;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(output.getFormat());
+        if (!output.getFormat().equals(output.getFormat().toLowerCase()) || !writers.hasNext()) {
+            throw new IllegalArgumentException("Output " + output.getName()
+                    + ": unsupported format " + output.getFormat());
+        }
+        ImageWriter writer = writers.next();
+        try {
+            if (nonNull(output.getQuality()) && !writer.getDefaultWriteParam().canWriteCompressed()) {
+                throw new IllegalArgumentException("Output " + output.getName()
+                        + ": format " + output.getFormat() + " has no quality setting");
+            }
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.photoblast.pipeline;
+
+import lombok.Value;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The outputs produced from one uploaded photo.
+ * <p>
+ * The photo is read and decoded once per job; outputs whose operations start alike share
+ * the work of their common prefix, see {@link PipelinePlan}.
+ * </p>
+ */
+@Value
+public class ProcessingPipeline implements Serializable {
+
+    List<OutputSpec> outputs;
+
+    /**
+     * Returns the names of the outputs, in order.
+     *
+     * @return the output names
+     */
+    public List<String> outputNames() {
+        return outputs.stream().map(OutputSpec::getName).toList();
+    }
+}
@@ -0,0 +1,11 @@
+package com.photoblast.service;
+
+import com.photoblast.dto.ArchiveUploadResponse;
+import com.photoblast.pipeline.ProcessingPipeline;
+
+import java.io.InputStream;
+
+public interface ArchiveUploadService {
+
+    ArchiveUploadResponse uploadArchive(InputStream archive, ProcessingPipeline pipeline);
+}
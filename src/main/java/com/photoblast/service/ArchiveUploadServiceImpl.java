@@ -0,0 +1,278 @@
+package com.photoblast.service;
+
+import com.photoblast.config.RoleProperties;
+import com.photoblast.dto.ArchiveUploadResponse;
+import com.photoblast.dto.ArchiveUploadResponse.EntryError;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.util.FileUtils;
+import com.photoblast.util.ImageFormatProbe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Implementation of {@link ArchiveUploadService} ingesting ZIP archives as a stream.
+ * <p>
+ * Entries are read one at a time from the request body and never buffered as a whole:
+ * the leading bytes of each entry are probed with {@link ImageFormatProbe}, and accepted
+ * images are copied straight into the upload directory under a generated name, so memory
+ * use is constant regardless of archive size. Jobs are published in batches of
+ * {@code publish-batch-size} while the archive is still being read.
+ * </p>
+ * <p>
+ * Entries larger than {@code max-entry-bytes} after decompression are rejected. Ingestion
+ * stops once {@code max-entries} entries or {@code max-total-bytes} stored bytes are
+ * reached, if the archive is malformed, or if publishing fails; entries queued until then
+ * stay queued and the response is marked truncated.
+ * </p>
+ * <p>
+ * Only the first {@code max-errors} entry errors are listed, with entry names shortened to
+ * {@value #MAX_ERROR_NAME_LENGTH} characters, and the rest are counted. This keeps the
+ * response small enough to be stored for idempotent replay however many entries fail.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class ArchiveUploadServiceImpl implements ArchiveUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveUploadServiceImpl.class);
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    private static final String SOURCE_ARCHIVE = "archive";
+    private static final int MAX_ERROR_NAME_LENGTH = 256;
+
+    private final PhotoJobProducer photoJobProducer;
+    private final PhotoMetrics photoMetrics;
+
+    @Value("${photoblast.storage.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${photoblast.upload.archive.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${photoblast.upload.archive.max-entry-bytes:20971520}")
+    private long maxEntryBytes;
+
+    @Value("${photoblast.upload.archive.max-total-bytes:10737418240}")
+    private long maxTotalBytes;
+
+    @Value("${photoblast.upload.archive.publish-batch-size:100}")
+    private int publishBatchSize;
+
+    @Value("${photoblast.upload.archive.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * Constructs a new ArchiveUploadServiceImpl.
+     *
+     * @param photoJobProducer the producer for sending processing jobs
+     * @param photoMetrics     the metrics used to count ingested bytes and failures
+     */
+    public ArchiveUploadServiceImpl(PhotoJobProducer photoJobProducer, PhotoMetrics photoMetrics) {
+        this.photoJobProducer = photoJobProducer;
+        this.photoMetrics = photoMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArchiveUploadResponse uploadArchive(InputStream archive, ProcessingPipeline pipeline) {
+        Ingestion ingestion = new Ingestion(pipeline);
+        try (ZipInputStream zip = new ZipInputStream(archive)) {
+            ingestion.uploadPath = FileUtils.ensureDirectoryExists(uploadDir);
+            ZipEntry entry;
+            while (!ingestion.stopped() && nonNull(entry = zip.getNextEntry())) {
+                if (entry.isDirectory() || isMetadata(entry.getName())) {
+                    continue;
+                }
+                if (ingestion.entries == maxEntries) {
+                    ingestion.stop("Archive has more than " + maxEntries + " entries");
+                    break;
+                }
+                ingestion.entries++;
+                ingestion.ingest(zip, entry);
+                if (ingestion.pending.size() >= Math.max(1, publishBatchSize)) {
+                    ingestion.publish();
+                }
+            }
+        } catch (ZipException e) {
+            ingestion.stop("Invalid ZIP archive: " + e.getMessage());
+        } catch (IOException e) {
+            log.warn("Failed to read archive", e);
+            photoMetrics.recordFailure(SOURCE_ARCHIVE, "none", e);
+            ingestion.stop("Failed to read archive: " + e.getMessage());
+        }
+        ingestion.publish();
+
+        if (ingestion.queued == 0 && ingestion.failed > 0) {
+            throw new JobTransportException("Failed to publish any of " + ingestion.failed + " archive entries");
+        }
+        log.info("Archive ingested: entries={}, queued={}, rejected={}, failed={}, truncated={}",
+                ingestion.entries, ingestion.queued, ingestion.rejected, ingestion.failed, ingestion.stopped());
+        return ingestion.toResponse();
+    }
+
+    private static boolean isMetadata(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        return name.startsWith("__MACOSX/") || fileName.startsWith(".");
+    }
+
+    /**
+     * State of a single archive ingestion.
+     */
+    private final class Ingestion {
+
+        private final ProcessingPipeline pipeline;
+        private final List<EntryError> errors = new ArrayList<>();
+        /** Entry name of every stored job not yet published, keyed by job id */
+        private final Map<String, String> pendingNames = new LinkedHashMap<>();
+        private final List<PhotoProcessingJob> pending = new ArrayList<>();
+
+        private Path uploadPath;
+        private int entries;
+        private int queued;
+        private int rejected;
+        private int failed;
+        private int omittedErrors;
+        private long storedBytes;
+        private String stopReason;
+
+        private Ingestion(ProcessingPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        private boolean stopped() {
+            return nonNull(stopReason);
+        }
+
+        private void stop(String reason) {
+            if (!stopped()) {
+                stopReason = reason;
+            }
+        }
+
+        private void ingest(InputStream entryStream, ZipEntry entry) throws IOException {
+            String name = entry.getName();
+            if (entry.getSize() > maxEntryBytes) {
+                reject(name, "Entry exceeds " + maxEntryBytes + " bytes");
+                return;
+            }
+            byte[] header = entryStream.readNBytes(ImageFormatProbe.HEADER_BYTES);
+            if (header.length == 0) {
+                reject(name, "Entry is empty");
+                return;
+            }
+            Optional<String> extension = ImageFormatProbe.detectExtension(header);
+            if (extension.isEmpty()) {
+                reject(name, "Entry is not a supported image");
+                return;
+            }
+
+            String photoId = UUID.randomUUID().toString();
+            Path filePath = uploadPath.resolve(photoId + extension.get());
+            long size;
+            try (OutputStream out = Files.newOutputStream(filePath)) {
+                out.write(header);
+                size = header.length + copy(entryStream, out, maxEntryBytes - header.length + 1);
+            } catch (IOException e) {
+                Files.deleteIfExists(filePath);
+                throw e;
+            }
+            if (size > maxEntryBytes) {
+                Files.deleteIfExists(filePath);
+                reject(name, "Entry exceeds " + maxEntryBytes + " bytes");
+                return;
+            }
+
+            photoMetrics.recordBytesIn(PhotoMetrics.SOURCE_UPLOAD, size);
+            PhotoProcessingJob job = PhotoProcessingJob.create(photoId, filePath.toString(), pipeline);
+            pending.add(job);
+            pendingNames.put(job.getJobId(), name);
+            storedBytes += size;
+            if (storedBytes >= maxTotalBytes) {
+                stop("Archive exceeds " + maxTotalBytes + " bytes");
+            }
+        }
+
+        private void publish() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Set<String> unpublished;
+            try {
+                unpublished = photoJobProducer.sendPhotoProcessingJobs(List.copyOf(pending));
+            } catch (JobTransportException e) {
+                log.error("Failed to publish archive entries, stopping ingestion", e);
+                unpublished = pendingNames.keySet();
+                stop("Failed to queue photos for processing");
+            }
+            for (Map.Entry<String, String> entry : pendingNames.entrySet()) {
+                if (unpublished.contains(entry.getKey())) {
+                    failed++;
+                    addError(entry.getValue(), "Failed to queue photo for processing");
+                } else {
+                    queued++;
+                }
+            }
+            pending.clear();
+            pendingNames.clear();
+        }
+
+        private void reject(String name, String reason) {
+            rejected++;
+            addError(name, reason);
+        }
+
+        private void addError(String name, String reason) {
+            if (errors.size() >= maxErrors) {
+                omittedErrors++;
+                return;
+            }
+            String shortName = name.length() > MAX_ERROR_NAME_LENGTH
+                    ? name.substring(0, MAX_ERROR_NAME_LENGTH - 3) + "..." : name;
+            errors.add(new EntryError(shortName, reason));
+        }
+
+        private ArchiveUploadResponse toResponse() {
+            String message = stopped() ? stopReason
+                    : String.format("%d of %d entries queued for processing", queued, entries);
+            return new ArchiveUploadResponse(entries, queued, rejected, failed, stopped(), message, List.copyOf(errors),
+                    omittedErrors);
+        }
+    }
+
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        long copied = 0;
+        int read;
+        while (copied < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied))) != -1) {
+            out.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+}
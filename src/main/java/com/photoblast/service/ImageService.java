@@ -1,35 +1,56 @@
 package com.photoblast.service;
 
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.ProcessingPipeline;
+
+import java.nio.file.Path;
+
 /**
  * Service interface for image processing operations.
  * <p>
- * Defines the contract for processing uploaded photos including
- * resizing, watermarking, and thumbnail generation.
+ * Defines the contract for producing the outputs of a {@link ProcessingPipeline}, such as
+ * resized, watermarked and thumbnail versions, from an uploaded photo.
  * </p>
  */
 public interface ImageService {
 
     /**
-     * Resizes an image to the configured dimensions.
+     * Produces every output of the pipeline from the image.
      *
      * @param imagePath path to the original image file
      * @param photoId   unique identifier for the photo
+     * @param pipeline  the outputs to produce
      */
-    void resize(String imagePath, String photoId);
+    default void process(String imagePath, String photoId, ProcessingPipeline pipeline) {
+        process(imagePath, photoId, pipeline, (output, path, length, checksum) -> {
+        });
+    }
 
     /**
-     * Applies a watermark to an image.
+     * Produces every output of the pipeline from the image, reporting each output as soon as
+     * its file is written.
      *
      * @param imagePath path to the original image file
      * @param photoId   unique identifier for the photo
+     * @param pipeline  the outputs to produce
+     * @param listener  notified of every written output
      */
-    void watermark(String imagePath, String photoId);
+    void process(String imagePath, String photoId, ProcessingPipeline pipeline, OutputListener listener);
 
     /**
-     * Generates a thumbnail version of an image.
-     *
-     * @param imagePath path to the original image file
-     * @param photoId   unique identifier for the photo
+     * Receives the outputs of a pipeline as they are written.
      */
-    void thumbnail(String imagePath, String photoId);
+    @FunctionalInterface
+    interface OutputListener {
+
+        /**
+         * Called after the file of an output has been written.
+         *
+         * @param output   the output
+         * @param path     the file written
+         * @param length   the size of the file in bytes
+         * @param checksum the CRC32C of the file contents
+         */
+        void outputWritten(OutputSpec output, Path path, long length, long checksum);
+    }
 }
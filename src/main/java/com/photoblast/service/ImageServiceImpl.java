@@ -1,123 +1,496 @@
 package com.photoblast.service;
 
 import com.photoblast.config.ImageProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.enums.ProcessingStage;
 import com.photoblast.exception.ImageProcessingException;
+import com.photoblast.image.ByteBufferImageInputStream;
+import com.photoblast.image.ImageScaler;
+import com.photoblast.image.Orientation;
+import com.photoblast.image.PixelBufferPool;
+import com.photoblast.jfr.TaskFinishedEvent;
+import com.photoblast.jfr.TaskStartedEvent;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.metrics.TaskTimer;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.PipelinePlan;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
 import com.photoblast.util.FileUtils;
 import net.coobird.thumbnailator.Thumbnails;
 import net.coobird.thumbnailator.geometry.Positions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Implementation of {@link ImageService} using Thumbnailator library.
  * <p>
- * Handles image manipulation operations including resizing,
- * watermarking, and thumbnail generation.
+ * A job reads and decodes its photo once, compiles the pipeline into a {@link PipelinePlan}
+ * and walks the plan depth-first: each node's image is encoded for the outputs ending there
+ * before the steps continuing from it run. Every stage of the job is timed through
+ * {@link PhotoMetrics} under the task tag {@link PipelinePresets#taskTag} gives its pipeline.
+ * </p>
+ * <p>
+ * Downscales of large images run on the tile-parallel {@link ImageScaler} instead of
+ * Thumbnailator, so that a single huge image does not keep one core busy for seconds.
+ * </p>
+ * <p>
+ * The source file, the decoded raster, the scaled result and the flattened copy made for
+ * formats without alpha are leased from the {@link PixelBufferPool} for the duration of
+ * a job instead of being allocated per job; the watermark is composited in place unless
+ * another branch of the plan still reads the image.
  * </p>
  */
 @Service
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
 public class ImageServiceImpl implements ImageService {
 
     private static final Logger log = LoggerFactory.getLogger(ImageServiceImpl.class);
+    private static final Set<String> FORMATS_WITHOUT_ALPHA = Set.of("jpg", "jpeg", "bmp");
+
+    /** Interleaved 8-bit sRGB in R, G, B order, the channel order the JDK decoders produce */
+    private static final ImageTypeSpecifier INTERLEAVED_RGB = ImageTypeSpecifier.createInterleaved(
+            ColorSpace.getInstance(ColorSpace.CS_sRGB), new int[]{0, 1, 2}, DataBuffer.TYPE_BYTE, false, false);
 
     private final ImageProperties imageProperties;
+    private final PhotoMetrics photoMetrics;
+    private final ImageScaler imageScaler;
+    private final PixelBufferPool bufferPool;
+    private final PipelinePresets pipelinePresets;
 
     /**
      * Constructs a new ImageServiceImpl with the given configuration properties.
      *
      * @param imageProperties the image processing configuration properties
+     * @param photoMetrics    the metrics used to time each processing stage
+     * @param imageScaler     the parallel scaler used for large images
+     * @param bufferPool      the pool the buffers of each job are leased from
+     * @param pipelinePresets the presets naming the task tag of each job
      */
-    public ImageServiceImpl(ImageProperties imageProperties) {
+    public ImageServiceImpl(ImageProperties imageProperties, PhotoMetrics photoMetrics, ImageScaler imageScaler,
+                            PixelBufferPool bufferPool, PipelinePresets pipelinePresets) {
         this.imageProperties = imageProperties;
+        this.photoMetrics = photoMetrics;
+        this.imageScaler = imageScaler;
+        this.bufferPool = bufferPool;
+        this.pipelinePresets = pipelinePresets;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void resize(String imagePath, String photoId) {
-        log.info("Resizing image: photoId={}, path={}", photoId, imagePath);
+    public void process(String imagePath, String photoId, ProcessingPipeline pipeline, OutputListener listener) {
+        log.debug("Processing image: path={}, outputs={}", imagePath, pipeline.outputNames());
 
         try {
-            Path outputDir = FileUtils.ensureDirectoryExists(imageProperties.getProcessedDir());
-            String outputFilename = photoId + "_resized" + FileUtils.getExtension(imagePath);
-            Path outputPath = outputDir.resolve(outputFilename);
+            BufferedImage watermark = null;
+            if (pipeline.getOutputs().stream().anyMatch(ImageServiceImpl::hasWatermark)) {
+                File watermarkFile = new File(imageProperties.getWatermarkPath());
+                if (watermarkFile.exists()) {
+                    watermark = ImageIO.read(watermarkFile);
+                } else {
+                    log.warn("Watermark file not found: {}. Skipping watermarked outputs.",
+                            imageProperties.getWatermarkPath());
+                    pipeline = new ProcessingPipeline(pipeline.getOutputs().stream()
+                            .filter(output -> !hasWatermark(output))
+                            .toList());
+                    if (pipeline.getOutputs().isEmpty()) {
+                        return;
+                    }
+                }
+            }
 
-            Thumbnails.of(new File(imagePath))
-                    .size(imageProperties.getResizeWidth(), imageProperties.getResizeHeight())
-                    .keepAspectRatio(true)
-                    .toFile(outputPath.toFile());
+            run(new Job(imagePath, photoId, pipeline, watermark, listener));
 
-            log.info("Resize completed: photoId={}, output={}", photoId, outputPath);
+            log.info("Image processed: outputs={}", pipeline.outputNames());
 
         } catch (IOException e) {
-            log.error("Failed to resize image: photoId={}", photoId, e);
-            throw new ImageProcessingException("Failed to resize image", e);
+            log.error("Failed to process image: photoId={}", photoId, e);
+            throw new ImageProcessingException("Failed to process image", e);
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Runs a job as timed read and decode stages followed by the steps of its plan.
+     * <p>
+     * Also emits {@link TaskStartedEvent} and {@link TaskFinishedEvent} to Java Flight Recorder.
+     * Event fields are only populated when the event is enabled in the running recording.
+     * Buffers leased by any stage are returned to the pool when the job completes.
+     * </p>
+     *
+     * @param job the job
+     * @throws IOException if the image cannot be read, decoded, encoded or written
      */
-    @Override
-    public void watermark(String imagePath, String photoId) {
-        log.info("Applying watermark: photoId={}, path={}", photoId, imagePath);
+    private void run(Job job) throws IOException {
+        String outputs = String.join(",", job.pipeline.outputNames());
+        emitTaskStarted(outputs, job.photoId);
+        TaskFinishedEvent finishedEvent = new TaskFinishedEvent();
+        finishedEvent.begin();
 
-        try {
-            Path outputDir = FileUtils.ensureDirectoryExists(imageProperties.getProcessedDir());
-            String outputFilename = photoId + "_watermarked" + FileUtils.getExtension(imagePath);
-            Path outputPath = outputDir.resolve(outputFilename);
-
-            File watermarkFile = new File(imageProperties.getWatermarkPath());
-            if (!watermarkFile.exists()) {
-                log.warn("Watermark file not found: {}. Skipping watermark.", imageProperties.getWatermarkPath());
-                return;
+        TaskTimer timer = photoMetrics.startTask(pipelinePresets.taskTag(job.pipeline));
+        long bytesIn = 0;
+        int width = 0;
+        int height = 0;
+        boolean success = false;
+        try (PixelBufferPool.Scope scope = bufferPool.open()) {
+            timer.begin(ProcessingStage.READ);
+            ByteBuffer source = read(Path.of(job.imagePath), scope);
+            bytesIn = source.remaining();
+            timer.bytesIn(bytesIn);
+
+            timer.begin(ProcessingStage.DECODE);
+            Orientation exif = job.pipeline.getOutputs().stream().anyMatch(ImageServiceImpl::hasAutoOrient)
+                    ? Orientation.read(source) : Orientation.NORMAL;
+            BufferedImage image = decode(source, scope);
+            if (isNull(image)) {
+                throw new IOException("Unsupported image format: " + job.imagePath);
             }
+            width = image.getWidth();
+            height = image.getHeight();
+            timer.imageSize(width, height);
 
-            BufferedImage watermarkImage = ImageIO.read(watermarkFile);
+            PipelinePlan plan = PipelinePlan.compile(job.pipeline, width, height, exif,
+                    imageProperties.getResizeFilter(), imageProperties.getWatermarkOpacity());
+            log.debug("Compiled pipeline: outputs={}, steps={}", job.pipeline.getOutputs().size(), plan.stepCount());
+            execute(job, plan.getRoot(), image, true, timer, scope);
 
-            Thumbnails.of(new File(imagePath))
-                    .scale(1.0)
-                    .watermark(Positions.BOTTOM_RIGHT, watermarkImage, imageProperties.getWatermarkOpacity())
-                    .toFile(outputPath.toFile());
+            timer.success();
+            success = true;
+        } catch (IOException | RuntimeException e) {
+            timer.failure(e);
+            throw e;
+        } finally {
+            if (finishedEvent.shouldCommit()) {
+                finishedEvent.photoId = job.photoId;
+                finishedEvent.task = outputs;
+                finishedEvent.width = width;
+                finishedEvent.height = height;
+                finishedEvent.bytesIn = bytesIn;
+                finishedEvent.bytesOut = job.bytesOut;
+                finishedEvent.success = success;
+                finishedEvent.commit();
+            }
+        }
+    }
 
-            log.info("Watermark applied: photoId={}, output={}", photoId, outputPath);
+    /**
+     * Writes the outputs of a node and then runs each of its children on its image.
+     * <p>
+     * {@code writable} tells whether the image may be modified: it does not share pixels with
+     * an image that a later step still reads. A crop is a view of its parent and inherits its
+     * parent's state; every other step produces a new image. The last child of a node is the
+     * last reader of its image, so a watermark there is drawn in place.
+     * </p>
+     */
+    private void execute(Job job, PipelinePlan.Node node, BufferedImage image, boolean writable, TaskTimer timer,
+                         PixelBufferPool.Scope scope) throws IOException {
+        for (OutputSpec output : node.getOutputs()) {
+            write(job, output, image, timer, scope);
+        }
 
-        } catch (IOException e) {
-            log.error("Failed to apply watermark: photoId={}", photoId, e);
-            throw new ImageProcessingException("Failed to apply watermark", e);
+        List<PipelinePlan.Node> children = node.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            PipelinePlan.Node child = children.get(i);
+            boolean last = i == children.size() - 1;
+            BufferedImage result;
+            boolean resultWritable = true;
+            switch (child.getStep()) {
+                case PipelinePlan.Crop crop -> {
+                    result = image.getSubimage(crop.x(), crop.y(), crop.width(), crop.height());
+                    resultWritable = writable && last;
+                }
+                case PipelinePlan.Scale scale -> {
+                    timer.begin(ProcessingStage.SCALE);
+                    result = scale(image, scale, scope);
+                }
+                case PipelinePlan.Orient orient -> {
+                    timer.begin(ProcessingStage.ORIENT);
+                    result = orient.orientation().apply(image, scope);
+                }
+                case PipelinePlan.Watermark watermark -> {
+                    timer.begin(ProcessingStage.COMPOSITE);
+                    result = composite(writable && last ? image : copy(image, scope), job.watermark,
+                            watermark.opacity());
+                }
+            }
+            execute(job, child, result, resultWritable, timer, scope);
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Encodes the image for the output and writes it to the output's directory.
      */
-    @Override
-    public void thumbnail(String imagePath, String photoId) {
-        log.info("Generating thumbnail: photoId={}, path={}", photoId, imagePath);
+    private void write(Job job, OutputSpec output, BufferedImage image, TaskTimer timer,
+                       PixelBufferPool.Scope scope) throws IOException {
+        String extension = nonNull(output.getFormat()) ? "." + output.getFormat()
+                : FileUtils.getExtension(job.imagePath);
+        Path outputDir = FileUtils.ensureDirectoryExists(output.getLocation() == OutputLocation.THUMBNAILS
+                ? imageProperties.getThumbnailDir() : imageProperties.getProcessedDir());
+        Path outputPath = outputDir.resolve(job.photoId + "_" + output.getName() + extension);
 
+        timer.begin(ProcessingStage.ENCODE);
+        byte[] encoded = encode(image, FileUtils.getFormatName(outputPath.toString()), output.getQuality(), scope);
+
+        timer.begin(ProcessingStage.WRITE);
+        Files.write(outputPath, encoded);
+        job.bytesOut += encoded.length;
+        timer.bytesOut(encoded.length);
+
+        log.debug("Output written: output={}, path={}", output.getName(), outputPath);
+        CRC32C checksum = new CRC32C();
+        checksum.update(encoded);
+        job.listener.outputWritten(output, outputPath, encoded.length, checksum.getValue());
+    }
+
+    /**
+     * Reads the whole file into a buffer leased from the scope.
+     */
+    private ByteBuffer read(Path path, PixelBufferPool.Scope scope) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Image file too large: " + path);
+            }
+            ByteBuffer buffer = scope.buffer((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Image file truncated while reading: " + path);
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Decodes the first image in the buffer into a raster leased from the scope.
+     * <p>
+     * Picks the reader and destination type as {@link ImageIO#read} does, but supplies the
+     * destination itself so that its pixel array comes from the pool. A {@code TYPE_3BYTE_BGR}
+     * destination is replaced by {@link #INTERLEAVED_RGB}, which the JDK JPEG and PNG readers
+     * fill with a plain array copy per row instead of one temporary row array per scanline.
+     * </p>
+     *
+     * @return the image, or {@code null} if no reader recognizes the format
+     */
+    private BufferedImage decode(ByteBuffer source, PixelBufferPool.Scope scope) throws IOException {
+        try (ImageInputStream in = new ByteBufferImageInputStream(source)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+                if (nonNull(types) && types.hasNext()) {
+                    ImageTypeSpecifier type = types.next();
+                    if (type.getBufferedImageType() == BufferedImage.TYPE_3BYTE_BGR) {
+                        type = INTERLEAVED_RGB;
+                    }
+                    param.setDestination(scope.image(type, reader.getWidth(0), reader.getHeight(0)));
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Draws the watermark onto the bottom right corner of the image, in place.
+     */
+    private BufferedImage composite(BufferedImage image, BufferedImage watermark, float opacity) {
+        Point position = Positions.BOTTOM_RIGHT.calculate(image.getWidth(), image.getHeight(),
+                watermark.getWidth(), watermark.getHeight(), 0, 0, 0, 0);
+        Graphics2D g = image.createGraphics();
         try {
-            Path outputDir = FileUtils.ensureDirectoryExists(imageProperties.getThumbnailDir());
-            String outputFilename = photoId + "_thumb" + FileUtils.getExtension(imagePath);
-            Path outputPath = outputDir.resolve(outputFilename);
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+            g.drawImage(watermark, position.x, position.y, null);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
 
-            Thumbnails.of(new File(imagePath))
-                    .size(imageProperties.getThumbnailWidth(), imageProperties.getThumbnailHeight())
-                    .keepAspectRatio(true)
-                    .toFile(outputPath.toFile());
+    /**
+     * Copies the image into an image of the same layout leased from the scope.
+     */
+    private BufferedImage copy(BufferedImage image, PixelBufferPool.Scope scope) {
+        BufferedImage copy = scope.image(new ImageTypeSpecifier(image.getColorModel(), image.getSampleModel()),
+                image.getWidth(), image.getHeight());
+        image.copyData(copy.getRaster());
+        return copy;
+    }
 
-            log.info("Thumbnail generated: photoId={}, output={}", photoId, outputPath);
+    /**
+     * Scales the image to exactly the size of the step.
+     */
+    private BufferedImage scale(BufferedImage image, PipelinePlan.Scale scale, PixelBufferPool.Scope scope)
+            throws IOException {
+        if (imageScaler.shouldScale(image, scale.width(), scale.height())) {
+            return imageScaler.scale(image, scale.width(), scale.height(), scale.filter(), scope);
+        }
+        return Thumbnails.of(image)
+                .forceSize(scale.width(), scale.height())
+                .asBufferedImage();
+    }
 
-        } catch (IOException e) {
-            log.error("Failed to generate thumbnail: photoId={}", photoId, e);
-            throw new ImageProcessingException("Failed to generate thumbnail", e);
+    private void emitTaskStarted(String outputs, String photoId) {
+        TaskStartedEvent event = new TaskStartedEvent();
+        if (event.isEnabled()) {
+            event.photoId = photoId;
+            event.task = outputs;
+            event.commit();
+        }
+    }
+
+    /**
+     * Encodes the image, at the given compression quality if the format has one.
+     */
+    private byte[] encode(BufferedImage image, String formatName, Float quality, PixelBufferPool.Scope scope)
+            throws IOException {
+        BufferedImage encodable = image;
+        if (FORMATS_WITHOUT_ALPHA.contains(formatName)
+                && (image.getColorModel().hasAlpha() || image.getRaster().getDataBuffer() instanceof DataBufferInt)) {
+            encodable = flatten(image, scope);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (isNull(quality)) {
+            if (!ImageIO.write(encodable, formatName, out)) {
+                throw new IOException("No image writer available for format: " + formatName);
+            }
+            return out.toByteArray();
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer available for format: " + formatName);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (isNull(param.getCompressionType())) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(encodable, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Composites the image over black into an opaque byte image leased from the scope.
+     * <p>
+     * Integer-packed images, which is what the scaler produces, are converted row by row to
+     * {@link #INTERLEAVED_RGB}; the JDK JPEG writer copies those rows with a plain array copy,
+     * where it would read packed pixels through a temporary int sample array per row. Other
+     * images are drawn onto a {@code TYPE_3BYTE_BGR} image, which Java2D blits natively.
+     * </p>
+     */
+    private BufferedImage flatten(BufferedImage image, PixelBufferPool.Scope scope) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            BufferedImage flat = scope.image(INTERLEAVED_RGB, width, height);
+            byte[] data = ((DataBufferByte) flat.getRaster().getDataBuffer()).getData();
+            int[] row = new int[width];
+            for (int y = 0, i = 0; y < height; y++) {
+                image.getRaster().getDataElements(0, y, width, 1, row);
+                for (int x = 0; x < width; x++) {
+                    int p = row[x];
+                    int a = type == BufferedImage.TYPE_INT_RGB ? 0xFF : p >>> 24;
+                    data[i++] = (byte) ((((p >> 16) & 0xFF) * a + 127) / 255);
+                    data[i++] = (byte) ((((p >> 8) & 0xFF) * a + 127) / 255);
+                    data[i++] = (byte) (((p & 0xFF) * a + 127) / 255);
+                }
+            }
+            return flat;
+        }
+
+        BufferedImage flat = scope.image(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = flat.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return flat;
+    }
+
+    private static boolean hasWatermark(OutputSpec output) {
+        return output.getOperations().stream().anyMatch(ImageOperation.Watermark.class::isInstance);
+    }
+
+    private static boolean hasAutoOrient(OutputSpec output) {
+        return output.getOperations().stream().anyMatch(ImageOperation.AutoOrient.class::isInstance);
+    }
+
+    /**
+     * The state of one job while its plan runs.
+     */
+    private static final class Job {
+
+        private final String imagePath;
+        private final String photoId;
+        private final ProcessingPipeline pipeline;
+        private final BufferedImage watermark;
+        private final OutputListener listener;
+        private long bytesOut;
+
+        private Job(String imagePath, String photoId, ProcessingPipeline pipeline, BufferedImage watermark,
+                    OutputListener listener) {
+            this.imagePath = imagePath;
+            this.photoId = photoId;
+            this.pipeline = pipeline;
+            this.watermark = watermark;
+            this.listener = listener;
         }
     }
 }
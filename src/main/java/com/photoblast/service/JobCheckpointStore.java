@@ -0,0 +1,175 @@
+package com.photoblast.service;
+
+import com.photoblast.config.RoleProperties;
+import com.photoblast.exception.RedisUnavailableException;
+import com.photoblast.filter.RedisCircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Records which outputs of a job have been written, so that a redelivered job only produces
+ * the outputs that did not finish.
+ * <p>
+ * The checkpoints of a job are kept in one Redis hash, keyed by output name, holding the
+ * path, size and CRC32C of the written file. They expire after {@code ttl-hours}, and are
+ * kept after the job succeeds so that a job redelivered because its acknowledgement was
+ * lost is not processed again. A checkpoint only counts once the file it names still has
+ * the recorded size and checksum.
+ * </p>
+ * <p>
+ * Checkpointing is an optimization: if Redis is unavailable, jobs are processed in full and
+ * their outputs are not recorded. Redis calls go through the {@link RedisCircuitBreaker}
+ * shared with the idempotency filter.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+public class JobCheckpointStore {
+
+    static final String REDIS_KEY_PREFIX = "checkpoint:";
+
+    private static final Logger log = LoggerFactory.getLogger(JobCheckpointStore.class);
+    private static final int VERIFY_BUFFER_BYTES = 64 * 1024;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    /**
+     * Constructs a new JobCheckpointStore.
+     *
+     * @param redisTemplate  the template the checkpoints are stored with
+     * @param circuitBreaker the breaker Redis calls go through
+     * @param enabled        whether checkpoints are recorded and read
+     * @param ttlHours       how long the checkpoints of a job are kept after its last output
+     */
+    public JobCheckpointStore(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker,
+                              @Value("${photoblast.checkpoint.enabled:true}") boolean enabled,
+                              @Value("${photoblast.checkpoint.ttl-hours:24}") long ttlHours) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    /**
+     * Returns the checkpoints recorded for a job.
+     *
+     * @param jobId the job
+     * @return the checkpoints by output name; empty if there are none, checkpointing is
+     * disabled or Redis is unavailable
+     */
+    public Map<String, Checkpoint> load(String jobId) {
+        if (!enabled) {
+            return Map.of();
+        }
+        Map<Object, Object> entries;
+        try {
+            entries = circuitBreaker.call("hgetall",
+                    () -> redisTemplate.opsForHash().entries(REDIS_KEY_PREFIX + jobId));
+        } catch (RedisUnavailableException e) {
+            log.warn("Could not load job checkpoints, processing every output: {}", e.getMessage());
+            return Map.of();
+        }
+        Map<String, Checkpoint> checkpoints = new HashMap<>();
+        entries.forEach((output, value) -> {
+            Checkpoint checkpoint = Checkpoint.parse((String) value);
+            if (nonNull(checkpoint)) {
+                checkpoints.put((String) output, checkpoint);
+            } else {
+                log.warn("Ignoring malformed checkpoint: output={}, value={}", output, value);
+            }
+        });
+        return checkpoints;
+    }
+
+    /**
+     * Records that an output of a job has been written.
+     * <p>
+     * Failures are logged and otherwise ignored; the output is then produced again if the
+     * job is redelivered.
+     * </p>
+     *
+     * @param jobId      the job
+     * @param output     the output name
+     * @param checkpoint the written file
+     */
+    public void record(String jobId, String output, Checkpoint checkpoint) {
+        if (!enabled) {
+            return;
+        }
+        String key = REDIS_KEY_PREFIX + jobId;
+        try {
+            circuitBreaker.call("hset", () -> {
+                redisTemplate.opsForHash().put(key, output, checkpoint.format());
+                return redisTemplate.expire(key, ttl);
+            });
+        } catch (RedisUnavailableException e) {
+            log.warn("Could not record job checkpoint: output={}, reason={}", output, e.getMessage());
+        }
+    }
+
+    /**
+     * A written output file.
+     *
+     * @param path     the file
+     * @param length   its size in bytes
+     * @param checksum the CRC32C of its contents
+     */
+    public record Checkpoint(Path path, long length, long checksum) {
+
+        /**
+         * Returns whether the file still exists with the recorded size and checksum.
+         *
+         * @return true if the output does not need to be produced again
+         */
+        public boolean verify() {
+            try (FileChannel channel = FileChannel.open(path)) {
+                if (channel.size() != length) {
+                    return false;
+                }
+                CRC32C crc = new CRC32C();
+                ByteBuffer buffer = ByteBuffer.allocate(VERIFY_BUFFER_BYTES);
+                while (channel.read(buffer) >= 0) {
+                    crc.update(buffer.flip());
+                    buffer.clear();
+                }
+                return crc.getValue() == checksum;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private String format() {
+            return Long.toHexString(checksum) + ":" + length + ":" + path;
+        }
+
+        private static Checkpoint parse(String value) {
+            String[] parts = value.split(":", 3);
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Checkpoint(Path.of(parts[2]), Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[0], 16));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
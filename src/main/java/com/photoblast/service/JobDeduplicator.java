@@ -0,0 +1,144 @@
+package com.photoblast.service;
+
+import com.photoblast.config.RoleProperties;
+import com.photoblast.exception.RedisUnavailableException;
+import com.photoblast.filter.RedisCircuitBreaker;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Recognises deliveries of jobs that have already been processed, so that duplicates caused
+ * by at-least-once delivery and publish retries are acknowledged without touching the image.
+ * <p>
+ * A completed job is marked in Redis with a key that expires after {@code ttl-hours}; that
+ * marker is authoritative and shared by every worker. Each worker also adds the jobs it
+ * completes to a local {@link BloomFilter}. With competing consumers a job may have been
+ * completed by another worker, so a negative from the filter still has to be checked
+ * against Redis; a positive is confirmed there too, so that a false positive never drops a
+ * job. While Redis is unavailable the filter alone decides, which keeps suppressing
+ * duplicates of jobs completed on this worker at the filter's small false positive rate.
+ * </p>
+ * <p>
+ * The filter holds two generations of {@code filter.expected-jobs} each; when the current
+ * one is full the older one is dropped, so memory stays bounded and recent jobs are kept.
+ * Every check is counted in {@link PhotoMetrics#JOB_DELIVERIES}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+public class JobDeduplicator {
+
+    static final String REDIS_KEY_PREFIX = "job:done:";
+
+    private static final Logger log = LoggerFactory.getLogger(JobDeduplicator.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final PhotoMetrics photoMetrics;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int expectedJobs;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    /**
+     * Constructs a new JobDeduplicator.
+     *
+     * @param redisTemplate     the template the completion markers are stored with
+     * @param circuitBreaker    the breaker Redis calls go through
+     * @param photoMetrics      the metrics counting duplicate deliveries
+     * @param enabled           whether deliveries are checked at all
+     * @param ttlHours          how long a completed job is remembered in Redis
+     * @param expectedJobs      the number of jobs each generation of the local filter holds
+     * @param falsePositiveRate the false positive rate of a full generation
+     */
+    public JobDeduplicator(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker,
+                           PhotoMetrics photoMetrics,
+                           @Value("${photoblast.dedup.enabled:true}") boolean enabled,
+                           @Value("${photoblast.dedup.ttl-hours:24}") long ttlHours,
+                           @Value("${photoblast.dedup.filter.expected-jobs:500000}") int expectedJobs,
+                           @Value("${photoblast.dedup.filter.false-positive-rate:0.000001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.photoMetrics = photoMetrics;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.expectedJobs = expectedJobs;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new BloomFilter(expectedJobs, falsePositiveRate);
+        this.previous = new BloomFilter(expectedJobs, falsePositiveRate);
+    }
+
+    /**
+     * Returns whether the job has already been processed.
+     *
+     * @param jobId the job
+     * @return true if the delivery is a duplicate and should be dropped
+     */
+    public boolean isDuplicate(String jobId) {
+        if (!enabled) {
+            return false;
+        }
+        boolean filtered = current.mightContain(jobId) || previous.mightContain(jobId);
+        boolean duplicate;
+        try {
+            duplicate = Boolean.TRUE.equals(circuitBreaker.call("exists",
+                    () -> redisTemplate.hasKey(REDIS_KEY_PREFIX + jobId)));
+        } catch (RedisUnavailableException e) {
+            log.warn("Could not check for duplicate delivery, using the local filter: {}", e.getMessage());
+            duplicate = filtered;
+        }
+        photoMetrics.recordJobDelivery(duplicate, filtered);
+        if (duplicate && !filtered) {
+            add(jobId);
+        }
+        return duplicate;
+    }
+
+    /**
+     * Marks the job as processed.
+     * <p>
+     * A failure to reach Redis is logged and otherwise ignored; only this worker will then
+     * recognise a duplicate of the job.
+     * </p>
+     *
+     * @param jobId the job
+     */
+    public void completed(String jobId) {
+        if (!enabled) {
+            return;
+        }
+        add(jobId);
+        try {
+            circuitBreaker.call("set", () -> {
+                redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + jobId, "1", ttl);
+                return null;
+            });
+        } catch (RedisUnavailableException e) {
+            log.warn("Could not mark job as completed: {}", e.getMessage());
+        }
+    }
+
+    private void add(String jobId) {
+        BloomFilter filter = current;
+        filter.add(jobId);
+        if (filter.isFull()) {
+            synchronized (this) {
+                if (current == filter) {
+                    previous = filter;
+                    current = new BloomFilter(expectedJobs, falsePositiveRate);
+                }
+            }
+        }
+    }
+}
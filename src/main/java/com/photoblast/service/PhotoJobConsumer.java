@@ -1,67 +1,144 @@
 package com.photoblast.service;
 
-import com.photoblast.enums.ProcessingTask;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.logging.LogContext;
+import com.photoblast.metrics.JobLatencyTracker;
+import com.photoblast.metrics.PhotoMetrics;
 import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 /**
- * Consumer service that listens for and processes photo processing jobs from RabbitMQ.
+ * Consumer service that processes photo processing jobs delivered by the job transport.
  * <p>
- * Consumes {@link PhotoProcessingJob} messages from the photo processing queue
- * and delegates to {@link ImageService} for actual image processing operations.
+ * Receives {@link PhotoProcessingJob} messages from {@link com.photoblast.transport.RabbitJobListener}
+ * or {@link com.photoblast.transport.EmbeddedJobTransport} and delegates to
+ * {@link ImageService} for actual image processing operations. Jobs published with a task
+ * list instead of a pipeline are expanded through {@link PipelinePresets}.
+ * Every written output is checkpointed in {@link JobCheckpointStore}; when a job is delivered
+ * again, outputs whose files verify against their checkpoint are not produced again.
+ * Deliveries of jobs that already completed are recognised by {@link JobDeduplicator} and
+ * dropped, so that the transport acknowledges them without any processing.
+ * Queue wait, service time and end-to-end latency of every job are
+ * reported to {@link JobLatencyTracker}. The job and photo ids are in the MDC
+ * while a job is processed.
  * </p>
  */
 @Service
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
 public class PhotoJobConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PhotoJobConsumer.class);
 
     private final ImageService imageService;
+    private final JobLatencyTracker jobLatencyTracker;
+    private final PipelinePresets pipelinePresets;
+    private final JobCheckpointStore checkpointStore;
+    private final JobDeduplicator jobDeduplicator;
+    private final PhotoMetrics photoMetrics;
 
     /**
      * Constructs a new PhotoJobConsumer with the given ImageService.
      *
-     * @param imageService the image service for processing operations
+     * @param imageService      the image service for processing operations
+     * @param jobLatencyTracker the tracker recording job latencies
+     * @param pipelinePresets   the presets expanding the task lists of older jobs and naming task tags
+     * @param checkpointStore   the store recording the written outputs of each job
+     * @param jobDeduplicator   the deduplicator recognising completed jobs
+     * @param photoMetrics      the metrics counting reused checkpoints
      */
-    public PhotoJobConsumer(ImageService imageService) {
+    public PhotoJobConsumer(ImageService imageService, JobLatencyTracker jobLatencyTracker,
+                            PipelinePresets pipelinePresets, JobCheckpointStore checkpointStore,
+                            JobDeduplicator jobDeduplicator, PhotoMetrics photoMetrics) {
         this.imageService = imageService;
+        this.jobLatencyTracker = jobLatencyTracker;
+        this.pipelinePresets = pipelinePresets;
+        this.checkpointStore = checkpointStore;
+        this.jobDeduplicator = jobDeduplicator;
+        this.photoMetrics = photoMetrics;
     }
 
     /**
-     * Listens for and processes photo processing jobs from the queue.
-     * Executes all tasks defined in the job sequentially.
+     * Processes a photo processing job delivered by the transport.
+     * Produces the outputs of the job's pipeline that are not already checkpointed in a
+     * single pass over the photo. A job that already completed is logged and dropped.
      *
-     * @param job the photo processing job received from RabbitMQ
+     * @param job the photo processing job to process
      */
-    @RabbitListener(queues = "${photoblast.rabbitmq.queue.photo-process}")
     public void processPhotoJob(PhotoProcessingJob job) {
-        log.info("Received photo processing job: jobId={}, photoId={}", job.getJobId(), job.getPhotoId());
+        try (MDC.MDCCloseable jobId = MDC.putCloseable(LogContext.JOB_ID, job.getJobId());
+             MDC.MDCCloseable photoId = MDC.putCloseable(LogContext.PHOTO_ID, job.getPhotoId())) {
+            log.debug("Received photo processing job");
+            if (jobDeduplicator.isDuplicate(job.getJobId())) {
+                log.info("Dropping duplicate delivery of completed photo processing job");
+                return;
+            }
+            jobLatencyTracker.jobStarted(job);
 
-        for (ProcessingTask task : job.getTasks()) {
-            processTask(job, task);
-        }
+            ProcessingPipeline pipeline = nonNull(job.getPipeline())
+                    ? job.getPipeline() : pipelinePresets.of(job.getTasks());
+            long startTime = System.nanoTime();
+            boolean success = false;
+            try {
+                ProcessingPipeline remaining = remaining(job.getJobId(), pipeline);
+                if (remaining.getOutputs().isEmpty()) {
+                    log.info("Skipping photo processing job, every output is checkpointed");
+                } else {
+                    imageService.process(job.getOriginalPath(), job.getPhotoId(), remaining,
+                            (output, path, length, checksum) -> checkpointStore.record(job.getJobId(),
+                                    output.getName(), new JobCheckpointStore.Checkpoint(path, length, checksum)));
+                }
+                success = true;
+                jobDeduplicator.completed(job.getJobId());
+            } finally {
+                long nanos = System.nanoTime() - startTime;
+                jobLatencyTracker.taskFinished(pipelinePresets.taskTag(pipeline), success, nanos);
+                jobLatencyTracker.jobFinished(job, success, nanos);
+            }
 
-        log.info("Completed photo processing job: jobId={}", job.getJobId());
+            log.info("Completed photo processing job: outputs={}", pipeline.outputNames());
+        }
     }
 
     /**
-     * Routes and processes a single task for the given job.
-     *
-     * @param job  the photo processing job
-     * @param task the specific task to process
+     * Returns the pipeline without the outputs whose checkpoint verifies.
      */
-    private void processTask(PhotoProcessingJob job, ProcessingTask task) {
-        log.info("Processing task {} for photo: photoId={}", task, job.getPhotoId());
-
-        switch (task) {
-            case RESIZE -> imageService.resize(job.getOriginalPath(), job.getPhotoId());
-            case WATERMARK -> imageService.watermark(job.getOriginalPath(), job.getPhotoId());
-            case THUMBNAIL -> imageService.thumbnail(job.getOriginalPath(), job.getPhotoId());
+    private ProcessingPipeline remaining(String jobId, ProcessingPipeline pipeline) {
+        Map<String, JobCheckpointStore.Checkpoint> checkpoints = checkpointStore.load(jobId);
+        if (checkpoints.isEmpty()) {
+            return pipeline;
         }
+        List<OutputSpec> remaining = pipeline.getOutputs().stream()
+                .filter(output -> !reusable(checkpoints.get(output.getName()), output))
+                .toList();
+        log.info("Resuming photo processing job: checkpointed={}, remaining={}",
+                pipeline.getOutputs().size() - remaining.size(), remaining.size());
+        return new ProcessingPipeline(remaining);
+    }
 
-        log.info("Completed task {} for photo: photoId={}", task, job.getPhotoId());
+    private boolean reusable(JobCheckpointStore.Checkpoint checkpoint, OutputSpec output) {
+        if (isNull(checkpoint)) {
+            return false;
+        }
+        if (checkpoint.verify()) {
+            photoMetrics.recordCheckpoint("reused");
+            return true;
+        }
+        log.warn("Checkpointed output failed verification, producing it again: output={}, path={}",
+                output.getName(), checkpoint.path());
+        photoMetrics.recordCheckpoint("invalid");
+        return false;
     }
 }
@@ -1,49 +1,120 @@
 package com.photoblast.service;
 
+import com.photoblast.config.AffinityProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.jfr.JobPublishedEvent;
+import com.photoblast.metrics.PhotoMetrics;
 import com.photoblast.model.PhotoProcessingJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Value;
+import com.photoblast.transport.JobTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Set;
+
 /**
- * Producer service responsible for publishing photo processing jobs to RabbitMQ.
+ * Producer service responsible for publishing photo processing jobs.
  * <p>
- * Sends {@link PhotoProcessingJob} messages to the configured exchange
- * for asynchronous processing by consumer workers.
+ * Hands {@link PhotoProcessingJob} messages to the configured {@link JobTransport}
+ * for asynchronous processing by consumer workers. With affinity routing enabled, jobs are
+ * tagged with this node, which stored their originals, so that its workers process them.
  * </p>
  */
 @Service
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
 public class PhotoJobProducer {
 
     private static final Logger log = LoggerFactory.getLogger(PhotoJobProducer.class);
 
-    private final RabbitTemplate rabbitTemplate;
-
-    @Value("${photoblast.rabbitmq.exchange.photo}")
-    private String photoExchange;
-
-    @Value("${photoblast.rabbitmq.routing-key.photo-process}")
-    private String photoProcessRoutingKey;
+    private final JobTransport jobTransport;
+    private final PhotoMetrics photoMetrics;
+    private final AffinityProperties affinityProperties;
 
     /**
-     * Constructs a new PhotoJobProducer with the given RabbitTemplate.
+     * Constructs a new PhotoJobProducer with the given transport.
      *
-     * @param rabbitTemplate the RabbitTemplate for sending messages
+     * @param jobTransport       the transport jobs are published to
+     * @param photoMetrics       the metrics used to time each publish
+     * @param affinityProperties the affinity configuration naming this node
      */
-    public PhotoJobProducer(RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
+    public PhotoJobProducer(JobTransport jobTransport, PhotoMetrics photoMetrics,
+                            AffinityProperties affinityProperties) {
+        this.jobTransport = jobTransport;
+        this.photoMetrics = photoMetrics;
+        this.affinityProperties = affinityProperties;
     }
 
     /**
-     * Sends a photo processing job to the RabbitMQ exchange for async processing.
+     * Sends a photo processing job to the job transport for async processing.
      *
      * @param job the photo processing job to send
      */
     public void sendPhotoProcessingJob(PhotoProcessingJob job) {
-        log.info("Sending photo processing job: jobId={}, photoId={}", job.getJobId(), job.getPhotoId());
-        rabbitTemplate.convertAndSend(photoExchange, photoProcessRoutingKey, job);
-        log.info("Photo processing job sent successfully: jobId={}", job.getJobId());
+        log.debug("Sending photo processing job");
+        job = tag(job);
+        JobPublishedEvent event = new JobPublishedEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        try {
+            jobTransport.publish(job);
+        } catch (RuntimeException e) {
+            photoMetrics.recordPublish(PhotoMetrics.OUTCOME_FAILURE, System.nanoTime() - startTime);
+            photoMetrics.recordFailure("publish", "none", e);
+            commitPublishEvent(event, job, false);
+            throw e;
+        }
+        photoMetrics.recordPublish(PhotoMetrics.OUTCOME_SUCCESS, System.nanoTime() - startTime);
+        commitPublishEvent(event, job, true);
+        log.info("Photo processing job sent");
+    }
+
+    /**
+     * Sends several photo processing jobs to the job transport in one batch.
+     *
+     * @param jobs the jobs to send
+     * @return ids of the jobs that could not be published, empty if all were published
+     */
+    public Set<String> sendPhotoProcessingJobs(List<PhotoProcessingJob> jobs) {
+        if (jobs.isEmpty()) {
+            return Set.of();
+        }
+        log.debug("Sending batch of {} photo processing jobs", jobs.size());
+        jobs = jobs.stream().map(this::tag).toList();
+        long startTime = System.nanoTime();
+        Set<String> failed;
+        try {
+            failed = jobTransport.publishAll(jobs);
+        } catch (RuntimeException e) {
+            photoMetrics.recordPublish(PhotoMetrics.OUTCOME_FAILURE, System.nanoTime() - startTime);
+            photoMetrics.recordFailure("publish", "none", e);
+            throw e;
+        }
+        photoMetrics.recordPublish(failed.isEmpty() ? PhotoMetrics.OUTCOME_SUCCESS : PhotoMetrics.OUTCOME_FAILURE,
+                System.nanoTime() - startTime);
+        photoMetrics.recordPublishBatch(jobs.size());
+        for (PhotoProcessingJob job : jobs) {
+            JobPublishedEvent event = new JobPublishedEvent();
+            commitPublishEvent(event, job, !failed.contains(job.getJobId()));
+        }
+        if (!failed.isEmpty()) {
+            log.warn("Failed to publish {} of {} jobs in batch", failed.size(), jobs.size());
+        }
+        return failed;
+    }
+
+    private PhotoProcessingJob tag(PhotoProcessingJob job) {
+        return affinityProperties.isEnabled() ? job.withNode(affinityProperties.getNodeId()) : job;
+    }
+
+    private void commitPublishEvent(JobPublishedEvent event, PhotoProcessingJob job, boolean success) {
+        if (event.shouldCommit()) {
+            event.jobId = job.getJobId();
+            event.photoId = job.getPhotoId();
+            event.taskCount = job.getTasks().size();
+            event.success = success;
+            event.commit();
+        }
     }
 }
@@ -1,12 +1,15 @@
 package com.photoblast.service;
 
+import com.photoblast.dto.BatchUploadResponse;
 import com.photoblast.dto.PhotoUploadResponse;
-import com.photoblast.enums.ProcessingTask;
+import com.photoblast.pipeline.ProcessingPipeline;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
 public interface PhotoUploadService {
 
-    PhotoUploadResponse uploadPhoto(MultipartFile file, List<ProcessingTask> tasks);
+    PhotoUploadResponse uploadPhoto(MultipartFile file, ProcessingPipeline pipeline);
+
+    BatchUploadResponse uploadPhotos(List<MultipartFile> files, List<ProcessingPipeline> pipelines);
 }
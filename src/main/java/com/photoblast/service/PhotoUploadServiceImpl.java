@@ -1,63 +1,190 @@
 package com.photoblast.service;
 
+import com.photoblast.config.RoleProperties;
+import com.photoblast.dto.BatchUploadResponse;
 import com.photoblast.dto.PhotoUploadResponse;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.jfr.UploadReceivedEvent;
+import com.photoblast.logging.LogContext;
+import com.photoblast.metrics.PhotoMetrics;
 import com.photoblast.model.PhotoProcessingJob;
-import com.photoblast.enums.ProcessingTask;
+import com.photoblast.pipeline.ProcessingPipeline;
 import com.photoblast.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Implementation of {@link PhotoUploadService} for handling photo uploads.
  * <p>
  * Validates, stores uploaded photos, and publishes processing jobs to RabbitMQ.
+ * Each stored photo gets a BlurHash placeholder from {@link PlaceholderGenerator} within a
+ * small time budget, which is returned in the response and carried by the job.
+ * </p>
+ * <p>
+ * Files of a batch upload are stored concurrently on virtual threads, bounded by
+ * {@code photoblast.upload.batch.store-concurrency}, and their jobs are published
+ * together in a single batch once every file has been stored.
  * </p>
  */
 @Service
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
 public class PhotoUploadServiceImpl implements PhotoUploadService {
 
     private static final Logger log = LoggerFactory.getLogger(PhotoUploadServiceImpl.class);
 
     private final PhotoJobProducer photoJobProducer;
+    private final PhotoMetrics photoMetrics;
+    private final PlaceholderGenerator placeholderGenerator;
 
     @Value("${photoblast.storage.upload-dir:uploads}")
     private String uploadDir;
 
+    @Value("${photoblast.upload.batch.max-files:100}")
+    private int batchMaxFiles;
+
+    @Value("${photoblast.upload.batch.store-concurrency:8}")
+    private int batchStoreConcurrency;
+
     /**
      * Constructs a new PhotoUploadServiceImpl with the given producer.
      *
-     * @param photoJobProducer the producer for sending processing jobs
+     * @param photoJobProducer     the producer for sending processing jobs
+     * @param photoMetrics         the metrics used to time uploads
+     * @param placeholderGenerator the generator of the placeholders returned with each upload
      */
-    public PhotoUploadServiceImpl(PhotoJobProducer photoJobProducer) {
+    public PhotoUploadServiceImpl(PhotoJobProducer photoJobProducer, PhotoMetrics photoMetrics,
+                                  PlaceholderGenerator placeholderGenerator) {
         this.photoJobProducer = photoJobProducer;
+        this.photoMetrics = photoMetrics;
+        this.placeholderGenerator = placeholderGenerator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PhotoUploadResponse uploadPhoto(MultipartFile file, ProcessingPipeline pipeline) {
+        long startTime = System.nanoTime();
+        PhotoUploadResponse response = storeAndPublish(file, pipeline);
+        String outcome = response.isSuccess() ? PhotoMetrics.OUTCOME_SUCCESS : PhotoMetrics.OUTCOME_FAILURE;
+        photoMetrics.recordUpload(outcome, System.nanoTime() - startTime);
+        return response;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public PhotoUploadResponse uploadPhoto(MultipartFile file, List<ProcessingTask> tasks) {
+    public BatchUploadResponse uploadPhotos(List<MultipartFile> files, List<ProcessingPipeline> pipelines) {
+        if (files.isEmpty()) {
+            return BatchUploadResponse.error("No files uploaded");
+        }
+        if (files.size() > batchMaxFiles) {
+            return BatchUploadResponse.error("Too many files: at most " + batchMaxFiles + " per batch");
+        }
+        if (pipelines.size() != files.size()) {
+            throw new IllegalArgumentException("Expected pipelines for " + files.size() + " files, got "
+                    + pipelines.size());
+        }
+
+        StoredPhoto[] stored = storeAll(files, pipelines);
+        List<PhotoProcessingJob> jobs = new ArrayList<>(files.size());
+        for (StoredPhoto photo : stored) {
+            if (nonNull(photo.job())) {
+                jobs.add(photo.job());
+            }
+        }
+
+        Set<String> failed = photoJobProducer.sendPhotoProcessingJobs(jobs);
+        if (!jobs.isEmpty() && failed.size() == jobs.size()) {
+            throw new JobTransportException("Failed to publish any of " + jobs.size() + " jobs in batch");
+        }
+
+        List<PhotoUploadResponse> results = new ArrayList<>(stored.length);
+        for (StoredPhoto photo : stored) {
+            if (nonNull(photo.job()) && failed.contains(photo.job().getJobId())) {
+                results.add(PhotoUploadResponse.error("Failed to queue photo for processing"));
+            } else {
+                results.add(photo.response());
+            }
+        }
+        BatchUploadResponse response = BatchUploadResponse.of(results);
+        log.info("Batch uploaded: files={}, succeeded={}", response.getTotal(), response.getSucceeded());
+        return response;
+    }
+
+    private PhotoUploadResponse storeAndPublish(MultipartFile file, ProcessingPipeline pipeline) {
+        StoredPhoto stored = store(file, pipeline);
+        if (nonNull(stored.job())) {
+            MDC.put(LogContext.JOB_ID, stored.job().getJobId());
+            photoJobProducer.sendPhotoProcessingJob(stored.job());
+        }
+        return stored.response();
+    }
+
+    private StoredPhoto[] storeAll(List<MultipartFile> files, List<ProcessingPipeline> pipelines) {
+        StoredPhoto[] stored = new StoredPhoto[files.size()];
+        Semaphore permits = new Semaphore(Math.max(1, batchStoreConcurrency));
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < stored.length; i++) {
+                int index = i;
+                executor.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        if (nonNull(context)) {
+                            MDC.setContextMap(context);
+                        }
+                        stored[index] = store(files.get(index), pipelines.get(index));
+                    } catch (RuntimeException e) {
+                        log.error("Failed to upload photo", e);
+                        photoMetrics.recordFailure(PhotoMetrics.SOURCE_UPLOAD, "none", e);
+                        stored[index] = StoredPhoto.rejected("Failed to store photo: " + e.getMessage());
+                    } finally {
+                        MDC.clear();
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return stored;
+    }
+
+    private StoredPhoto store(MultipartFile file, ProcessingPipeline pipeline) {
         if (file.isEmpty()) {
-            return PhotoUploadResponse.error("File is empty");
+            return StoredPhoto.rejected("File is empty");
         }
 
         String contentType = file.getContentType();
         if (isNull(contentType) || !contentType.startsWith("image/")) {
-            return PhotoUploadResponse.error("File must be an image");
+            return StoredPhoto.rejected("File must be an image");
         }
 
+        UploadReceivedEvent event = new UploadReceivedEvent();
+        event.begin();
+        String photoId = UUID.randomUUID().toString();
+        MDC.put(LogContext.PHOTO_ID, photoId);
+
         try {
-            String photoId = UUID.randomUUID().toString();
             String originalFilename = file.getOriginalFilename();
             String extension = FileUtils.getExtension(originalFilename);
             String storedFilename = photoId + extension;
@@ -65,17 +192,44 @@ public class PhotoUploadServiceImpl implements PhotoUploadService {
             Path uploadPath = FileUtils.ensureDirectoryExists(uploadDir);
             Path filePath = uploadPath.resolve(storedFilename);
             file.transferTo(filePath);
+            photoMetrics.recordBytesIn(PhotoMetrics.SOURCE_UPLOAD, file.getSize());
+            commitUploadEvent(event, photoId, file, true);
 
-            log.info("Photo uploaded: photoId={}, path={}", photoId, filePath);
+            log.info("Photo uploaded: path={}", filePath);
 
-            PhotoProcessingJob job = PhotoProcessingJob.create(photoId, filePath.toString(), tasks);
-            photoJobProducer.sendPhotoProcessingJob(job);
-
-            return PhotoUploadResponse.success(job.getJobId(), photoId, tasks);
+            String placeholder = placeholderGenerator.generate(filePath);
+            PhotoProcessingJob job = PhotoProcessingJob.create(photoId, filePath.toString(), pipeline, placeholder);
+            return new StoredPhoto(job, PhotoUploadResponse.success(job.getJobId(), photoId, pipeline.outputNames(),
+                    placeholder));
 
         } catch (IOException e) {
             log.error("Failed to upload photo", e);
-            return PhotoUploadResponse.error("Failed to store photo: " + e.getMessage());
+            photoMetrics.recordFailure(PhotoMetrics.SOURCE_UPLOAD, "none", e);
+            commitUploadEvent(event, photoId, file, false);
+            return StoredPhoto.rejected("Failed to store photo: " + e.getMessage());
+        }
+    }
+
+    private void commitUploadEvent(UploadReceivedEvent event, String photoId, MultipartFile file, boolean success) {
+        if (event.shouldCommit()) {
+            event.photoId = photoId;
+            event.contentType = file.getContentType();
+            event.bytes = file.getSize();
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    /**
+     * A stored photo and its job, or the error that prevented storing it.
+     *
+     * @param job      the job to publish, or null if the photo was rejected
+     * @param response the response reported for the photo
+     */
+    private record StoredPhoto(PhotoProcessingJob job, PhotoUploadResponse response) {
+
+        static StoredPhoto rejected(String message) {
+            return new StoredPhoto(null, PhotoUploadResponse.error(message));
         }
     }
 }
@@ -0,0 +1,203 @@
+package com.photoblast.service;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.image.BlurHash;
+import com.photoblast.image.ByteBufferImageInputStream;
+import com.photoblast.image.ExifThumbnail;
+import com.photoblast.image.Orientation;
+import com.photoblast.metrics.PhotoMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Generates the BlurHash placeholder of an uploaded photo while the upload request waits, so
+ * that clients can show something before the photo's outputs are processed.
+ * <p>
+ * The first segment of the file is read for the EXIF orientation, which is applied to the
+ * hash, and for the thumbnail cameras embed in JPEG files. If there is one, only the
+ * thumbnail is decoded. Otherwise only the header is read to learn the image size, and the
+ * image is decoded with source subsampling, so that at least {@code sample-size} pixels remain
+ * on its shorter side and no full-size raster is allocated.
+ * </p>
+ * <p>
+ * The decode runs on a virtual thread, and the upload waits for it at most
+ * {@code budget-ms}. Once the budget runs out the decode is aborted at its next read from
+ * the file and the upload continues without a placeholder, as it does if the image cannot
+ * be decoded.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = RoleProperties.API, matchIfMissing = true)
+public class PlaceholderGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaceholderGenerator.class);
+
+    /** Bytes of the file searched for the EXIF segment, which is at most 64 KB long */
+    private static final int EXIF_SEARCH_BYTES = 64 * 1024 + 4;
+
+    private final ImageProperties imageProperties;
+    private final PhotoMetrics photoMetrics;
+
+    /**
+     * Constructs a new PlaceholderGenerator.
+     *
+     * @param imageProperties the placeholder settings
+     * @param photoMetrics    the metrics timing placeholder generation
+     */
+    public PlaceholderGenerator(ImageProperties imageProperties, PhotoMetrics photoMetrics) {
+        this.imageProperties = imageProperties;
+        this.photoMetrics = photoMetrics;
+    }
+
+    /**
+     * Generates the placeholder of a stored photo within the time budget.
+     *
+     * @param file the stored photo
+     * @return the BlurHash, or null if placeholders are disabled, the photo cannot be decoded
+     * or the budget ran out
+     */
+    public String generate(Path file) {
+        if (!imageProperties.isPlaceholderEnabled()) {
+            return null;
+        }
+        long startTime = System.nanoTime();
+        Decode decode = new Decode(file);
+        Thread thread = Thread.ofVirtual().name("placeholder").start(decode);
+        boolean finished;
+        try {
+            finished = thread.join(Duration.ofMillis(imageProperties.getPlaceholderBudgetMs()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        if (!finished) {
+            decode.abort();
+            log.debug("Placeholder generation exceeded its budget: budgetMs={}",
+                    imageProperties.getPlaceholderBudgetMs());
+            photoMetrics.recordPlaceholder("timeout", System.nanoTime() - startTime);
+            return null;
+        }
+        if (isNull(decode.hash)) {
+            log.debug("Could not generate placeholder: {}",
+                    nonNull(decode.error) ? decode.error.getMessage() : "unsupported format");
+            photoMetrics.recordPlaceholder(PhotoMetrics.OUTCOME_FAILURE, System.nanoTime() - startTime);
+            return null;
+        }
+        photoMetrics.recordPlaceholder(PhotoMetrics.OUTCOME_SUCCESS, System.nanoTime() - startTime);
+        return decode.hash;
+    }
+
+    /**
+     * Reads the orientation, decodes the thumbnail or the subsampled image and hashes it. An
+     * aborted decode fails at its next read from the file; readers cannot be aborted from
+     * another thread.
+     */
+    private final class Decode implements Runnable {
+
+        private final Path file;
+        private volatile boolean aborted;
+        private volatile String hash;
+        private volatile Exception error;
+
+        private Decode(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ByteBuffer head = readHead();
+                Orientation orientation = Orientation.read(head);
+                ByteBuffer thumbnail = ExifThumbnail.find(head);
+                BufferedImage image = decode(nonNull(thumbnail)
+                        ? new ByteBufferImageInputStream(thumbnail) : new AbortableInput(file.toFile()));
+                if (nonNull(image)) {
+                    hash = BlurHash.encode(image, orientation, imageProperties.getPlaceholderXComponents(),
+                            imageProperties.getPlaceholderYComponents());
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private void abort() {
+            aborted = true;
+        }
+
+        private ByteBuffer readHead() throws IOException {
+            try (FileChannel channel = FileChannel.open(file)) {
+                ByteBuffer head = ByteBuffer.allocate((int) Math.min(EXIF_SEARCH_BYTES, channel.size()));
+                while (head.hasRemaining() && channel.read(head) >= 0) {
+                    // read until the buffer is full or the file ends
+                }
+                return head.flip();
+            }
+        }
+
+        private BufferedImage decode(ImageInputStream input) throws IOException {
+            try (ImageInputStream in = input) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    return null;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    int shorter = Math.min(reader.getWidth(0), reader.getHeight(0));
+                    int step = Math.max(1, shorter / Math.max(1, imageProperties.getPlaceholderSampleSize()));
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        private final class AbortableInput extends FileImageInputStream {
+
+            private AbortableInput(File file) throws IOException {
+                super(file);
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() throws IIOException {
+                if (aborted) {
+                    throw new IIOException("Placeholder decode aborted");
+                }
+            }
+        }
+    }
+}
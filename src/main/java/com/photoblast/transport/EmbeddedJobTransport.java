@@ -0,0 +1,334 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.TransportProperties;
+import com.photoblast.dto.JobStatsResponse.QueueStats;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.service.PhotoJobConsumer;
+import com.photoblast.transport.JobJournal.PendingJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Single-node {@link JobTransport} that hands jobs to local consumer threads without a broker.
+ * <p>
+ * Every published job is appended to a {@link JobJournal} on disk, which holds the backlog.
+ * A dispatcher thread reads pending jobs from the journal in enqueue order into a bounded
+ * in-memory ring buffer, from which a fixed pool of consumers dispatches to
+ * {@link PhotoJobConsumer}. Publishers never wait for the ring buffer; it only bounds how many
+ * jobs are prefetched into memory. A job is acked in the journal only after processing
+ * completes, so jobs still queued or in flight when the process stops are replayed on the
+ * next start: delivery is at least once, as with RabbitMQ.
+ * </p>
+ * <p>
+ * A job that still fails after the configured number of attempts is appended to
+ * {@code dead-letter.log} in the journal directory and acked, mirroring the RabbitMQ
+ * dead-letter queue.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = TransportProperties.TYPE, havingValue = "embedded")
+public class EmbeddedJobTransport implements JobTransport, SmartLifecycle {
+
+    /** Queue name reported to metrics */
+    public static final String QUEUE_NAME = "embedded";
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedJobTransport.class);
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    /** Start before and stop after the web server, so that accepted uploads can always be published. */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final TransportProperties properties;
+    private final PhotoJobConsumer photoJobConsumer;
+    private final JsonMapper jsonMapper;
+    private final BlockingQueue<PhotoProcessingJob> ring;
+    private final List<Thread> consumers = new ArrayList<>();
+    private final AtomicInteger activeConsumers = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object deadLetterLock = new Object();
+
+    private volatile boolean running;
+    private volatile Thread dispatcher;
+    private JobJournal journal;
+
+    /**
+     * Constructs a new EmbeddedJobTransport.
+     *
+     * @param properties       the transport configuration
+     * @param photoJobConsumer the consumer processing dispatched jobs
+     * @param jsonMapper       the mapper used to serialize jobs into the journal
+     */
+    public EmbeddedJobTransport(TransportProperties properties, PhotoJobConsumer photoJobConsumer, JsonMapper jsonMapper) {
+        this.properties = properties;
+        this.photoJobConsumer = photoJobConsumer;
+        this.jsonMapper = jsonMapper;
+        this.ring = new ArrayBlockingQueue<>(properties.getEmbeddedCapacity());
+    }
+
+    /**
+     * Opens the journal and starts the consumers and the dispatcher, which redelivers
+     * unacknowledged jobs first.
+     */
+    @Override
+    public synchronized void start() {
+        try {
+            journal = new JobJournal(Path.of(properties.getEmbeddedDir()),
+                    (long) properties.getEmbeddedSegmentSizeMb() * 1024 * 1024,
+                    properties.isEmbeddedFsync());
+        } catch (IOException e) {
+            throw new JobTransportException("Failed to open job journal: " + properties.getEmbeddedDir(), e);
+        }
+
+        running = true;
+        for (int i = 0; i < properties.getEmbeddedConsumers(); i++) {
+            consumers.add(Thread.ofPlatform().name("embedded-consumer-" + i).start(this::consume));
+        }
+        dispatcher = Thread.ofPlatform().name("embedded-dispatcher").start(this::dispatch);
+        log.info("Embedded job transport started: dir={}, consumers={}, capacity={}",
+                properties.getEmbeddedDir(), properties.getEmbeddedConsumers(), properties.getEmbeddedCapacity());
+    }
+
+    /**
+     * Stops the dispatcher, then the consumers after their current job, and closes the journal.
+     * Jobs left in the ring buffer stay pending in the journal.
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        List<Thread> threads = new ArrayList<>(consumers);
+        threads.add(dispatcher);
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        consumers.clear();
+        ring.clear();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Failed to close job journal", e);
+        }
+        log.info("Embedded job transport stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns once the job is journaled, forced to disk if {@code fsync} is enabled.
+     * </p>
+     */
+    @Override
+    public void publish(PhotoProcessingJob job) {
+        if (!running) {
+            throw new JobTransportException("Embedded job transport is not running");
+        }
+        try {
+            journal.append(job.getJobId(), jsonMapper.writeValueAsBytes(job));
+        } catch (IOException | JacksonException e) {
+            throw new JobTransportException("Failed to journal job: " + job.getJobId(), e);
+        }
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The jobs are journaled with a single force to disk, so either all or none of them are accepted.
+     * </p>
+     */
+    @Override
+    public Set<String> publishAll(List<PhotoProcessingJob> jobs) {
+        if (!running) {
+            throw new JobTransportException("Embedded job transport is not running");
+        }
+        List<PendingJob> entries = new ArrayList<>(jobs.size());
+        try {
+            for (PhotoProcessingJob job : jobs) {
+                entries.add(new PendingJob(job.getJobId(), jsonMapper.writeValueAsBytes(job)));
+            }
+            journal.appendAll(entries);
+        } catch (IOException | JacksonException e) {
+            log.error("Failed to journal batch of {} jobs", jobs.size(), e);
+            Set<String> failed = new LinkedHashSet<>();
+            jobs.forEach(job -> failed.add(job.getJobId()));
+            return failed;
+        }
+        LockSupport.unpark(dispatcher);
+        return Set.of();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getQueueNames() {
+        return List.of(QUEUE_NAME);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The depth is the journal backlog: every job that is pending and not being processed,
+     * whether it was prefetched into the ring buffer or not.
+     * </p>
+     */
+    @Override
+    public Optional<QueueStats> sampleQueue(String queue) {
+        if (!QUEUE_NAME.equals(queue) || !running) {
+            return Optional.empty();
+        }
+        int waiting = Math.max(0, journal.pendingCount() - inFlight.get());
+        return Optional.of(new QueueStats(queue, waiting, activeConsumers.get()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLocalConsumerCount() {
+        return activeConsumers.get();
+    }
+
+    /**
+     * Moves pending jobs from the journal into the ring buffer, sleeping while the journal has
+     * none until a publisher wakes it up.
+     */
+    private void dispatch() {
+        try {
+            while (running) {
+                List<PendingJob> pending = read();
+                if (pending.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                }
+                for (PendingJob entry : pending) {
+                    PhotoProcessingJob job = parse(entry);
+                    boolean queued = isNull(job);
+                    while (running && !queued) {
+                        queued = ring.offer(job, 200, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<PendingJob> read() {
+        try {
+            return journal.read(Math.max(1, ring.remainingCapacity()));
+        } catch (IOException e) {
+            log.error("Failed to read job journal, retrying", e);
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            return List.of();
+        }
+    }
+
+    private PhotoProcessingJob parse(PendingJob entry) {
+        try {
+            return jsonMapper.readValue(entry.body(), PhotoProcessingJob.class);
+        } catch (JacksonException e) {
+            log.error("Dropping unreadable journal entry: jobId={}", entry.jobId(), e);
+            ack(entry.jobId());
+            return null;
+        }
+    }
+
+    private void consume() {
+        activeConsumers.incrementAndGet();
+        try {
+            while (running) {
+                PhotoProcessingJob job = ring.poll(200, TimeUnit.MILLISECONDS);
+                if (nonNull(job)) {
+                    deliver(job);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeConsumers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Processes a job, retrying failures up to the configured attempts. Errors are caught as
+     * well, so that a job exhausting memory cannot take its consumer thread down.
+     */
+    private void deliver(PhotoProcessingJob job) {
+        int maxAttempts = Math.max(1, properties.getEmbeddedMaxAttempts());
+        inFlight.incrementAndGet();
+        try {
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                try {
+                    photoJobConsumer.processPhotoJob(job);
+                    ack(job.getJobId());
+                    return;
+                } catch (Throwable e) {
+                    log.warn("Job processing failed: jobId={}, attempt={}/{}", job.getJobId(), attempt, maxAttempts, e);
+                }
+            }
+            deadLetter(job);
+            ack(job.getJobId());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void ack(String jobId) {
+        try {
+            journal.ack(jobId);
+        } catch (IOException e) {
+            log.warn("Failed to ack job, it will be redelivered after restart: jobId={}", jobId, e);
+        }
+    }
+
+    private void deadLetter(PhotoProcessingJob job) {
+        Path file = Path.of(properties.getEmbeddedDir(), DEAD_LETTER_FILE);
+        synchronized (deadLetterLock) {
+            try {
+                Files.writeString(file, jsonMapper.writeValueAsString(job) + System.lineSeparator(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.error("Job moved to dead letter: jobId={}, file={}", job.getJobId(), file);
+            } catch (IOException | JacksonException e) {
+                log.error("Failed to dead-letter job: jobId={}", job.getJobId(), e);
+            }
+        }
+    }
+}
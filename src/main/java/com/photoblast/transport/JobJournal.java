@@ -0,0 +1,397 @@
+package com.photoblast.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Append-only, segmented journal of enqueued and acknowledged jobs.
+ * <p>
+ * Each record is {@code [int length][int crc32c][byte type][body]}, where the checksum
+ * covers type and body. An enqueue record carries the job id and the serialized job,
+ * an ack record only the job id. On open, all segments are replayed to find the jobs
+ * without an ack; a torn record at the end of a segment, left by a crash mid-write, ends
+ * the replay of that segment and is truncated.
+ * </p>
+ * <p>
+ * Pending jobs are read back in enqueue order through {@link #read(int)}, which keeps a
+ * cursor into the segments, so a backlog of any size stays on disk rather than in memory.
+ * </p>
+ * <p>
+ * Writes go to the newest segment, which is rolled once it exceeds the segment size.
+ * Segments are deleted oldest first once every job enqueued in them has been acked,
+ * so acks never outlive the enqueue records they refer to.
+ * </p>
+ */
+final class JobJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JobJournal.class);
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    /** Segment id of every unacknowledged job */
+    private final Map<String, Long> pending = new HashMap<>();
+    /** Unacknowledged job count per segment, oldest first */
+    private final TreeMap<Long, Integer> outstanding = new TreeMap<>();
+
+    private long activeSegment;
+    private FileChannel channel;
+
+    /** Segment, offset and channel of the next record {@link #read(int)} looks at */
+    private long readSegment;
+    private long readPosition;
+    private FileChannel readChannel;
+
+    /**
+     * Opens the journal in the given directory, replaying existing segments.
+     *
+     * @param dir          directory holding the segment files
+     * @param segmentBytes size after which the active segment is rolled
+     * @param fsync        whether enqueue records are forced to disk before returning
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    JobJournal(Path dir, long segmentBytes, boolean fsync) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        replay();
+        deleteCompletedSegments();
+        openSegment(lastSegmentId() + 1);
+        readSegment = outstanding.firstKey();
+    }
+
+    /**
+     * Reads the next pending jobs after the cursor, starting with those left unacknowledged
+     * before the journal was opened.
+     * <p>
+     * Every pending job is returned once per opened journal, from the segment it is pending
+     * in; jobs acknowledged before the cursor reaches them are skipped.
+     * </p>
+     *
+     * @param max maximum number of jobs to return
+     * @return pending jobs in enqueue order, empty if the cursor has caught up with the writer
+     * @throws IOException if a segment cannot be read
+     */
+    synchronized List<PendingJob> read(int max) throws IOException {
+        List<PendingJob> jobs = new ArrayList<>();
+        while (jobs.size() < max) {
+            ByteBuffer record = nextRecord();
+            if (isNull(record)) {
+                if (readSegment >= activeSegment) {
+                    break;
+                }
+                advanceReader();
+                continue;
+            }
+            if (record.get() != ENQUEUE) {
+                continue;
+            }
+            byte[] id = new byte[record.getShort()];
+            record.get(id);
+            String jobId = new String(id, StandardCharsets.UTF_8);
+            if (Objects.equals(pending.get(jobId), readSegment)) {
+                byte[] body = new byte[record.remaining()];
+                record.get(body);
+                jobs.add(new PendingJob(jobId, body));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Appends an enqueue record, unless the job is already pending.
+     *
+     * @param jobId the job id
+     * @param body  the serialized job
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void append(String jobId, byte[] body) throws IOException {
+        appendRecord(jobId, body);
+        if (fsync) {
+            channel.force(false);
+        }
+        rollIfFull();
+    }
+
+    /**
+     * Appends enqueue records for several jobs with a single force to disk (group commit),
+     * skipping jobs already pending.
+     *
+     * @param jobs the jobs to append, in enqueue order
+     * @throws IOException if a record cannot be written
+     */
+    synchronized void appendAll(List<PendingJob> jobs) throws IOException {
+        for (PendingJob job : jobs) {
+            appendRecord(job.jobId(), job.body());
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        rollIfFull();
+    }
+
+    /**
+     * Appends an ack record and deletes segments that no longer hold pending jobs.
+     * <p>
+     * Acks are not forced to disk: losing one in a crash only causes a redelivery.
+     * </p>
+     *
+     * @param jobId the job id
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void ack(String jobId) throws IOException {
+        Long segment = pending.remove(jobId);
+        if (isNull(segment)) {
+            return;
+        }
+        write(ACK, ByteBuffer.wrap(jobId.getBytes(StandardCharsets.UTF_8)));
+        outstanding.merge(segment, -1, Integer::sum);
+        deleteCompletedSegments();
+        rollIfFull();
+    }
+
+    /**
+     * Returns the number of enqueued jobs not yet acknowledged.
+     *
+     * @return pending job count
+     */
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (nonNull(readChannel)) {
+            readChannel.close();
+        }
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void appendRecord(String jobId, byte[] body) throws IOException {
+        if (pending.containsKey(jobId)) {
+            log.warn("Ignoring enqueue of job already pending in journal: jobId={}", jobId);
+            return;
+        }
+        byte[] id = jobId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(Short.BYTES + id.length + body.length);
+        payload.putShort((short) id.length).put(id).put(body).flip();
+        write(ENQUEUE, payload);
+        pending.put(jobId, activeSegment);
+        outstanding.merge(activeSegment, 1, Integer::sum);
+    }
+
+    private void write(byte type, ByteBuffer body) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(body.duplicate());
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + 1 + body.remaining());
+        record.putInt(1 + body.remaining()).putInt((int) crc.getValue()).put(type).put(body).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Returns the record at the cursor and moves past it, or {@code null} at the end of the
+     * written data of the cursor's segment.
+     */
+    private ByteBuffer nextRecord() throws IOException {
+        if (isNull(readChannel)) {
+            try {
+                readChannel = FileChannel.open(segmentPath(readSegment), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(header, readPosition)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(Integer.BYTES);
+        if (length < 1) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        if (!readFully(record, readPosition + HEADER_BYTES)) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Skipping rest of journal segment {} after corrupt record at offset {}",
+                    segmentPath(readSegment), readPosition);
+            return null;
+        }
+        readPosition += HEADER_BYTES + length;
+        return record;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (readChannel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private void advanceReader() throws IOException {
+        if (nonNull(readChannel)) {
+            readChannel.close();
+            readChannel = null;
+        }
+        readSegment = outstanding.higherKey(readSegment);
+        readPosition = 0;
+    }
+
+    private void rollIfFull() throws IOException {
+        if (channel.position() >= segmentBytes) {
+            channel.force(false);
+            channel.close();
+            openSegment(activeSegment + 1);
+        }
+    }
+
+    private void openSegment(long id) throws IOException {
+        activeSegment = id;
+        channel = FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        outstanding.putIfAbsent(id, 0);
+    }
+
+    private void deleteCompletedSegments() throws IOException {
+        while (!outstanding.isEmpty()) {
+            Map.Entry<Long, Integer> oldest = outstanding.firstEntry();
+            if (oldest.getValue() > 0 || oldest.getKey() == activeSegment) {
+                return;
+            }
+            outstanding.pollFirstEntry();
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+        }
+    }
+
+    private void replay() throws IOException {
+        for (long segment : segmentIds()) {
+            outstanding.put(segment, 0);
+            replaySegment(segment);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} unacknowledged jobs from journal {}", pending.size(), dir);
+        }
+    }
+
+    private void replaySegment(long segment) throws IOException {
+        Path path = segmentPath(segment);
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (data.remaining() >= HEADER_BYTES) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length < 1 || length > data.remaining()) {
+                truncate(path, start);
+                return;
+            }
+            ByteBuffer record = data.slice(data.position(), length);
+            CRC32C crc = new CRC32C();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                truncate(path, start);
+                return;
+            }
+            data.position(data.position() + length);
+            apply(segment, record);
+        }
+        if (data.hasRemaining()) {
+            truncate(path, data.position());
+        }
+    }
+
+    private void apply(long segment, ByteBuffer record) {
+        byte type = record.get();
+        if (type == ENQUEUE) {
+            byte[] id = new byte[record.getShort()];
+            record.get(id);
+            String jobId = new String(id, StandardCharsets.UTF_8);
+            if (isNull(pending.putIfAbsent(jobId, segment))) {
+                outstanding.merge(segment, 1, Integer::sum);
+            }
+        } else if (type == ACK) {
+            byte[] id = new byte[record.remaining()];
+            record.get(id);
+            String jobId = new String(id, StandardCharsets.UTF_8);
+            Long enqueuedIn = pending.remove(jobId);
+            if (nonNull(enqueuedIn)) {
+                outstanding.merge(enqueuedIn, -1, Integer::sum);
+            }
+        }
+    }
+
+    private void truncate(Path path, long size) throws IOException {
+        log.warn("Truncating torn record at offset {} of journal segment {}", size, path);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.truncate(size);
+        }
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long lastSegmentId() throws IOException {
+        List<Long> ids = segmentIds();
+        return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A job that was enqueued but not acknowledged.
+     *
+     * @param jobId the job id
+     * @param body  the serialized job
+     */
+    record PendingJob(String jobId, byte[] body) {
+    }
+}
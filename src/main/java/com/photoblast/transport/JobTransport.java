@@ -0,0 +1,72 @@
+package com.photoblast.transport;
+
+import com.photoblast.dto.JobStatsResponse.QueueStats;
+import com.photoblast.model.PhotoProcessingJob;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hands photo processing jobs from {@link com.photoblast.service.PhotoJobProducer}
+ * to {@link com.photoblast.service.PhotoJobConsumer}.
+ * <p>
+ * Implementations provide at-least-once delivery: a job accepted by {@link #publish}
+ * is processed at least once, even across restarts. The implementation is selected by
+ * {@code photoblast.transport.type}.
+ * </p>
+ */
+public interface JobTransport {
+
+    /**
+     * Durably accepts a job for asynchronous processing.
+     *
+     * @param job the job to deliver
+     * @throws com.photoblast.exception.JobTransportException if the job could not be accepted
+     */
+    void publish(PhotoProcessingJob job);
+
+    /**
+     * Durably accepts several jobs in one round trip.
+     * <p>
+     * Unlike {@link #publish}, a job that is not accepted does not fail the others; its id
+     * is returned instead. Jobs not in the returned set are accepted as by {@link #publish}.
+     * </p>
+     *
+     * @param jobs the jobs to deliver
+     * @return ids of the jobs that could not be accepted, empty if all were accepted
+     * @throws com.photoblast.exception.JobTransportException if the transport cannot accept jobs at all
+     */
+    Set<String> publishAll(List<PhotoProcessingJob> jobs);
+
+    /**
+     * Returns the names of the queues this transport delivers from.
+     *
+     * @return queue names in a stable order, starting with the queue new jobs are published to
+     */
+    List<String> getQueueNames();
+
+    /**
+     * Returns the names of the queues local consumers take new jobs from, excluding dead letters.
+     *
+     * @return a prefix of {@link #getQueueNames()}
+     */
+    default List<String> getProcessingQueueNames() {
+        return getQueueNames().subList(0, 1);
+    }
+
+    /**
+     * Samples the current state of one queue.
+     *
+     * @param queue the queue name
+     * @return ready message count and consumer count, or empty if the state is unavailable
+     */
+    Optional<QueueStats> sampleQueue(String queue);
+
+    /**
+     * Returns the number of consumers currently running in this process.
+     *
+     * @return active local consumer count
+     */
+    int getLocalConsumerCount();
+}
@@ -0,0 +1,290 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.AutoscalerProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.config.TransportProperties;
+import com.photoblast.dto.JobStatsResponse.LatencySummary;
+import com.photoblast.metrics.JobLatencyTracker;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.metrics.QueueMetricsSampler;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Periodically resizes the RabbitMQ listener container of the processing queue.
+ * <p>
+ * Each adjustment sizes the consumer count to drain this node's share of the sampled queue
+ * depth within {@code target-drain-seconds} at the recent median service time. The share
+ * splits a queue read by several nodes in proportion to the consumers the broker reports
+ * on it, so that a cluster of workers sizes for the backlog once rather than once per
+ * node. It adds at most
+ * {@code max-step} consumers at a time and removing one once the queue is empty and
+ * consumers are mostly idle. No consumers are added while system CPU load is at or above
+ * {@code max-cpu}, and one is removed while free heap is below {@code min-free-heap}.
+ * The count always stays between {@code min-consumers} and {@code max-consumers}.
+ * </p>
+ * <p>
+ * Free heap is judged by the old generation as left by its last collection, so that garbage
+ * not yet collected does not count as pressure: between collections the used heap of a busy
+ * node sits close to the maximum even when little of it is live.
+ * </p>
+ * <p>
+ * Prefetch is sized so that each consumer holds about {@code prefetch-target-ms} of work:
+ * long jobs get a small prefetch and are spread fairly across nodes, short jobs a larger
+ * one that hides the broker round trip. A new prefetch applies to consumers started after
+ * the change. The container starts at {@code min-consumers}; its own dynamic scaling is
+ * disabled by pinning minimum and maximum concurrency to the chosen count.
+ * </p>
+ * <p>
+ * The chosen values are exported as {@link PhotoMetrics#AUTOSCALER_CONSUMERS} and
+ * {@link PhotoMetrics#AUTOSCALER_PREFETCH}, and every decision is counted as
+ * {@link PhotoMetrics#AUTOSCALER_DECISIONS} with its action and reason.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = TransportProperties.TYPE, havingValue = "rabbitmq", matchIfMissing = true)
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+public class ListenerAutoscaler {
+
+    /**
+     * Direction of a scaling decision.
+     */
+    enum Action {
+        UP, DOWN, HOLD
+    }
+
+    /**
+     * Inputs of one scaling decision.
+     *
+     * @param queueDepth    sampled ready messages in the processing queue
+     * @param localDepth    this node's share of {@code queueDepth}
+     * @param serviceMillis recent median job service time, 0 if unknown
+     * @param utilization   fraction of time local consumers were busy
+     * @param cpuLoad       system CPU load between 0 and 1
+     * @param freeHeap      fraction of the old generation free after its last collection
+     */
+    record Sample(long queueDepth, long localDepth, long serviceMillis, double utilization, double cpuLoad, double freeHeap) {
+    }
+
+    /**
+     * Result of one scaling decision.
+     *
+     * @param consumers the consumer count to apply
+     * @param prefetch  the prefetch count to apply
+     * @param action    the direction of the change in consumers
+     * @param reason    the input that drove the decision
+     */
+    record Decision(int consumers, int prefetch, Action action, String reason) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerAutoscaler.class);
+    private static final Duration SERVICE_WINDOW = Duration.ofMinutes(1);
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final QueueMetricsSampler queueMetricsSampler;
+    private final JobLatencyTracker jobLatencyTracker;
+    private final AutoscalerProperties properties;
+    private final PhotoMetrics photoMetrics;
+    private final DoubleSupplier cpuLoad;
+    private final DoubleSupplier freeHeap;
+
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger prefetch = new AtomicInteger(1);
+    private boolean applied;
+
+    /**
+     * Constructs a new ListenerAutoscaler reading CPU load and heap usage from the JVM.
+     *
+     * @param listenerRegistry    registry holding the processing listener container
+     * @param queueMetricsSampler source of the sampled queue depth and consumer utilization
+     * @param jobLatencyTracker   source of recent job service times
+     * @param properties          the autoscaler configuration
+     * @param photoMetrics        metrics used to export decisions
+     */
+    @Autowired
+    public ListenerAutoscaler(RabbitListenerEndpointRegistry listenerRegistry,
+                              QueueMetricsSampler queueMetricsSampler,
+                              JobLatencyTracker jobLatencyTracker,
+                              AutoscalerProperties properties,
+                              PhotoMetrics photoMetrics) {
+        this(listenerRegistry, queueMetricsSampler, jobLatencyTracker, properties, photoMetrics,
+                ListenerAutoscaler::systemCpuLoad,
+                () -> freeHeapFraction(ManagementFactory.getMemoryPoolMXBeans(),
+                        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()));
+    }
+
+    ListenerAutoscaler(RabbitListenerEndpointRegistry listenerRegistry,
+                       QueueMetricsSampler queueMetricsSampler,
+                       JobLatencyTracker jobLatencyTracker,
+                       AutoscalerProperties properties,
+                       PhotoMetrics photoMetrics,
+                       DoubleSupplier cpuLoad,
+                       DoubleSupplier freeHeap) {
+        this.listenerRegistry = listenerRegistry;
+        this.queueMetricsSampler = queueMetricsSampler;
+        this.jobLatencyTracker = jobLatencyTracker;
+        this.properties = properties;
+        this.photoMetrics = photoMetrics;
+        this.cpuLoad = cpuLoad;
+        this.freeHeap = freeHeap;
+        this.consumers.set(Math.max(1, properties.getMinConsumers()));
+
+        Gauge.builder(PhotoMetrics.AUTOSCALER_CONSUMERS, consumers, AtomicInteger::get)
+                .description("Consumer count chosen by the listener autoscaler")
+                .register(photoMetrics.getRegistry());
+        Gauge.builder(PhotoMetrics.AUTOSCALER_PREFETCH, prefetch, AtomicInteger::get)
+                .description("Prefetch count chosen by the listener autoscaler")
+                .register(photoMetrics.getRegistry());
+    }
+
+    /**
+     * Samples the inputs, decides on a consumer and prefetch count, and applies it.
+     */
+    @Scheduled(initialDelayString = "${photoblast.autoscaler.interval-ms:15000}",
+            fixedDelayString = "${photoblast.autoscaler.interval-ms:15000}")
+    public synchronized void adjust() {
+        if (!properties.isEnabled()
+                || !(listenerRegistry.getListenerContainer(RabbitJobListener.LISTENER_ID)
+                instanceof SimpleMessageListenerContainer container)
+                || !container.isRunning()) {
+            return;
+        }
+
+        Sample sample = sample();
+        Decision decision = decide(sample);
+        if (decision.prefetch() != prefetch.get() || !applied) {
+            container.setPrefetchCount(decision.prefetch());
+        }
+        if (decision.consumers() != consumers.get() || !applied) {
+            container.setConcurrency(decision.consumers() + "-" + decision.consumers());
+        }
+        if (decision.action() != Action.HOLD || decision.prefetch() != prefetch.get()) {
+            log.info("Resizing listener: consumers {} -> {}, prefetch {} -> {}, reason={}, sample={}",
+                    consumers.get(), decision.consumers(), prefetch.get(), decision.prefetch(),
+                    decision.reason(), sample);
+        }
+        consumers.set(decision.consumers());
+        prefetch.set(decision.prefetch());
+        applied = true;
+        photoMetrics.recordAutoscale(decision.action().name().toLowerCase(), decision.reason());
+    }
+
+    /**
+     * Decides on the consumer and prefetch count for the given inputs.
+     *
+     * @param sample the sampled inputs
+     * @return the decision, relative to the currently applied values
+     */
+    Decision decide(Sample sample) {
+        int current = consumers.get();
+        int target;
+        String reason;
+        if (sample.freeHeap() < properties.getMinFreeHeap()) {
+            target = current - 1;
+            reason = "heap";
+        } else if (sample.cpuLoad() >= properties.getMaxCpu()) {
+            target = current;
+            reason = "cpu";
+        } else {
+            int needed = neededConsumers(sample, current);
+            if (needed > current) {
+                target = Math.min(needed, current + Math.max(1, properties.getMaxStep()));
+                reason = "backlog";
+            } else if (sample.queueDepth() == 0 && sample.utilization() < properties.getIdleUtilization()) {
+                target = current - 1;
+                reason = "idle";
+            } else {
+                target = current;
+                reason = "steady";
+            }
+        }
+        target = clamp(target, Math.max(1, properties.getMinConsumers()), properties.getMaxConsumers());
+
+        int targetPrefetch = prefetch.get();
+        if (sample.serviceMillis() > 0) {
+            int perConsumer = (int) Math.ceil((double) properties.getPrefetchTargetMs() / sample.serviceMillis());
+            targetPrefetch = clamp(perConsumer, 1, properties.getMaxPrefetch());
+        }
+
+        Action action = target > current ? Action.UP : target < current ? Action.DOWN : Action.HOLD;
+        return new Decision(target, targetPrefetch, action, reason);
+    }
+
+    private int neededConsumers(Sample sample, int current) {
+        if (sample.localDepth() == 0) {
+            return 0;
+        }
+        if (sample.serviceMillis() == 0) {
+            return current + 1;
+        }
+        double backlogMillis = (double) sample.localDepth() * sample.serviceMillis();
+        return (int) Math.min(Integer.MAX_VALUE,
+                Math.ceil(backlogMillis / Duration.ofSeconds(properties.getTargetDrainSeconds()).toMillis()));
+    }
+
+    private Sample sample() {
+        LatencySummary service = jobLatencyTracker.summarizeService(SERVICE_WINDOW);
+        return new Sample(
+                queueMetricsSampler.getProcessingQueueDepth(),
+                queueMetricsSampler.getLocalProcessingQueueDepth(),
+                service.getCount() > 0 ? Math.max(1, service.getP50()) : 0,
+                queueMetricsSampler.getConsumerUtilization(),
+                cpuLoad.getAsDouble(),
+                freeHeap.getAsDouble());
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(Math.max(min, max), value));
+    }
+
+    private static double systemCpuLoad() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return Math.max(0, os.getCpuLoad());
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the fraction of the old generation that was free after its last collection.
+     * <p>
+     * The old generation is the collected heap pool named old or tenured, or the only collected
+     * heap pool of a single-generation collector. Without such a pool, the current heap usage is
+     * used instead.
+     * </p>
+     *
+     * @param pools the memory pools of the JVM
+     * @param heap  the current heap usage
+     * @return the free fraction between 0 and 1
+     */
+    static double freeHeapFraction(List<MemoryPoolMXBean> pools, MemoryUsage heap) {
+        List<MemoryPoolMXBean> collected = pools.stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid() && nonNull(pool.getCollectionUsage()))
+                .toList();
+        MemoryPoolMXBean oldGen = collected.stream()
+                .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+                .findFirst()
+                .orElse(collected.size() == 1 ? collected.get(0) : null);
+        MemoryUsage usage = nonNull(oldGen) ? oldGen.getCollectionUsage() : heap;
+        long max = usage.getMax() > 0 ? usage.getMax()
+                : heap.getMax() > 0 ? heap.getMax() : Runtime.getRuntime().maxMemory();
+        return Math.max(0, 1 - (double) usage.getUsed() / max);
+    }
+}
@@ -0,0 +1,69 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.AffinityProperties;
+import com.photoblast.config.RoleProperties;
+import com.photoblast.config.TransportProperties;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.service.PhotoJobConsumer;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Listens on the RabbitMQ photo processing queue and hands jobs to {@link PhotoJobConsumer}.
+ * <p>
+ * Only registered with the RabbitMQ transport, so no listener container connects to the
+ * broker when the embedded transport is used. Never initialized lazily: the listener
+ * container is only registered once the bean is created, and nothing else refers to it.
+ * </p>
+ * <p>
+ * Consumes the shared processing queue and, with affinity routing enabled, this node's
+ * queue. Received jobs are counted by whether their original is stored on this node.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = TransportProperties.TYPE, havingValue = "rabbitmq", matchIfMissing = true)
+@ConditionalOnProperty(name = RoleProperties.WORKER, matchIfMissing = true)
+@Lazy(false)
+public class RabbitJobListener {
+
+    /** Id of the listener container, used by {@link ListenerAutoscaler} to resize it */
+    public static final String LISTENER_ID = "photoProcessListener";
+
+    private final PhotoJobConsumer photoJobConsumer;
+    private final AffinityProperties affinityProperties;
+    private final PhotoMetrics photoMetrics;
+
+    /**
+     * Constructs a new RabbitJobListener.
+     *
+     * @param photoJobConsumer   the consumer processing received jobs
+     * @param affinityProperties the affinity configuration naming this node
+     * @param photoMetrics       the metrics counting where received jobs are stored
+     */
+    public RabbitJobListener(PhotoJobConsumer photoJobConsumer, AffinityProperties affinityProperties,
+                             PhotoMetrics photoMetrics) {
+        this.photoJobConsumer = photoJobConsumer;
+        this.affinityProperties = affinityProperties;
+        this.photoMetrics = photoMetrics;
+    }
+
+    /**
+     * Receives a job from this node's or the shared photo processing queue.
+     *
+     * @param job the photo processing job received from RabbitMQ
+     */
+    @RabbitListener(id = LISTENER_ID, queues = "#{@affinityProperties.listenerQueues}")
+    public void onJob(PhotoProcessingJob job) {
+        if (isNull(job.getNode())) {
+            photoMetrics.recordJobAffinity("untagged");
+        } else {
+            photoMetrics.recordJobAffinity(job.getNode().equals(affinityProperties.getNodeId()) ? "local" : "remote");
+        }
+        photoJobConsumer.processPhotoJob(job);
+    }
+}
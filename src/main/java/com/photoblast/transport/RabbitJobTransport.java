@@ -0,0 +1,213 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.AffinityProperties;
+import com.photoblast.config.TransportProperties;
+import com.photoblast.dto.JobStatsResponse.QueueStats;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.model.PhotoProcessingJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * {@link JobTransport} publishing to the RabbitMQ photo exchange.
+ * <p>
+ * Jobs are consumed by {@link RabbitJobListener}. This is the default transport.
+ * Batches are published on a single channel and acknowledged through correlated
+ * publisher confirms ({@code spring.rabbitmq.publisher-confirm-type: correlated}).
+ * </p>
+ * <p>
+ * Jobs tagged with a node are routed to that node's processing queue, and the others to
+ * the shared one. With affinity routing enabled, this node's queue is sampled first.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = TransportProperties.TYPE, havingValue = "rabbitmq", matchIfMissing = true)
+public class RabbitJobTransport implements JobTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitJobTransport.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AffinityProperties affinityProperties;
+    private final List<String> queueNames;
+    private final List<String> processingQueueNames;
+
+    @Value("${photoblast.rabbitmq.exchange.photo}")
+    private String photoExchange;
+
+    @Value("${photoblast.rabbitmq.routing-key.photo-process}")
+    private String photoProcessRoutingKey;
+
+    @Value("${photoblast.rabbitmq.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    /**
+     * Constructs a new RabbitJobTransport.
+     *
+     * @param rabbitTemplate    the RabbitTemplate for sending messages
+     * @param amqpAdmin         admin used to query queue information from the broker
+     * @param listenerRegistry   registry of local listener containers
+     * @param affinityProperties the affinity configuration naming node queues
+     * @param photoProcessQueue  name of the photo processing queue
+     * @param deadLetterQueue    name of the dead-letter queue
+     */
+    public RabbitJobTransport(RabbitTemplate rabbitTemplate,
+                              AmqpAdmin amqpAdmin,
+                              RabbitListenerEndpointRegistry listenerRegistry,
+                              AffinityProperties affinityProperties,
+                              @Value("${photoblast.rabbitmq.queue.photo-process}") String photoProcessQueue,
+                              @Value("${photoblast.rabbitmq.queue.dead-letter}") String deadLetterQueue) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.listenerRegistry = listenerRegistry;
+        this.affinityProperties = affinityProperties;
+        this.processingQueueNames = affinityProperties.isEnabled()
+                ? List.of(affinityProperties.getNodeQueue(), photoProcessQueue) : List.of(photoProcessQueue);
+        this.queueNames = Stream.concat(processingQueueNames.stream(), Stream.of(deadLetterQueue)).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void publish(PhotoProcessingJob job) {
+        try {
+            rabbitTemplate.convertAndSend(photoExchange, routingKey(job), job);
+        } catch (AmqpException e) {
+            throw new JobTransportException("Failed to publish job to RabbitMQ", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All jobs are sent before any confirm is awaited, so the batch costs one confirm
+     * round trip instead of one per job. A job counts as accepted only once the broker
+     * has confirmed it within {@code photoblast.rabbitmq.confirm-timeout-ms}.
+     * </p>
+     */
+    @Override
+    public Set<String> publishAll(List<PhotoProcessingJob> jobs) {
+        Map<String, CorrelationData> sent = new LinkedHashMap<>();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (PhotoProcessingJob job : jobs) {
+                    CorrelationData correlation = new CorrelationData(job.getJobId());
+                    operations.convertAndSend(photoExchange, routingKey(job), job, correlation);
+                    sent.put(job.getJobId(), correlation);
+                }
+                return null;
+            });
+        } catch (AmqpException e) {
+            if (sent.isEmpty()) {
+                throw new JobTransportException("Failed to publish batch to RabbitMQ", e);
+            }
+            log.warn("Batch publish interrupted after {} of {} jobs", sent.size(), jobs.size(), e);
+        }
+
+        Set<String> failed = new LinkedHashSet<>();
+        for (PhotoProcessingJob job : jobs) {
+            if (!sent.containsKey(job.getJobId())) {
+                failed.add(job.getJobId());
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        sent.forEach((jobId, correlation) -> {
+            if (!awaitConfirm(correlation, deadline)) {
+                failed.add(jobId);
+            }
+        });
+        return failed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getQueueNames() {
+        return queueNames;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getProcessingQueueNames() {
+        return processingQueueNames;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<QueueStats> sampleQueue(String queue) {
+        QueueInformation info = amqpAdmin.getQueueInfo(queue);
+        return Optional.ofNullable(info)
+                .map(i -> new QueueStats(queue, i.getMessageCount(), i.getConsumerCount()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLocalConsumerCount() {
+        int count = 0;
+        for (var container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simple) {
+                count += simple.getActiveConsumerCount();
+            } else if (container instanceof AbstractMessageListenerContainer && container.isRunning()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String routingKey(PhotoProcessingJob job) {
+        return nonNull(job.getNode()) ? affinityProperties.routingKey(job.getNode()) : photoProcessRoutingKey;
+    }
+
+    private boolean awaitConfirm(CorrelationData correlation, long deadline) {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.ack()) {
+                log.warn("Broker nacked job: jobId={}, reason={}", correlation.getId(), confirm.reason());
+            }
+            return confirm.ack();
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for publisher confirm: jobId={}", correlation.getId());
+            return false;
+        } catch (ExecutionException e) {
+            log.warn("Publisher confirm failed: jobId={}", correlation.getId(), e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
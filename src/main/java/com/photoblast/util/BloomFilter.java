@@ -0,0 +1,119 @@
+package com.photoblast.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter of strings that is safe for concurrent use.
+ * <p>
+ * {@link #mightContain} never returns false for an added value, and returns true for a value
+ * that was not added with roughly the configured probability once the expected number of
+ * values has been added; beyond that the rate grows. Bit positions are derived from one
+ * 64-bit hash by double hashing.
+ * </p>
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final int expectedInsertions;
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    /**
+     * Constructs an empty filter sized for the given load.
+     *
+     * @param expectedInsertions the number of values the filter is sized for
+     * @param falsePositiveRate  the false positive probability at that number of values
+     * @throws IllegalArgumentException if the number is not positive or the rate is not between 0 and 1
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            long mask = 1L << bit;
+            words.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Returns whether the value may have been added.
+     *
+     * @param value the value
+     * @return false if the value was certainly not added
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the expected number of values has been added, after which the false
+     * positive rate exceeds the configured one.
+     *
+     * @return true if the filter is full
+     */
+    public boolean isFull() {
+        return insertions.get() >= expectedInsertions;
+    }
+
+    /**
+     * Returns the size of the bit array.
+     *
+     * @return the number of bits
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that both halves
+     * of the result are well distributed.
+     */
+    private static long hash(String value) {
+        long h = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -32,6 +32,16 @@ public class FileUtils {
         return ".jpg";
     }
 
+    /**
+     * Returns the image format name for the given filename, as understood by {@link javax.imageio.ImageIO}.
+     *
+     * @param filename the filename or path
+     * @return the lowercase extension without the dot, or "jpg" as default
+     */
+    public String getFormatName(String filename) {
+        return getExtension(filename).substring(1).toLowerCase();
+    }
+
     /**
      * Ensures the specified directory exists, creating it if necessary.
      *
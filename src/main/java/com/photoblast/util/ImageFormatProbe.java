@@ -0,0 +1,63 @@
+package com.photoblast.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Optional;
+
+/**
+ * Recognises image formats from their leading bytes, without decoding the image.
+ * <p>
+ * Only formats that {@link javax.imageio.ImageIO} can read are recognised.
+ * </p>
+ */
+@UtilityClass
+public class ImageFormatProbe {
+
+    /** Number of leading bytes needed to recognise every supported format */
+    public static final int HEADER_BYTES = 8;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87A = {'G', 'I', 'F', '8', '7', 'a'};
+    private static final byte[] GIF89A = {'G', 'I', 'F', '8', '9', 'a'};
+    private static final byte[] BMP = {'B', 'M'};
+    private static final byte[] TIFF_LE = {'I', 'I', '*', 0};
+    private static final byte[] TIFF_BE = {'M', 'M', 0, '*'};
+
+    /**
+     * Returns the file extension matching the format of the given leading bytes.
+     *
+     * @param header the leading bytes of the file, at most {@link #HEADER_BYTES} are inspected
+     * @return the extension including the dot, or empty if the format is not supported
+     */
+    public Optional<String> detectExtension(byte[] header) {
+        if (startsWith(header, JPEG)) {
+            return Optional.of(".jpg");
+        }
+        if (startsWith(header, PNG)) {
+            return Optional.of(".png");
+        }
+        if (startsWith(header, GIF87A) || startsWith(header, GIF89A)) {
+            return Optional.of(".gif");
+        }
+        if (startsWith(header, TIFF_LE) || startsWith(header, TIFF_BE)) {
+            return Optional.of(".tif");
+        }
+        if (startsWith(header, BMP)) {
+            return Optional.of(".bmp");
+        }
+        return Optional.empty();
+    }
+
+    private boolean startsWith(byte[] header, byte[] magic) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.photoblast;
+
+import com.photoblast.controller.PhotoUploadController;
+import com.photoblast.filter.IdempotencyFilter;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.service.PhotoJobConsumer;
+import com.photoblast.service.PhotoJobProducer;
+import com.photoblast.service.PlaceholderGenerator;
+import com.photoblast.transport.RabbitJobListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Role Profiles Tests")
+class RoleProfilesTest {
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("worker")
+    @DisplayName("Worker profile")
+    class Worker {
+
+        @Autowired
+        private ConfigurableApplicationContext context;
+
+        @Autowired
+        private RabbitListenerEndpointRegistry listenerRegistry;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        @DisplayName("Beans - should not load the upload API")
+        void shouldNotLoadApiBeans() {
+            assertThat(context.getBeanNamesForType(PhotoUploadController.class)).isEmpty();
+            assertThat(context.getBeanNamesForType(IdempotencyFilter.class)).isEmpty();
+            assertThat(context.getBeanNamesForType(PlaceholderGenerator.class)).isEmpty();
+            assertThat(context.getBeanNamesForType(PhotoJobProducer.class)).isEmpty();
+            assertThat(context.containsBean("idempotencyRedisTemplate")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Listener - should start consuming despite lazy initialization")
+        void shouldRegisterListenerEagerly() {
+            assertThat(listenerRegistry.getListenerContainer(RabbitJobListener.LISTENER_ID)).isNotNull();
+            assertThat(context.getBeanNamesForType(PhotoJobConsumer.class)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Report - should export the startup footprint tagged with the role")
+        void shouldReportStartupFootprint() {
+            assertThat(meterRegistry.get(PhotoMetrics.STARTUP_MEMORY)
+                    .tag("role", "worker").tag("area", "heap").gauge().value()).isPositive();
+            assertThat(meterRegistry.get(PhotoMetrics.STARTUP_TIME).tag("role", "worker").timeGauge()).isNotNull();
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("api")
+    @DisplayName("API profile")
+    class Api {
+
+        @Autowired
+        private ConfigurableApplicationContext context;
+
+        @Autowired
+        private RabbitListenerEndpointRegistry listenerRegistry;
+
+        @Test
+        @DisplayName("Beans - should load the upload API without processing jobs")
+        void shouldNotLoadWorkerBeans() {
+            assertThat(context.getBeanNamesForType(PhotoUploadController.class)).hasSize(1);
+            assertThat(context.getBeanNamesForType(PhotoJobProducer.class)).hasSize(1);
+            assertThat(context.getBeanNamesForType(PhotoJobConsumer.class)).isEmpty();
+            assertThat(listenerRegistry.getListenerContainer(RabbitJobListener.LISTENER_ID)).isNull();
+        }
+
+        @Test
+        @DisplayName("Lazy - should defer beans only requests use")
+        void shouldDeferRequestBeans() {
+            assertThat(context.getBeanFactory().containsSingleton("placeholderGenerator")).isFalse();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.photoblast.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AffinityProperties Unit Tests")
+class AffinityPropertiesTest {
+
+    @Test
+    @DisplayName("Queues - should name the node queue after the shared queue and node id")
+    void shouldNameNodeQueue() {
+        AffinityProperties affinity = new AffinityProperties(true, "node-a", "job.photo.process", "photo.process",
+                30000, 1000);
+
+        assertThat(affinity.getNodeQueue()).isEqualTo("job.photo.process.node-a");
+        assertThat(affinity.routingKey("node-b")).isEqualTo("photo.process.node-b");
+        assertThat(affinity.getListenerQueues()).containsExactly("job.photo.process.node-a", "job.photo.process");
+    }
+
+    @Test
+    @DisplayName("Validation - should reject limits that are not positive when enabled")
+    void shouldRejectNonPositiveLimits() {
+        assertThatThrownBy(() -> new AffinityProperties(true, "node-a", "job.photo.process", "photo.process", 0, 1000))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("fallback-after-ms");
+        assertThatThrownBy(() -> new AffinityProperties(true, "node-a", "job.photo.process", "photo.process", 30000, -1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("max-node-backlog");
+        assertThat(new AffinityProperties(false, "", "job.photo.process", "photo.process", 0, 0).isEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,48 @@
+package com.photoblast.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RabbitMQConfig Unit Tests")
+class RabbitMQConfigTest {
+
+    @Test
+    @DisplayName("Affinity - should declare a node queue that falls back to the shared queue")
+    void nodeQueueShouldDeadLetterToSharedQueue() {
+        RabbitMQConfig config = new RabbitMQConfig();
+        ReflectionTestUtils.setField(config, "photoExchange", "photo.exchange");
+        ReflectionTestUtils.setField(config, "photoProcessRoutingKey", "photo.process");
+        AffinityProperties affinity = new AffinityProperties(true, "node-a", "job.photo.process", "photo.process",
+                30000, 1000);
+
+        Declarables declarables = config.nodeProcessDeclarables(affinity);
+        Queue queue = declarables.getDeclarablesByType(Queue.class).get(0);
+        Binding binding = declarables.getDeclarablesByType(Binding.class).get(0);
+
+        assertThat(queue.getName()).isEqualTo("job.photo.process.node-a");
+        assertThat(queue.getArguments())
+                .containsEntry("x-message-ttl", 30000)
+                .containsEntry("x-max-length", 1000L)
+                .containsEntry("x-overflow", "drop-head")
+                .containsEntry("x-dead-letter-exchange", "photo.exchange")
+                .containsEntry("x-dead-letter-routing-key", "photo.process");
+        assertThat(binding.getExchange()).isEqualTo("photo.exchange");
+        assertThat(binding.getDestination()).isEqualTo("job.photo.process.node-a");
+        assertThat(binding.getRoutingKey()).isEqualTo("photo.process.node-a");
+    }
+
+    @Test
+    @DisplayName("Affinity - should declare nothing when disabled")
+    void nodeQueueShouldNotBeDeclaredWhenDisabled() {
+        RabbitMQConfig config = new RabbitMQConfig();
+        AffinityProperties affinity = new AffinityProperties(false, "", "job.photo.process", "photo.process", 0, 0);
+
+        assertThat(config.nodeProcessDeclarables(affinity).getDeclarables()).isEmpty();
+    }
+}
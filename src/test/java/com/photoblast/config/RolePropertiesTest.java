@@ -0,0 +1,36 @@
+package com.photoblast.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("RoleProperties Unit Tests")
+class RolePropertiesTest {
+
+    @Test
+    @DisplayName("Name - should name the roles the instance runs")
+    void nameShouldDescribeRoles() {
+        assertThat(new RoleProperties(true, true, "rabbitmq").getName()).isEqualTo("all");
+        assertThat(new RoleProperties(true, false, "rabbitmq").getName()).isEqualTo("api");
+        assertThat(new RoleProperties(false, true, "rabbitmq").getName()).isEqualTo("worker");
+    }
+
+    @Test
+    @DisplayName("Validation - should reject an instance without any role")
+    void shouldRejectNoRole() {
+        assertThatThrownBy(() -> new RoleProperties(false, false, "rabbitmq"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(RoleProperties.API);
+    }
+
+    @Test
+    @DisplayName("Validation - should reject a single role with the embedded transport")
+    void shouldRejectSingleRoleWithEmbeddedTransport() {
+        assertThatThrownBy(() -> new RoleProperties(false, true, "embedded"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("embedded");
+        assertThat(new RoleProperties(true, true, "embedded").getName()).isEqualTo("all");
+    }
+}
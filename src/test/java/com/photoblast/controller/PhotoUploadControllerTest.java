@@ -1,8 +1,17 @@
 package com.photoblast.controller;
 
+import com.photoblast.config.ImageProperties;
+import com.photoblast.dto.ArchiveUploadResponse;
+import com.photoblast.dto.BatchUploadResponse;
 import com.photoblast.dto.PhotoUploadResponse;
 import com.photoblast.enums.ProcessingTask;
 import com.photoblast.filter.IdempotencyFilter;
+import com.photoblast.filter.UploadThrottleFilter;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.PipelineValidator;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.service.ArchiveUploadService;
 import com.photoblast.service.PhotoUploadService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
@@ -18,24 +28,32 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = PhotoUploadController.class,
-        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = IdempotencyFilter.class))
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {IdempotencyFilter.class, UploadThrottleFilter.class}))
+@Import({ImageProperties.class, PipelinePresets.class, PipelineValidator.class})
 @DisplayName("PhotoUploadController Unit Tests")
 class PhotoUploadControllerTest {
 
     private static final String JOB_ID = "job-123";
     private static final String PHOTO_ID = "photo-456";
+    private static final String PLACEHOLDER = "LEHV6nWB2yk8pyo0adR*.7kCMdnj";
 
     @Autowired
     private MockMvc mockMvc;
@@ -43,9 +61,15 @@ class PhotoUploadControllerTest {
     @MockitoBean
     private PhotoUploadService photoUploadService;
 
+    @MockitoBean
+    private ArchiveUploadService archiveUploadService;
+
     @MockitoBean
     private StringRedisTemplate stringRedisTemplate;
 
+    @Autowired
+    private PipelinePresets pipelinePresets;
+
     @Test
     @DisplayName("GET /photos/health - should return OK status")
     void healthShouldReturnOkStatus() throws Exception {
@@ -64,10 +88,11 @@ class PhotoUploadControllerTest {
                 "test image content".getBytes()
         );
 
-        List<ProcessingTask> expectedTasks = List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL);
-        PhotoUploadResponse successResponse = PhotoUploadResponse.success(JOB_ID, PHOTO_ID, expectedTasks);
+        ProcessingPipeline expected = pipelinePresets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL));
+        PhotoUploadResponse successResponse = PhotoUploadResponse.success(JOB_ID, PHOTO_ID, expected.outputNames(),
+                PLACEHOLDER);
 
-        when(photoUploadService.uploadPhoto(any(), anyList())).thenReturn(successResponse);
+        when(photoUploadService.uploadPhoto(any(), eq(expected))).thenReturn(successResponse);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(file))
@@ -75,9 +100,10 @@ class PhotoUploadControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.jobId").value(JOB_ID))
                 .andExpect(jsonPath("$.photoId").value(PHOTO_ID))
+                .andExpect(jsonPath("$.placeholder").value(PLACEHOLDER))
                 .andExpect(jsonPath("$.message").value("Photo uploaded successfully"));
 
-        verify(photoUploadService).uploadPhoto(any(), anyList());
+        verify(photoUploadService).uploadPhoto(any(), eq(expected));
     }
 
     @Test
@@ -90,18 +116,69 @@ class PhotoUploadControllerTest {
                 "test image content".getBytes()
         );
 
-        List<ProcessingTask> customTasks = List.of(ProcessingTask.RESIZE, ProcessingTask.WATERMARK);
-        PhotoUploadResponse successResponse = PhotoUploadResponse.success(JOB_ID, PHOTO_ID, customTasks);
+        ProcessingPipeline custom = pipelinePresets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.WATERMARK));
+        PhotoUploadResponse successResponse = PhotoUploadResponse.success(JOB_ID, PHOTO_ID, custom.outputNames(), null);
 
-        when(photoUploadService.uploadPhoto(any(), anyList())).thenReturn(successResponse);
+        when(photoUploadService.uploadPhoto(any(), eq(custom))).thenReturn(successResponse);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(file)
                         .param("tasks", "RESIZE,WATERMARK"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.tasks[0]").value("RESIZE"))
-                .andExpect(jsonPath("$.tasks[1]").value("WATERMARK"));
+                .andExpect(jsonPath("$.outputs[0]").value("resized"))
+                .andExpect(jsonPath("$.outputs[1]").value("watermarked"));
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload - should upload photo with a pipeline instead of tasks")
+    void uploadShouldSucceedWithPipeline() throws Exception {
+        when(photoUploadService.uploadPhoto(any(), any()))
+                .thenReturn(PhotoUploadResponse.success(JOB_ID, PHOTO_ID, List.of("square"), null));
+
+        mockMvc.perform(multipart("/photos/upload")
+                        .file(new MockMultipartFile("file", "test-image.jpg", MediaType.IMAGE_JPEG_VALUE,
+                                "test image content".getBytes()))
+                        .param("tasks", "WATERMARK")
+                        .param("pipeline", """
+                                {"outputs": [{"name": "square", "location": "THUMBNAILS", "format": "png",
+                                  "operations": [{"op": "autoOrient"}, {"op": "crop", "x": 0, "y": 0, "width": 500, "height": 500},
+                                                 {"op": "resize", "width": 100, "height": 100}]}]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.outputs[0]").value("square"));
+
+        verify(photoUploadService).uploadPhoto(any(), argThat(pipeline -> {
+            assertThat(pipeline.outputNames()).containsExactly("square");
+            assertThat(pipeline.getOutputs().getFirst().getFormat()).isEqualTo("png");
+            assertThat(pipeline.getOutputs().getFirst().getOperations()).containsExactly(
+                    new ImageOperation.AutoOrient(),
+                    new ImageOperation.Crop(0, 0, 500, 500),
+                    new ImageOperation.Resize(100, 100, null));
+            return true;
+        }));
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload - should reject an invalid pipeline before storing the file")
+    void uploadShouldRejectInvalidPipeline() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "test-image.jpg", MediaType.IMAGE_JPEG_VALUE,
+                "test image content".getBytes());
+
+        mockMvc.perform(multipart("/photos/upload")
+                        .file(file)
+                        .param("pipeline", "{\"outputs\": [{\"name\": \"a\", \"operations\": [{\"op\": \"rotate\", \"degrees\": 45}]}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Output a: rotation must be a multiple of 90 degrees"));
+
+        mockMvc.perform(multipart("/photos/upload")
+                        .file(file)
+                        .param("pipeline", "{\"outputs\": [{\"name\": \"a\", \"operations\": [{\"op\": \"sharpen\"}]}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(startsWith("Malformed pipeline")));
+
+        verify(photoUploadService, never()).uploadPhoto(any(), any());
     }
 
     @Test
@@ -116,7 +193,7 @@ class PhotoUploadControllerTest {
 
         PhotoUploadResponse errorResponse = PhotoUploadResponse.error("File is empty");
 
-        when(photoUploadService.uploadPhoto(any(), anyList())).thenReturn(errorResponse);
+        when(photoUploadService.uploadPhoto(any(), any())).thenReturn(errorResponse);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(emptyFile))
@@ -137,7 +214,7 @@ class PhotoUploadControllerTest {
 
         PhotoUploadResponse errorResponse = PhotoUploadResponse.error("File must be an image");
 
-        when(photoUploadService.uploadPhoto(any(), anyList())).thenReturn(errorResponse);
+        when(photoUploadService.uploadPhoto(any(), any())).thenReturn(errorResponse);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(textFile))
@@ -152,6 +229,86 @@ class PhotoUploadControllerTest {
         mockMvc.perform(multipart("/photos/upload"))
                 .andExpect(status().isBadRequest());
 
-        verify(photoUploadService, never()).uploadPhoto(any(), anyList());
+        verify(photoUploadService, never()).uploadPhoto(any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload/batch - should map one task list to each file")
+    void batchUploadShouldMapTasksPerFile() throws Exception {
+        ProcessingPipeline first = pipelinePresets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.WATERMARK));
+        ProcessingPipeline second = pipelinePresets.of(List.of(ProcessingTask.THUMBNAIL));
+        BatchUploadResponse response = BatchUploadResponse.of(List.of(
+                PhotoUploadResponse.success(JOB_ID, PHOTO_ID, first.outputNames(), null),
+                PhotoUploadResponse.success("job-789", "photo-012", second.outputNames(), null)));
+
+        when(photoUploadService.uploadPhotos(anyList(), eq(List.of(first, second)))).thenReturn(response);
+
+        mockMvc.perform(multipart("/photos/upload/batch")
+                        .file(imageFile("a.jpg"))
+                        .file(imageFile("b.jpg"))
+                        .param("tasks", "RESIZE,WATERMARK", "THUMBNAIL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[1].jobId").value("job-789"));
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload/batch - should return multi-status when only some files succeed")
+    void batchUploadShouldReturnMultiStatusOnPartialSuccess() throws Exception {
+        ProcessingPipeline pipeline = pipelinePresets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL));
+        BatchUploadResponse response = BatchUploadResponse.of(List.of(
+                PhotoUploadResponse.success(JOB_ID, PHOTO_ID, pipeline.outputNames(), null),
+                PhotoUploadResponse.error("File must be an image")));
+
+        when(photoUploadService.uploadPhotos(anyList(), eq(List.of(pipeline, pipeline)))).thenReturn(response);
+
+        mockMvc.perform(multipart("/photos/upload/batch")
+                        .file(imageFile("a.jpg"))
+                        .file(imageFile("b.jpg")))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[1].message").value("File must be an image"));
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload/batch - should reject task lists that do not match the files")
+    void batchUploadShouldRejectMismatchedTasks() throws Exception {
+        mockMvc.perform(multipart("/photos/upload/batch")
+                        .file(imageFile("a.jpg"))
+                        .file(imageFile("b.jpg"))
+                        .file(imageFile("c.jpg"))
+                        .param("tasks", "RESIZE", "THUMBNAIL"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(multipart("/photos/upload/batch")
+                        .file(imageFile("a.jpg"))
+                        .param("tasks", "RESIZE,SHARPEN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown processing task: SHARPEN"));
+
+        verify(photoUploadService, never()).uploadPhotos(anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("POST /photos/upload/archive - should stream the body to the archive service")
+    void archiveUploadShouldReturnSummary() throws Exception {
+        ArchiveUploadResponse response = new ArchiveUploadResponse(3, 2, 1, 0, false,
+                "2 of 3 entries queued for processing",
+                List.of(new ArchiveUploadResponse.EntryError("notes.txt", "Entry is not a supported image")), 0);
+
+        when(archiveUploadService.uploadArchive(any(), eq(pipelinePresets.of(List.of(ProcessingTask.THUMBNAIL))))).thenReturn(response);
+
+        mockMvc.perform(post("/photos/upload/archive")
+                        .param("tasks", "THUMBNAIL")
+                        .contentType("application/zip")
+                        .content(new byte[]{'P', 'K', 3, 4}))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.queued").value(2))
+                .andExpect(jsonPath("$.errors[0].name").value("notes.txt"));
+    }
+
+    private MockMultipartFile imageFile(String name) {
+        return new MockMultipartFile("files", name, MediaType.IMAGE_JPEG_VALUE, "test image content".getBytes());
     }
 }
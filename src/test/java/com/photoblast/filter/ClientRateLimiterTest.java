@@ -0,0 +1,65 @@
+package com.photoblast.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ClientRateLimiter Unit Tests")
+class ClientRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ClientRateLimiter limiter = new ClientRateLimiter(3, 1.0, 1000, clock::get);
+
+    @Test
+    @DisplayName("Should allow a burst up to the capacity and then report the wait for the next token")
+    void shouldAllowBurstThenLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client-a")).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("client-a")).isEqualTo(Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should refill tokens over time without exceeding the capacity")
+    void shouldRefillOverTime() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("client-a");
+        }
+
+        clock.addAndGet(Duration.ofMillis(1500).toNanos());
+        assertThat(limiter.tryAcquire("client-a")).isZero();
+        assertThat(limiter.tryAcquire("client-a")).isEqualTo(Duration.ofMillis(500).toNanos());
+
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client-a")).isZero();
+        }
+        assertThat(limiter.tryAcquire("client-a")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep a separate bucket per client")
+    void shouldLimitClientsIndependently() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("client-a");
+        }
+
+        assertThat(limiter.tryAcquire("client-a")).isPositive();
+        assertThat(limiter.tryAcquire("client-b")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not limit when the refill rate is zero")
+    void shouldNotLimitWhenDisabled() {
+        ClientRateLimiter disabled = new ClientRateLimiter(1, 0, 1000, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(disabled.tryAcquire("client-a")).isZero();
+        }
+    }
+}
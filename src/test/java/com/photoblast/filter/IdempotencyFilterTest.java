@@ -1,29 +1,48 @@
 package com.photoblast.filter;
 
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,27 +52,52 @@ class IdempotencyFilterTest {
 
     private static final String IDEMPOTENCY_KEY_HEADER = "X-Idempotency-Key";
     private static final String TEST_IDEMPOTENCY_KEY = "test-key-123";
+    private static final String REDIS_KEY = "idempotency:" + TEST_IDEMPOTENCY_KEY;
 
     @Mock
-    private StringRedisTemplate redisTemplate;
+    private RedisTemplate<String, byte[]> redisTemplate;
 
     @Mock
-    private ValueOperations<String, String> valueOperations;
+    private ValueOperations<String, byte[]> valueOperations;
 
     @Mock
     private FilterChain filterChain;
 
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyNearCache nearCache;
+    private RedisCircuitBreaker circuitBreaker;
+    private List<Runnable> pendingWrites;
+    private ScheduledExecutorService leaseRenewer;
     private IdempotencyFilter idempotencyFilter;
     private MockHttpServletRequest request;
     private MockHttpServletResponse response;
 
     @BeforeEach
     void setUp() {
-        idempotencyFilter = new IdempotencyFilter(redisTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        PhotoMetrics photoMetrics = new PhotoMetrics(meterRegistry);
+        nearCache = new IdempotencyNearCache(photoMetrics, 1_000_000, 300, 60);
+        circuitBreaker = new RedisCircuitBreaker(photoMetrics, 2, Duration.ofSeconds(10), System::nanoTime);
+        pendingWrites = new ArrayList<>();
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor();
+        idempotencyFilter = new IdempotencyFilter(redisTemplate, nearCache, photoMetrics, circuitBreaker, Runnable::run,
+                leaseRenewer);
+        ReflectionTestUtils.setField(idempotencyFilter, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(idempotencyFilter, "leaseSeconds", 30L);
+        ReflectionTestUtils.setField(idempotencyFilter, "waitMillis", 200L);
+        ReflectionTestUtils.setField(idempotencyFilter, "retryAfterSeconds", 2L);
+        ReflectionTestUtils.setField(idempotencyFilter, "compressionThresholdBytes", 1024);
+        ReflectionTestUtils.setField(idempotencyFilter, "maxBodyBytes", 4096);
+        ReflectionTestUtils.setField(idempotencyFilter, "failurePolicy", IdempotencyFilter.FailurePolicy.OPEN);
         request = new MockHttpServletRequest();
         response = new MockHttpServletResponse();
     }
 
+    @AfterEach
+    void tearDown() {
+        leaseRenewer.shutdownNow();
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"GET", "DELETE", "HEAD", "OPTIONS"})
     @DisplayName("Idempotent methods should pass through without idempotency key check")
@@ -103,7 +147,7 @@ class IdempotencyFilterTest {
         request.addHeader(IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY);
 
         String cachedBody = "{\"success\":true}";
-        String cachedValue = "200|||application/json|||" + Base64.getEncoder().encodeToString(cachedBody.getBytes());
+        byte[] cachedValue = record(200, "application/json", cachedBody);
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get("idempotency:" + TEST_IDEMPOTENCY_KEY)).thenReturn(cachedValue);
@@ -124,12 +168,159 @@ class IdempotencyFilterTest {
         request.addHeader(IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY);
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("idempotency:" + TEST_IDEMPOTENCY_KEY)).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(eq(request), any());
+        verify(valueOperations).set(eq("idempotency:" + TEST_IDEMPOTENCY_KEY), any(byte[].class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should reserve key with in-progress marker and lease before processing")
+    void shouldReserveKeyBeforeProcessing() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(valueOperations).setIfAbsent(eq(REDIS_KEY), argThat(IdempotencyFilterTest::isReservation), eq(Duration.ofSeconds(30)));
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should renew the lease of the reservation while processing")
+    @SuppressWarnings("unchecked")
+    void shouldRenewLeaseWhileProcessing() throws ServletException, IOException {
+        ReflectionTestUtils.setField(idempotencyFilter, "leaseSeconds", 1L);
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), any(), any())).thenReturn(1L);
+        doAnswer(invocation -> {
+            Thread.sleep(1000);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        ArgumentCaptor<RedisScript<Long>> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(redisTemplate, atLeast(2)).execute(script.capture(), eq(List.of(REDIS_KEY)),
+                (Object) argThat(IdempotencyFilterTest::isReservation), eq("1000".getBytes(StandardCharsets.US_ASCII)));
+        assertThat(script.getValue().getScriptAsString()).contains("pexpire");
+    }
+
+    @Test
+    @DisplayName("Should return 409 with Retry-After when duplicate is still in progress")
+    void shouldReturnConflictWhenDuplicateInProgress() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(reservation("other-request"));
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(409);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should replay a response stored in the legacy string format")
+    void shouldReplayLegacyResponse() throws ServletException, IOException {
+        givenUploadRequest();
+        String body = "{\"success\":true}";
+        byte[] legacy = ("200|||application/json|||" + Base64.getEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8)))
+                .getBytes(StandardCharsets.UTF_8);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(legacy);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(body);
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should delete an unreadable stored response and process the request")
+    void shouldDiscardUnreadableResponse() throws ServletException, IOException {
+        givenUploadRequest();
+        byte[] corrupt = "200|||application/json|||not base64!".getBytes(StandardCharsets.UTF_8);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(false, true);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(corrupt, (byte[]) null);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(redisTemplate).delete(REDIS_KEY);
+        verify(filterChain).doFilter(eq(request), any());
+    }
+
+    @Test
+    @DisplayName("Should replay response that completes while waiting")
+    void shouldReplayResponseCompletedWhileWaiting() throws ServletException, IOException {
+        givenUploadRequest();
+        String cachedBody = "{\"success\":true}";
+        byte[] cachedValue = record(200, "application/json", cachedBody);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(reservation("other-request"), cachedValue);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(cachedBody);
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should take over reservation released by a failed first request")
+    void shouldTakeOverReleasedReservation() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(false, true);
+        when(valueOperations.get(REDIS_KEY)).thenReturn(null);
 
         idempotencyFilter.doFilter(request, response, filterChain);
 
         verify(filterChain).doFilter(eq(request), any());
-        verify(valueOperations).set(eq("idempotency:" + TEST_IDEMPOTENCY_KEY), anyString(), any(Duration.class));
+        verify(valueOperations).set(eq(REDIS_KEY), any(byte[].class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should release reservation when processing throws")
+    void shouldReleaseReservationWhenProcessingThrows() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doThrow(new IllegalStateException("boom")).when(filterChain).doFilter(any(), any());
+
+        assertThatThrownBy(() -> idempotencyFilter.doFilter(request, response, filterChain))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), (Object) argThat(IdempotencyFilterTest::isReservation));
+        verify(valueOperations, never()).set(anyString(), any(byte[].class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should release reservation and not cache 5xx responses")
+    void shouldReleaseReservationOnServerError() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            ((HttpServletResponse) invocation.getArgument(1)).setStatus(503);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), (Object) argThat(IdempotencyFilterTest::isReservation));
+        verify(valueOperations, never()).set(anyString(), any(byte[].class), any(Duration.class));
     }
 
     @Test
@@ -140,7 +331,7 @@ class IdempotencyFilterTest {
         request.addHeader(IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY);
 
         String cachedBody = "OK";
-        String cachedValue = "200||||||" + Base64.getEncoder().encodeToString(cachedBody.getBytes());
+        byte[] cachedValue = record(200, "", cachedBody);
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get("idempotency:" + TEST_IDEMPOTENCY_KEY)).thenReturn(cachedValue);
@@ -157,7 +348,7 @@ class IdempotencyFilterTest {
         request.setRequestURI("/photos/upload");
         request.addHeader(IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY);
 
-        String cachedValue = "204|||application/json|||" + Base64.getEncoder().encodeToString(new byte[0]);
+        byte[] cachedValue = record(204, "application/json", "");
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get("idempotency:" + TEST_IDEMPOTENCY_KEY)).thenReturn(cachedValue);
@@ -167,4 +358,213 @@ class IdempotencyFilterTest {
         assertThat(response.getStatus()).isEqualTo(204);
         assertThat(response.getContentAsString()).isEmpty();
     }
+
+    @Test
+    @DisplayName("Should replay near-cached response without calling Redis")
+    void shouldReplayNearCachedResponseWithoutRedis() throws ServletException, IOException {
+        givenUploadRequest();
+        String cachedBody = "{\"success\":true}";
+        nearCache.put(REDIS_KEY, IdempotencyRecord.of(200, "application/json", cachedBody.getBytes(StandardCharsets.UTF_8)));
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(cachedBody);
+        verify(redisTemplate, never()).opsForValue();
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should keep processed and replayed responses in the near-cache")
+    void shouldPopulateNearCache() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(nearCache.get(REDIS_KEY).status()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should store a binary record and replay it byte for byte")
+    void shouldStoreBinaryRecord() throws ServletException, IOException {
+        givenUploadRequest();
+        byte[] binaryBody = {0, 1, 2, (byte) 0xFF, '|', '|', '|'};
+        ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            HttpServletResponse chained = invocation.getArgument(1);
+            chained.setContentType("application/octet-stream");
+            chained.getOutputStream().write(binaryBody);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(valueOperations).set(eq(REDIS_KEY), stored.capture(), eq(Duration.ofMinutes(60)));
+        IdempotencyRecord record = IdempotencyRecord.decode(stored.getValue());
+        assertThat(record.status()).isEqualTo(200);
+        assertThat(record.contentType()).isEqualTo("application/octet-stream");
+        assertThat(record.body()).isEqualTo(binaryBody);
+        assertThat(stored.getValue()).hasSizeLessThan(binaryBody.length + 40);
+    }
+
+    @Test
+    @DisplayName("Should deflate bodies above the compression threshold")
+    void shouldDeflateLargeBodies() throws ServletException, IOException {
+        givenUploadRequest();
+        String largeBody = "{\"message\":\"" + "a".repeat(2000) + "\"}";
+        ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            ((HttpServletResponse) invocation.getArgument(1)).getWriter().write(largeBody);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(valueOperations).set(eq(REDIS_KEY), stored.capture(), any(Duration.class));
+        assertThat(IdempotencyRecord.isDeflated(stored.getValue())).isTrue();
+        assertThat(stored.getValue().length).isLessThan(largeBody.length() / 10);
+        assertThat(new String(IdempotencyRecord.decode(stored.getValue()).body(), StandardCharsets.UTF_8))
+                .isEqualTo(largeBody);
+        assertThat(response.getContentAsString()).isEqualTo(largeBody);
+    }
+
+    @Test
+    @DisplayName("Should release reservation instead of caching bodies above the maximum size")
+    void shouldNotCacheOversizedBodies() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            ((HttpServletResponse) invocation.getArgument(1)).getOutputStream().write(new byte[5000]);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getContentAsByteArray()).hasSize(5000);
+        verify(valueOperations, never()).set(anyString(), any(byte[].class), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(REDIS_KEY)), (Object) argThat(IdempotencyFilterTest::isReservation));
+        assertThat(nearCache.get(REDIS_KEY)).isNull();
+        assertThat(meterRegistry.get(PhotoMetrics.IDEMPOTENCY_RECORD_BYTES).tag("encoding", "skipped").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should process without idempotency protection when Redis is down and policy is OPEN")
+    void shouldFailOpenWhenRedisUnavailable() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verify(valueOperations, never()).set(anyString(), any(byte[].class), any(Duration.class));
+        assertThat(meterRegistry.get(PhotoMetrics.IDEMPOTENCY_DEGRADED).tag("reason", "bypassed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should return 503 with Retry-After when Redis is down and policy is CLOSED")
+    void shouldFailClosedWhenRedisUnavailable() throws ServletException, IOException {
+        ReflectionTestUtils.setField(idempotencyFilter, "failurePolicy", IdempotencyFilter.FailurePolicy.CLOSED);
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should stop calling Redis once the circuit breaker is open")
+    void shouldShortCircuitWhenBreakerOpen() throws ServletException, IOException {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        for (int i = 0; i < 3; i++) {
+            request = new MockHttpServletRequest();
+            givenUploadRequest();
+            idempotencyFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        verify(valueOperations, times(2)).setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class));
+        verify(filterChain, times(3)).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should complete the response before the Redis write runs")
+    void shouldWriteRecordOffResponsePath() throws ServletException, IOException {
+        idempotencyFilter = new IdempotencyFilter(redisTemplate, nearCache, new PhotoMetrics(meterRegistry),
+                circuitBreaker, pendingWrites::add, leaseRenewer);
+        ReflectionTestUtils.setField(idempotencyFilter, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(idempotencyFilter, "leaseSeconds", 30L);
+        ReflectionTestUtils.setField(idempotencyFilter, "compressionThresholdBytes", 1024);
+        ReflectionTestUtils.setField(idempotencyFilter, "maxBodyBytes", 4096);
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            ((HttpServletResponse) invocation.getArgument(1)).getWriter().write("{\"success\":true}");
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"success\":true}");
+        assertThat(nearCache.get(REDIS_KEY)).isNotNull();
+        verify(valueOperations, never()).set(anyString(), any(byte[].class), any(Duration.class));
+
+        pendingWrites.forEach(Runnable::run);
+
+        verify(valueOperations).set(eq(REDIS_KEY), any(byte[].class), eq(Duration.ofMinutes(60)));
+    }
+
+    @Test
+    @DisplayName("Should not fail the request when the background write fails")
+    void shouldSwallowFailedWrite() throws ServletException, IOException {
+        givenUploadRequest();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), any(byte[].class), any(Duration.class))).thenReturn(true);
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).set(eq(REDIS_KEY), any(byte[].class), any(Duration.class));
+
+        idempotencyFilter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get(PhotoMetrics.IDEMPOTENCY_DEGRADED).tag("reason", "write_dropped").counter().count())
+                .isEqualTo(1);
+    }
+
+    private static byte[] record(int status, String contentType, String body) {
+        return IdempotencyRecord.of(status, contentType, body.getBytes(StandardCharsets.UTF_8)).encode(1024);
+    }
+
+    private static byte[] reservation(String id) {
+        return ("IN_PROGRESS:" + id).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isReservation(Object value) {
+        return value instanceof byte[] bytes
+                && new String(bytes, StandardCharsets.US_ASCII).startsWith("IN_PROGRESS:");
+    }
+
+    private void givenUploadRequest() {
+        request.setMethod("POST");
+        request.setRequestURI("/photos/upload");
+        request.addHeader(IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY);
+    }
 }
@@ -0,0 +1,50 @@
+package com.photoblast.filter;
+
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IdempotencyNearCache Unit Tests")
+class IdempotencyNearCacheTest {
+
+    private static final String REDIS_KEY = "idempotency:test-key-123";
+    private static final String CHANNEL = "__keyspace@0__:" + REDIS_KEY;
+
+    private IdempotencyNearCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new IdempotencyNearCache(new PhotoMetrics(new SimpleMeterRegistry()), 1_000_000, 300, 60);
+        nearCache.put(REDIS_KEY, IdempotencyRecord.of(200, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"del", "unlink", "expired", "evicted"})
+    @DisplayName("Should evict entry when Redis reports the key removed")
+    void shouldEvictOnRemovalEvent(String event) {
+        nearCache.onMessage(message(event), null);
+
+        assertThat(nearCache.get(REDIS_KEY)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"set", "expire"})
+    @DisplayName("Should keep entry on write events")
+    void shouldKeepEntryOnWriteEvent(String event) {
+        nearCache.onMessage(message(event), null);
+
+        assertThat(nearCache.get(REDIS_KEY)).isNotNull();
+    }
+
+    private static DefaultMessage message(String event) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), event.getBytes(StandardCharsets.UTF_8));
+    }
+}
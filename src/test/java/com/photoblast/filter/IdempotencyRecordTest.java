@@ -0,0 +1,99 @@
+package com.photoblast.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("IdempotencyRecord Unit Tests")
+class IdempotencyRecordTest {
+
+    @Test
+    @DisplayName("Should round-trip status, content type and raw body")
+    void shouldRoundTrip() {
+        byte[] body = {0, 1, 2, (byte) 0xFF};
+
+        IdempotencyRecord decoded = IdempotencyRecord.decode(
+                IdempotencyRecord.of(201, "application/json", body).encode(1024));
+
+        assertThat(decoded.status()).isEqualTo(201);
+        assertThat(decoded.contentType()).isEqualTo("application/json");
+        assertThat(decoded.body()).isEqualTo(body);
+    }
+
+    @Test
+    @DisplayName("Should map a missing content type to an empty string")
+    void shouldMapMissingContentType() {
+        IdempotencyRecord decoded = IdempotencyRecord.decode(IdempotencyRecord.of(204, null, new byte[0]).encode(1024));
+
+        assertThat(decoded.contentType()).isEmpty();
+        assertThat(decoded.body()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should deflate compressible bodies at or above the threshold")
+    void shouldDeflateAboveThreshold() {
+        byte[] body = "x".repeat(4096).getBytes(StandardCharsets.UTF_8);
+
+        byte[] small = IdempotencyRecord.of(200, "text/plain", body).encode(8192);
+        byte[] large = IdempotencyRecord.of(200, "text/plain", body).encode(4096);
+
+        assertThat(IdempotencyRecord.isDeflated(small)).isFalse();
+        assertThat(IdempotencyRecord.isDeflated(large)).isTrue();
+        assertThat(large.length).isLessThan(small.length / 10);
+        assertThat(IdempotencyRecord.decode(large).body()).isEqualTo(body);
+    }
+
+    @Test
+    @DisplayName("Should store incompressible bodies raw")
+    void shouldStoreIncompressibleBodiesRaw() {
+        byte[] body = new byte[2048];
+        new Random(42).nextBytes(body);
+
+        byte[] encoded = IdempotencyRecord.of(200, "image/jpeg", body).encode(0);
+
+        assertThat(IdempotencyRecord.isDeflated(encoded)).isFalse();
+        assertThat(IdempotencyRecord.decode(encoded).body()).isEqualTo(body);
+    }
+
+    @Test
+    @DisplayName("Should distinguish records from reservation markers")
+    void shouldDistinguishReservations() {
+        byte[] reservation = "IN_PROGRESS:3f2a".getBytes(StandardCharsets.US_ASCII);
+
+        assertThat(IdempotencyRecord.isRecord(reservation)).isFalse();
+        assertThat(IdempotencyRecord.isRecord(IdempotencyRecord.of(200, "", new byte[0]).encode(1024))).isTrue();
+        assertThatThrownBy(() -> IdempotencyRecord.decode(reservation))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should decode values stored in the legacy string format")
+    void shouldDecodeLegacyFormat() {
+        byte[] legacy = ("201|||application/json|||" + Base64.getEncoder().encodeToString("{\"id\":1}".getBytes(StandardCharsets.UTF_8)))
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(IdempotencyRecord.isRecord(legacy)).isTrue();
+        IdempotencyRecord decoded = IdempotencyRecord.decode(legacy);
+        assertThat(decoded.status()).isEqualTo(201);
+        assertThat(decoded.contentType()).isEqualTo("application/json");
+        assertThat(new String(decoded.body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+        assertThat(IdempotencyRecord.isRecord("IN_PROGRESS|||3f2a".getBytes(StandardCharsets.US_ASCII))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a truncated deflated body")
+    void shouldRejectTruncatedBody() {
+        byte[] encoded = IdempotencyRecord.of(200, "text/plain", "y".repeat(4096).getBytes(StandardCharsets.UTF_8))
+                .encode(0);
+
+        assertThatThrownBy(() -> IdempotencyRecord.decode(Arrays.copyOf(encoded, encoded.length - 4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.photoblast.filter;
+
+import com.photoblast.exception.RedisUnavailableException;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("RedisCircuitBreaker Unit Tests")
+class RedisCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new RedisCircuitBreaker(new PhotoMetrics(meterRegistry), 3, Duration.ofSeconds(10), clock::get);
+    }
+
+    @Test
+    @DisplayName("Should open after consecutive failures and reject without calling Redis")
+    void shouldOpenAfterConsecutiveFailures() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.call("get", this::succeed))
+                .isInstanceOf(RedisUnavailableException.class)
+                .hasMessageContaining("open");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get(PhotoMetrics.REDIS_BREAKER_STATE).gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reset the failure count on success")
+    void shouldResetFailuresOnSuccess() {
+        assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+        assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+        breaker.call("get", this::succeed);
+        assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should close after a successful trial call once the open period has elapsed")
+    void shouldCloseAfterSuccessfulTrial() {
+        openBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(breaker.call("get", this::succeed)).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should reopen when the trial call fails")
+    void shouldReopenWhenTrialFails() {
+        openBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.call("get", this::succeed)).isInstanceOf(RedisUnavailableException.class);
+    }
+
+    @Test
+    @DisplayName("Should reopen and rethrow when the trial call fails with another exception")
+    void shouldReopenWhenTrialFailsWithOtherException() {
+        openBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThatThrownBy(() -> breaker.call("get", () -> {
+            throw new IllegalStateException("connection factory stopped");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.call("get", this::succeed)).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should time calls tagged with command and outcome")
+    void shouldTimeCalls() {
+        breaker.call("set_nx", this::succeed);
+        assertThatThrownBy(() -> breaker.call("set_nx", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+
+        assertThat(meterRegistry.get(PhotoMetrics.REDIS_TIMER).tags("command", "set_nx", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(PhotoMetrics.REDIS_TIMER).tags("command", "set_nx", "outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.call("get", this::timeout)).isInstanceOf(RedisUnavailableException.class);
+        }
+    }
+
+    private String succeed() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private String timeout() {
+        calls.incrementAndGet();
+        throw new QueryTimeoutException("Redis command timed out");
+    }
+}
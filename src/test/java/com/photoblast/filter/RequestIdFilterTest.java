@@ -0,0 +1,59 @@
+package com.photoblast.filter;
+
+import com.photoblast.logging.LogContext;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RequestIdFilter Unit Tests")
+class RequestIdFilterTest {
+
+    private final RequestIdFilter requestIdFilter = new RequestIdFilter();
+    private final AtomicReference<String> idSeenByChain = new AtomicReference<>();
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("POST", "/photos/upload");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("Should put the client request id into the MDC and echo it")
+    void shouldUseClientRequestId() throws ServletException, IOException {
+        request.addHeader("X-Request-Id", "client-id-1");
+
+        requestIdFilter.doFilter(request, response, (req, res) -> idSeenByChain.set(MDC.get(LogContext.REQUEST_ID)));
+
+        assertThat(idSeenByChain).hasValue("client-id-1");
+        assertThat(response.getHeader("X-Request-Id")).isEqualTo("client-id-1");
+    }
+
+    @Test
+    @DisplayName("Should generate a request id when none is provided")
+    void shouldGenerateRequestId() throws ServletException, IOException {
+        requestIdFilter.doFilter(request, response, (req, res) -> idSeenByChain.set(MDC.get(LogContext.REQUEST_ID)));
+
+        assertThat(idSeenByChain.get()).isNotBlank();
+        assertThat(response.getHeader("X-Request-Id")).isEqualTo(idSeenByChain.get());
+    }
+
+    @Test
+    @DisplayName("Should clear the MDC after the request")
+    void shouldClearMdc() throws ServletException, IOException {
+        requestIdFilter.doFilter(request, response, (req, res) -> MDC.put(LogContext.JOB_ID, "job-1"));
+
+        assertThat(MDC.get(LogContext.REQUEST_ID)).isNull();
+        assertThat(MDC.get(LogContext.JOB_ID)).isNull();
+    }
+}
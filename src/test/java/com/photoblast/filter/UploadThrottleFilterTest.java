@@ -0,0 +1,101 @@
+package com.photoblast.filter;
+
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.metrics.QueueMetricsSampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("UploadThrottleFilter Unit Tests")
+class UploadThrottleFilterTest {
+
+    private final QueueMetricsSampler queueMetricsSampler = mock(QueueMetricsSampler.class);
+    private final ClientRateLimiter clientRateLimiter = mock(ClientRateLimiter.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private SimpleMeterRegistry meterRegistry;
+    private UploadThrottleFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new UploadThrottleFilter(queueMetricsSampler, clientRateLimiter, new PhotoMetrics(meterRegistry));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxQueueDepth", 100L);
+        ReflectionTestUtils.setField(filter, "queueRetryAfterSeconds", 30L);
+        ReflectionTestUtils.setField(filter, "clientHeader", "");
+        request = new MockHttpServletRequest("POST", "/api/photos/upload/batch");
+        request.setContextPath("/api");
+        request.setRemoteAddr("10.0.0.7");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("Should pass uploads through while the backlog and client rate are within limits")
+    void shouldPassUploadWithinLimits() throws ServletException, IOException {
+        when(queueMetricsSampler.getProcessingQueueDepth()).thenReturn(99L);
+
+        filter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verify(clientRateLimiter).tryAcquire("10.0.0.7");
+    }
+
+    @Test
+    @DisplayName("Should shed uploads with 503 when the sampled backlog is full")
+    void shouldShedWhenBacklogFull() throws ServletException, IOException {
+        when(queueMetricsSampler.getProcessingQueueDepth()).thenReturn(100L);
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("30");
+        verify(filterChain, never()).doFilter(request, response);
+        verify(clientRateLimiter, never()).tryAcquire(anyString());
+        assertThat(meterRegistry.get(PhotoMetrics.UPLOAD_THROTTLED).tag("reason", "queue_full").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject with 429 when the client's bucket is empty")
+    void shouldRejectWhenRateLimited() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "clientHeader", "X-Client-Id");
+        request.addHeader("X-Client-Id", "tenant-42");
+        when(clientRateLimiter.tryAcquire("tenant-42")).thenReturn(1_500_000_000L);
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should not throttle requests other than uploads")
+    void shouldIgnoreOtherRequests() throws ServletException, IOException {
+        when(queueMetricsSampler.getProcessingQueueDepth()).thenReturn(1000L);
+        MockHttpServletRequest stats = new MockHttpServletRequest("GET", "/api/photos/stats");
+        stats.setContextPath("/api");
+
+        filter.doFilter(stats, response, filterChain);
+
+        verify(filterChain).doFilter(stats, response);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+}
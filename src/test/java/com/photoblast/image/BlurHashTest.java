@@ -0,0 +1,74 @@
+package com.photoblast.image;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BlurHash Unit Tests")
+class BlurHashTest {
+
+    @Test
+    @DisplayName("Encode - should encode the component counts and the average color")
+    void encodeShouldEncodeAverageColor() {
+        BufferedImage image = halves(40, 30, Color.RED, Color.RED);
+
+        String hash = BlurHash.encode(image, Orientation.NORMAL, 4, 3);
+
+        assertThat(hash.charAt(0)).isEqualTo('L');
+        assertThat(hash.substring(2, 6)).isEqualTo("TI:j");
+    }
+
+    @Test
+    @DisplayName("Encode - should grow by two characters per component")
+    void encodeShouldSizeHashByComponents() {
+        BufferedImage image = halves(40, 30, Color.BLACK, Color.WHITE);
+
+        assertThat(BlurHash.encode(image, Orientation.NORMAL, 1, 1)).hasSize(6).startsWith("00");
+        assertThat(BlurHash.encode(image, Orientation.NORMAL, 4, 3)).hasSize(28).startsWith("L");
+        assertThat(BlurHash.encode(image, Orientation.NORMAL, 9, 9)).hasSize(166).startsWith("|");
+    }
+
+    @Test
+    @DisplayName("Encode - should hash the image as the orientation displays it")
+    void encodeShouldApplyOrientation() {
+        BufferedImage source = halves(40, 30, Color.BLACK, Color.WHITE);
+        BufferedImage rotated = new BufferedImage(30, 40, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                rotated.setRGB(29 - y, x, source.getRGB(x, y));
+            }
+        }
+
+        assertThat(BlurHash.encode(source, Orientation.ROTATE_90, 4, 3))
+                .isEqualTo(BlurHash.encode(rotated, Orientation.NORMAL, 4, 3))
+                .isNotEqualTo(BlurHash.encode(source, Orientation.NORMAL, 4, 3));
+    }
+
+    @Test
+    @DisplayName("Encode - should reject component counts outside 1 to 9")
+    void encodeShouldRejectComponentCounts() {
+        BufferedImage image = halves(4, 4, Color.BLACK, Color.WHITE);
+
+        assertThatThrownBy(() -> BlurHash.encode(image, Orientation.NORMAL, 0, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlurHash.encode(image, Orientation.NORMAL, 4, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BufferedImage halves(int width, int height, Color left, Color right) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(left);
+        g.fillRect(0, 0, width / 2, height);
+        g.setColor(right);
+        g.fillRect(width / 2, 0, width - width / 2, height);
+        g.dispose();
+        return image;
+    }
+}
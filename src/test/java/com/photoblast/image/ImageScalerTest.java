@@ -0,0 +1,211 @@
+package com.photoblast.image;
+
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.coobird.thumbnailator.Thumbnails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ImageScaler Unit Tests")
+class ImageScalerTest {
+
+    private final PixelBufferPool bufferPool =
+            new PixelBufferPool(64L << 20, false, true, new PhotoMetrics(new SimpleMeterRegistry()));
+    private final PixelBufferPool.Scope scope = bufferPool.open();
+    private final ImageScaler sequential = new ImageScaler(1, 0, true, bufferPool);
+    private final ImageScaler parallel = new ImageScaler(7, 0, true, bufferPool);
+
+    @AfterEach
+    void tearDown() {
+        scope.close();
+        sequential.close();
+        parallel.close();
+    }
+
+    @Test
+    @DisplayName("Scale - should produce the same pixels whatever the band layout")
+    void scaleShouldNotDependOnBands() {
+        BufferedImage source = noise(1203, 1851, BufferedImage.TYPE_3BYTE_BGR);
+
+        BufferedImage one = sequential.scale(source, 301, 463, ResampleFilter.BICUBIC, scope);
+        BufferedImage many = parallel.scale(source, 301, 463, ResampleFilter.BICUBIC, scope);
+
+        assertThat(pixels(many)).isEqualTo(pixels(one));
+    }
+
+    @Test
+    @DisplayName("Scale - should keep a uniform image uniform up to the edges")
+    void scaleShouldKeepUniformImageUniform() {
+        BufferedImage source = new BufferedImage(1000, 800, BufferedImage.TYPE_INT_RGB);
+        fill(source, 0x3366CC);
+
+        BufferedImage result = parallel.scale(source, 333, 267, ResampleFilter.BICUBIC, scope);
+
+        assertThat(result.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+        for (int rgb : pixels(result)) {
+            assertThat(rgb & 0xFFFFFF).isEqualTo(0x3366CC);
+        }
+    }
+
+    @Test
+    @DisplayName("Scale - should not bleed the color of transparent pixels into opaque ones")
+    void scaleShouldResampleAlphaPremultiplied() {
+        BufferedImage source = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 400; y++) {
+            for (int x = 0; x < 400; x++) {
+                source.setRGB(x, y, x < 200 ? 0xFF00FF00 : 0x00FF0000);
+            }
+        }
+
+        BufferedImage result = parallel.scale(source, 100, 100, ResampleFilter.BICUBIC, scope);
+
+        assertThat(result.getType()).isEqualTo(BufferedImage.TYPE_INT_ARGB);
+        int edge = result.getRGB(49, 50);
+        assertThat(edge >>> 24).isGreaterThan(0);
+        assertThat((edge >> 16) & 0xFF).isZero();
+        assertThat(result.getRGB(10, 50)).isEqualTo(0xFF00FF00);
+        assertThat(result.getRGB(90, 50) >>> 24).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResampleFilter.class)
+    @DisplayName("Kernels - should produce identical pixels on the Vector API and in scalar code")
+    void vectorKernelShouldMatchScalarKernel(ResampleFilter filter) {
+        ImageScaler scalar = new ImageScaler(3, 0, false, bufferPool);
+        try {
+            assertThat(scalar.getKernelName()).isEqualTo("scalar");
+            assertThat(parallel.getKernelName()).startsWith("vector-");
+            for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}) {
+                BufferedImage source = noise(997, 613, type);
+
+                assertThat(pixels(parallel.scale(source, 211, 97, filter, scope)))
+                        .isEqualTo(pixels(scalar.scale(source, 211, 97, filter, scope)));
+            }
+        } finally {
+            scalar.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Area average - should average exactly the covered source pixels")
+    void areaAverageShouldAverageCoveredPixels() {
+        BufferedImage source = new BufferedImage(6, 2, BufferedImage.TYPE_INT_RGB);
+        int[] values = {0, 30, 60, 90, 120, 150};
+        for (int x = 0; x < 6; x++) {
+            source.setRGB(x, 0, values[x] << 16);
+            source.setRGB(x, 1, values[x] << 16);
+        }
+
+        BufferedImage result = parallel.scale(source, 2, 1, ResampleFilter.AREA_AVERAGE, scope);
+
+        assertThat((result.getRGB(0, 0) >> 16) & 0xFF).isEqualTo(30);
+        assertThat((result.getRGB(1, 0) >> 16) & 0xFF).isEqualTo(120);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResampleFilter.class)
+    @DisplayName("Parity - should stay within a few levels of Thumbnailator on photo-like content")
+    void scaleShouldBeCloseToThumbnailator(ResampleFilter filter) throws IOException {
+        BufferedImage source = gradient(1600, 1200);
+
+        int[] ours = pixels(parallel.scale(source, 400, 300, filter, scope));
+        int[] reference = pixels(Thumbnails.of(source).size(400, 300).asBufferedImage());
+
+        assertThat(meanAbsoluteDifference(ours, reference)).isLessThan(2.0);
+    }
+
+    @Test
+    @DisplayName("Buffers - should return every band buffer to the pool and lease the result from the scope")
+    void scaleShouldReturnBandBuffers() {
+        BufferedImage source = noise(1600, 1200, BufferedImage.TYPE_INT_RGB);
+
+        try (PixelBufferPool.Scope task = bufferPool.open()) {
+            BufferedImage result = parallel.scale(source, 400, 300, ResampleFilter.BICUBIC, task);
+            assertThat(result.getWidth()).isEqualTo(400);
+            assertThat(bufferPool.getLeasedBytes()).isPositive();
+        }
+
+        assertThat(bufferPool.getLeasedBytes()).isZero();
+        assertThat(bufferPool.getRetainedBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Fit - should keep the aspect ratio within the bounds")
+    void fitShouldKeepAspectRatio() {
+        assertThat(ImageScaler.fit(800, 400, 320, 240)).isEqualTo(new Dimension(320, 160));
+        assertThat(ImageScaler.fit(400, 800, 320, 240)).isEqualTo(new Dimension(120, 240));
+        assertThat(ImageScaler.fit(10000, 1, 200, 200)).isEqualTo(new Dimension(200, 1));
+    }
+
+    @Test
+    @DisplayName("ShouldScale - should only select downscales of large images")
+    void shouldScaleShouldRequireLargeDownscale() {
+        ImageScaler scaler = new ImageScaler(1, 1_000_000, true, bufferPool);
+        try {
+            BufferedImage large = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB);
+            BufferedImage small = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+
+            assertThat(scaler.shouldScale(large, 200, 100)).isTrue();
+            assertThat(scaler.shouldScale(large, 4000, 2000)).isFalse();
+            assertThat(scaler.shouldScale(small, 20, 10)).isFalse();
+        } finally {
+            scaler.close();
+        }
+    }
+
+    private static BufferedImage noise(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage gradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = x * 255 / width;
+                int g = y * 255 / height;
+                int b = (int) (127 + 100 * Math.sin(x * 0.01) * Math.cos(y * 0.013));
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    private static double meanAbsoluteDifference(int[] a, int[] b) {
+        long total = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                total += Math.abs(((a[i] >> shift) & 0xFF) - ((b[i] >> shift) & 0xFF));
+            }
+        }
+        return (double) total / (a.length * 3L);
+    }
+
+    private static void fill(BufferedImage image, int rgb) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
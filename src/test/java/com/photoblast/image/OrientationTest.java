@@ -0,0 +1,143 @@
+package com.photoblast.image;
+
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Orientation Unit Tests")
+class OrientationTest {
+
+    private final PixelBufferPool bufferPool =
+            new PixelBufferPool(16L << 20, false, true, new PhotoMetrics(new SimpleMeterRegistry()));
+    private final PixelBufferPool.Scope scope = bufferPool.open();
+
+    @AfterEach
+    void tearDown() {
+        scope.close();
+    }
+
+    @Test
+    @DisplayName("Rotation - should map angles onto quarter turns")
+    void rotationShouldMapAngles() {
+        assertThat(Orientation.rotation(0)).isEqualTo(Orientation.NORMAL);
+        assertThat(Orientation.rotation(90)).isEqualTo(Orientation.ROTATE_90);
+        assertThat(Orientation.rotation(-90)).isEqualTo(Orientation.ROTATE_270);
+        assertThat(Orientation.rotation(540)).isEqualTo(Orientation.ROTATE_180);
+        assertThatThrownBy(() -> Orientation.rotation(45)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Apply - should turn the top left corner to the top right on a clockwise quarter turn")
+    void applyShouldRotateClockwise() {
+        BufferedImage source = noise(5, 3, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage rotated = Orientation.ROTATE_90.apply(source, scope);
+
+        assertThat(rotated.getWidth()).isEqualTo(3);
+        assertThat(rotated.getHeight()).isEqualTo(5);
+        assertThat(rotated.getRGB(2, 0)).isEqualTo(source.getRGB(0, 0));
+        assertThat(rotated.getRGB(0, 4)).isEqualTo(source.getRGB(4, 2));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Orientation.class)
+    @DisplayName("Apply - should agree with the rectangle mapping for every orientation")
+    void applyShouldAgreeWithToSource(Orientation orientation) {
+        for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY}) {
+            BufferedImage source = noise(7, 4, type);
+
+            BufferedImage target = orientation.apply(source, scope);
+
+            for (int y = 0; y < target.getHeight(); y++) {
+                for (int x = 0; x < target.getWidth(); x++) {
+                    Rectangle from = orientation.toSource(new Rectangle(x, y, 1, 1),
+                            target.getWidth(), target.getHeight());
+                    assertThat(target.getRGB(x, y)).isEqualTo(source.getRGB(from.x, from.y));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Orientation.class)
+    @DisplayName("Then - should equal applying both orientations in turn")
+    void thenShouldComposeInOrder(Orientation first) {
+        BufferedImage source = noise(6, 3, BufferedImage.TYPE_INT_RGB);
+        for (Orientation second : Orientation.values()) {
+            BufferedImage twice = second.apply(first.apply(source, scope), scope);
+            BufferedImage once = first.then(second).apply(source, scope);
+
+            assertThat(pixels(once)).as("%s then %s", first, second).isEqualTo(pixels(twice));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    @DisplayName("Read - should find the orientation tag of a JPEG in either byte order")
+    void readShouldFindExifTag(boolean bigEndian) throws IOException {
+        byte[] jpeg = withExifOrientation(jpeg(), 6, bigEndian);
+
+        assertThat(Orientation.read(ByteBuffer.wrap(jpeg))).isEqualTo(Orientation.ROTATE_90);
+    }
+
+    @Test
+    @DisplayName("Read - should default to normal without a tag")
+    void readShouldDefaultToNormal() throws IOException {
+        assertThat(Orientation.read(ByteBuffer.wrap(jpeg()))).isEqualTo(Orientation.NORMAL);
+        assertThat(Orientation.read(ByteBuffer.wrap(new byte[]{(byte) 0x89, 'P', 'N', 'G'}))).isEqualTo(Orientation.NORMAL);
+    }
+
+    private static byte[] jpeg() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(noise(8, 8, BufferedImage.TYPE_3BYTE_BGR), "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation, boolean bigEndian) {
+        byte[] exif = bigEndian
+                ? new byte[]{(byte) 0xFF, (byte) 0xE1, 0, 34, 'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1, 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0}
+                : new byte[]{(byte) 0xFF, (byte) 0xE1, 0, 34, 'E', 'x', 'i', 'f', 0, 0,
+                'I', 'I', 42, 0, 8, 0, 0, 0,
+                1, 0, 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation, 0, 0, 0,
+                0, 0, 0, 0};
+        byte[] result = new byte[jpeg.length + exif.length];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(exif, 0, result, 2, exif.length);
+        System.arraycopy(jpeg, 2, result, 2 + exif.length, jpeg.length - 2);
+        return result;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static BufferedImage noise(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,134 @@
+package com.photoblast.image;
+
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageTypeSpecifier;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PixelBufferPool Unit Tests")
+class PixelBufferPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PixelBufferPool pool = new PixelBufferPool(4L << 20, true, false, new PhotoMetrics(meterRegistry));
+
+    @Test
+    @DisplayName("Size class - should round up to a power of two or three quarters of one")
+    void sizeClassShouldRoundUp() {
+        assertThat(PixelBufferPool.sizeClass(100, 4)).isEqualTo(100);
+        assertThat(PixelBufferPool.sizeClass(65_536, 4)).isEqualTo(65_536);
+        assertThat(PixelBufferPool.sizeClass(65_537, 4)).isEqualTo(98_304);
+        assertThat(PixelBufferPool.sizeClass(98_305, 4)).isEqualTo(131_072);
+        assertThat(PixelBufferPool.sizeClass(5_000_000, 1)).isEqualTo(6_291_456);
+    }
+
+    @Test
+    @DisplayName("Lease - should hand out a returned buffer again for any length in its size class")
+    void leaseShouldReuseReturnedBuffer() {
+        int[] first;
+        try (PixelBufferPool.Lease<int[]> lease = pool.ints(70_000)) {
+            first = lease.get();
+        }
+
+        try (PixelBufferPool.Lease<int[]> lease = pool.ints(90_000)) {
+            assertThat(lease.get()).isSameAs(first);
+        }
+        assertThat(meterRegistry.get(PhotoMetrics.BUFFER_POOL_REQUESTS)
+                .tags("kind", "int", "result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Lease - should reject use after close and ignore a second close")
+    void leaseShouldRejectUseAfterClose() {
+        PixelBufferPool.Lease<byte[]> lease = pool.bytes(1 << 20);
+        lease.close();
+        lease.close();
+
+        assertThatThrownBy(lease::get).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.getRetainedBytes()).isEqualTo(1 << 20);
+        assertThat(pool.getLeasedBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Cap - should drop returned buffers beyond the configured size")
+    void capShouldLimitRetainedBytes() {
+        PixelBufferPool.Lease<byte[]> a = pool.bytes(3 << 20);
+        PixelBufferPool.Lease<byte[]> b = pool.bytes(3 << 20);
+        a.close();
+        b.close();
+
+        assertThat(pool.getRetainedBytes()).isEqualTo(3 << 20);
+    }
+
+    @Test
+    @DisplayName("Buffer - should limit a reused byte buffer to the requested capacity")
+    void bufferShouldBeLimitedToCapacity() {
+        try (PixelBufferPool.Lease<ByteBuffer> lease = pool.buffer(200_000)) {
+            assertThat(lease.get().isDirect()).isTrue();
+            lease.get().position(1000);
+        }
+
+        try (PixelBufferPool.Lease<ByteBuffer> lease = pool.buffer(150_000)) {
+            assertThat(lease.get().position()).isZero();
+            assertThat(lease.get().limit()).isEqualTo(150_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Scope - should create cleared images on reused arrays and return them on close")
+    void scopeShouldCreateClearedImages() {
+        int[] data;
+        try (PixelBufferPool.Scope scope = pool.open()) {
+            BufferedImage image = scope.image(300, 300, BufferedImage.TYPE_INT_ARGB);
+            assertThat(image.getType()).isEqualTo(BufferedImage.TYPE_INT_ARGB);
+            data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            Arrays.fill(data, -1);
+        }
+
+        try (PixelBufferPool.Scope scope = pool.open()) {
+            BufferedImage image = scope.image(299, 300, BufferedImage.TYPE_INT_RGB);
+            assertThat(image.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+            assertThat(((DataBufferInt) image.getRaster().getDataBuffer()).getData()).isSameAs(data);
+            assertThat(image.getRGB(298, 299)).isEqualTo(0xFF000000);
+        }
+        assertThat(pool.getLeasedBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Scope - should create images of interleaved byte types such as decoded JPEGs")
+    void scopeShouldCreateByteImages() {
+        try (PixelBufferPool.Scope scope = pool.open()) {
+            BufferedImage image = scope.image(
+                    ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_3BYTE_BGR), 400, 300);
+
+            assertThat(image.getType()).isEqualTo(BufferedImage.TYPE_3BYTE_BGR);
+            assertThat(image.getRaster().getDataBuffer()).isInstanceOf(DataBufferByte.class);
+            image.setRGB(399, 299, 0x123456);
+            assertThat(image.getRGB(399, 299)).isEqualTo(0xFF123456);
+        }
+    }
+
+    @Test
+    @DisplayName("Leak - should count a lease that is dropped without being closed")
+    void leakShouldBeDetected() throws InterruptedException {
+        pool.ints(1 << 20);
+
+        for (int i = 0; i < 50 && meterRegistry.find(PhotoMetrics.BUFFER_POOL_LEAKS).counter() == null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(meterRegistry.get(PhotoMetrics.BUFFER_POOL_LEAKS).counter().count()).isEqualTo(1);
+        assertThat(pool.getLeasedBytes()).isZero();
+        assertThat(pool.getRetainedBytes()).isZero();
+    }
+}
@@ -3,17 +3,21 @@ package com.photoblast.integration;
 import com.photoblast.service.PhotoJobProducer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.UUID;
 
@@ -22,6 +26,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -37,18 +42,26 @@ class PhotoUploadIntegrationTest {
 
     private static final String IDEMPOTENCY_KEY_HEADER = "X-Idempotency-Key";
 
+    @TempDir
+    static Path storageDir;
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockitoBean
-    private StringRedisTemplate stringRedisTemplate;
+    private RedisTemplate<String, byte[]> idempotencyRedisTemplate;
 
     @MockitoBean
-    private ValueOperations<String, String> valueOperations;
+    private ValueOperations<String, byte[]> valueOperations;
 
     @MockitoBean
     private PhotoJobProducer photoJobProducer;
 
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("photoblast.storage.upload-dir", () -> storageDir.resolve("uploads").toString());
+    }
+
     @Test
     @DisplayName("GET /photos/health - should return OK without idempotency key")
     void healthShouldReturnOkWithoutIdempotencyKey() throws Exception {
@@ -74,8 +87,9 @@ class PhotoUploadIntegrationTest {
         MockMultipartFile file = createTestImageFile();
         String idempotencyKey = UUID.randomUUID().toString();
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
         doNothing().when(photoJobProducer).sendPhotoProcessingJob(any());
 
         mockMvc.perform(multipart("/photos/upload")
@@ -87,7 +101,7 @@ class PhotoUploadIntegrationTest {
                 .andExpect(jsonPath("$.photoId").exists())
                 .andExpect(jsonPath("$.message").value("Photo uploaded successfully"));
 
-        verify(valueOperations).set(eq("idempotency:" + idempotencyKey), anyString(), any(Duration.class));
+        verify(valueOperations, timeout(1000)).set(eq("idempotency:" + idempotencyKey), any(byte[].class), any(Duration.class));
     }
 
     @Test
@@ -96,8 +110,9 @@ class PhotoUploadIntegrationTest {
         MockMultipartFile file = createTestImageFile();
         String idempotencyKey = UUID.randomUUID().toString();
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
         doNothing().when(photoJobProducer).sendPhotoProcessingJob(any());
 
         mockMvc.perform(multipart("/photos/upload")
@@ -106,7 +121,7 @@ class PhotoUploadIntegrationTest {
                         .header(IDEMPOTENCY_KEY_HEADER, idempotencyKey))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.tasks.length()").value(3));
+                .andExpect(jsonPath("$.outputs.length()").value(3));
     }
 
     @Test
@@ -120,8 +135,9 @@ class PhotoUploadIntegrationTest {
         );
         String idempotencyKey = UUID.randomUUID().toString();
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(emptyFile)
@@ -142,8 +158,9 @@ class PhotoUploadIntegrationTest {
         );
         String idempotencyKey = UUID.randomUUID().toString();
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
 
         mockMvc.perform(multipart("/photos/upload")
                         .file(textFile)
@@ -159,8 +176,9 @@ class PhotoUploadIntegrationTest {
         MockMultipartFile file = createTestImageFile();
         String idempotencyKey = UUID.randomUUID().toString();
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
         doNothing().when(photoJobProducer).sendPhotoProcessingJob(any());
 
         MvcResult firstResult = mockMvc.perform(multipart("/photos/upload")
@@ -184,8 +202,9 @@ class PhotoUploadIntegrationTest {
                 "different image content".getBytes()
         );
 
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(idempotencyRedisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(anyString())).thenReturn(null);
+        when(valueOperations.setIfAbsent(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
         doNothing().when(photoJobProducer).sendPhotoProcessingJob(any());
 
         String key1 = UUID.randomUUID().toString();
@@ -0,0 +1,107 @@
+package com.photoblast.load;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * In-process stand-in for the Redis template holding idempotency records.
+ * <p>
+ * Keeps values in a {@link ConcurrentHashMap} with lazy TTL expiry and implements
+ * the subset of {@link ValueOperations} the application uses. Unsupported operations
+ * fail fast so that new Redis usage is noticed when the harness runs.
+ * </p>
+ */
+class InMemoryRedisTemplate extends RedisTemplate<String, byte[]> {
+
+    private final ConcurrentMap<String, Entry> store = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, byte[]> valueOperations = (ValueOperations<String, byte[]>) Proxy.newProxyInstance(
+            ValueOperations.class.getClassLoader(),
+            new Class<?>[]{ValueOperations.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "get" -> get((String) args[0]);
+                case "set" -> {
+                    store.put((String) args[0], new Entry((byte[]) args[1], expiry(args)));
+                    yield null;
+                }
+                case "setIfAbsent" -> setIfAbsent((String) args[0], (byte[]) args[1], expiry(args));
+                default -> throw new UnsupportedOperationException("Not supported by stand-in: " + method);
+            });
+
+    @Override
+    public void afterPropertiesSet() {
+        // No connection factory: all operations are served from memory.
+    }
+
+    @Override
+    public ValueOperations<String, byte[]> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        return store.remove(key) != null;
+    }
+
+    /**
+     * Emulates the compare-and-delete script used to release idempotency reservations.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        if (keys.size() == 1 && args.length == 1 && script.getScriptAsString().contains("'del'")) {
+            Entry entry = store.get(keys.get(0));
+            boolean deleted = nonNull(entry) && Arrays.equals(entry.value, (byte[]) args[0]) && store.remove(keys.get(0), entry);
+            return (T) Long.valueOf(deleted ? 1 : 0);
+        }
+        throw new UnsupportedOperationException("Script not supported by stand-in: " + script.getScriptAsString());
+    }
+
+    private byte[] get(String key) {
+        Entry entry = store.get(key);
+        if (isNull(entry)) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            store.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private Boolean setIfAbsent(String key, byte[] value, long expiresAtNanos) {
+        Entry candidate = new Entry(value, expiresAtNanos);
+        Entry result = store.compute(key, (k, existing) ->
+                isNull(existing) || existing.isExpired() ? candidate : existing);
+        return result == candidate;
+    }
+
+    private static long expiry(Object[] args) {
+        if (args.length == 3 && args[2] instanceof Duration ttl) {
+            return System.nanoTime() + ttl.toNanos();
+        }
+        if (args.length == 4 && args[2] instanceof Long ttl && args[3] instanceof TimeUnit unit) {
+            return System.nanoTime() + unit.toNanos(ttl);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private record Entry(byte[] value, long expiresAtNanos) {
+        boolean isExpired() {
+            return expiresAtNanos != Long.MAX_VALUE && System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.photoblast.load;
+
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.service.PhotoJobConsumer;
+import org.HdrHistogram.Recorder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the RabbitMQ broker.
+ * <p>
+ * Replaces the publishing {@link RabbitTemplate}: every job is serialized with the
+ * application's {@link MessageConverter}, queued in memory and deserialized again by a
+ * fixed pool of consumer threads that call {@link PhotoJobConsumer} directly, so message
+ * conversion cost stays in the measurement while network and broker latency do not.
+ * Completion latency is measured from {@link PhotoProcessingJob#getCreatedAt()}.
+ * </p>
+ */
+class InProcessBroker extends RabbitTemplate implements AutoCloseable {
+
+    private final ObjectProvider<PhotoJobConsumer> consumer;
+    private final ExecutorService workers;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Recorder completionLatencyMillis = new Recorder(3);
+
+    InProcessBroker(MessageConverter messageConverter, ObjectProvider<PhotoJobConsumer> consumer, int consumers) {
+        this.consumer = consumer;
+        this.workers = Executors.newFixedThreadPool(consumers, Thread.ofPlatform().name("in-process-consumer-", 0).factory());
+        setMessageConverter(messageConverter);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // No connection factory: messages never leave the JVM.
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object object) {
+        Message message = getMessageConverter().toMessage(object, new MessageProperties());
+        maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        workers.execute(() -> deliver(message));
+    }
+
+    /**
+     * Waits until every published job has been processed.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if the queue drained in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (depth.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    Recorder getCompletionLatencyMillis() {
+        return completionLatencyMillis;
+    }
+
+    long getCompleted() {
+        return completed.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void deliver(Message message) {
+        try {
+            message.getMessageProperties().setInferredArgumentType(PhotoProcessingJob.class);
+            PhotoProcessingJob job = (PhotoProcessingJob) getMessageConverter().fromMessage(message);
+            consumer.getObject().processPhotoJob(job);
+            completed.incrementAndGet();
+            completionLatencyMillis.recordValue(Math.max(0, Instant.now().toEpochMilli() - job.getCreatedAt().toEpochMilli()));
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+        } finally {
+            depth.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.photoblast.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load test parameters, read from system properties so they can be passed on the Maven command line.
+ *
+ * @param concurrency  number of concurrent upload clients
+ * @param warmup       time to drive load before measurements start
+ * @param duration     measured load duration
+ * @param drainTimeout maximum time to wait for queued jobs after load stops
+ * @param consumers    number of in-process consumer threads
+ * @param tasks        processing tasks requested by every upload
+ * @param mix          weighted mix of generated images
+ * @param reportDir    directory the JSON report is written to
+ */
+record LoadTestConfig(int concurrency,
+                      Duration warmup,
+                      Duration duration,
+                      Duration drainTimeout,
+                      int consumers,
+                      String tasks,
+                      List<ImageSpec> mix,
+                      String reportDir) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("load.concurrency", 16),
+                Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5)),
+                Duration.ofSeconds(Long.getLong("load.durationSeconds", 30)),
+                Duration.ofSeconds(Long.getLong("load.drainTimeoutSeconds", 600)),
+                Integer.getInteger("load.consumers", Runtime.getRuntime().availableProcessors()),
+                System.getProperty("load.tasks", "RESIZE,THUMBNAIL"),
+                parseMix(System.getProperty("load.mix", "jpg:2:80,png:2:20")),
+                System.getProperty("load.reportDir", "target/load-test")
+        );
+    }
+
+    /**
+     * Parses a mix such as {@code jpg:2:80,png:12:20} into format, megapixels and weight triples.
+     */
+    static List<ImageSpec> parseMix(String mix) {
+        List<ImageSpec> specs = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Mix entries must be format:megapixels:weight, got: " + entry);
+            }
+            specs.add(new ImageSpec(parts[0], Double.parseDouble(parts[1]), Integer.parseInt(parts[2])));
+        }
+        return specs;
+    }
+
+    /**
+     * One entry of the image mix.
+     *
+     * @param format     image format, e.g. {@code jpg}
+     * @param megapixels resolution of the generated image
+     * @param weight     relative share of uploads using this image
+     */
+    record ImageSpec(String format, double megapixels, int weight) {
+    }
+}
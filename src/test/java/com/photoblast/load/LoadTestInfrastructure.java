@@ -0,0 +1,44 @@
+package com.photoblast.load;
+
+import com.photoblast.service.PhotoJobConsumer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Replaces RabbitMQ and Redis with in-process stand-ins for the load test.
+ * <p>
+ * The rest of the application context, including the web layer, filters, aspects,
+ * metrics and image processing, is the production wiring.
+ * </p>
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class LoadTestInfrastructure {
+
+    /**
+     * Creates the in-process broker used by {@link com.photoblast.service.PhotoJobProducer}.
+     *
+     * @param jsonMessageConverter the application's message converter
+     * @param consumer             the consumer jobs are delivered to
+     * @return broker taking precedence over the RabbitMQ-backed template
+     */
+    @Bean
+    @Primary
+    InProcessBroker inProcessBroker(MessageConverter jsonMessageConverter, ObjectProvider<PhotoJobConsumer> consumer) {
+        return new InProcessBroker(jsonMessageConverter, consumer, LoadTestConfig.fromSystemProperties().consumers());
+    }
+
+    /**
+     * Creates the in-memory Redis stand-in used by the idempotency filter.
+     *
+     * @return template that never connects to Redis
+     */
+    @Bean
+    @Primary
+    RedisTemplate<String, byte[]> inMemoryRedisTemplate() {
+        return new InMemoryRedisTemplate();
+    }
+}
@@ -0,0 +1,96 @@
+package com.photoblast.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples process CPU, heap, threads and GC activity while the load test runs.
+ */
+class ResourceSampler implements AutoCloseable {
+
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final long startGcCount;
+    private final long startGcMillis;
+    private final long startCpuNanos;
+    private final long startNanos;
+
+    private double cpuLoadSum;
+    private double cpuLoadMax;
+    private long samples;
+    private long heapUsedMax;
+    private int threadsMax;
+
+    ResourceSampler() {
+        this.startGcCount = gcCount();
+        this.startGcMillis = gcMillis();
+        this.startCpuNanos = os.getProcessCpuTime();
+        this.startNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::sample, 0, 500, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        double cpu = Math.max(0, os.getProcessCpuLoad());
+        cpuLoadSum += cpu;
+        cpuLoadMax = Math.max(cpuLoadMax, cpu);
+        samples++;
+        heapUsedMax = Math.max(heapUsedMax, memory.getHeapMemoryUsage().getUsed());
+        threadsMax = Math.max(threadsMax, threads.getThreadCount());
+    }
+
+    /**
+     * Stops sampling and returns the aggregated resource usage.
+     */
+    synchronized Usage finish() {
+        scheduler.shutdownNow();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return new Usage(
+                samples > 0 ? cpuLoadSum / samples : 0,
+                cpuLoadMax,
+                (double) (os.getProcessCpuTime() - startCpuNanos) / elapsedNanos,
+                heapUsedMax / (1024 * 1024),
+                threadsMax,
+                gcCount() - startGcCount,
+                gcMillis() - startGcMillis
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * Aggregated resource usage over the measured interval.
+     *
+     * @param cpuLoadAvg   average process CPU load, 0..1 of all cores
+     * @param cpuLoadMax   peak sampled process CPU load
+     * @param coresUsed    average number of cores busy, from process CPU time
+     * @param heapUsedMaxMb peak sampled heap usage in MiB
+     * @param threadsMax   peak live thread count
+     * @param gcCount      collections during the run
+     * @param gcMillis     accumulated collection time during the run
+     */
+    record Usage(double cpuLoadAvg, double cpuLoadMax, double coresUsed, long heapUsedMaxMb,
+                 int threadsMax, long gcCount, long gcMillis) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.photoblast.load;
+
+import com.photoblast.load.LoadTestConfig.ImageSpec;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop upload load generator.
+ * <p>
+ * Each client thread repeatedly posts a multipart upload with a fresh idempotency key
+ * and records the response time. Images are generated once up front according to the
+ * configured mix, so generation cost is not part of the measurement.
+ * </p>
+ */
+class UploadLoadGenerator {
+
+    private static final String BOUNDARY = "photoblast-load-boundary";
+
+    private final URI uploadUri;
+    private final LoadTestConfig config;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final List<Payload> payloads = new ArrayList<>();
+
+    private final Recorder latencyMicros = new Recorder(3);
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    UploadLoadGenerator(URI uploadUri, LoadTestConfig config) {
+        this.uploadUri = uploadUri;
+        this.config = config;
+        Random random = new Random(42);
+        for (ImageSpec spec : config.mix()) {
+            byte[] image = generateImage(spec, random);
+            for (int i = 0; i < spec.weight(); i++) {
+                payloads.add(new Payload("load." + spec.format(), contentType(spec.format()), image));
+            }
+        }
+    }
+
+    /**
+     * Drives load for the warmup period, resets the counters, then drives load for the measured duration.
+     *
+     * @return measured upload results
+     * @throws InterruptedException if interrupted while running
+     */
+    Result run() throws InterruptedException {
+        long measureStart = System.nanoTime() + config.warmup().toNanos();
+        long end = measureStart + config.duration().toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(config.concurrency(),
+                Thread.ofPlatform().name("load-client-", 0).factory());
+        for (int i = 0; i < config.concurrency(); i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    upload();
+                }
+            });
+        }
+
+        Thread.sleep(config.warmup().toMillis());
+        latencyMicros.reset();
+        succeeded.set(0);
+        failed.set(0);
+        bytesSent.set(0);
+
+        clients.shutdown();
+        clients.awaitTermination(config.duration().toMillis() + 60_000, TimeUnit.MILLISECONDS);
+
+        return new Result(succeeded.get(), failed.get(), bytesSent.get(), latencyMicros.getIntervalHistogram());
+    }
+
+    private void upload() {
+        Payload payload = payloads.get(ThreadLocalRandom.current().nextInt(payloads.size()));
+        HttpRequest request = HttpRequest.newBuilder(uploadUri)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(payload)))
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            if (response.statusCode() == 200) {
+                succeeded.incrementAndGet();
+                bytesSent.addAndGet(payload.content().length);
+            } else {
+                failed.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failed.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] multipartBody(Payload payload) {
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"tasks\"\r\n\r\n"
+                + config.tasks() + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + payload.filename() + "\"\r\n"
+                + "Content-Type: " + payload.contentType() + "\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(payload.content().length + 512);
+        body.writeBytes(head.getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(payload.content());
+        body.writeBytes(tail.getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static byte[] generateImage(ImageSpec spec, Random random) {
+        int width = (int) Math.round(Math.sqrt(spec.megapixels() * 1_000_000 * 4 / 3));
+        int height = width * 3 / 4;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 200; i++) {
+                g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                g.fillOval(random.nextInt(width), random.nextInt(height), width / 20 + 1, height / 20 + 1);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (!ImageIO.write(image, spec.format(), out)) {
+                throw new IllegalArgumentException("No image writer available for format: " + spec.format());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentType(String format) {
+        return switch (format) {
+            case "jpg", "jpeg" -> "image/jpeg";
+            default -> "image/" + format;
+        };
+    }
+
+    private record Payload(String filename, String contentType, byte[] content) {
+    }
+
+    /**
+     * Measured upload results.
+     *
+     * @param succeeded     uploads answered with 200
+     * @param failed        uploads rejected or failed
+     * @param bytesSent     image bytes of successful uploads
+     * @param latencyMicros upload response time histogram in microseconds
+     */
+    record Result(long succeeded, long failed, long bytesSent, Histogram latencyMicros) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.photoblast.load;
+
+import com.photoblast.load.ResourceSampler.Usage;
+import com.photoblast.load.UploadLoadGenerator.Result;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of upload, publish and processing.
+ * <p>
+ * Excluded from the regular build; run with {@code ./mvnw -Pload-test test}.
+ * Parameters are passed as {@code -Dload.*} system properties, see {@link LoadTestConfig}.
+ * Upload figures cover the measured period only; processing figures cover every job published
+ * during warmup and measurement. The report is printed and written as JSON to
+ * {@code target/load-test/report.json}.
+ * </p>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "spring.servlet.multipart.max-file-size=100MB",
+        "spring.servlet.multipart.max-request-size=100MB",
+        "photoblast.upload.throttle.enabled=false",
+        "photoblast.checkpoint.enabled=false",
+        "photoblast.dedup.enabled=false",
+        "logging.level.com.photoblast=WARN"
+})
+@Import(LoadTestInfrastructure.class)
+@DisplayName("Upload Load Test")
+class UploadLoadTest {
+
+    @TempDir
+    static Path storageDir;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private InProcessBroker broker;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("photoblast.storage.upload-dir", () -> storageDir.resolve("uploads").toString());
+        registry.add("photoblast.storage.processed-dir", () -> storageDir.resolve("processed").toString());
+        registry.add("photoblast.storage.thumbnail-dir", () -> storageDir.resolve("thumbnails").toString());
+    }
+
+    @Test
+    @DisplayName("Should sustain upload load and drain all published jobs")
+    void shouldSustainUploadLoad() throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        UploadLoadGenerator generator = new UploadLoadGenerator(
+                URI.create("http://localhost:" + port + "/api/photos/upload"), config);
+
+        Result result;
+        Usage usage;
+        boolean drained;
+        try (ResourceSampler sampler = new ResourceSampler()) {
+            result = generator.run();
+            drained = broker.awaitDrained(config.drainTimeout().toMillis());
+            usage = sampler.finish();
+        }
+
+        writeReport(config, report(config, result, usage));
+
+        assertThat(drained).as("all published jobs processed").isTrue();
+        assertThat(result.succeeded()).isPositive();
+        assertThat(broker.getFailed()).isZero();
+    }
+
+    private Map<String, Object> report(LoadTestConfig config, Result result, Usage usage) {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Histogram completion = broker.getCompletionLatencyMillis().getIntervalHistogram();
+
+        Map<String, Object> upload = new LinkedHashMap<>();
+        upload.put("succeeded", result.succeeded());
+        upload.put("failed", result.failed());
+        upload.put("throughputPerSecond", result.succeeded() / seconds);
+        upload.put("megabytesPerSecond", result.bytesSent() / seconds / (1024 * 1024));
+        upload.put("latencyMillis", percentiles(result.latencyMicros(), 1000.0));
+
+        Map<String, Object> processing = new LinkedHashMap<>();
+        processing.put("completed", broker.getCompleted());
+        processing.put("failed", broker.getFailed());
+        processing.put("maxQueueDepth", broker.getMaxDepth());
+        processing.put("completionLatencyMillis", percentiles(completion, 1.0));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("upload", upload);
+        report.put("processing", processing);
+        report.put("resources", usage);
+        return report;
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram, double unit) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("p50", histogram.getValueAtPercentile(50) / unit);
+        values.put("p95", histogram.getValueAtPercentile(95) / unit);
+        values.put("p99", histogram.getValueAtPercentile(99) / unit);
+        values.put("max", histogram.getMaxValue() / unit);
+        return values;
+    }
+
+    private static void writeReport(LoadTestConfig config, Map<String, Object> report) throws IOException {
+        String json = JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        System.out.println("Load test report:\n" + json);
+
+        Path dir = Files.createDirectories(Path.of(config.reportDir()));
+        Files.writeString(dir.resolve("report.json"), json);
+    }
+}
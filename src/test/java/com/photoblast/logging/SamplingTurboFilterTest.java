@@ -0,0 +1,110 @@
+package com.photoblast.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.status.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SamplingTurboFilter Unit Tests")
+class SamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private SamplingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SamplingTurboFilter();
+        filter.setContext(context);
+        filter.setRates("com.photoblast.service=10, com.photoblast.service.PhotoJobConsumer=2");
+        filter.start();
+    }
+
+    @Test
+    @DisplayName("Should keep one in N events of a sampled category")
+    void shouldKeepOneInN() {
+        assertThat(accepted("com.photoblast.service.ImageServiceImpl", Level.INFO, 100)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should apply the longest matching prefix")
+    void shouldApplyLongestPrefix() {
+        assertThat(accepted("com.photoblast.service.PhotoJobConsumer", Level.INFO, 100)).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should never sample warnings and errors")
+    void shouldNeverSampleFailures() {
+        assertThat(accepted("com.photoblast.service.ImageServiceImpl", Level.WARN, 100)).isEqualTo(100);
+        assertThat(accepted("com.photoblast.service.ImageServiceImpl", Level.ERROR, 100)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should not sample loggers outside every category")
+    void shouldNotSampleOtherLoggers() {
+        assertThat(accepted("com.photoblast.filter.IdempotencyFilter", Level.INFO, 100)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should not consume a sample for level checks without a message")
+    void shouldIgnoreLevelChecks() {
+        Logger logger = context.getLogger("com.photoblast.service.ImageServiceImpl");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter.decide(null, logger, Level.INFO, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+        }
+        assertThat(filter.decide(null, logger, Level.INFO, "message", null, null)).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    @DisplayName("Should not count events below the logger's level")
+    void shouldNotCountDisabledLevels() {
+        Logger logger = context.getLogger("com.photoblast.service.ImageServiceImpl");
+        logger.setLevel(Level.INFO);
+
+        long acceptedInfo = IntStream.range(0, 20)
+                .peek(i -> filter.decide(null, logger, Level.DEBUG, "received {}", new Object[]{i}, null))
+                .mapToObj(i -> filter.decide(null, logger, Level.INFO, "completed {}", new Object[]{i}, null))
+                .filter(reply -> reply == FilterReply.NEUTRAL)
+                .count();
+
+        assertThat(acceptedInfo).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should skip malformed rates and keep the valid ones")
+    void shouldSkipMalformedRates() {
+        filter.setRates("com.photoblast.filter=ten, com.photoblast.transport=-1, com.photoblast.service=10");
+
+        assertThat(accepted("com.photoblast.filter.IdempotencyFilter", Level.INFO, 100)).isEqualTo(100);
+        assertThat(accepted("com.photoblast.transport.RabbitJobListener", Level.INFO, 100)).isEqualTo(100);
+        assertThat(accepted("com.photoblast.service.ImageServiceImpl", Level.INFO, 100)).isEqualTo(10);
+        assertThat(context.getStatusManager().getCopyOfStatusList())
+                .extracting(Status::getMessage)
+                .anyMatch(message -> message.contains("com.photoblast.filter=ten"))
+                .anyMatch(message -> message.contains("com.photoblast.transport=-1"));
+    }
+
+    @Test
+    @DisplayName("Should disable sampling when no rates are configured")
+    void shouldDisableWhenBlank() {
+        filter.setRates("");
+
+        assertThat(accepted("com.photoblast.service.ImageServiceImpl", Level.INFO, 100)).isEqualTo(100);
+    }
+
+    private long accepted(String loggerName, Level level, int events) {
+        Logger logger = context.getLogger(loggerName);
+        return IntStream.range(0, events)
+                .mapToObj(i -> filter.decide(null, logger, level, "message {}", new Object[]{i}, null))
+                .filter(reply -> reply == FilterReply.NEUTRAL)
+                .count();
+    }
+}
@@ -0,0 +1,73 @@
+package com.photoblast.metrics;
+
+import com.photoblast.dto.JobStatsResponse.LatencySummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("SlidingWindowHistogram Unit Tests")
+class SlidingWindowHistogramTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private SlidingWindowHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new SlidingWindowHistogram(Duration.ofSeconds(10), 6, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should report count and percentiles of recorded values")
+    void shouldReportPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        LatencySummary summary = histogram.summarize(Duration.ofMinutes(1));
+
+        assertThat(summary.getCount()).isEqualTo(100);
+        assertThat(summary.getP50()).isCloseTo(50, within(1L));
+        assertThat(summary.getP95()).isCloseTo(95, within(1L));
+        assertThat(summary.getP99()).isCloseTo(99, within(1L));
+    }
+
+    @Test
+    @DisplayName("Should exclude values older than the requested window")
+    void shouldExcludeOldValues() {
+        histogram.record(500);
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        histogram.record(10);
+
+        assertThat(histogram.summarize(Duration.ofSeconds(10)).getCount()).isEqualTo(1);
+        assertThat(histogram.summarize(Duration.ofSeconds(10)).getP99()).isEqualTo(10);
+        assertThat(histogram.summarize(Duration.ofMinutes(1)).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reset a slot when the ring wraps around")
+    void shouldResetSlotOnWrapAround() {
+        histogram.record(500);
+        clock.addAndGet(Duration.ofSeconds(60).toMillis());
+        histogram.record(10);
+
+        LatencySummary summary = histogram.summarize(Duration.ofMinutes(1));
+
+        assertThat(summary.getCount()).isEqualTo(1);
+        assertThat(summary.getP50()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should return an empty summary when nothing was recorded")
+    void shouldReturnEmptySummary() {
+        LatencySummary summary = histogram.summarize(Duration.ofMinutes(1));
+
+        assertThat(summary.getCount()).isZero();
+        assertThat(summary.getP99()).isZero();
+    }
+}
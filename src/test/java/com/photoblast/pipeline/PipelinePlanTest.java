@@ -0,0 +1,143 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.image.Orientation;
+import com.photoblast.image.ResampleFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PipelinePlan Unit Tests")
+class PipelinePlanTest {
+
+    private static final ResampleFilter FILTER = ResampleFilter.AREA_AVERAGE;
+
+    @Test
+    @DisplayName("Compile - should fuse consecutive resizes into one scale")
+    void compileShouldFuseResizes() {
+        PipelinePlan plan = compile(1600, 1200, Orientation.NORMAL,
+                output("small", new ImageOperation.Resize(800, 800, null), new ImageOperation.Resize(100, 100, null)));
+
+        assertThat(steps(plan, "small")).containsExactly(new PipelinePlan.Scale(100, 75, FILTER));
+    }
+
+    @Test
+    @DisplayName("Compile - should fuse consecutive crops into one view of the source")
+    void compileShouldFuseCrops() {
+        PipelinePlan plan = compile(1000, 800, Orientation.NORMAL,
+                output("detail", new ImageOperation.Crop(100, 200, 600, 400), new ImageOperation.Crop(50, 50, 5000, 5000)));
+
+        assertThat(steps(plan, "detail")).containsExactly(new PipelinePlan.Crop(150, 250, 550, 350));
+    }
+
+    @Test
+    @DisplayName("Compile - should crop the scaled image when a crop follows a resize")
+    void compileShouldScaleBeforeLaterCrop() {
+        PipelinePlan plan = compile(1000, 500, Orientation.NORMAL,
+                output("square", new ImageOperation.Resize(200, 200, ResampleFilter.BICUBIC),
+                        new ImageOperation.Crop(50, 0, 100, 100)));
+
+        assertThat(steps(plan, "square")).containsExactly(
+                new PipelinePlan.Scale(200, 100, ResampleFilter.BICUBIC),
+                new PipelinePlan.Crop(50, 0, 100, 100));
+    }
+
+    @Test
+    @DisplayName("Compile - should defer rotation past crop and scale")
+    void compileShouldDeferRotation() {
+        PipelinePlan plan = compile(400, 200, Orientation.NORMAL,
+                output("rotated", new ImageOperation.Rotate(90), new ImageOperation.Crop(0, 0, 200, 100),
+                        new ImageOperation.Resize(50, 50, null)));
+
+        assertThat(steps(plan, "rotated")).containsExactly(
+                new PipelinePlan.Crop(0, 0, 100, 200),
+                new PipelinePlan.Scale(25, 50, FILTER),
+                new PipelinePlan.Orient(Orientation.ROTATE_90));
+    }
+
+    @Test
+    @DisplayName("Compile - should compose auto-orientation with rotations and drop identities")
+    void compileShouldComposeOrientations() {
+        PipelinePlan plan = compile(300, 200, Orientation.ROTATE_90,
+                output("upright", new ImageOperation.AutoOrient()),
+                output("unchanged", new ImageOperation.AutoOrient(), new ImageOperation.Rotate(-90)));
+
+        assertThat(steps(plan, "upright")).containsExactly(new PipelinePlan.Orient(Orientation.ROTATE_90));
+        assertThat(steps(plan, "unchanged")).isEmpty();
+        assertThat(plan.getRoot().getOutputs()).extracting(OutputSpec::getName).containsExactly("unchanged");
+    }
+
+    @Test
+    @DisplayName("Compile - should draw watermarks after the pending steps")
+    void compileShouldApplyPendingStepsBeforeWatermark() {
+        PipelinePlan plan = compile(1000, 1000, Orientation.NORMAL,
+                output("marked", new ImageOperation.Rotate(180), new ImageOperation.Resize(500, 500, null),
+                        new ImageOperation.Watermark(0.5f), new ImageOperation.Resize(100, 100, null)));
+
+        assertThat(steps(plan, "marked")).containsExactly(
+                new PipelinePlan.Scale(500, 500, FILTER),
+                new PipelinePlan.Orient(Orientation.ROTATE_180),
+                new PipelinePlan.Watermark(0.5f),
+                new PipelinePlan.Scale(100, 100, FILTER));
+    }
+
+    @Test
+    @DisplayName("Compile - should share the steps of a common prefix between outputs")
+    void compileShouldShareCommonPrefix() {
+        ImageOperation crop = new ImageOperation.Crop(0, 0, 800, 800);
+        PipelinePlan plan = compile(1000, 800, Orientation.NORMAL,
+                output("large", crop, new ImageOperation.Resize(400, 400, null)),
+                output("small", crop, new ImageOperation.Resize(100, 100, null)),
+                output("square", crop));
+
+        assertThat(plan.stepCount()).isEqualTo(3);
+        assertThat(plan.getRoot().getChildren()).hasSize(1);
+        PipelinePlan.Node cropped = plan.getRoot().getChildren().getFirst();
+        assertThat(cropped.getOutputs()).extracting(OutputSpec::getName).containsExactly("square");
+        assertThat(cropped.getChildren()).extracting(PipelinePlan.Node::getStep).containsExactly(
+                new PipelinePlan.Scale(400, 400, FILTER),
+                new PipelinePlan.Scale(100, 100, FILTER));
+    }
+
+    @Test
+    @DisplayName("Compile - should reject a crop outside the image")
+    void compileShouldRejectCropOutsideImage() {
+        assertThatThrownBy(() -> compile(300, 200, Orientation.NORMAL,
+                output("nothing", new ImageOperation.Crop(300, 0, 10, 10))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nothing");
+    }
+
+    private static PipelinePlan compile(int width, int height, Orientation exif, OutputSpec... outputs) {
+        return PipelinePlan.compile(new ProcessingPipeline(List.of(outputs)), width, height, exif, FILTER, 0.3f);
+    }
+
+    private static OutputSpec output(String name, ImageOperation... operations) {
+        return new OutputSpec(name, OutputLocation.PROCESSED, List.of(operations), null, null);
+    }
+
+    private static List<PipelinePlan.Step> steps(PipelinePlan plan, String output) {
+        List<PipelinePlan.Step> steps = new ArrayList<>();
+        assertThat(find(plan.getRoot(), output, steps)).as("output %s", output).isTrue();
+        return steps;
+    }
+
+    private static boolean find(PipelinePlan.Node node, String output, List<PipelinePlan.Step> steps) {
+        if (node.getOutputs().stream().anyMatch(spec -> spec.getName().equals(output))) {
+            return true;
+        }
+        for (PipelinePlan.Node child : node.getChildren()) {
+            steps.add(child.getStep());
+            if (find(child, output, steps)) {
+                return true;
+            }
+            steps.removeLast();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.photoblast.pipeline;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.enums.ProcessingTask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PipelinePresets Unit Tests")
+class PipelinePresetsTest {
+
+    private final PipelinePresets presets = new PipelinePresets(new ImageProperties());
+
+    @Test
+    @DisplayName("Task tag - should name a single preset")
+    void taskTagShouldNameSinglePreset() {
+        assertThat(presets.taskTag(presets.of(List.of(ProcessingTask.WATERMARK)))).isEqualTo("watermark");
+    }
+
+    @Test
+    @DisplayName("Task tag - should join presets in task order whatever the requested order")
+    void taskTagShouldJoinPresetsInTaskOrder() {
+        ProcessingPipeline pipeline = presets.of(List.of(ProcessingTask.THUMBNAIL, ProcessingTask.RESIZE));
+
+        assertThat(presets.taskTag(pipeline)).isEqualTo("resize+thumbnail");
+    }
+
+    @Test
+    @DisplayName("Task tag - should be custom when any output is not a preset")
+    void taskTagShouldBeCustomForOtherOutputs() {
+        List<OutputSpec> outputs = new ArrayList<>(presets.of(List.of(ProcessingTask.RESIZE)).getOutputs());
+        outputs.add(new OutputSpec("resized", OutputLocation.PROCESSED,
+                List.of(new ImageOperation.Resize(10, 10, null)), "png", null));
+
+        assertThat(presets.taskTag(new ProcessingPipeline(outputs))).isEqualTo(PipelinePresets.CUSTOM);
+        assertThat(presets.taskTag(new ProcessingPipeline(List.of()))).isEqualTo(PipelinePresets.CUSTOM);
+    }
+}
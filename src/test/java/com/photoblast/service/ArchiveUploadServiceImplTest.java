@@ -0,0 +1,209 @@
+package com.photoblast.service;
+
+import com.photoblast.dto.ArchiveUploadResponse;
+import com.photoblast.dto.ArchiveUploadResponse.EntryError;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.ProcessingPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ArchiveUploadServiceImpl Unit Tests")
+class ArchiveUploadServiceImplTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3, 4, 5, 6};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    private static final ProcessingPipeline PIPELINE = new ProcessingPipeline(List.of(new OutputSpec("resized", null,
+            List.of(new ImageOperation.Resize(320, 240, null)), null, null)));
+
+    @Mock
+    private PhotoJobProducer photoJobProducer;
+
+    @Captor
+    private ArgumentCaptor<List<PhotoProcessingJob>> batchCaptor;
+
+    @TempDir
+    Path tempDir;
+
+    private ArchiveUploadServiceImpl archiveUploadService;
+
+    @BeforeEach
+    void setUp() {
+        archiveUploadService = new ArchiveUploadServiceImpl(photoJobProducer, new PhotoMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(archiveUploadService, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(archiveUploadService, "maxEntries", 100);
+        ReflectionTestUtils.setField(archiveUploadService, "maxEntryBytes", 64L);
+        ReflectionTestUtils.setField(archiveUploadService, "maxTotalBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(archiveUploadService, "publishBatchSize", 2);
+        ReflectionTestUtils.setField(archiveUploadService, "maxErrors", 100);
+    }
+
+    @Test
+    @DisplayName("Archive - should store images, reject other entries and publish in batches")
+    void archiveShouldStoreImagesAndRejectOthers() throws IOException {
+        List<List<String>> published = new ArrayList<>();
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenAnswer(invocation -> {
+            published.add(invocation.<List<PhotoProcessingJob>>getArgument(0).stream().map(PhotoProcessingJob::getJobId).toList());
+            return Set.of();
+        });
+
+        byte[] archive = zip(
+                "photos/", null,
+                "photos/a.jpg", JPEG,
+                "photos/.DS_Store", new byte[]{1, 2, 3},
+                "__MACOSX/photos/._a.jpg", JPEG,
+                "photos/readme.txt", "hello".getBytes(),
+                "photos/b.png", PNG,
+                "photos/empty.jpg", new byte[0],
+                "photos/huge.jpg", Arrays.copyOf(JPEG, 65),
+                "photos/c.jpg", JPEG);
+
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(new ByteArrayInputStream(archive), PIPELINE);
+
+        assertThat(response.getEntries()).isEqualTo(6);
+        assertThat(response.getQueued()).isEqualTo(3);
+        assertThat(response.getRejected()).isEqualTo(3);
+        assertThat(response.isTruncated()).isFalse();
+        assertThat(response.getErrors()).extracting(EntryError::getName)
+                .containsExactly("photos/readme.txt", "photos/empty.jpg", "photos/huge.jpg");
+        assertThat(published).extracting(List::size).containsExactly(2, 1);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.map(p -> p.getFileName().toString()))
+                    .hasSize(3)
+                    .filteredOn(name -> name.endsWith(".png")).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Archive - should keep queued entries and report truncation for a malformed archive")
+    void archiveShouldStopAtMalformedData() throws IOException {
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenReturn(Set.of());
+        byte[] archive = zip("a.jpg", JPEG, "b.jpg", JPEG);
+        byte[] corrupt = Arrays.copyOf(archive, archive.length);
+        int second = indexOf(corrupt, "b.jpg".getBytes()) - 30;
+        corrupt[second + 8] = 99;
+
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(new ByteArrayInputStream(corrupt), PIPELINE);
+
+        assertThat(response.getQueued()).isEqualTo(1);
+        assertThat(response.isTruncated()).isTrue();
+        assertThat(response.getMessage()).startsWith("Invalid ZIP archive");
+    }
+
+    @Test
+    @DisplayName("Archive - should stop after the entry limit")
+    void archiveShouldStopAfterEntryLimit() throws IOException {
+        ReflectionTestUtils.setField(archiveUploadService, "maxEntries", 1);
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenReturn(Set.of());
+
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(
+                new ByteArrayInputStream(zip("a.jpg", JPEG, "b.jpg", JPEG)), PIPELINE);
+
+        assertThat(response.getEntries()).isEqualTo(1);
+        assertThat(response.getQueued()).isEqualTo(1);
+        assertThat(response.isTruncated()).isTrue();
+        verify(photoJobProducer, times(1)).sendPhotoProcessingJobs(batchCaptor.capture());
+        assertThat(batchCaptor.getValue()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Archive - should fail the request when no entry could be published")
+    void archiveShouldFailWhenNothingPublished() throws IOException {
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenThrow(new JobTransportException("down"));
+        byte[] archive = zip("a.jpg", JPEG, "b.jpg", JPEG, "c.jpg", JPEG);
+
+        assertThatThrownBy(() -> archiveUploadService.uploadArchive(new ByteArrayInputStream(archive), PIPELINE))
+                .isInstanceOf(JobTransportException.class);
+        verify(photoJobProducer, times(1)).sendPhotoProcessingJobs(anyList());
+    }
+
+    @Test
+    @DisplayName("Archive - should not publish when the archive holds no images")
+    void archiveShouldNotPublishWithoutImages() throws IOException {
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(
+                new ByteArrayInputStream(zip("notes.txt", "hello".getBytes())), PIPELINE);
+
+        assertThat(response.getQueued()).isZero();
+        assertThat(response.getRejected()).isEqualTo(1);
+        verify(photoJobProducer, never()).sendPhotoProcessingJobs(anyList());
+    }
+
+    @Test
+    @DisplayName("Archive - should list only the first errors and count the rest")
+    void archiveShouldCapListedErrors() throws IOException {
+        ReflectionTestUtils.setField(archiveUploadService, "maxErrors", 2);
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenReturn(Set.of());
+        String longName = "x".repeat(1000) + ".json";
+
+        ArchiveUploadResponse response = archiveUploadService.uploadArchive(new ByteArrayInputStream(zip(
+                longName, "{}".getBytes(), "a.jpg", JPEG, "a.json", "{}".getBytes(),
+                "b.json", "{}".getBytes(), "c.json", "{}".getBytes())), PIPELINE);
+
+        assertThat(response.getQueued()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(4);
+        assertThat(response.getErrors()).extracting(EntryError::getName).hasSize(2).containsExactly(
+                "x".repeat(253) + "...", "a.json");
+        assertThat(response.getOmittedErrors()).isEqualTo(2);
+    }
+
+    private static byte[] zip(Object... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                if (namesAndContents[i + 1] instanceof byte[] content) {
+                    zip.write(content);
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte[] target) {
+        outer:
+        for (int i = 0; i <= data.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (data[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
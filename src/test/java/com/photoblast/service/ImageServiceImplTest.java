@@ -0,0 +1,394 @@
+package com.photoblast.service;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.enums.OutputLocation;
+import com.photoblast.enums.ProcessingTask;
+import com.photoblast.exception.ImageProcessingException;
+import com.photoblast.image.ImageScaler;
+import com.photoblast.image.PixelBufferPool;
+import com.photoblast.image.ResampleFilter;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ImageServiceImpl Unit Tests")
+class ImageServiceImplTest {
+
+    private static final String PHOTO_ID = "photo-123";
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageProperties imageProperties;
+    private PixelBufferPool bufferPool;
+    private ImageServiceImpl imageService;
+    private PipelinePresets presets;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        imageProperties = new ImageProperties();
+        ReflectionTestUtils.setField(imageProperties, "processedDir", tempDir.resolve("processed").toString());
+        ReflectionTestUtils.setField(imageProperties, "thumbnailDir", tempDir.resolve("thumbnails").toString());
+        ReflectionTestUtils.setField(imageProperties, "resizeWidth", 320);
+        ReflectionTestUtils.setField(imageProperties, "resizeHeight", 240);
+        ReflectionTestUtils.setField(imageProperties, "thumbnailWidth", 50);
+        ReflectionTestUtils.setField(imageProperties, "thumbnailHeight", 50);
+        ReflectionTestUtils.setField(imageProperties, "watermarkPath", tempDir.resolve("watermark.png").toString());
+        ReflectionTestUtils.setField(imageProperties, "watermarkOpacity", 0.5f);
+        ReflectionTestUtils.setField(imageProperties, "resizeFilter", ResampleFilter.BICUBIC);
+        ReflectionTestUtils.setField(imageProperties, "thumbnailFilter", ResampleFilter.AREA_AVERAGE);
+
+        bufferPool = new PixelBufferPool(64L << 20, true, true, new PhotoMetrics(meterRegistry));
+        presets = new PipelinePresets(imageProperties);
+        imageService = new ImageServiceImpl(imageProperties, new PhotoMetrics(meterRegistry),
+                new ImageScaler(2, Long.MAX_VALUE, false, bufferPool), bufferPool, presets);
+    }
+
+    @Test
+    @DisplayName("Resize - should scale image within configured bounds keeping aspect ratio")
+    void resizeShouldScaleWithinBounds() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.jpg").toFile());
+        assertThat(output.getWidth()).isEqualTo(320);
+        assertThat(output.getHeight()).isEqualTo(160);
+    }
+
+    @Test
+    @DisplayName("Thumbnail - should write thumbnail into thumbnail directory")
+    void thumbnailShouldWriteIntoThumbnailDirectory() throws IOException {
+        Path source = writeImage("original.png", 200, 100, "png");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.THUMBNAIL));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("thumbnails").resolve(PHOTO_ID + "_thumb.png").toFile());
+        assertThat(output.getWidth()).isEqualTo(50);
+        assertThat(output.getHeight()).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("Resize - should use the parallel scaler for images above its size threshold")
+    void resizeShouldUseParallelScalerForLargeImages() throws IOException {
+        ImageScaler parallelScaler = new ImageScaler(2, 0, true, bufferPool);
+        imageService = new ImageServiceImpl(imageProperties, new PhotoMetrics(meterRegistry), parallelScaler,
+                bufferPool, presets);
+        Path source = writeImage("original.png", 800, 400, "png");
+
+        try {
+            imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE));
+        } finally {
+            parallelScaler.close();
+        }
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.png").toFile());
+        assertThat(output.getWidth()).isEqualTo(320);
+        assertThat(output.getHeight()).isEqualTo(160);
+        assertThat(output.getRGB(160, 80)).isEqualTo(Color.ORANGE.getRGB());
+    }
+
+    @Test
+    @DisplayName("Resize - should keep colors through the pooled JPEG decode and flattening")
+    void resizeShouldKeepJpegColors() throws IOException {
+        imageService = new ImageServiceImpl(imageProperties, new PhotoMetrics(meterRegistry),
+                new ImageScaler(1, 0, true, bufferPool), bufferPool, presets);
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE));
+
+        Color center = new Color(ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.jpg")
+                .toFile()).getRGB(160, 80));
+        assertThat(center.getRed()).isGreaterThan(240);
+        assertThat(center.getGreen()).isBetween(190, 210);
+        assertThat(center.getBlue()).isLessThan(15);
+    }
+
+    @Test
+    @DisplayName("Watermark - should composite watermark and keep original dimensions")
+    void watermarkShouldKeepOriginalDimensions() throws IOException {
+        Path source = writeImage("original.jpg", 300, 200, "jpg");
+        writeImage("watermark.png", 40, 20, "png");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.WATERMARK));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_watermarked.jpg").toFile());
+        assertThat(output.getWidth()).isEqualTo(300);
+        assertThat(output.getHeight()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Watermark - should draw the watermark onto the bottom right corner only")
+    void watermarkShouldDrawBottomRightCorner() throws IOException {
+        Path source = writeImage("original.png", 300, 200, "png");
+        BufferedImage watermark = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(watermark, "png", tempDir.resolve("watermark.png").toFile());
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.WATERMARK));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_watermarked.png").toFile());
+        Color corner = new Color(output.getRGB(290, 190));
+        assertThat(corner.getRed()).isBetween(125, 130);
+        assertThat(output.getRGB(250, 170)).isEqualTo(Color.ORANGE.getRGB());
+    }
+
+    @Test
+    @DisplayName("Buffers - should return every buffer leased by a task to the pool")
+    void processShouldReturnLeasedBuffers() throws IOException {
+        ReflectionTestUtils.setField(imageProperties, "thumbnailWidth", 200);
+        ReflectionTestUtils.setField(imageProperties, "thumbnailHeight", 200);
+        imageService = new ImageServiceImpl(imageProperties, new PhotoMetrics(meterRegistry),
+                new ImageScaler(1, 0, true, bufferPool), bufferPool, presets);
+        Path source = writeImage("original.png", 1200, 800, "png");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.THUMBNAIL));
+        long retained = bufferPool.getRetainedBytes();
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.THUMBNAIL));
+
+        assertThat(bufferPool.getLeasedBytes()).isZero();
+        assertThat(bufferPool.getRetainedBytes()).isEqualTo(retained).isPositive();
+        assertThat(meterRegistry.get(PhotoMetrics.BUFFER_POOL_REQUESTS).tag("result", "hit").counters())
+                .isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Watermark - should skip when watermark file is missing")
+    void watermarkShouldSkipWhenWatermarkMissing() throws IOException {
+        Path source = writeImage("original.jpg", 300, 200, "jpg");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.WATERMARK));
+
+        assertThat(tempDir.resolve("processed").resolve(PHOTO_ID + "_watermarked.jpg")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Pipeline - should read and decode the photo once for all outputs")
+    void pipelineShouldDecodeOnceForAllOutputs() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+        writeImage("watermark.png", 40, 20, "png");
+
+        imageService.process(source.toString(), PHOTO_ID, presets.of(List.of(ProcessingTask.values())));
+
+        assertThat(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.jpg")).exists();
+        assertThat(tempDir.resolve("processed").resolve(PHOTO_ID + "_watermarked.jpg")).exists();
+        assertThat(tempDir.resolve("thumbnails").resolve(PHOTO_ID + "_thumb.jpg")).exists();
+        for (String stage : new String[]{"read", "decode"}) {
+            assertThat(meterRegistry.get(PhotoMetrics.STAGE_TIMER).tags("stage", stage).timer().count())
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Pipeline - should crop, rotate and resize in the order the output lists them")
+    void pipelineShouldCropRotateAndResize() throws IOException {
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, 400, 200);
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 100);
+        g.dispose();
+        Path source = tempDir.resolve("quadrants.png");
+        ImageIO.write(image, "png", source.toFile());
+
+        imageService.process(source.toString(), PHOTO_ID, pipeline(new OutputSpec("left", OutputLocation.PROCESSED,
+                List.of(new ImageOperation.Crop(0, 0, 300, 200), new ImageOperation.Rotate(90),
+                        new ImageOperation.Resize(100, 150, null)), "png", null)));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_left.png").toFile());
+        assertThat(output.getWidth()).isEqualTo(100);
+        assertThat(output.getHeight()).isEqualTo(150);
+        assertThat(output.getRGB(75, 50)).isEqualTo(Color.RED.getRGB());
+        assertThat(output.getRGB(25, 50)).isEqualTo(Color.BLUE.getRGB());
+        assertThat(output.getRGB(75, 125)).isEqualTo(Color.BLUE.getRGB());
+    }
+
+    @Test
+    @DisplayName("Pipeline - should not let a watermark drawn in place show in outputs sharing its prefix")
+    void pipelineShouldCopyImagesStillReadByOtherOutputs() throws IOException {
+        Path source = writeImage("original.png", 800, 400, "png");
+        ImageIO.write(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), "png",
+                tempDir.resolve("watermark.png").toFile());
+        ImageOperation.Resize resize = new ImageOperation.Resize(320, 240, null);
+
+        imageService.process(source.toString(), PHOTO_ID, pipeline(
+                new OutputSpec("half", null, List.of(resize, new ImageOperation.Watermark(0.5f)), null, null),
+                new OutputSpec("full", null, List.of(resize, new ImageOperation.Watermark(1f)), null, null),
+                new OutputSpec("plain", null, List.of(resize), null, null)));
+
+        Path processed = tempDir.resolve("processed");
+        assertThat(new Color(ImageIO.read(processed.resolve(PHOTO_ID + "_half.png").toFile()).getRGB(310, 150))
+                .getRed()).isBetween(125, 130);
+        assertThat(new Color(ImageIO.read(processed.resolve(PHOTO_ID + "_full.png").toFile()).getRGB(310, 150))
+                .getRed()).isZero();
+        assertThat(ImageIO.read(processed.resolve(PHOTO_ID + "_plain.png").toFile()).getRGB(310, 150))
+                .isEqualTo(Color.ORANGE.getRGB());
+    }
+
+    @Test
+    @DisplayName("Pipeline - should report every written output with its size and checksum")
+    void pipelineShouldReportWrittenOutputs() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+        List<Path> paths = new ArrayList<>();
+
+        imageService.process(source.toString(), PHOTO_ID, presets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL)),
+                (output, path, length, checksum) -> {
+                    assertThat(path.getFileName().toString()).isEqualTo(PHOTO_ID + "_" + output.getName() + ".jpg");
+                    assertThat(new JobCheckpointStore.Checkpoint(path, length, checksum).verify()).isTrue();
+                    paths.add(path);
+                });
+
+        assertThat(paths).containsExactly(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.jpg"),
+                tempDir.resolve("thumbnails").resolve(PHOTO_ID + "_thumb.jpg"));
+    }
+
+    @Test
+    @DisplayName("Pipeline - should turn the image upright from its EXIF orientation")
+    void pipelineShouldApplyExifOrientation() throws IOException {
+        Path source = writeImage("original.jpg", 300, 200, "jpg");
+        Files.write(source, withExifOrientation(Files.readAllBytes(source), 6));
+
+        imageService.process(source.toString(), PHOTO_ID, pipeline(new OutputSpec("upright", null,
+                List.of(new ImageOperation.AutoOrient()), "png", null)));
+
+        BufferedImage output = ImageIO.read(tempDir.resolve("processed").resolve(PHOTO_ID + "_upright.png").toFile());
+        assertThat(output.getWidth()).isEqualTo(200);
+        assertThat(output.getHeight()).isEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("Pipeline - should skip only the watermarked outputs when the watermark file is missing")
+    void pipelineShouldSkipOnlyWatermarkedOutputs() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+
+        imageService.process(source.toString(), PHOTO_ID,
+                presets.of(List.of(ProcessingTask.RESIZE, ProcessingTask.WATERMARK)));
+
+        assertThat(tempDir.resolve("processed").resolve(PHOTO_ID + "_resized.jpg")).exists();
+        assertThat(tempDir.resolve("processed").resolve(PHOTO_ID + "_watermarked.jpg")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Metrics - should record every stage tagged with task and size class")
+    void metricsShouldRecordEveryStage() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+
+        imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE));
+
+        for (String stage : new String[]{"read", "decode", "scale", "encode", "write"}) {
+            assertThat(meterRegistry.get(PhotoMetrics.STAGE_TIMER)
+                    .tags("task", "resize", "stage", stage, "size", "tiny")
+                    .timer()
+                    .count()).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get(PhotoMetrics.BYTES_IN).tag("source", "resize").counter().count())
+                .isEqualTo(Files.size(source));
+        assertThat(meterRegistry.get(PhotoMetrics.BYTES_OUT).tag("task", "resize").counter().count())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("Metrics - should count failure with the stage that failed")
+    void metricsShouldCountFailureWithStage() throws IOException {
+        Path source = tempDir.resolve("not-an-image.jpg");
+        Files.writeString(source, "definitely not an image");
+
+        assertThatThrownBy(() -> imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE)))
+                .isInstanceOf(ImageProcessingException.class);
+
+        assertThat(meterRegistry.get(PhotoMetrics.FAILURES)
+                .tags("operation", "resize", "stage", "decode")
+                .counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("JFR - should emit task finished event with dimensions and bytes")
+    void jfrShouldEmitTaskFinishedEvent() throws IOException {
+        Path source = writeImage("original.jpg", 800, 400, "jpg");
+        Path recordingFile = tempDir.resolve("recording.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.photoblast.TaskFinished");
+            recording.start();
+            imageService.process(source.toString(), PHOTO_ID, preset(ProcessingTask.RESIZE));
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(e -> e.getEventType().getName().equals("com.photoblast.TaskFinished"))
+                .toList();
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("photoId")).isEqualTo(PHOTO_ID);
+        assertThat(event.getString("task")).isEqualTo("resized");
+        assertThat(event.getInt("width")).isEqualTo(800);
+        assertThat(event.getInt("height")).isEqualTo(400);
+        assertThat(event.getLong("bytesIn")).isEqualTo(Files.size(source));
+        assertThat(event.getBoolean("success")).isTrue();
+    }
+
+    private static ProcessingPipeline pipeline(OutputSpec... outputs) {
+        return new ProcessingPipeline(List.of(outputs));
+    }
+
+    /**
+     * Inserts an EXIF segment holding only the orientation tag after the JFIF segment.
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] exif = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34, 'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1, 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0};
+        int insertAt = 4 + ((jpeg[4] & 0xFF) << 8 | (jpeg[5] & 0xFF));
+        byte[] result = new byte[jpeg.length + exif.length];
+        System.arraycopy(jpeg, 0, result, 0, insertAt);
+        System.arraycopy(exif, 0, result, insertAt, exif.length);
+        System.arraycopy(jpeg, insertAt, result, insertAt + exif.length, jpeg.length - insertAt);
+        return result;
+    }
+
+    private ProcessingPipeline preset(ProcessingTask task) {
+        return presets.of(List.of(task));
+    }
+
+    private Path writeImage(String filename, int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+
+        Path path = tempDir.resolve(filename);
+        ImageIO.write(image, format, path.toFile());
+        return path;
+    }
+}
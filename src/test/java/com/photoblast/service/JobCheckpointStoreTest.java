@@ -0,0 +1,114 @@
+package com.photoblast.service;
+
+import com.photoblast.filter.RedisCircuitBreaker;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@DisplayName("JobCheckpointStore Unit Tests")
+class JobCheckpointStoreTest {
+
+    private static final String JOB_ID = "job-123";
+    private static final String KEY = JobCheckpointStore.REDIS_KEY_PREFIX + JOB_ID;
+
+    @TempDir
+    Path tempDir;
+
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private JobCheckpointStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        store = new JobCheckpointStore(redisTemplate,
+                new RedisCircuitBreaker(new PhotoMetrics(new SimpleMeterRegistry()), 5, 10000), true, 24);
+    }
+
+    @Test
+    @DisplayName("Record - should store the checkpoint in the job hash and load it back")
+    void recordShouldRoundTrip() throws IOException {
+        JobCheckpointStore.Checkpoint checkpoint = write("photo-1_resized.jpg", "resized output");
+
+        store.record(JOB_ID, "resized", checkpoint);
+
+        ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+        verify(hashOperations).put(eq(KEY), eq("resized"), value.capture());
+        verify(redisTemplate).expire(KEY, Duration.ofHours(24));
+
+        when(hashOperations.entries(KEY)).thenReturn(Map.of("resized", value.getValue(), "thumb", "garbage"));
+        assertThat(store.load(JOB_ID)).containsExactly(Map.entry("resized", checkpoint));
+    }
+
+    @Test
+    @DisplayName("Verify - should accept only an unchanged file")
+    void verifyShouldDetectChangedFiles() throws IOException {
+        JobCheckpointStore.Checkpoint checkpoint = write("photo-1_thumb.png", "thumbnail bytes");
+
+        assertThat(checkpoint.verify()).isTrue();
+
+        Files.writeString(checkpoint.path(), "thumbnail BYTES");
+        assertThat(checkpoint.verify()).isFalse();
+
+        Files.writeString(checkpoint.path(), "truncated");
+        assertThat(checkpoint.verify()).isFalse();
+
+        Files.delete(checkpoint.path());
+        assertThat(checkpoint.verify()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Redis failure - should load nothing and drop records instead of failing the job")
+    void redisFailureShouldDegrade() throws IOException {
+        when(hashOperations.entries(anyString())).thenThrow(new QueryTimeoutException("timeout"));
+        when(redisTemplate.expire(anyString(), any(Duration.class))).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThat(store.load(JOB_ID)).isEmpty();
+        store.record(JOB_ID, "resized", write("photo-1_resized.jpg", "resized output"));
+    }
+
+    @Test
+    @DisplayName("Disabled - should not call Redis")
+    void disabledShouldNotCallRedis() throws IOException {
+        store = new JobCheckpointStore(redisTemplate,
+                new RedisCircuitBreaker(new PhotoMetrics(new SimpleMeterRegistry()), 5, 10000), false, 24);
+
+        store.record(JOB_ID, "resized", write("photo-1_resized.jpg", "resized output"));
+
+        assertThat(store.load(JOB_ID)).isEmpty();
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private JobCheckpointStore.Checkpoint write(String name, String content) throws IOException {
+        Path path = Files.writeString(tempDir.resolve(name), content);
+        CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(path));
+        return new JobCheckpointStore.Checkpoint(path, Files.size(path), crc.getValue());
+    }
+}
@@ -0,0 +1,130 @@
+package com.photoblast.service;
+
+import com.photoblast.filter.RedisCircuitBreaker;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@DisplayName("JobDeduplicator Unit Tests")
+class JobDeduplicatorTest {
+
+    private static final String JOB_ID = "job-123";
+    private static final String KEY = JobDeduplicator.REDIS_KEY_PREFIX + JOB_ID;
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private JobDeduplicator deduplicator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        deduplicator = deduplicator(true, 1000);
+    }
+
+    @Test
+    @DisplayName("Completed - should mark the job in Redis with the configured TTL")
+    void completedShouldMarkJob() {
+        deduplicator.completed(JOB_ID);
+
+        verify(valueOperations).set(KEY, "1", Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("Duplicate - should drop a job Redis knows as completed and count the delivery")
+    void shouldDetectDuplicateFromRedis() {
+        when(redisTemplate.hasKey(KEY)).thenReturn(true);
+
+        assertThat(deduplicator.isDuplicate(JOB_ID)).isTrue();
+        assertThat(deduplicator.isDuplicate(JOB_ID)).isTrue();
+        assertThat(deduplicator.isDuplicate("job-456")).isFalse();
+
+        assertThat(deliveries("duplicate", "miss")).isEqualTo(1);
+        assertThat(deliveries("duplicate", "hit")).isEqualTo(1);
+        assertThat(deliveries("new", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Duplicate - should not drop a job the local filter reports unless Redis confirms it")
+    void shouldNotTrustFilterWhileRedisIsAvailable() {
+        deduplicator.completed(JOB_ID);
+        when(redisTemplate.hasKey(KEY)).thenReturn(false);
+
+        assertThat(deduplicator.isDuplicate(JOB_ID)).isFalse();
+        assertThat(deliveries("new", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Redis failure - should fall back to the local filter")
+    void redisFailureShouldUseFilter() {
+        when(redisTemplate.hasKey(anyString())).thenThrow(new QueryTimeoutException("timeout"));
+        doThrow(new QueryTimeoutException("timeout"))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+
+        deduplicator.completed(JOB_ID);
+
+        assertThat(deduplicator.isDuplicate(JOB_ID)).isTrue();
+        assertThat(deduplicator.isDuplicate("job-456")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Filter - should keep the previous generation when the current one fills up")
+    void filterShouldRotateGenerations() {
+        when(redisTemplate.hasKey(anyString())).thenThrow(new QueryTimeoutException("timeout"));
+        deduplicator = deduplicator(true, 100);
+
+        for (int i = 0; i < 150; i++) {
+            deduplicator.completed("job-" + i);
+        }
+        assertThat(deduplicator.isDuplicate("job-0")).isTrue();
+        assertThat(deduplicator.isDuplicate("job-149")).isTrue();
+
+        for (int i = 150; i < 300; i++) {
+            deduplicator.completed("job-" + i);
+        }
+        assertThat(deduplicator.isDuplicate("job-0")).isFalse();
+        assertThat(deduplicator.isDuplicate("job-299")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Disabled - should not call Redis")
+    void disabledShouldNotCallRedis() {
+        deduplicator = deduplicator(false, 1000);
+
+        deduplicator.completed(JOB_ID);
+
+        assertThat(deduplicator.isDuplicate(JOB_ID)).isFalse();
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private JobDeduplicator deduplicator(boolean enabled, int expectedJobs) {
+        PhotoMetrics photoMetrics = new PhotoMetrics(meterRegistry);
+        return new JobDeduplicator(redisTemplate, new RedisCircuitBreaker(photoMetrics, 5, 10000), photoMetrics,
+                enabled, 24, expectedJobs, 0.000001);
+    }
+
+    private double deliveries(String result, String filter) {
+        return meterRegistry.get(PhotoMetrics.JOB_DELIVERIES).tag("result", result).tag("filter", filter)
+                .counter().count();
+    }
+}
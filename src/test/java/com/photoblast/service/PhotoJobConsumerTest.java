@@ -0,0 +1,146 @@
+package com.photoblast.service;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.enums.ProcessingTask;
+import com.photoblast.metrics.JobLatencyTracker;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("PhotoJobConsumer Unit Tests")
+class PhotoJobConsumerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageService imageService;
+    private JobLatencyTracker jobLatencyTracker;
+    private JobCheckpointStore checkpointStore;
+    private JobDeduplicator jobDeduplicator;
+    private SimpleMeterRegistry meterRegistry;
+    private PipelinePresets presets;
+    private PhotoJobConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        imageService = mock(ImageService.class);
+        jobLatencyTracker = mock(JobLatencyTracker.class);
+        checkpointStore = mock(JobCheckpointStore.class);
+        jobDeduplicator = mock(JobDeduplicator.class);
+        meterRegistry = new SimpleMeterRegistry();
+        presets = new PipelinePresets(new ImageProperties());
+        consumer = new PhotoJobConsumer(imageService, jobLatencyTracker, presets, checkpointStore,
+                jobDeduplicator, new PhotoMetrics(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Checkpoint - should record every output the image service writes")
+    void shouldRecordWrittenOutputs() {
+        PhotoProcessingJob job = job(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL);
+        when(checkpointStore.load(job.getJobId())).thenReturn(Map.of());
+
+        consumer.processPhotoJob(job);
+
+        ArgumentCaptor<ImageService.OutputListener> listener = ArgumentCaptor.forClass(ImageService.OutputListener.class);
+        verify(imageService).process(eq(job.getOriginalPath()), eq(job.getPhotoId()), eq(job.getPipeline()),
+                listener.capture());
+        Path written = tempDir.resolve("photo_resized.jpg");
+        listener.getValue().outputWritten(job.getPipeline().getOutputs().getFirst(), written, 42, 7);
+        verify(checkpointStore).record(job.getJobId(), "resized", new JobCheckpointStore.Checkpoint(written, 42, 7));
+    }
+
+    @Test
+    @DisplayName("Redelivery - should only produce outputs whose checkpoint does not verify")
+    void shouldSkipVerifiedOutputs() throws IOException {
+        PhotoProcessingJob job = job(ProcessingTask.RESIZE, ProcessingTask.WATERMARK, ProcessingTask.THUMBNAIL);
+        JobCheckpointStore.Checkpoint resized = checkpoint("photo_resized.jpg", "resized");
+        JobCheckpointStore.Checkpoint watermarked = checkpoint("photo_watermarked.jpg", "watermarked");
+        Files.writeString(watermarked.path(), "torn");
+        when(checkpointStore.load(job.getJobId())).thenReturn(Map.of("resized", resized, "watermarked", watermarked));
+
+        consumer.processPhotoJob(job);
+
+        ArgumentCaptor<ProcessingPipeline> pipeline = ArgumentCaptor.forClass(ProcessingPipeline.class);
+        verify(imageService).process(any(), any(), pipeline.capture(), any());
+        assertThat(pipeline.getValue().outputNames()).containsExactly("watermarked", "thumb");
+        assertThat(meterRegistry.get(PhotoMetrics.CHECKPOINT_OUTPUTS).tag("result", "reused").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(PhotoMetrics.CHECKPOINT_OUTPUTS).tag("result", "invalid").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Redelivery - should complete without processing when every output verifies")
+    void shouldSkipJobWhenEveryOutputVerifies() throws IOException {
+        PhotoProcessingJob job = job(ProcessingTask.THUMBNAIL);
+        when(checkpointStore.load(job.getJobId()))
+                .thenReturn(Map.of("thumb", checkpoint("photo_thumb.jpg", "thumbnail")));
+
+        consumer.processPhotoJob(job);
+
+        verify(imageService, never()).process(any(), any(), any(), any());
+        verify(jobLatencyTracker).jobFinished(eq(job), eq(true), anyLong());
+        verify(jobLatencyTracker, never()).jobFinished(any(), eq(false), anyLong());
+        verify(jobLatencyTracker).taskFinished(eq("thumbnail"), anyBoolean(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Deduplication - should mark a job completed once its outputs are written")
+    void shouldMarkJobCompleted() {
+        PhotoProcessingJob job = job(ProcessingTask.THUMBNAIL);
+        when(checkpointStore.load(job.getJobId())).thenReturn(Map.of());
+
+        consumer.processPhotoJob(job);
+
+        verify(jobDeduplicator).completed(job.getJobId());
+    }
+
+    @Test
+    @DisplayName("Deduplication - should drop a duplicate delivery without processing or tracking it")
+    void shouldDropDuplicateDelivery() {
+        PhotoProcessingJob job = job(ProcessingTask.THUMBNAIL);
+        when(jobDeduplicator.isDuplicate(job.getJobId())).thenReturn(true);
+
+        consumer.processPhotoJob(job);
+
+        verify(checkpointStore, never()).load(any());
+        verify(imageService, never()).process(any(), any(), any(), any());
+        verify(jobLatencyTracker, never()).jobStarted(any());
+        verify(jobDeduplicator, never()).completed(any());
+    }
+
+    private PhotoProcessingJob job(ProcessingTask... tasks) {
+        return PhotoProcessingJob.create("photo", tempDir.resolve("photo.jpg").toString(), presets.of(List.of(tasks)));
+    }
+
+    private JobCheckpointStore.Checkpoint checkpoint(String name, String content) throws IOException {
+        Path path = Files.writeString(tempDir.resolve(name), content);
+        CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(path));
+        return new JobCheckpointStore.Checkpoint(path, Files.size(path), crc.getValue());
+    }
+}
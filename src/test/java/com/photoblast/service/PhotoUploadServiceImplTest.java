@@ -1,8 +1,15 @@
 package com.photoblast.service;
 
+import com.photoblast.config.ImageProperties;
+import com.photoblast.dto.BatchUploadResponse;
 import com.photoblast.dto.PhotoUploadResponse;
 import com.photoblast.enums.ProcessingTask;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.metrics.PhotoMetrics;
 import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.PipelinePresets;
+import com.photoblast.pipeline.ProcessingPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,11 +25,15 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("PhotoUploadServiceImpl Unit Tests")
@@ -31,18 +42,28 @@ class PhotoUploadServiceImplTest {
     @Mock
     private PhotoJobProducer photoJobProducer;
 
+    @Mock
+    private PlaceholderGenerator placeholderGenerator;
+
     @Captor
     private ArgumentCaptor<PhotoProcessingJob> jobCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<PhotoProcessingJob>> batchCaptor;
+
     @TempDir
     Path tempDir;
 
+    private final PipelinePresets presets = new PipelinePresets(new ImageProperties());
     private PhotoUploadServiceImpl photoUploadService;
 
     @BeforeEach
     void setUp() {
-        photoUploadService = new PhotoUploadServiceImpl(photoJobProducer);
+        photoUploadService = new PhotoUploadServiceImpl(photoJobProducer, new PhotoMetrics(new SimpleMeterRegistry()),
+                placeholderGenerator);
         ReflectionTestUtils.setField(photoUploadService, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(photoUploadService, "batchMaxFiles", 10);
+        ReflectionTestUtils.setField(photoUploadService, "batchStoreConcurrency", 4);
     }
 
     @Test
@@ -57,7 +78,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 emptyFile,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isFalse();
@@ -77,7 +98,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 fileWithNullContentType,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isFalse();
@@ -97,7 +118,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 textFile,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isFalse();
@@ -117,7 +138,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 pdfFile,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isFalse();
@@ -133,20 +154,34 @@ class PhotoUploadServiceImplTest {
                 MediaType.IMAGE_JPEG_VALUE,
                 "fake jpeg content".getBytes()
         );
-        List<ProcessingTask> tasks = List.of(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL);
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.RESIZE, ProcessingTask.THUMBNAIL);
 
-        PhotoUploadResponse response = photoUploadService.uploadPhoto(jpegFile, tasks);
+        PhotoUploadResponse response = photoUploadService.uploadPhoto(jpegFile, pipeline);
 
         assertThat(response.isSuccess()).isTrue();
         assertThat(response.getMessage()).isEqualTo("Photo uploaded successfully");
         assertThat(response.getJobId()).isNotNull();
         assertThat(response.getPhotoId()).isNotNull();
-        assertThat(response.getTasks()).isEqualTo(tasks);
+        assertThat(response.getOutputs()).isEqualTo(pipeline.outputNames());
 
         verify(photoJobProducer).sendPhotoProcessingJob(jobCaptor.capture());
         PhotoProcessingJob capturedJob = jobCaptor.getValue();
         assertThat(capturedJob.getPhotoId()).isEqualTo(response.getPhotoId());
-        assertThat(capturedJob.getTasks()).isEqualTo(tasks);
+        assertThat(capturedJob.getPipeline()).isEqualTo(pipeline);
+    }
+
+    @Test
+    @DisplayName("Placeholder - should return the placeholder of the stored file and carry it in the job")
+    void uploadShouldReturnPlaceholder() {
+        String placeholder = "L6PZfSi_.AyE_3t7t7R**0o#DgR4";
+        when(placeholderGenerator.generate(any())).thenReturn(placeholder);
+
+        PhotoUploadResponse response = photoUploadService.uploadPhoto(createTestImageFile(), pipeline(ProcessingTask.THUMBNAIL));
+
+        assertThat(response.getPlaceholder()).isEqualTo(placeholder);
+        verify(photoJobProducer).sendPhotoProcessingJob(jobCaptor.capture());
+        assertThat(jobCaptor.getValue().getPlaceholder()).isEqualTo(placeholder);
+        verify(placeholderGenerator).generate(Path.of(jobCaptor.getValue().getOriginalPath()));
     }
 
     @Test
@@ -158,9 +193,9 @@ class PhotoUploadServiceImplTest {
                 MediaType.IMAGE_PNG_VALUE,
                 "fake png content".getBytes()
         );
-        List<ProcessingTask> tasks = List.of(ProcessingTask.WATERMARK);
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.WATERMARK);
 
-        PhotoUploadResponse response = photoUploadService.uploadPhoto(pngFile, tasks);
+        PhotoUploadResponse response = photoUploadService.uploadPhoto(pngFile, pipeline);
 
         assertThat(response.isSuccess()).isTrue();
         verify(photoJobProducer).sendPhotoProcessingJob(any());
@@ -178,7 +213,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 gifFile,
-                List.of(ProcessingTask.THUMBNAIL)
+                pipeline(ProcessingTask.THUMBNAIL)
         );
 
         assertThat(response.isSuccess()).isTrue();
@@ -196,7 +231,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 jpegFile,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isTrue();
@@ -218,7 +253,7 @@ class PhotoUploadServiceImplTest {
 
         PhotoUploadResponse response = photoUploadService.uploadPhoto(
                 fileWithoutExtension,
-                List.of(ProcessingTask.RESIZE)
+                pipeline(ProcessingTask.RESIZE)
         );
 
         assertThat(response.isSuccess()).isTrue();
@@ -227,33 +262,100 @@ class PhotoUploadServiceImplTest {
     }
 
     @Test
-    @DisplayName("Tasks - should send job with single task")
+    @DisplayName("Tasks - should send job with the output of a single task")
     void tasksShouldSendJobWithSingleTask() {
         MockMultipartFile file = createTestImageFile();
-        List<ProcessingTask> tasks = List.of(ProcessingTask.RESIZE);
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.RESIZE);
 
-        photoUploadService.uploadPhoto(file, tasks);
+        photoUploadService.uploadPhoto(file, pipeline);
 
         verify(photoJobProducer).sendPhotoProcessingJob(jobCaptor.capture());
-        assertThat(jobCaptor.getValue().getTasks()).hasSize(1);
-        assertThat(jobCaptor.getValue().getTasks()).containsExactly(ProcessingTask.RESIZE);
+        assertThat(jobCaptor.getValue().getPipeline().outputNames()).containsExactly("resized");
     }
 
     @Test
-    @DisplayName("Tasks - should send job with multiple tasks")
+    @DisplayName("Tasks - should send job with one output per task")
     void tasksShouldSendJobWithMultipleTasks() {
         MockMultipartFile file = createTestImageFile();
-        List<ProcessingTask> tasks = List.of(
+        ProcessingPipeline pipeline = pipeline(
                 ProcessingTask.RESIZE,
                 ProcessingTask.THUMBNAIL,
                 ProcessingTask.WATERMARK
         );
 
-        photoUploadService.uploadPhoto(file, tasks);
+        photoUploadService.uploadPhoto(file, pipeline);
 
         verify(photoJobProducer).sendPhotoProcessingJob(jobCaptor.capture());
-        assertThat(jobCaptor.getValue().getTasks()).hasSize(3);
-        assertThat(jobCaptor.getValue().getTasks()).containsExactlyElementsOf(tasks);
+        assertThat(jobCaptor.getValue().getPipeline().outputNames()).containsExactly("resized", "thumb", "watermarked");
+    }
+
+    @Test
+    @DisplayName("Batch - should publish stored photos in one batch and report each file in order")
+    void batchShouldPublishStoredPhotosTogether() {
+        MockMultipartFile text = new MockMultipartFile("files", "notes.txt", MediaType.TEXT_PLAIN_VALUE, "text".getBytes());
+        ProcessingPipeline resize = pipeline(ProcessingTask.RESIZE);
+        ProcessingPipeline thumbnail = pipeline(ProcessingTask.THUMBNAIL);
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList())).thenReturn(Set.of());
+
+        BatchUploadResponse response = photoUploadService.uploadPhotos(
+                List.of(createTestImageFile(), text, createTestImageFile()),
+                List.of(resize, resize, thumbnail));
+
+        verify(photoJobProducer).sendPhotoProcessingJobs(batchCaptor.capture());
+        verify(photoJobProducer, never()).sendPhotoProcessingJob(any());
+        List<PhotoProcessingJob> jobs = batchCaptor.getValue();
+        assertThat(jobs).extracting(PhotoProcessingJob::getPipeline).containsExactly(resize, thumbnail);
+        assertThat(response.getTotal()).isEqualTo(3);
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(PhotoUploadResponse::isSuccess).containsExactly(true, false, true);
+        assertThat(response.getResults().get(1).getMessage()).isEqualTo("File must be an image");
+        assertThat(response.getResults().get(2).getJobId()).isEqualTo(jobs.get(1).getJobId());
+    }
+
+    @Test
+    @DisplayName("Batch - should report files whose job was not published as failed")
+    void batchShouldReportUnpublishedJobs() {
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.RESIZE);
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList()))
+                .thenAnswer(invocation -> Set.of(invocation.<List<PhotoProcessingJob>>getArgument(0).get(0).getJobId()));
+
+        BatchUploadResponse response = photoUploadService.uploadPhotos(
+                List.of(createTestImageFile(), createTestImageFile()), List.of(pipeline, pipeline));
+
+        assertThat(response.getSucceeded()).isEqualTo(1);
+        assertThat(response.getResults().get(0).isSuccess()).isFalse();
+        assertThat(response.getResults().get(0).getMessage()).isEqualTo("Failed to queue photo for processing");
+        assertThat(response.getResults().get(1).isSuccess()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Batch - should fail the request when no job could be published")
+    void batchShouldFailWhenNothingPublished() {
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.RESIZE);
+        when(photoJobProducer.sendPhotoProcessingJobs(anyList()))
+                .thenAnswer(invocation -> Set.copyOf(invocation.<List<PhotoProcessingJob>>getArgument(0).stream()
+                        .map(PhotoProcessingJob::getJobId).toList()));
+
+        assertThatThrownBy(() -> photoUploadService.uploadPhotos(List.of(createTestImageFile()), List.of(pipeline)))
+                .isInstanceOf(JobTransportException.class);
+    }
+
+    @Test
+    @DisplayName("Batch - should reject batches above the file limit")
+    void batchShouldRejectTooManyFiles() {
+        ReflectionTestUtils.setField(photoUploadService, "batchMaxFiles", 1);
+        ProcessingPipeline pipeline = pipeline(ProcessingTask.RESIZE);
+
+        BatchUploadResponse response = photoUploadService.uploadPhotos(
+                List.of(createTestImageFile(), createTestImageFile()), List.of(pipeline, pipeline));
+
+        assertThat(response.getSucceeded()).isZero();
+        assertThat(response.getMessage()).startsWith("Too many files");
+        verify(photoJobProducer, never()).sendPhotoProcessingJobs(anyList());
+    }
+
+    private ProcessingPipeline pipeline(ProcessingTask... tasks) {
+        return presets.of(List.of(tasks));
     }
 
     private MockMultipartFile createTestImageFile() {
@@ -0,0 +1,172 @@
+package com.photoblast.service;
+
+import com.photoblast.config.ImageProperties;
+import com.photoblast.metrics.PhotoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PlaceholderGenerator Unit Tests")
+class PlaceholderGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageProperties imageProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private PlaceholderGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        imageProperties = new ImageProperties();
+        ReflectionTestUtils.setField(imageProperties, "placeholderEnabled", true);
+        ReflectionTestUtils.setField(imageProperties, "placeholderBudgetMs", 5000L);
+        ReflectionTestUtils.setField(imageProperties, "placeholderSampleSize", 32);
+        ReflectionTestUtils.setField(imageProperties, "placeholderXComponents", 4);
+        ReflectionTestUtils.setField(imageProperties, "placeholderYComponents", 3);
+        meterRegistry = new SimpleMeterRegistry();
+        generator = new PlaceholderGenerator(imageProperties, new PhotoMetrics(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Generate - should hash a subsampled decode of a large photo")
+    void generateShouldHashLargePhoto() throws IOException {
+        Path photo = tempDir.resolve("photo.png");
+        ImageIO.write(halves(2000, 1500, Color.BLACK, Color.WHITE, false), "png", photo.toFile());
+
+        String hash = generator.generate(photo);
+
+        assertThat(hash).hasSize(28).startsWith("L");
+        assertThat(outcomes(PhotoMetrics.OUTCOME_SUCCESS)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Generate - should hash the photo as its EXIF orientation displays it")
+    void generateShouldApplyExifOrientation() throws IOException {
+        Path rotated = Files.write(tempDir.resolve("rotated.jpg"),
+                withExifOrientation(jpeg(halves(64, 48, Color.BLACK, Color.WHITE, false)), 6));
+        Path upright = Files.write(tempDir.resolve("upright.jpg"),
+                jpeg(halves(48, 64, Color.BLACK, Color.WHITE, true)));
+
+        assertThat(generator.generate(rotated)).isEqualTo(generator.generate(upright));
+    }
+
+    @Test
+    @DisplayName("Thumbnail - should hash the embedded EXIF thumbnail instead of decoding the photo")
+    void generateShouldPreferExifThumbnail() throws IOException {
+        byte[] thumbnail = jpeg(halves(40, 30, Color.RED, Color.BLUE, false));
+        Path photo = Files.write(tempDir.resolve("photo.jpg"),
+                withExifThumbnail(jpeg(halves(400, 300, Color.BLACK, Color.WHITE, true)), thumbnail));
+        Path expected = Files.write(tempDir.resolve("thumbnail.jpg"), thumbnail);
+
+        assertThat(generator.generate(photo)).isEqualTo(generator.generate(expected));
+    }
+
+    @Test
+    @DisplayName("Generate - should return nothing for a file that is not an image")
+    void generateShouldFailForUnsupportedFile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("photo.jpg"), "not an image");
+
+        assertThat(generator.generate(file)).isNull();
+        assertThat(outcomes(PhotoMetrics.OUTCOME_FAILURE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Budget - should return nothing once the budget runs out")
+    void generateShouldGiveUpAfterBudget() throws IOException {
+        ReflectionTestUtils.setField(imageProperties, "placeholderBudgetMs", 0L);
+        Path photo = tempDir.resolve("photo.png");
+        ImageIO.write(halves(2000, 1500, Color.BLACK, Color.WHITE, false), "png", photo.toFile());
+
+        assertThat(generator.generate(photo)).isNull();
+        assertThat(outcomes("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Disabled - should not read the photo")
+    void disabledShouldNotGenerate() {
+        ReflectionTestUtils.setField(imageProperties, "placeholderEnabled", false);
+
+        assertThat(generator.generate(tempDir.resolve("missing.jpg"))).isNull();
+        assertThat(meterRegistry.find(PhotoMetrics.UPLOAD_PLACEHOLDER).timer()).isNull();
+    }
+
+    private long outcomes(String outcome) {
+        return meterRegistry.get(PhotoMetrics.UPLOAD_PLACEHOLDER).tag("outcome", outcome).timer().count();
+    }
+
+    /**
+     * Paints the first color onto the left half, or the top half if split horizontally.
+     */
+    private static BufferedImage halves(int width, int height, Color first, Color second, boolean horizontal) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(second);
+        g.fillRect(0, 0, width, height);
+        g.setColor(first);
+        g.fillRect(0, 0, horizontal ? width : width / 2, horizontal ? height / 2 : height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts an EXIF segment holding an orientation tag and the given thumbnail after the JFIF segment.
+     */
+    private static byte[] withExifThumbnail(byte[] jpeg, byte[] thumbnail) {
+        int thumbnailOffset = 56;
+        ByteBuffer exif = ByteBuffer.allocate(10 + thumbnailOffset + thumbnail.length)
+                .putShort((short) 0xFFE1).putShort((short) (8 + thumbnailOffset + thumbnail.length))
+                .put(new byte[]{'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 42}).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) 1).putShort((short) 0)
+                .putInt(26)
+                .putShort((short) 2)
+                .putShort((short) 0x0201).putShort((short) 4).putInt(1).putInt(thumbnailOffset)
+                .putShort((short) 0x0202).putShort((short) 4).putInt(1).putInt(thumbnail.length)
+                .putInt(0)
+                .put(thumbnail);
+        return insertAfterJfif(jpeg, exif.array());
+    }
+
+    /**
+     * Inserts an EXIF segment holding only the orientation tag after the JFIF segment.
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] exif = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34, 'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1, 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0};
+        return insertAfterJfif(jpeg, exif);
+    }
+
+    private static byte[] insertAfterJfif(byte[] jpeg, byte[] exif) {
+        int insertAt = 4 + ((jpeg[4] & 0xFF) << 8 | (jpeg[5] & 0xFF));
+        byte[] result = new byte[jpeg.length + exif.length];
+        System.arraycopy(jpeg, 0, result, 0, insertAt);
+        System.arraycopy(exif, 0, result, insertAt, exif.length);
+        System.arraycopy(jpeg, insertAt, result, insertAt + exif.length, jpeg.length - insertAt);
+        return result;
+    }
+}
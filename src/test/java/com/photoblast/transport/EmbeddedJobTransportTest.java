@@ -0,0 +1,214 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.TransportProperties;
+import com.photoblast.exception.ImageProcessingException;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.ProcessingPipeline;
+import com.photoblast.service.PhotoJobConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static java.util.Objects.nonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("EmbeddedJobTransport Unit Tests")
+class EmbeddedJobTransportTest {
+
+    @TempDir
+    Path dir;
+
+    private final PhotoJobConsumer consumer = mock(PhotoJobConsumer.class);
+    private EmbeddedJobTransport transport;
+
+    @AfterEach
+    void tearDown() {
+        if (nonNull(transport) && transport.isRunning()) {
+            transport.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Publish - should deliver job to consumer")
+    void publishShouldDeliverToConsumer() {
+        transport = start(2);
+        PhotoProcessingJob job = job();
+
+        transport.publish(job);
+
+        verify(consumer, timeout(5000)).processPhotoJob(job);
+    }
+
+    @Test
+    @DisplayName("PublishAll - should deliver every job of a batch")
+    void publishAllShouldDeliverBatch() {
+        transport = start(2);
+        PhotoProcessingJob first = job();
+        PhotoProcessingJob second = job();
+
+        assertThat(transport.publishAll(List.of(first, second))).isEmpty();
+
+        verify(consumer, timeout(5000)).processPhotoJob(first);
+        verify(consumer, timeout(5000)).processPhotoJob(second);
+    }
+
+    @Test
+    @DisplayName("Publish - should reject jobs when not running")
+    void publishShouldRejectWhenStopped() {
+        transport = new EmbeddedJobTransport(properties(1), consumer, JsonMapper.builder().build());
+
+        assertThatThrownBy(() -> transport.publish(job()))
+                .isInstanceOf(JobTransportException.class);
+    }
+
+    @Test
+    @DisplayName("Restart - should redeliver jobs that were not processed")
+    void restartShouldRedeliverPendingJobs() {
+        transport = start(0);
+        PhotoProcessingJob job = job();
+        transport.publish(job);
+        transport.stop();
+
+        transport = start(1);
+
+        verify(consumer, timeout(5000)).processPhotoJob(job);
+    }
+
+    @Test
+    @DisplayName("Restart - should not redeliver processed jobs")
+    void restartShouldNotRedeliverProcessedJobs() {
+        transport = start(1);
+        PhotoProcessingJob job = job();
+        transport.publish(job);
+        verify(consumer, timeout(5000)).processPhotoJob(job);
+        transport.stop();
+
+        transport = start(1);
+
+        verify(consumer, after(500).times(1)).processPhotoJob(any());
+    }
+
+    @Test
+    @DisplayName("Failure - should dead-letter job after max attempts")
+    void failureShouldDeadLetterAfterMaxAttempts() throws Exception {
+        doThrow(new ImageProcessingException("boom")).when(consumer).processPhotoJob(any());
+        transport = start(1);
+        PhotoProcessingJob job = job();
+
+        transport.publish(job);
+
+        verify(consumer, timeout(5000).times(3)).processPhotoJob(job);
+        Path deadLetter = dir.resolve("dead-letter.log");
+        awaitCondition(() -> Files.exists(deadLetter));
+        assertThat(Files.readString(deadLetter)).contains(job.getJobId());
+
+        transport.stop();
+        transport = start(1);
+        verify(consumer, after(500).times(3)).processPhotoJob(any());
+    }
+
+    @Test
+    @DisplayName("Publish - should not block when the ring buffer is full")
+    void publishShouldNotBlockWhenRingIsFull() {
+        transport = start(0);
+
+        for (int i = 0; i < 40; i++) {
+            transport.publish(job());
+        }
+        assertThat(transport.publishAll(List.of(job(), job()))).isEmpty();
+
+        assertThat(transport.sampleQueue(EmbeddedJobTransport.QUEUE_NAME))
+                .hasValueSatisfying(stats -> assertThat(stats.getDepth()).isEqualTo(42));
+    }
+
+    @Test
+    @DisplayName("Restart - should redeliver a backlog larger than the ring buffer")
+    void restartShouldRedeliverLargeBacklog() {
+        transport = start(0);
+        for (int i = 0; i < 40; i++) {
+            transport.publish(job());
+        }
+        transport.stop();
+
+        transport = start(2);
+
+        verify(consumer, timeout(5000).times(40)).processPhotoJob(any());
+    }
+
+    @Test
+    @DisplayName("Failure - should keep consuming after a job throws an Error")
+    void failureShouldSurviveError() {
+        PhotoProcessingJob failing = job();
+        PhotoProcessingJob next = job();
+        doThrow(new OutOfMemoryError("decode")).when(consumer).processPhotoJob(failing);
+        transport = start(1);
+
+        transport.publish(failing);
+        transport.publish(next);
+
+        verify(consumer, timeout(5000).times(3)).processPhotoJob(failing);
+        verify(consumer, timeout(5000)).processPhotoJob(next);
+    }
+
+    @Test
+    @DisplayName("Sample - should report embedded queue with active consumers")
+    void sampleShouldReportEmbeddedQueue() throws InterruptedException {
+        transport = start(2);
+
+        awaitCondition(() -> transport.getLocalConsumerCount() == 2);
+        assertThat(transport.getQueueNames()).containsExactly(EmbeddedJobTransport.QUEUE_NAME);
+        assertThat(transport.sampleQueue(EmbeddedJobTransport.QUEUE_NAME))
+                .hasValueSatisfying(stats -> assertThat(stats.getConsumers()).isEqualTo(2));
+        assertThat(transport.sampleQueue("other")).isEmpty();
+        verify(consumer, never()).processPhotoJob(any());
+    }
+
+    private EmbeddedJobTransport start(int consumers) {
+        EmbeddedJobTransport started = new EmbeddedJobTransport(properties(consumers), consumer, JsonMapper.builder().build());
+        started.start();
+        return started;
+    }
+
+    private TransportProperties properties(int consumers) {
+        TransportProperties properties = new TransportProperties();
+        ReflectionTestUtils.setField(properties, "embeddedDir", dir.toString());
+        ReflectionTestUtils.setField(properties, "embeddedCapacity", 16);
+        ReflectionTestUtils.setField(properties, "embeddedConsumers", consumers);
+        ReflectionTestUtils.setField(properties, "embeddedMaxAttempts", 3);
+        ReflectionTestUtils.setField(properties, "embeddedSegmentSizeMb", 1);
+        ReflectionTestUtils.setField(properties, "embeddedFsync", true);
+        return properties;
+    }
+
+    private static PhotoProcessingJob job() {
+        return PhotoProcessingJob.create("photo-123", "/uploads/photo-123.jpg", new ProcessingPipeline(List.of(
+                new OutputSpec("resized", null, List.of(new ImageOperation.Resize(320, 240, null)), null, null))));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within timeout").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
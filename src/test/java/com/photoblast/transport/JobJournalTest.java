@@ -0,0 +1,162 @@
+package com.photoblast.transport;
+
+import com.photoblast.transport.JobJournal.PendingJob;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JobJournal Unit Tests")
+class JobJournalTest {
+
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should recover unacknowledged jobs in enqueue order after reopening")
+    void shouldRecoverUnacknowledgedJobs() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            journal.append("job-1", body("one"));
+            journal.append("job-2", body("two"));
+            journal.append("job-3", body("three"));
+            journal.ack("job-2");
+        }
+
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            List<PendingJob> pending = journal.read(Integer.MAX_VALUE);
+
+            assertThat(pending).extracting(PendingJob::jobId).containsExactly("job-1", "job-3");
+            assertThat(new String(pending.get(1).body(), StandardCharsets.UTF_8)).isEqualTo("three");
+            assertThat(journal.pendingCount()).isEqualTo(2);
+            assertThat(journal.read(Integer.MAX_VALUE)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should recover jobs appended as a batch")
+    void shouldRecoverBatchAppend() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            journal.append("job-1", body("one"));
+            journal.appendAll(List.of(new PendingJob("job-2", body("two")), new PendingJob("job-3", body("three"))));
+            journal.ack("job-1");
+            assertThat(journal.pendingCount()).isEqualTo(2);
+        }
+
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            assertThat(journal.read(Integer.MAX_VALUE)).extracting(PendingJob::jobId).containsExactly("job-2", "job-3");
+        }
+    }
+
+    @Test
+    @DisplayName("Should truncate a torn record at the end of a segment")
+    void shouldTruncateTornRecord() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            journal.append("job-1", body("one"));
+            journal.append("job-2", body("two"));
+        }
+        Path segment = segments().get(segments().size() - 1);
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.truncate(Files.size(segment) - 2);
+        }
+
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            assertThat(journal.read(Integer.MAX_VALUE)).extracting(PendingJob::jobId).containsExactly("job-1");
+        }
+    }
+
+    @Test
+    @DisplayName("Should delete rolled segments once all their jobs are acknowledged")
+    void shouldDeleteCompletedSegments() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, 64, false)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append("job-" + i, body("payload-" + i));
+            }
+            assertThat(segments()).hasSizeGreaterThan(1);
+
+            for (int i = 0; i < 5; i++) {
+                journal.ack("job-" + i);
+            }
+
+            assertThat(segments()).hasSize(1);
+            assertThat(journal.pendingCount()).isZero();
+        }
+
+        try (JobJournal journal = new JobJournal(dir, 64, false)) {
+            assertThat(journal.read(Integer.MAX_VALUE)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read jobs appended after the cursor caught up, across segments, skipping acked ones")
+    void shouldReadNewJobsAcrossSegments() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, 64, false)) {
+            assertThat(journal.read(10)).isEmpty();
+            for (int i = 0; i < 5; i++) {
+                journal.append("job-" + i, body("payload-" + i));
+            }
+            journal.ack("job-1");
+
+            assertThat(journal.read(2)).extracting(PendingJob::jobId).containsExactly("job-0", "job-2");
+            journal.append("job-5", body("payload-5"));
+            assertThat(journal.read(10)).extracting(PendingJob::jobId).containsExactly("job-3", "job-4", "job-5");
+            assertThat(journal.read(10)).isEmpty();
+            assertThat(journal.pendingCount()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a duplicate enqueue of a pending job")
+    void shouldIgnoreDuplicatePendingJob() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, 64, false)) {
+            journal.append("job-1", body("payload-1"));
+            journal.append("job-2", body("payload-2"));
+            journal.append("job-1", body("payload-1"));
+
+            assertThat(journal.read(10)).extracting(PendingJob::jobId).containsExactly("job-1", "job-2");
+            journal.ack("job-1");
+            journal.ack("job-2");
+
+            assertThat(journal.pendingCount()).isZero();
+            assertThat(segments()).hasSize(1);
+        }
+
+        try (JobJournal journal = new JobJournal(dir, 64, false)) {
+            assertThat(journal.read(10)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore acks for unknown jobs")
+    void shouldIgnoreUnknownAck() throws IOException {
+        try (JobJournal journal = new JobJournal(dir, SEGMENT_BYTES, true)) {
+            journal.append("job-1", body("one"));
+            journal.ack("job-unknown");
+            journal.ack("job-1");
+            journal.ack("job-1");
+
+            assertThat(journal.pendingCount()).isZero();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] body(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
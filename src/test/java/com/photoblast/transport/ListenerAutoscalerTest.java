@@ -0,0 +1,200 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.AutoscalerProperties;
+import com.photoblast.dto.JobStatsResponse.LatencySummary;
+import com.photoblast.metrics.JobLatencyTracker;
+import com.photoblast.metrics.PhotoMetrics;
+import com.photoblast.metrics.QueueMetricsSampler;
+import com.photoblast.transport.ListenerAutoscaler.Action;
+import com.photoblast.transport.ListenerAutoscaler.Decision;
+import com.photoblast.transport.ListenerAutoscaler.Sample;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ListenerAutoscaler Unit Tests")
+class ListenerAutoscalerTest {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+    private final QueueMetricsSampler queueMetricsSampler = mock(QueueMetricsSampler.class);
+    private final JobLatencyTracker jobLatencyTracker = mock(JobLatencyTracker.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AutoscalerProperties properties = new AutoscalerProperties();
+
+    private double cpuLoad;
+    private double freeHeap;
+    private ListenerAutoscaler autoscaler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(properties, "enabled", true);
+        ReflectionTestUtils.setField(properties, "minConsumers", 1);
+        ReflectionTestUtils.setField(properties, "maxConsumers", 8);
+        ReflectionTestUtils.setField(properties, "maxStep", 2);
+        ReflectionTestUtils.setField(properties, "targetDrainSeconds", 10);
+        ReflectionTestUtils.setField(properties, "idleUtilization", 0.3);
+        ReflectionTestUtils.setField(properties, "maxCpu", 0.85);
+        ReflectionTestUtils.setField(properties, "minFreeHeap", 0.15);
+        ReflectionTestUtils.setField(properties, "prefetchTargetMs", 1000L);
+        ReflectionTestUtils.setField(properties, "maxPrefetch", 50);
+        cpuLoad = 0.2;
+        freeHeap = 0.8;
+        autoscaler = new ListenerAutoscaler(listenerRegistry, queueMetricsSampler, jobLatencyTracker,
+                properties, new PhotoMetrics(meterRegistry), () -> cpuLoad, () -> freeHeap);
+    }
+
+    @Test
+    @DisplayName("Decide - should add at most max-step consumers for a backlog")
+    void decideShouldScaleUpForBacklog() {
+        Decision decision = autoscaler.decide(new Sample(1000, 1000, 100, 1.0, 0.2, 0.8));
+
+        assertThat(decision.consumers()).isEqualTo(3);
+        assertThat(decision.action()).isEqualTo(Action.UP);
+        assertThat(decision.reason()).isEqualTo("backlog");
+        assertThat(decision.prefetch()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Decide - should size for this node's share of a shared backlog")
+    void decideShouldSizeForLocalShare() {
+        setConsumers(2);
+
+        Decision shared = autoscaler.decide(new Sample(1000, 250, 100, 1.0, 0.2, 0.8));
+        Decision covered = autoscaler.decide(new Sample(1000, 200, 100, 1.0, 0.2, 0.8));
+
+        assertThat(shared.consumers()).isEqualTo(3);
+        assertThat(shared.reason()).isEqualTo("backlog");
+        assertThat(covered.consumers()).isEqualTo(2);
+        assertThat(covered.action()).isEqualTo(Action.HOLD);
+    }
+
+    @Test
+    @DisplayName("Decide - should hold under CPU pressure and shed a consumer under heap pressure")
+    void decideShouldRespectResourceLimits() {
+        setConsumers(4);
+
+        Decision cpu = autoscaler.decide(new Sample(1000, 1000, 100, 1.0, 0.9, 0.8));
+        Decision heap = autoscaler.decide(new Sample(1000, 1000, 100, 1.0, 0.2, 0.1));
+
+        assertThat(cpu.consumers()).isEqualTo(4);
+        assertThat(cpu.action()).isEqualTo(Action.HOLD);
+        assertThat(cpu.reason()).isEqualTo("cpu");
+        assertThat(heap.consumers()).isEqualTo(3);
+        assertThat(heap.action()).isEqualTo(Action.DOWN);
+        assertThat(heap.reason()).isEqualTo("heap");
+    }
+
+    @Test
+    @DisplayName("Free heap - should use old generation occupancy after the last collection")
+    void freeHeapShouldUseOccupancyAfterCollection() {
+        MemoryPoolMXBean eden = pool("G1 Eden Space", new MemoryUsage(0, 200, 300, -1), new MemoryUsage(0, 0, 300, -1));
+        MemoryPoolMXBean oldGen = pool("G1 Old Gen", new MemoryUsage(0, 950, 1000, 1000), new MemoryUsage(0, 300, 1000, 1000));
+        MemoryUsage heap = new MemoryUsage(0, 1150, 1300, 1300);
+
+        double free = ListenerAutoscaler.freeHeapFraction(List.of(eden, oldGen), heap);
+
+        assertThat(free).isCloseTo(0.7, within(1e-9));
+        assertThat(autoscaler.decide(new Sample(1000, 1000, 100, 1.0, 0.2, free)).reason()).isEqualTo("backlog");
+    }
+
+    @Test
+    @DisplayName("Free heap - should fall back to current heap usage without a collected old generation")
+    void freeHeapShouldFallBackToHeapUsage() {
+        MemoryPoolMXBean epsilon = pool("Epsilon Heap", new MemoryUsage(0, 900, 1000, 1000), null);
+
+        double free = ListenerAutoscaler.freeHeapFraction(List.of(epsilon), new MemoryUsage(0, 900, 1000, 1000));
+
+        assertThat(free).isCloseTo(0.1, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Decide - should remove one consumer when idle but not below the minimum")
+    void decideShouldScaleDownWhenIdle() {
+        setConsumers(2);
+
+        Decision idle = autoscaler.decide(new Sample(0, 0, 0, 0.1, 0.2, 0.8));
+        setConsumers(1);
+        Decision atMinimum = autoscaler.decide(new Sample(0, 0, 0, 0.1, 0.2, 0.8));
+
+        assertThat(idle.consumers()).isEqualTo(1);
+        assertThat(idle.action()).isEqualTo(Action.DOWN);
+        assertThat(idle.reason()).isEqualTo("idle");
+        assertThat(atMinimum.consumers()).isEqualTo(1);
+        assertThat(atMinimum.action()).isEqualTo(Action.HOLD);
+    }
+
+    @Test
+    @DisplayName("Decide - should keep prefetch at one for slow jobs and cap it for fast jobs")
+    void decideShouldSizePrefetchFromServiceTime() {
+        assertThat(autoscaler.decide(new Sample(5, 5, 4000, 0.5, 0.2, 0.8)).prefetch()).isEqualTo(1);
+        assertThat(autoscaler.decide(new Sample(5, 5, 2, 0.5, 0.2, 0.8)).prefetch()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Adjust - should pin container concurrency to the chosen consumer count")
+    void adjustShouldResizeContainer() {
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        when(listenerRegistry.getListenerContainer(RabbitJobListener.LISTENER_ID)).thenReturn(container);
+        when(queueMetricsSampler.getProcessingQueueDepth()).thenReturn(1000L);
+        when(queueMetricsSampler.getLocalProcessingQueueDepth()).thenReturn(1000L);
+        when(queueMetricsSampler.getConsumerUtilization()).thenReturn(1.0);
+        when(jobLatencyTracker.summarizeService(any(Duration.class))).thenReturn(new LatencySummary(50, 100, 200, 300));
+
+        autoscaler.adjust();
+
+        verify(container).setPrefetchCount(10);
+        verify(container).setConcurrency("3-3");
+        assertThat(meterRegistry.get(PhotoMetrics.AUTOSCALER_CONSUMERS).gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get(PhotoMetrics.AUTOSCALER_DECISIONS)
+                .tag("action", "up").tag("reason", "backlog").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Adjust - should do nothing when disabled")
+    void adjustShouldSkipWhenDisabled() {
+        ReflectionTestUtils.setField(properties, "enabled", false);
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        when(listenerRegistry.getListenerContainer(RabbitJobListener.LISTENER_ID)).thenReturn(container);
+
+        autoscaler.adjust();
+
+        verify(container, never()).setConcurrency(anyString());
+        verify(container, never()).setPrefetchCount(anyInt());
+    }
+
+    private static MemoryPoolMXBean pool(String name, MemoryUsage usage, MemoryUsage collectionUsage) {
+        MemoryPoolMXBean pool = mock(MemoryPoolMXBean.class);
+        when(pool.getName()).thenReturn(name);
+        when(pool.getType()).thenReturn(MemoryType.HEAP);
+        when(pool.isValid()).thenReturn(true);
+        when(pool.getUsage()).thenReturn(usage);
+        when(pool.getCollectionUsage()).thenReturn(collectionUsage);
+        return pool;
+    }
+
+    private void setConsumers(int consumers) {
+        ((AtomicInteger) ReflectionTestUtils.getField(autoscaler, "consumers")).set(consumers);
+    }
+}
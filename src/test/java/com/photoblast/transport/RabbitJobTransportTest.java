@@ -0,0 +1,118 @@
+package com.photoblast.transport;
+
+import com.photoblast.config.AffinityProperties;
+import com.photoblast.exception.JobTransportException;
+import com.photoblast.model.PhotoProcessingJob;
+import com.photoblast.pipeline.ImageOperation;
+import com.photoblast.pipeline.OutputSpec;
+import com.photoblast.pipeline.ProcessingPipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations.OperationsCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ConnectException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("RabbitJobTransport Unit Tests")
+class RabbitJobTransportTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private RabbitJobTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        transport = transport(false);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+    }
+
+    @Test
+    @DisplayName("PublishAll - should report jobs that were nacked or not confirmed in time")
+    void publishAllShouldReportUnconfirmedJobs() {
+        PhotoProcessingJob acked = job();
+        PhotoProcessingJob nacked = job();
+        PhotoProcessingJob unconfirmed = job();
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            if (correlation.getId().equals(acked.getJobId())) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+            } else if (correlation.getId().equals(nacked.getJobId())) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+            }
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+
+        assertThat(transport.publishAll(List.of(acked, nacked, unconfirmed)))
+                .containsExactlyInAnyOrder(nacked.getJobId(), unconfirmed.getJobId());
+    }
+
+    @Test
+    @DisplayName("PublishAll - should fail when no job could be sent")
+    void publishAllShouldFailWhenBrokerUnreachable() {
+        doAnswer(invocation -> {
+            throw new AmqpConnectException(new ConnectException("refused"));
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+
+        assertThatThrownBy(() -> transport.publishAll(List.of(job())))
+                .isInstanceOf(JobTransportException.class);
+    }
+
+    @Test
+    @DisplayName("Affinity - should route jobs tagged with a node to its queue")
+    void publishShouldRouteTaggedJobsToNodeQueue() {
+        transport = transport(true);
+
+        transport.publish(job().withNode("node-b"));
+        transport.publish(job());
+
+        verify(rabbitTemplate).convertAndSend(eq("photo.exchange"), eq("photo.process.node-b"), any(Object.class));
+        verify(rabbitTemplate).convertAndSend(eq("photo.exchange"), eq("photo.process"), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Affinity - should sample this node's queue before the shared queue")
+    void queueNamesShouldStartWithNodeQueue() {
+        assertThat(transport.getQueueNames()).containsExactly("job.photo.process", "job.photo.process.dlq");
+        assertThat(transport.getProcessingQueueNames()).containsExactly("job.photo.process");
+
+        transport = transport(true);
+
+        assertThat(transport.getQueueNames())
+                .containsExactly("job.photo.process.node-a", "job.photo.process", "job.photo.process.dlq");
+        assertThat(transport.getProcessingQueueNames())
+                .containsExactly("job.photo.process.node-a", "job.photo.process");
+    }
+
+    private RabbitJobTransport transport(boolean affinity) {
+        RabbitJobTransport transport = new RabbitJobTransport(rabbitTemplate, mock(AmqpAdmin.class),
+                mock(RabbitListenerEndpointRegistry.class),
+                new AffinityProperties(affinity, "node-a", "job.photo.process", "photo.process", 30000, 1000),
+                "job.photo.process", "job.photo.process.dlq");
+        ReflectionTestUtils.setField(transport, "photoExchange", "photo.exchange");
+        ReflectionTestUtils.setField(transport, "photoProcessRoutingKey", "photo.process");
+        ReflectionTestUtils.setField(transport, "confirmTimeoutMs", 200L);
+        return transport;
+    }
+
+    private static PhotoProcessingJob job() {
+        return PhotoProcessingJob.create("photo-123", "/uploads/photo-123.jpg", new ProcessingPipeline(List.of(
+                new OutputSpec("resized", null, List.of(new ImageOperation.Resize(320, 240, null)), null, null))));
+    }
+}